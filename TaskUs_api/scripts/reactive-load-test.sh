@@ -0,0 +1,60 @@
+#!/bin/sh
+# Read-load comparison: servlet API vs. reactive read API
+#
+# Usage (app running with app.reactive.enabled=true):
+#   scripts/reactive-load-test.sh [connections] [duration] [sse-connections]
+#
+# Needs wrk (https://github.com/wg/wrk) and curl. Runs the same scenario
+# (GET /api/todos for one user with 50 todos, over [connections]
+# keep-alive connections held open for the whole run) against:
+#   1. the servlet API
+#   2. the reactive API
+#   3. the reactive API again, with [sse-connections] idle SSE streams
+#      open on top (the servlet API has no SSE endpoint to compare)
+# and prints wrk's latency/throughput summary for each.
+#
+# Run the JVM with the same heap and CPU limits for both measurements,
+# and raise the open file limit (ulimit -n) above the connection count.
+set -e
+
+CONNECTIONS=${1:-2000}
+DURATION=${2:-60s}
+SSE=${3:-1000}
+THREADS=${LOAD_THREADS:-8}
+SERVLET=${SERVLET_URL:-http://localhost:8080}
+REACTIVE=${REACTIVE_URL:-http://localhost:8081}
+USER=load_$(date +%s)
+
+echo "Creating user $USER with 50 todos..."
+TOKEN=$(curl -sf -X POST "$SERVLET/api/auth/register" -H 'Content-Type: application/json' \
+    -d "{\"username\":\"$USER\",\"email\":\"$USER@example.com\",\"password\":\"password123\"}" \
+    | sed -n 's/.*"token":"\([^"]*\)".*/\1/p')
+for i in $(seq 50); do
+    curl -sf -X POST "$SERVLET/api/todos" -H "Authorization: Bearer $TOKEN" -H 'Content-Type: application/json' \
+        -d "{\"title\":\"Load todo $i\"}" > /dev/null
+done
+
+run() {
+    name=$1
+    base=$2
+    echo
+    echo "== $name ($base): $CONNECTIONS connections, $DURATION =="
+    wrk -t"$THREADS" -c"$CONNECTIONS" -d"$DURATION" --latency \
+        -H "Authorization: Bearer $TOKEN" "$base/api/todos"
+}
+
+run servlet "$SERVLET"
+run reactive "$REACTIVE"
+
+echo
+echo "Opening $SSE SSE connections on the reactive port..."
+pids=""
+for i in $(seq "$SSE"); do
+    curl -sN -H "Authorization: Bearer $TOKEN" "$REACTIVE/api/todos/stream" > /dev/null &
+    pids="$pids $!"
+done
+sleep 2
+
+run "reactive + $SSE SSE streams" "$REACTIVE"
+
+kill $pids 2> /dev/null || true
@@ -0,0 +1,58 @@
+#!/bin/sh
+# Startup benchmark - time from JVM launch to the first successful request
+#
+# Usage:
+#   mvn -Pfast-startup package && scripts/startup-benchmark.sh [runs]
+#
+# Needs the prod database variables (PGHOST, PGDATABASE, PGUSER,
+# PGPASSWORD, JWT_SECRET) in the environment. Compares:
+#   plain    java -jar
+#   aot      java -Dspring.aot.enabled=true -jar
+#   aot+cds  same, with an AppCDS archive from a training run
+set -e
+
+RUNS=${1:-5}
+PORT=${BENCH_PORT:-18080}
+JAR=$(ls target/*.jar | grep -v original | head -n 1)
+WORK=target/startup-benchmark
+
+rm -rf "$WORK"
+java -Djarmode=tools -jar "$JAR" extract --destination "$WORK" > /dev/null
+APP="$WORK/$(basename "$JAR")"
+
+# Training run for the CDS archive
+java -XX:ArchiveClassesAtExit="$WORK/app.jsa" -Dspring.aot.enabled=true \
+     -Dspring.context.exit=onRefresh -Dspring.profiles.active=prod -jar "$APP" > /dev/null 2>&1
+
+now_ms() {
+    date +%s%3N
+}
+
+# Launch the app with the given JVM flags and print ms until /api/auth/health answers
+measure() {
+    start=$(now_ms)
+    java "$@" -Dspring.profiles.active=prod -Dserver.port="$PORT" -jar "$APP" > /dev/null 2>&1 &
+    pid=$!
+    until curl -sf "http://localhost:$PORT/api/auth/health" > /dev/null; do
+        sleep 0.02
+    done
+    end=$(now_ms)
+    kill "$pid"
+    wait "$pid" 2> /dev/null || true
+    echo $((end - start))
+}
+
+report() {
+    name=$1
+    shift
+    total=0
+    for i in $(seq "$RUNS"); do
+        total=$((total + $(measure "$@")))
+    done
+    printf '%-10s %6d ms (avg of %d)\n' "$name" $((total / RUNS)) "$RUNS"
+}
+
+echo "Time to first request:"
+report plain -Dspring.aot.enabled=false
+report aot -Dspring.aot.enabled=true
+report aot+cds -XX:SharedArchiveFile="$WORK/app.jsa" -Dspring.aot.enabled=true
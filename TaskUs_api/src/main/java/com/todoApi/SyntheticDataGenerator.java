@@ -0,0 +1,350 @@
+package com.todoApi;
+
+import com.todoApi.service.PositionKeys;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * SyntheticDataGenerator - Builds large, realistic datasets for performance work
+ *
+ * Active only in the "datagen" profile (and with app.storage=jpa - the
+ * rows are inserted into the todos table), e.g.
+ *   SPRING_PROFILES_ACTIVE=h2,datagen \
+ *   APP_DATAGEN_USERS=10000 APP_DATAGEN_TODOS=10000000 java -jar app.jar
+ *
+ * What it generates:
+ * - M users sharing one BCrypt hash of "password123" (hashing M times would dominate)
+ * - N todos spread over users with a Zipf distribution: a few heavy users,
+ *   a long tail of light ones (app.datagen.skew, 0 = uniform)
+ * - Titles of 2-8 words, descriptions of 0-6 sentences (~30% empty)
+ * - Every column a todo written through the API has: a mix of completed
+ *   states (app.datagen.completed-ratio) with their completion time,
+ *   created/updated timestamps spread over the last two years, each
+ *   user's todos in manual order (position), due dates on ~25% and
+ *   reminders on half of those (sent already if in the past)
+ * - The todo_daily_stats rollup for the generated todos, as
+ *   StatsBackfillJob would rebuild it
+ * - Optionally app.datagen.tags tags ("tag-0" ... "tag-N"), tag i on
+ *   roughly 1 / (i + 2) of the todos, so a few tags are common and most
+ *   are rare - e.g. 50 tags to measure ?tags= filtering
+ *
+ * Rows go straight through batched JDBC inserts on parallel workers
+ * (each worker uses its own pooled connection). Rows per second are
+ * logged while running and at the end.
+ *
+ * Note: this bypasses TodoService on purpose - no outbox events or
+ * other side effects are produced for generated rows.
+ * On PostgreSQL add reWriteBatchedInserts=true to the JDBC URL so each
+ * batch becomes one multi-row INSERT.
+ */
+@Slf4j
+@Component
+@Profile("datagen")
+@ConditionalOnProperty(name = "app.storage", havingValue = "jpa", matchIfMissing = true)
+public class SyntheticDataGenerator implements CommandLineRunner {
+
+    private static final String[] WORDS = {
+            "buy", "call", "email", "fix", "review", "plan", "book", "clean", "write", "read",
+            "pay", "schedule", "prepare", "update", "finish", "organize", "order", "send", "check", "renew",
+            "groceries", "report", "dentist", "invoice", "meeting", "slides", "garage", "taxes", "budget", "flight",
+            "hotel", "car", "insurance", "laundry", "birthday", "gift", "presentation", "backlog", "roadmap", "docs",
+            "kitchen", "garden", "newsletter", "contract", "mom", "team", "client", "project", "bug", "release",
+            "weekly", "monthly", "quarterly", "urgent", "draft", "final", "new", "old", "shared", "personal"
+    };
+
+    private static final int[] PRIMES = { 7919, 104729, 1299709, 15485863, 179424673, 2038074743 };
+
+    private static final String TODO_INSERT =
+            "insert into todos (title, description, completed, completion_from_items, completed_at, position, " +
+            "due_at, remind_at, reminder_sent_at, created_at, updated_at, version, user_id) " +
+            "values (?, ?, ?, false, ?, ?, ?, ?, ?, ?, ?, 0, ?)";
+
+    private static final String STATS_INSERT =
+            "insert into todo_daily_stats (user_id, stat_date, created_count, completed_count) " +
+            "select user_id, d, sum(c), sum(k) from (" +
+            "select user_id, cast(created_at as date) d, 1 c, 0 k from todos where user_id between ? and ? " +
+            "union all " +
+            "select user_id, cast(completed_at as date) d, 0 c, 1 k from todos " +
+            "where user_id between ? and ? and completed = true" +
+            ") x group by user_id, d";
+
+    private static final String USER_INSERT =
+            "insert into users (username, email, password, created_at) values (?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PasswordEncoder passwordEncoder;
+    private final ConfigurableApplicationContext context;
+
+    @Value("${app.datagen.users:1000}")
+    private int userCount;
+
+    @Value("${app.datagen.todos:100000}")
+    private long todoCount;
+
+    @Value("${app.datagen.workers:4}")
+    private int workers;
+
+    @Value("${app.datagen.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${app.datagen.skew:1.1}")
+    private double skew;
+
+    @Value("${app.datagen.completed-ratio:0.6}")
+    private double completedRatio;
+
+    @Value("${app.datagen.tags:0}")
+    private int tagCount;
+
+    @Value("${app.datagen.exit-when-done:true}")
+    private boolean exitWhenDone;
+
+    public SyntheticDataGenerator(JdbcTemplate jdbcTemplate, PasswordEncoder passwordEncoder,
+            ConfigurableApplicationContext context) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.passwordEncoder = passwordEncoder;
+        this.context = context;
+    }
+
+    @Override
+    public void run(String... args) throws Exception {
+        long started = System.nanoTime();
+
+        long[] userIds = insertUsers();
+        log.info("Datagen: {} users inserted in {} ms", userIds.length, (System.nanoTime() - started) / 1_000_000);
+
+        long todosStarted = System.nanoTime();
+        insertTodos(userIds);
+        double seconds = (System.nanoTime() - todosStarted) / 1e9;
+        log.info("Datagen: {} todos inserted in {} s ({} rows/s, {} workers, batch {})",
+                todoCount, String.format("%.1f", seconds), Math.round(todoCount / seconds), workers, batchSize);
+
+        long statsStarted = System.nanoTime();
+        long statRows = jdbcTemplate.update(STATS_INSERT,
+                userIds[0], userIds[userIds.length - 1], userIds[0], userIds[userIds.length - 1]);
+        log.info("Datagen: {} daily stats rows inserted in {} ms",
+                statRows, (System.nanoTime() - statsStarted) / 1_000_000);
+
+        if (tagCount > 0) {
+            long tagsStarted = System.nanoTime();
+            long tagRows = insertTags(userIds);
+            log.info("Datagen: {} tag rows ({} tags) inserted in {} ms",
+                    tagRows, tagCount, (System.nanoTime() - tagsStarted) / 1_000_000);
+        }
+
+        if (exitWhenDone) {
+            System.exit(SpringApplication.exit(context, () -> 0));
+        }
+    }
+
+    /** Insert the users in batches and return their generated ids */
+    private long[] insertUsers() {
+        String run = Long.toString(System.currentTimeMillis(), 36);
+        String prefix = "gen_" + run + "_";
+        String password = passwordEncoder.encode("password123");
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+
+        List<Object[]> batch = new ArrayList<>(batchSize);
+        for (int i = 0; i < userCount; i++) {
+            batch.add(new Object[] { prefix + i, prefix + i + "@example.com", password, now });
+            if (batch.size() == batchSize) {
+                jdbcTemplate.batchUpdate(USER_INSERT, batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            jdbcTemplate.batchUpdate(USER_INSERT, batch);
+        }
+
+        return jdbcTemplate.queryForList("select id from users where username like ? order by id",
+                Long.class, prefix + "%").stream().mapToLong(Long::longValue).toArray();
+    }
+
+    /** Split the todos over the workers and wait for all of them */
+    private void insertTodos(long[] userIds) throws Exception {
+        double[] cumulative = zipfCumulative(userIds.length, skew);
+        AtomicLong inserted = new AtomicLong();
+        // Next position per user - the workers pick users at random, so they share the counters
+        AtomicLongArray positions = new AtomicLongArray(userIds.length);
+
+        ExecutorService pool = Executors.newFixedThreadPool(workers);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            long perWorker = todoCount / workers;
+            for (int w = 0; w < workers; w++) {
+                long rows = w == workers - 1 ? todoCount - perWorker * (workers - 1) : perWorker;
+                futures.add(pool.submit(() -> insertTodoRange(rows, userIds, cumulative, positions, inserted)));
+            }
+
+            long lastReport = System.nanoTime();
+            long lastCount = 0;
+            for (Future<?> future : futures) {
+                while (!future.isDone()) {
+                    Thread.sleep(200);
+                    long now = System.nanoTime();
+                    if (now - lastReport > 5_000_000_000L) {
+                        long count = inserted.get();
+                        log.info("Datagen: {} / {} todos ({} rows/s)", count, todoCount,
+                                Math.round((count - lastCount) / ((now - lastReport) / 1e9)));
+                        lastReport = now;
+                        lastCount = count;
+                    }
+                }
+                future.get();
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /** One worker: build and insert batches until its share is done */
+    private void insertTodoRange(long rows, long[] userIds, double[] cumulative, AtomicLongArray positions,
+            AtomicLong inserted) {
+        Random random = ThreadLocalRandom.current();
+        LocalDateTime now = LocalDateTime.now();
+        long twoYearsInMinutes = 2L * 365 * 24 * 60;
+
+        List<Object[]> batch = new ArrayList<>(batchSize);
+        for (long i = 0; i < rows; i++) {
+            LocalDateTime createdAt = now.minusMinutes((long) (random.nextDouble() * twoYearsInMinutes));
+            LocalDateTime updatedAt = createdAt.plusMinutes(random.nextInt(30 * 24 * 60));
+            if (updatedAt.isAfter(now)) {
+                updatedAt = now;
+            }
+
+            // A completed todo was last updated when it was completed
+            boolean completed = random.nextDouble() < completedRatio;
+            LocalDateTime dueAt = null;
+            LocalDateTime remindAt = null;
+            if (random.nextDouble() < 0.25) {
+                dueAt = createdAt.plusMinutes(random.nextInt(60 * 24 * 60));
+                remindAt = random.nextBoolean() ? dueAt.minusDays(1) : null;
+            }
+            int user = pickUser(cumulative, random);
+
+            batch.add(new Object[] {
+                    title(random),
+                    description(random),
+                    completed,
+                    completed ? Timestamp.valueOf(updatedAt) : null,
+                    PositionKeys.nth(positions.getAndIncrement(user)),
+                    timestamp(dueAt),
+                    timestamp(remindAt),
+                    remindAt != null && remindAt.isBefore(now) ? Timestamp.valueOf(remindAt) : null,
+                    Timestamp.valueOf(createdAt),
+                    Timestamp.valueOf(updatedAt),
+                    userIds[user]
+            });
+
+            if (batch.size() == batchSize) {
+                jdbcTemplate.batchUpdate(TODO_INSERT, batch);
+                inserted.addAndGet(batch.size());
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            jdbcTemplate.batchUpdate(TODO_INSERT, batch);
+            inserted.addAndGet(batch.size());
+        }
+    }
+
+    /**
+     * Tag the generated todos, one set-based INSERT ... SELECT per tag
+     * The id hash ((id * prime + offset) mod 1000) picks a different pseudo-random
+     * subset of todos for every tag
+     */
+    private long insertTags(long[] userIds) {
+        long minUser = userIds[0];
+        long maxUser = userIds[userIds.length - 1];
+        long rows = 0;
+        for (int i = 0; i < tagCount; i++) {
+            int perMille = Math.max(1, 1000 / (i + 2));
+            rows += jdbcTemplate.update(
+                    "insert into todo_tags (todo_id, tag) select id, ? from todos " +
+                            "where user_id between ? and ? and mod(id * ? + ?, 1000) < ?",
+                    "tag-" + i, minUser, maxUser, PRIMES[i % PRIMES.length], i * 137, perMille);
+        }
+        return rows;
+    }
+
+    /** Cumulative Zipf weights: user i gets weight 1 / (i + 1)^skew */
+    private static double[] zipfCumulative(int n, double skew) {
+        double[] cumulative = new double[n];
+        double sum = 0;
+        for (int i = 0; i < n; i++) {
+            sum += 1.0 / Math.pow(i + 1, skew);
+            cumulative[i] = sum;
+        }
+        for (int i = 0; i < n; i++) {
+            cumulative[i] /= sum;
+        }
+        return cumulative;
+    }
+
+    private static int pickUser(double[] cumulative, Random random) {
+        int index = Arrays.binarySearch(cumulative, random.nextDouble());
+        int user = index >= 0 ? index : -index - 1;
+        return Math.min(user, cumulative.length - 1);
+    }
+
+    private static Timestamp timestamp(LocalDateTime time) {
+        return time == null ? null : Timestamp.valueOf(time);
+    }
+
+    /** 2-8 words, capitalized, never longer than the 100 char column */
+    private static String title(Random random) {
+        int words = 2 + random.nextInt(7);
+        StringBuilder title = new StringBuilder();
+        for (int i = 0; i < words; i++) {
+            if (i > 0) {
+                title.append(' ');
+            }
+            title.append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        title.setCharAt(0, Character.toUpperCase(title.charAt(0)));
+        return title.length() > 100 ? title.substring(0, 100) : title.toString();
+    }
+
+    /** ~30% no description, otherwise 1-6 sentences of 4-12 words */
+    private static String description(Random random) {
+        if (random.nextDouble() < 0.3) {
+            return null;
+        }
+        int sentences = 1 + random.nextInt(6);
+        StringBuilder text = new StringBuilder();
+        for (int s = 0; s < sentences; s++) {
+            int words = 4 + random.nextInt(9);
+            int start = text.length();
+            for (int i = 0; i < words; i++) {
+                if (i > 0) {
+                    text.append(' ');
+                }
+                text.append(WORDS[random.nextInt(WORDS.length)]);
+            }
+            text.setCharAt(start, Character.toUpperCase(text.charAt(start)));
+            text.append(". ");
+        }
+        return text.toString().trim();
+    }
+}
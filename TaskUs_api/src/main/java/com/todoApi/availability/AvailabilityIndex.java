@@ -0,0 +1,283 @@
+package com.todoApi.availability;
+
+import com.todoApi.repository.UserRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * AvailabilityIndex - Which usernames and emails are taken, without asking
+ * the database every time
+ *
+ * Registration and the "is this name free?" check (GET /api/auth/available)
+ * would otherwise run existsByUsername/existsByEmail on every call, and
+ * signup bots call them a lot. Most names asked about are free, so two
+ * Bloom filters (usernames, emails) are kept in memory:
+ * - "definitely not taken" is answered from the filter alone
+ * - "possibly taken" is confirmed with the exact database check
+ * A name is never reported free when it is taken, so a filter miss can
+ * only cost an extra query, never a wrong answer.
+ *
+ * Lifecycle:
+ * - Loaded at startup, 10 000 users per query in id order - by an
+ *   ApplicationRunner, not while the context refreshes (the CDS training
+ *   run exits on refresh without a database); until then every check
+ *   goes to the database
+ * - Names of users registered here are added once their registration
+ *   commits
+ * - Every app.availability.sync-interval-ms the users after the last
+ *   synced id are read and added - this picks up registrations on the
+ *   other instances. Ids are handed out at insert, not at commit, so a
+ *   lower id can still commit after a higher one was read: the synced
+ *   id only moves up to users created more than
+ *   app.availability.sync-overlap-ms ago (longer than any registering
+ *   transaction), and the newer ones are read again by the next sync.
+ * - Deleted users can't be removed from a filter - their names stay
+ *   "possibly taken" and the exact check answers. When the estimated
+ *   false-positive rate (checked after each sync) passes twice the
+ *   target, the filters are rebuilt from the table. Registrations
+ *   during the rebuild go into both the old and the new filters.
+ *
+ * Values are matched exactly, like the database lookups.
+ *
+ * Metrics (Micrometer), tagged filter=username|email:
+ * - todo.availability.checks         result=free (filter only), taken, false-positive
+ *                                    observed FP rate = false-positive / (free + false-positive)
+ * - todo.availability.estimated-fpp  current estimate from the filter's fill
+ */
+@Slf4j
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class AvailabilityIndex implements ApplicationRunner {
+
+    private static final int LOAD_CHUNK = 10_000;
+
+    private record Filters(BloomFilter usernames, BloomFilter emails) {
+
+        void add(String username, String email) {
+            usernames.add(username);
+            emails.add(email);
+        }
+    }
+
+    private final UserRepository userRepository;
+    private final long expectedUsers;
+    private final double targetFpp;
+    private final Duration syncOverlap;
+
+    private final Counter usernameFree;
+    private final Counter usernameTaken;
+    private final Counter usernameFalsePositive;
+    private final Counter emailFree;
+    private final Counter emailTaken;
+    private final Counter emailFalsePositive;
+
+    /** null until loaded - every name is then "possibly taken" */
+    private volatile Filters current;
+    /** The filters being built by rebuild(), guarded by this */
+    private Filters rebuilding;
+    /** Every user up to this id is in the filters, guarded by loadLock */
+    private long syncedUpTo;
+    /** Keeps sync() and rebuild() from running at the same time */
+    private final Object loadLock = new Object();
+
+    public AvailabilityIndex(UserRepository userRepository, MeterRegistry meterRegistry,
+            @Value("${app.availability.expected-users:100000}") long expectedUsers,
+            @Value("${app.availability.false-positive-rate:0.01}") double targetFpp,
+            @Value("${app.availability.sync-overlap-ms:30000}") long syncOverlapMillis) {
+        this.userRepository = userRepository;
+        this.expectedUsers = expectedUsers;
+        this.targetFpp = targetFpp;
+        this.syncOverlap = Duration.ofMillis(syncOverlapMillis);
+
+        this.usernameFree = checks(meterRegistry, "username", "free");
+        this.usernameTaken = checks(meterRegistry, "username", "taken");
+        this.usernameFalsePositive = checks(meterRegistry, "username", "false-positive");
+        this.emailFree = checks(meterRegistry, "email", "free");
+        this.emailTaken = checks(meterRegistry, "email", "taken");
+        this.emailFalsePositive = checks(meterRegistry, "email", "false-positive");
+        Gauge.builder("todo.availability.estimated-fpp", this, index -> index.estimatedFpp(Filters::usernames))
+                .tag("filter", "username")
+                .register(meterRegistry);
+        Gauge.builder("todo.availability.estimated-fpp", this, index -> index.estimatedFpp(Filters::emails))
+                .tag("filter", "email")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        rebuild();
+    }
+
+    /** Is the username taken? Asks the database only if the filter can't rule it out */
+    public boolean isUsernameTaken(String username) {
+        return isTaken(username, Filters::usernames, userRepository::existsByUsername,
+                usernameFree, usernameTaken, usernameFalsePositive);
+    }
+
+    /** Is the email taken? Asks the database only if the filter can't rule it out */
+    public boolean isEmailTaken(String email) {
+        return isTaken(email, Filters::emails, userRepository::existsByEmail,
+                emailFree, emailTaken, emailFalsePositive);
+    }
+
+    /** Mark a new user's names as taken once the current transaction commits */
+    public void registered(String username, String email) {
+        afterCommit(() -> add(username, email));
+    }
+
+    /**
+     * Add the users registered since the last sync (on any instance),
+     * then rebuild if the filters have filled up past twice the target
+     * false-positive rate
+     */
+    @Scheduled(fixedDelayString = "${app.availability.sync-interval-ms:10000}",
+            initialDelayString = "${app.availability.sync-interval-ms:10000}")
+    public void sync() {
+        synchronized (loadLock) {
+            if (current == null) {
+                return; // not loaded yet, or the startup load failed - nothing to add to
+            }
+            long settled = settledId();
+            long users = readAfter(syncedUpTo, this::add);
+            syncedUpTo = Math.max(syncedUpTo, settled);
+            if (users > 0) {
+                log.debug("Availability index synced: {} users read, synced up to id {}", users, syncedUpTo);
+            }
+        }
+
+        double fpp = Math.max(estimatedFpp(Filters::usernames), estimatedFpp(Filters::emails));
+        if (fpp > targetFpp * 2) {
+            log.info("Availability index false-positive rate estimated at {}, rebuilding", fpp);
+            rebuild();
+        }
+    }
+
+    /**
+     * Build new filters from the users table and switch to them
+     * Sized for twice today's users (at least expected-users), so growth
+     * doesn't push the rate up right away.
+     */
+    public void rebuild() {
+        synchronized (loadLock) {
+            long started = System.nanoTime();
+            long capacity = Math.max(expectedUsers, userRepository.count() * 2);
+            Filters fresh = new Filters(new BloomFilter(capacity, targetFpp), new BloomFilter(capacity, targetFpp));
+            synchronized (this) {
+                rebuilding = fresh;
+            }
+
+            long settled = settledId();
+            long users;
+            try {
+                users = readAfter(0, fresh::add);
+            } catch (RuntimeException e) {
+                synchronized (this) {
+                    rebuilding = null;
+                }
+                throw e;
+            }
+
+            synchronized (this) {
+                current = fresh;
+                rebuilding = null;
+            }
+            syncedUpTo = settled;
+            log.info("Availability index built: {} users, {} KB per filter, {} hashes, estimated FP rate {} in {} ms",
+                    users, fresh.usernames().sizeInBytes() / 1024, fresh.usernames().hashCount(),
+                    estimatedFpp(Filters::usernames), (System.nanoTime() - started) / 1_000_000);
+        }
+    }
+
+    /** Add a user's names to the filters in use and to the ones being built */
+    private synchronized void add(String username, String email) {
+        if (current != null) {
+            current.add(username, email);
+        }
+        if (rebuilding != null) {
+            rebuilding.add(username, email);
+        }
+    }
+
+    /**
+     * Highest id whose registration has surely committed or rolled back:
+     * users created more than sync-overlap ago. Read before the users
+     * themselves, so every id up to it is in what is read next.
+     */
+    private long settledId() {
+        Long id = userRepository.findMaxIdCreatedBefore(LocalDateTime.now().minus(syncOverlap));
+        return id == null ? 0 : id;
+    }
+
+    /** Hand every user after an id to a consumer, in chunks - returns how many were read */
+    private long readAfter(long afterId, BiConsumer<String, String> consumer) {
+        long users = 0;
+        List<RegisteredNames> chunk;
+        do {
+            chunk = userRepository.findRegisteredNamesAfter(afterId, PageRequest.of(0, LOAD_CHUNK));
+            for (RegisteredNames names : chunk) {
+                consumer.accept(names.username(), names.email());
+                afterId = names.id();
+            }
+            users += chunk.size();
+        } while (chunk.size() == LOAD_CHUNK);
+        return users;
+    }
+
+    private boolean isTaken(String value, Function<Filters, BloomFilter> filter, Predicate<String> exactCheck,
+            Counter free, Counter taken, Counter falsePositive) {
+        Filters filters = current;
+        if (filters != null && !filter.apply(filters).mightContain(value)) {
+            free.increment();
+            return false;
+        }
+        boolean exists = exactCheck.test(value);
+        if (filters != null) {
+            (exists ? taken : falsePositive).increment();
+        }
+        return exists;
+    }
+
+    private double estimatedFpp(Function<Filters, BloomFilter> filter) {
+        Filters filters = current;
+        return filters == null ? 1.0 : filter.apply(filters).estimatedFpp();
+    }
+
+    private static Counter checks(MeterRegistry meterRegistry, String filter, String result) {
+        return Counter.builder("todo.availability.checks")
+                .tag("filter", filter)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
@@ -0,0 +1,105 @@
+package com.todoApi.availability;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * BloomFilter - A set of strings that can answer "definitely not in it"
+ *
+ * Each string sets k bits (picked by double hashing) in a bit array of m
+ * bits. mightContain() is false only if one of its bits is clear - then
+ * the string was certainly never added. If all are set it probably was,
+ * but other strings may have set those bits (a false positive).
+ * Strings can't be removed.
+ *
+ * m and k are chosen for an expected number of strings and a target
+ * false-positive rate p:  m = -n ln p / (ln 2)^2,  k = m/n ln 2.
+ * With more strings than expected the real rate climbs above p;
+ * estimatedFpp() tells how far, from the share of bits set.
+ *
+ * Safe for concurrent use: bits are only ever set, with compare-and-set.
+ */
+class BloomFilter {
+
+    private final AtomicLongArray words;
+    private final long bits;
+    private final int hashes;
+    private final AtomicLong bitsSet = new AtomicLong();
+
+    BloomFilter(long expectedEntries, double falsePositiveRate) {
+        long n = Math.max(1, expectedEntries);
+        long m = (long) Math.ceil(-n * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        // Whole 64-bit words; an int-indexed array of longs
+        long wordCount = Math.min(Integer.MAX_VALUE - 8, Math.max(1, (m + 63) / 64));
+        this.words = new AtomicLongArray((int) wordCount);
+        this.bits = wordCount * 64;
+        this.hashes = (int) Math.max(1, Math.round((double) bits / n * Math.log(2)));
+    }
+
+    void add(String value) {
+        long h1 = hash(value);
+        long h2 = mix(h1 ^ 0x9E3779B97F4A7C15L) | 1;
+        for (int i = 0; i < hashes; i++) {
+            long bit = Math.floorMod(h1 + i * h2, bits);
+            int word = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            long old;
+            do {
+                old = words.get(word);
+                if ((old & mask) != 0) {
+                    break;
+                }
+            } while (!words.compareAndSet(word, old, old | mask));
+            if ((old & mask) == 0) {
+                bitsSet.incrementAndGet();
+            }
+        }
+    }
+
+    boolean mightContain(String value) {
+        long h1 = hash(value);
+        long h2 = mix(h1 ^ 0x9E3779B97F4A7C15L) | 1;
+        for (int i = 0; i < hashes; i++) {
+            long bit = Math.floorMod(h1 + i * h2, bits);
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Chance that a string never added still passes mightContain():
+     * all k of its bits happen to be set, (bits set / m)^k
+     */
+    double estimatedFpp() {
+        return Math.pow((double) bitsSet.get() / bits, hashes);
+    }
+
+    long sizeInBytes() {
+        return bits / 8;
+    }
+
+    int hashCount() {
+        return hashes;
+    }
+
+    /** 64-bit FNV-1a over the chars, then the MurmurHash3 finalizer to spread the bits */
+    private static long hash(String value) {
+        long h = 0xCBF29CE484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            h ^= value.charAt(i);
+            h *= 0x100000001B3L;
+        }
+        return mix(h);
+    }
+
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,11 @@
+package com.todoApi.availability;
+
+/**
+ * RegisteredNames - A user's taken username and email, as loaded into AvailabilityIndex
+ *
+ * @param id       User id (the load walks the table in id order)
+ * @param username Taken username
+ * @param email    Taken email
+ */
+public record RegisteredNames(Long id, String username, String email) {
+}
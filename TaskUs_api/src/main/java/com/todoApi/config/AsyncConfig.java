@@ -0,0 +1,16 @@
+package com.todoApi.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableAsync;
+
+/**
+ * AsyncConfig - Turns on @Async methods
+ * (long-running work such as bulk deletes)
+ *
+ * Uses Spring Boot's applicationTaskExecutor,
+ * tuned with spring.task.execution.pool.*
+ */
+@Configuration
+@EnableAsync
+public class AsyncConfig {
+}
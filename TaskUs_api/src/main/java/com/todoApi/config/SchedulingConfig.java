@@ -0,0 +1,15 @@
+package com.todoApi.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * SchedulingConfig - Turns on @Scheduled background jobs
+ * (outbox relay, etc.)
+ *
+ * Pool size is set with spring.task.scheduling.pool.size
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
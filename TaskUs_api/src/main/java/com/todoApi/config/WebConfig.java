@@ -20,7 +20,7 @@ public class WebConfig implements WebMvcConfigurer {
                 )
                 .allowedMethods("GET", "POST", "PUT", "PATCH", "DELETE", "OPTIONS")
                 .allowedHeaders("*")
-                .exposedHeaders("Authorization")
+                .exposedHeaders("Authorization", "Idempotency-Replayed", "X-Has-More", "ETag", "X-Stale-Data", "Age")
                 .allowCredentials(true)
                 .maxAge(3600);
     }
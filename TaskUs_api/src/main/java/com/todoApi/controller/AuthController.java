@@ -1,9 +1,12 @@
 package com.todoApi.controller;
 
 import com.todoApi.dto.AuthResponse;
+import com.todoApi.dto.AvailabilityResponse;
 import com.todoApi.dto.LoginRequest;
+import com.todoApi.dto.RefreshRequest;
 import com.todoApi.dto.RegisterRequest;
 import com.todoApi.service.AuthService;
+import com.todoApi.sqlbudget.StatementBudget;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
@@ -16,6 +19,9 @@ import org.springframework.web.bind.annotation.*;
  * Endpoints:
  * - POST /api/auth/register - Create new user account
  * - POST /api/auth/login - Authenticate and get JWT token
+ * - POST /api/auth/refresh - Exchange a refresh token for new tokens
+ * - POST /api/auth/logout - Revoke the current tokens
+ * - GET /api/auth/available - Is a username/email still free?
  * 
  * These endpoints are PUBLIC (no authentication required)
  * They must be accessible before the user has a token!
@@ -54,6 +60,7 @@ public class AuthController {
      * @throws RuntimeException if username/email already exists (handled by
      *                          exception handler)
      */
+    @StatementBudget(3) // username check + email check (each only if possibly taken) + insert
     @PostMapping("/register")
     public ResponseEntity<AuthResponse> register(@Valid @RequestBody RegisterRequest request) {
         AuthResponse response = authService.register(request);
@@ -91,6 +98,7 @@ public class AuthController {
      * @throws RuntimeException if credentials invalid (handled by exception
      *                          handler)
      */
+    @StatementBudget(1)
     @PostMapping("/login")
     public ResponseEntity<AuthResponse> login(@Valid @RequestBody LoginRequest request) {
         AuthResponse response = authService.login(request);
@@ -99,6 +107,75 @@ public class AuthController {
         return ResponseEntity.ok(response);
     }
 
+    /**
+     * Get a new access token
+     * 
+     * Endpoint: POST /api/auth/refresh
+     * 
+     * Request body example:
+     * {
+     * "refreshToken": "eyJhbGciOiJIUzI1NiIsInR5cCI6IkpXVCJ9..."
+     * }
+     * 
+     * Response (200 OK): same shape as login, with a NEW refresh token.
+     * The old refresh token is revoked - each one works only once.
+     * 
+     * @param request The refresh token
+     * @return AuthResponse with new tokens
+     */
+    @StatementBudget(2) // user lookup + revocation insert
+    @PostMapping("/refresh")
+    public ResponseEntity<AuthResponse> refresh(@Valid @RequestBody RefreshRequest request) {
+        return ResponseEntity.ok(authService.refresh(request.getRefreshToken()));
+    }
+
+    /**
+     * Logout - revoke the access token (and refresh token if given)
+     * 
+     * Endpoint: POST /api/auth/logout
+     * Headers: Authorization: Bearer <access token>
+     * Optional body: { "refreshToken": "..." }
+     * 
+     * Response: 204 No Content
+     */
+    @StatementBudget(2) // revocation insert for the access + refresh token
+    @PostMapping("/logout")
+    public ResponseEntity<Void> logout(
+            @RequestHeader(value = "Authorization", required = false) String authorization,
+            @RequestBody(required = false) RefreshRequest request) {
+        String accessToken = authorization != null && authorization.startsWith("Bearer ")
+                ? authorization.substring(7)
+                : null;
+        String refreshToken = request != null ? request.getRefreshToken() : null;
+
+        authService.logout(accessToken, refreshToken);
+
+        return ResponseEntity.noContent().build();
+    }
+
+    /**
+     * Check whether a username and/or email can still be registered
+     * 
+     * Endpoint: GET /api/auth/available?username=john_doe&email=john@example.com
+     * 
+     * Response (200 OK):
+     * {
+     * "username": false,
+     * "email": true
+     * }
+     * 
+     * true means free. Either parameter may be left out (400 if both are).
+     * Backed by AvailabilityIndex: names that are certainly free don't
+     * touch the database.
+     */
+    @StatementBudget(2) // exact username/email check, each only if possibly taken
+    @GetMapping("/available")
+    public ResponseEntity<AvailabilityResponse> available(
+            @RequestParam(required = false) String username,
+            @RequestParam(required = false) String email) {
+        return ResponseEntity.ok(authService.checkAvailability(username, email));
+    }
+
     /**
      * Health check endpoint - verify auth service is running
      * 
@@ -107,6 +184,7 @@ public class AuthController {
      * This is useful for testing and monitoring
      * Returns a simple message to confirm the service is up
      */
+    @StatementBudget(0)
     @GetMapping("/health")
     public ResponseEntity<String> health() {
         return ResponseEntity.ok("Authentication service is running");
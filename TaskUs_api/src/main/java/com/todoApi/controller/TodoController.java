@@ -1,39 +1,174 @@
 package com.todoApi.controller;
 
+import com.todoApi.dto.ImportSummary;
+import com.todoApi.dto.MoveTodoRequest;
+import com.todoApi.dto.TodoLookupRequest;
+import com.todoApi.dto.TodoLookupResponse;
+import com.todoApi.dto.TodoStats;
+import com.todoApi.history.HistoryEntry;
+import com.todoApi.jsoncache.TodoJsonCache;
+import com.todoApi.model.ArchivedTodo;
 import com.todoApi.model.Todo;
+import com.todoApi.model.TodoItem;
+import com.todoApi.query.TodoQuery;
+import com.todoApi.query.TodoQueryService;
+import com.todoApi.resilience.StaleTodoListCache;
+import com.todoApi.service.IdempotencyStore;
+import com.todoApi.service.TodoImportService;
+import com.todoApi.service.TodoItemService;
 import com.todoApi.service.TodoService;
+import com.todoApi.service.TodoStatsService;
+import com.todoApi.sharing.ShareAcl;
+import com.todoApi.sharing.ShareGrant;
+import com.todoApi.sqlbudget.StatementBudget;
+import com.todoApi.tags.TagFilter;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.data.domain.Slice;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.security.core.Authentication;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.io.IOException;
+import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
 
 @RestController
 @RequestMapping("/api/todos")
 @RequiredArgsConstructor
 public class TodoController {
 
+    /** Optional request header that makes POST/PATCH safe to retry */
+    private static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+
+    /** Response header on paged lists: "true" if there is a next page */
+    public static final String HAS_MORE_HEADER = "X-Has-More";
+
     private final TodoService todoService;
+    private final IdempotencyStore idempotencyStore;
+    private final TodoImportService todoImportService;
+    private final TodoQueryService todoQueryService;
+    private final TodoStatsService todoStatsService;
+    private final TodoJsonCache todoJsonCache;
+    private final StaleTodoListCache staleTodoListCache;
+    private final TodoItemService todoItemService;
+    private final ShareAcl shareAcl;
+
+    @Value("${app.todos.default-page-size:50}")
+    private int defaultPageSize;
+
+    @Value("${app.todos.max-page-size:100}")
+    private int maxPageSize;
 
+    @Value("${app.todos.max-lookup-ids:200}")
+    private int maxLookupIds;
+
+    @StatementBudget(5) // user lock + last position + insert + tag insert (batched) + outbox insert
     @PostMapping
-    public ResponseEntity<Todo> createTodo(@Valid @RequestBody Todo todoData) {
+    public ResponseEntity<Todo> createTodo(@Valid @RequestBody Todo todoData,
+            @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey) {
         Long userId = getAuthenticatedUserId();
 
-        Todo createdTodo = todoService.createTodo(todoData, userId);
+        return idempotencyStore.execute(userId, idempotencyKey, "POST /api/todos", () -> {
+            Todo createdTodo = todoService.createTodo(todoData, userId);
 
-        return new ResponseEntity<>(createdTodo, HttpStatus.CREATED);
+            return ResponseEntity.status(HttpStatus.CREATED).eTag(etag(createdTodo)).body(createdTodo);
+        });
     }
 
+    /**
+     * List the user's todos
+     * 
+     * Endpoint: GET /api/todos?completed=true&tags=work,urgent|home
+     * tags: "," = AND, "|" = OR, e.g. (work AND urgent) OR home
+     * 
+     * Filtered, sorted and paged:
+     * GET /api/todos?q=completed:false,created>=2025-01-01,title:buy&sort=created:desc&page=0&size=50
+     * (see TodoQuery for the syntax). Only the requested page is returned;
+     * the X-Has-More response header says whether another page follows.
+     * Without q/sort/page/size the whole list is returned, as before.
+     * 
+     * Archived todos (old completed ones, see TodoArchiver) are left out
+     * unless includeArchived=true is given - they then follow the live
+     * todos, most recently completed first. includeArchived only works
+     * on the whole list, optionally with completed=.
+     * 
+     * include=items embeds each todo's checklist items ("items": [...]),
+     * loaded for the whole list in one query. Archived todos always
+     * carry theirs.
+     * 
+     * includeShared=true adds the todos of lists other users share with
+     * this one (see /api/shares), after the user's own, each marked with
+     * "sharedBy": { "ownerId", "ownerUsername", "permission" }. Works on
+     * the whole list, optionally with completed= and include=items.
+     */
+    @StatementBudget(5) // one select + one batched tag load (+ tag index build on first use, the archive query or the share lookup) (+ items); ?tags= matching over 1000 todos takes one select per 1000
     @GetMapping
-    public ResponseEntity<List<Todo>> getAllTodos(@RequestParam(required = false) Boolean completed) {
+    public void getAllTodos(@RequestParam(required = false) Boolean completed,
+            @RequestParam(defaultValue = "false") boolean includeArchived,
+            @RequestParam(defaultValue = "false") boolean includeShared,
+            @RequestParam(required = false) String include,
+            @RequestParam(required = false) String tags,
+            @RequestParam(required = false) String q,
+            @RequestParam(required = false) String sort,
+            @RequestParam(required = false) Integer page,
+            @RequestParam(required = false) Integer size,
+            HttpServletResponse response) throws IOException {
         Long userId = getAuthenticatedUserId();
 
+        boolean paged = q != null || sort != null || page != null || size != null;
+        if (includeArchived && (paged || tags != null)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "includeArchived can't be combined with q, sort, page, size or tags - use /api/todos/archive");
+        }
+        if (includeShared && (paged || tags != null || includeArchived)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "includeShared can't be combined with q, sort, page, size, tags or includeArchived");
+        }
+        boolean includeItems = "items".equals(include);
+        if (include != null && !includeItems) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "include only supports \"items\"");
+        }
+
+        if (paged) {
+            int pageNumber = page == null ? 0 : page;
+            int pageSize = size == null ? defaultPageSize : size;
+            if (pageNumber < 0 || pageSize < 1 || pageSize > maxPageSize) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                        "page must be >= 0 and size between 1 and " + maxPageSize);
+            }
+            checkOffset(pageNumber, pageSize);
+
+            TodoQuery query = TodoQuery.parse(q, sort).withCompleted(completed);
+            Slice<Todo> slice = todoQueryService.find(userId, query,
+                    tags != null ? TagFilter.parse(tags) : null, pageNumber, pageSize);
+
+            List<byte[]> fragments = todoJsonCache.fragments(slice.getContent());
+            if (includeItems) {
+                addItems(slice.getContent(), fragments);
+            }
+            jsonList(fragments, slice.hasNext(), response);
+            return;
+        }
+
         List<Todo> todos;
-        if (completed != null) {
+        if (tags != null) {
+            todos = todoService.getTodosByTags(userId, TagFilter.parse(tags), completed);
+        } else if (includeShared) {
+            todos = todoService.getTodosWithShared(userId, completed);
+        } else if (completed != null) {
             if (completed) {
                 todos = todoService.getCompletedTodosForUser(userId);
             } else {
@@ -43,54 +178,288 @@ public class TodoController {
             todos = todoService.getAllTodosForUser(userId);
         }
 
-        return new ResponseEntity<>(todos, HttpStatus.OK);
+        // Archived todos are all completed
+        List<ArchivedTodo> archived = includeArchived && !Boolean.FALSE.equals(completed)
+                ? todoService.getAllArchivedTodos(userId)
+                : List.of();
+
+        List<byte[]> fragments = todoJsonCache.fragments(todos);
+        if (includeItems) {
+            addItems(todos, fragments);
+        }
+        if (includeShared) {
+            addSharedBy(userId, todos, fragments);
+        }
+        if (!archived.isEmpty()) {
+            fragments.addAll(todoJsonCache.uncachedFragments(archived));
+        }
+        if (tags == null && completed == null && !includeArchived && !includeItems && !includeShared) {
+            // Kept as the fallback while the database is unavailable (see DatabaseBulkheadFilter)
+            staleTodoListCache.put(userId, fragments);
+        }
+
+        jsonList(fragments, null, response);
+    }
+
+    /**
+     * Add "items" to each todo's fragment - one query for all the todos' items
+     * The cached fragments stay without items (items don't bump the todo's version)
+     */
+    private void addItems(List<Todo> todos, List<byte[]> fragments) {
+        Map<Long, List<TodoItem>> itemsByTodo = todoItemService.getItemsByTodo(
+                todos.stream().map(Todo::getId).toList());
+        for (int i = 0; i < todos.size(); i++) {
+            fragments.set(i, todoJsonCache.withField(fragments.get(i), "items",
+                    itemsByTodo.getOrDefault(todos.get(i).getId(), List.of())));
+        }
+    }
+
+    /** Mark other users' todos with who shared them - from the cached shares, no query */
+    private void addSharedBy(Long userId, List<Todo> todos, List<byte[]> fragments) {
+        Map<Long, ShareGrant> grants = shareAcl.grantsTo(userId);
+        for (int i = 0; i < todos.size(); i++) {
+            Long ownerId = todos.get(i).getUser().getId();
+            if (!ownerId.equals(userId)) {
+                fragments.set(i, todoJsonCache.withField(fragments.get(i), "sharedBy", grants.get(ownerId)));
+            }
+        }
+    }
+
+    /**
+     * Write a list of todos from pre-serialized JSON (see TodoJsonCache)
+     * Fragments are collected by the caller (todos still attached) and
+     * written straight to the servlet response on the request thread. (Not
+     * a StreamingResponseBody: that is written on an async dispatch, which
+     * the stateless security chain rejects.)
+     */
+    private void jsonList(List<byte[]> fragments, Boolean hasMore, HttpServletResponse response)
+            throws IOException {
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        if (hasMore != null) {
+            response.setHeader(HAS_MORE_HEADER, Boolean.toString(hasMore));
+        }
+        TodoJsonCache.writeArray(fragments, response.getOutputStream());
     }
 
+    /**
+     * Get one todo
+     * 
+     * The response carries the todo's version as its ETag, e.g. ETag: "3".
+     * Send it back as If-Match on PUT/PATCH/toggle/DELETE to only change
+     * the todo if nobody else did in the meantime (412 otherwise).
+     * If-None-Match with the current ETag gets a 304 with no body.
+     */
+    @StatementBudget(2) // one select (+ share lookup on a cache miss, for someone else's todo)
     @GetMapping("/{id}")
     public ResponseEntity<Todo> getTodoById(@PathVariable Long id) {
         Long userId = getAuthenticatedUserId();
 
         Todo todo = todoService.getTodoById(id, userId);
 
-        return new ResponseEntity<>(todo, HttpStatus.OK);
+        return ResponseEntity.ok().eTag(etag(todo)).body(todo);
     }
 
+    @StatementBudget(7) // select + update + tag delete/insert (batched) + outbox insert (+ item done flags, share lookup)
     @PutMapping("/{id}")
-    public ResponseEntity<Todo> updateTodo(@PathVariable Long id, @Valid @RequestBody Todo updatedTodoData) {
+    public ResponseEntity<Todo> updateTodo(@PathVariable Long id, @Valid @RequestBody Todo updatedTodoData,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         Long userId = getAuthenticatedUserId();
 
-        Todo updatedTodo = todoService.updateTodo(id, userId, updatedTodoData);
+        Todo updatedTodo = versioned(ifMatch,
+                () -> todoService.updateTodo(id, userId, updatedTodoData, parseIfMatch(ifMatch)));
 
-        return new ResponseEntity<>(updatedTodo, HttpStatus.OK);
+        return ResponseEntity.ok().eTag(etag(updatedTodo)).body(updatedTodo);
     }
 
+    @StatementBudget(7) // select + update + tag delete/insert (batched) + outbox insert (+ item done flags, share lookup)
     @PatchMapping("/{id}")
-    public ResponseEntity<Todo> partiallyUpdateTodo(@PathVariable Long id, @RequestBody Todo updatedTodoData) {
+    public ResponseEntity<Todo> partiallyUpdateTodo(@PathVariable Long id, @RequestBody Todo updatedTodoData,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+            @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey) {
         Long userId = getAuthenticatedUserId();
 
-        Todo updatedTodo = todoService.updateTodo(id, userId, updatedTodoData);
+        return idempotencyStore.execute(userId, idempotencyKey, "PATCH /api/todos/" + id, () -> {
+            Todo updatedTodo = versioned(ifMatch,
+                    () -> todoService.updateTodo(id, userId, updatedTodoData, parseIfMatch(ifMatch)));
 
-        return new ResponseEntity<>(updatedTodo, HttpStatus.OK);
+            return ResponseEntity.ok().eTag(etag(updatedTodo)).body(updatedTodo);
+        });
     }
 
+    @StatementBudget(4) // select + outbox insert + tag delete + delete
     @DeleteMapping("/{id}")
-    public ResponseEntity<Void> deleteTodo(@PathVariable Long id) {
+    public ResponseEntity<Void> deleteTodo(@PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         Long userId = getAuthenticatedUserId();
 
-        todoService.deleteTodo(id, userId);
+        versioned(ifMatch, () -> {
+            todoService.deleteTodo(id, userId, parseIfMatch(ifMatch));
+            return null;
+        });
 
         return new ResponseEntity<>(HttpStatus.NO_CONTENT);
     }
 
+    /**
+     * Toggle is NOT naturally idempotent (a retry flips it back),
+     * so clients on flaky networks should send an Idempotency-Key
+     * (or an If-Match: a retry of an applied toggle then gets 412)
+     */
+    @StatementBudget(4) // select + update + outbox insert (+ share lookup)
     @PatchMapping("/{id}/toggle")
-    public ResponseEntity<Todo> toggleTodoCompletion(@PathVariable Long id) {
+    public ResponseEntity<Todo> toggleTodoCompletion(@PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+            @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey) {
+        Long userId = getAuthenticatedUserId();
+
+        return idempotencyStore.execute(userId, idempotencyKey, "PATCH /api/todos/" + id + "/toggle", () -> {
+            Todo updatedTodo = versioned(ifMatch,
+                    () -> todoService.toggleTodoCompletion(id, userId, parseIfMatch(ifMatch)));
+
+            return ResponseEntity.ok().eTag(etag(updatedTodo)).body(updatedTodo);
+        });
+    }
+
+    /**
+     * Move a todo in the user's manual order
+     * 
+     * Endpoint: PATCH /api/todos/{id}/move
+     * Body: { "afterId": 12 } - or { "afterId": null } for the top
+     * 
+     * Only the moved todo is updated, however long the list is
+     */
+    @StatementBudget(6) // user lock + todo + neighbour + next key + update + outbox insert
+    @PatchMapping("/{id}/move")
+    public ResponseEntity<Todo> moveTodo(@PathVariable Long id,
+            @RequestBody(required = false) MoveTodoRequest moveRequest) {
+        Long userId = getAuthenticatedUserId();
+
+        Long afterId = moveRequest != null ? moveRequest.getAfterId() : null;
+        Todo movedTodo = versioned(null, () -> todoService.moveTodo(id, userId, afterId));
+
+        return ResponseEntity.ok().eTag(etag(movedTodo)).body(movedTodo);
+    }
+
+    /**
+     * Bulk import todos for the authenticated user
+     * 
+     * Endpoint: POST /api/todos/import
+     * Content-Type: application/x-ndjson (one JSON todo per line)
+     *            or text/csv (header row: title,description,completed,tags - tags separated by '|')
+     * 
+     * The body is streamed - uploads of any size use constant memory.
+     * Response (200 OK): counts of accepted/rejected rows plus the first errors
+     */
+    @PostMapping(value = "/import", consumes = { "application/x-ndjson", "text/csv" })
+    public ResponseEntity<ImportSummary> importTodos(HttpServletRequest request) throws IOException {
+        Long userId = getAuthenticatedUserId();
+
+        MediaType contentType = MediaType.parseMediaType(request.getContentType());
+        TodoImportService.Format format = contentType.isCompatibleWith(MediaType.parseMediaType("text/csv"))
+                ? TodoImportService.Format.CSV
+                : TodoImportService.Format.NDJSON;
+
+        ImportSummary summary = todoImportService.importTodos(userId, request.getInputStream(), format);
+
+        return new ResponseEntity<>(summary, HttpStatus.OK);
+    }
+
+    /**
+     * Productivity statistics for the authenticated user
+     * 
+     * Endpoint: GET /api/todos/stats?from=2025-01-01&to=2025-01-31
+     * Defaults to the last 30 days (including today)
+     * 
+     * Response (200 OK): per-day created/completed counts and completion
+     * rates plus totals - see TodoStats. Served from the daily rollup
+     * table, never by aggregating the todos themselves.
+     */
+    @StatementBudget(1) // one primary key range scan on the rollup
+    @GetMapping("/stats")
+    public ResponseEntity<TodoStats> getStats(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        Long userId = getAuthenticatedUserId();
+
+        LocalDate end = to != null ? to : LocalDate.now();
+        LocalDate start = from != null ? from : end.minusDays(29);
+        TodoStats stats = todoStatsService.getStats(userId, start, end);
+
+        return new ResponseEntity<>(stats, HttpStatus.OK);
+    }
+
+    /**
+     * Fetch many todos by id in one request
+     * 
+     * Endpoint: POST /api/todos/lookup
+     * Body: { "ids": [42, 7, 1093] } - at most app.todos.max-lookup-ids ids
+     * 
+     * For clients resolving references (notifications, deep links...)
+     * instead of one GET /api/todos/{id} per todo: a single IN (...) query,
+     * restricted to the user's own todos.
+     * Response (200 OK): { "todos": [...in request order...], "missing": [7] }
+     */
+    @StatementBudget(2) // one select, tags joined (+ share lookup on a cache miss)
+    @PostMapping("/lookup")
+    public ResponseEntity<TodoLookupResponse> lookupTodos(@Valid @RequestBody TodoLookupRequest lookupRequest) {
+        Long userId = getAuthenticatedUserId();
+
+        if (lookupRequest.getIds().size() > maxLookupIds) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "At most " + maxLookupIds + " ids can be looked up at once");
+        }
+
+        TodoLookupResponse lookup = todoService.lookupTodos(userId, lookupRequest.getIds());
+
+        return new ResponseEntity<>(lookup, HttpStatus.OK);
+    }
+
+    /**
+     * Browse the user's archived todos
+     * 
+     * Endpoint: GET /api/todos/archive?page=0&size=50
+     * Most recently completed first; the X-Has-More response header says
+     * whether another page follows.
+     */
+    @StatementBudget(3) // one select + one batched tag load + one batched item load
+    @GetMapping("/archive")
+    public ResponseEntity<List<ArchivedTodo>> getArchivedTodos(@RequestParam(defaultValue = "0") int page,
+            @RequestParam(required = false) Integer size) {
+        Long userId = getAuthenticatedUserId();
+
+        int pageSize = size == null ? defaultPageSize : size;
+        if (page < 0 || pageSize < 1 || pageSize > maxPageSize) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "page must be >= 0 and size between 1 and " + maxPageSize);
+        }
+        checkOffset(page, pageSize);
+
+        Slice<ArchivedTodo> archived = todoService.getArchivedTodos(userId, page, pageSize);
+
+        return ResponseEntity.ok()
+                .header(HAS_MORE_HEADER, Boolean.toString(archived.hasNext()))
+                .body(archived.getContent());
+    }
+
+    /**
+     * Change history of a todo
+     * 
+     * Endpoint: GET /api/todos/{id}/history
+     * Every change to title, description or completed, oldest first:
+     * [ { "at": "...", "by": 12, "type": "UPDATED", "changes": { "title": { "from": "a", "to": "b" } } } ]
+     * Read from the local history log, not the database (see HistorySegmentLog)
+     */
+    @StatementBudget(2) // access check (+ share lookup on a cache miss)
+    @GetMapping("/{id}/history")
+    public ResponseEntity<List<HistoryEntry>> getTodoHistory(@PathVariable Long id) {
         Long userId = getAuthenticatedUserId();
 
-        Todo updatedTodo = todoService.toggleTodoCompletion(id, userId);
+        List<HistoryEntry> history = todoService.getTodoHistory(id, userId);
 
-        return new ResponseEntity<>(updatedTodo, HttpStatus.OK);
+        return new ResponseEntity<>(history, HttpStatus.OK);
     }
 
+    @StatementBudget(1)
     @GetMapping("/count")
     public ResponseEntity<Long> getTodoCount() {
         Long userId = getAuthenticatedUserId();
@@ -100,6 +469,62 @@ public class TodoController {
         return new ResponseEntity<>(todoCount, HttpStatus.OK);
     }
 
+    /** Reject a page whose first row is past what SQL's OFFSET (an int) can skip */
+    private static void checkOffset(int page, int pageSize) {
+        if ((long) page * pageSize > Integer.MAX_VALUE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "page * size must be at most " + Integer.MAX_VALUE);
+        }
+    }
+
+    /** ETag for a todo: its version, quoted - e.g. "3" */
+    private static String etag(Todo todo) {
+        return "\"" + todo.getVersion() + "\"";
+    }
+
+    /**
+     * The version an If-Match header asks for
+     * 
+     * @return null for no header or "*" (any version), -1 if it can't be
+     *         one of our ETags (so it never matches and the request gets 412)
+     */
+    private static Long parseIfMatch(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String value = ifMatch.trim();
+        // Some proxies weaken ETags when they compress (W/"3"); the version is still exact
+        if (value.startsWith("W/")) {
+            value = value.substring(2);
+        }
+        if (value.length() < 2 || !value.startsWith("\"") || !value.endsWith("\"")) {
+            return -1L;
+        }
+        try {
+            return Long.parseLong(value.substring(1, value.length() - 1));
+        } catch (NumberFormatException e) {
+            return -1L;
+        }
+    }
+
+    /**
+     * Run a write, turning a lost version race into an HTTP error
+     * 
+     * The UPDATE/DELETE is "where id = ? and version = ?" (see Todo.version);
+     * if another request committed in between, it matches no row (or the
+     * database gives up waiting for the row lock). With an If-Match that is
+     * a failed precondition (412), without one the client simply raced
+     * another writer (409) and can re-read and retry.
+     */
+    private static <T> T versioned(String ifMatch, Supplier<T> write) {
+        try {
+            return write.get();
+        } catch (ConcurrencyFailureException e) {
+            throw new ResponseStatusException(ifMatch != null ? HttpStatus.PRECONDITION_FAILED : HttpStatus.CONFLICT,
+                    "The todo was changed by another request, reload and retry");
+        }
+    }
+
     /**
      * Helper method to extract authenticated user ID from Security Context
      * 
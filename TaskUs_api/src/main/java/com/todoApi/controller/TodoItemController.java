@@ -0,0 +1,96 @@
+package com.todoApi.controller;
+
+import com.todoApi.model.TodoItem;
+import com.todoApi.service.TodoItemService;
+import com.todoApi.sqlbudget.StatementBudget;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * Checklist items of a todo
+ * 
+ * Endpoints under /api/todos/{todoId}/items. To get the items of a whole
+ * list at once use GET /api/todos?include=items instead of one request
+ * per todo.
+ * 
+ * If the todo has "completionFromItems": true, every change here
+ * re-derives its "completed" flag (done when all items are done).
+ * 
+ * Not with app.storage=embedded: items reference the todos table
+ * (EmbeddedUnsupportedController answers 501 instead).
+ */
+@RestController
+@ConditionalOnProperty(name = "app.storage", havingValue = "jpa", matchIfMissing = true)
+@RequestMapping("/api/todos/{todoId}/items")
+@RequiredArgsConstructor
+public class TodoItemController {
+
+    private final TodoItemService todoItemService;
+
+    @StatementBudget(3) // todo access check (+ share lookup) + items
+    @GetMapping
+    public ResponseEntity<List<TodoItem>> getItems(@PathVariable Long todoId) {
+        Long userId = getAuthenticatedUserId();
+
+        List<TodoItem> items = todoItemService.getItems(todoId, userId);
+
+        return new ResponseEntity<>(items, HttpStatus.OK);
+    }
+
+    /**
+     * Add an item
+     * 
+     * Endpoint: POST /api/todos/{todoId}/items
+     * Body: { "title": "Milk" } - optionally "done" and "position"
+     */
+    @StatementBudget(9) // locked todo (+ share lookup) + count + last position + insert (+ done flags, tag load, todo update, outbox insert if derived)
+    @PostMapping
+    public ResponseEntity<TodoItem> createItem(@PathVariable Long todoId, @Valid @RequestBody TodoItem itemData) {
+        Long userId = getAuthenticatedUserId();
+
+        TodoItem createdItem = todoItemService.createItem(todoId, userId, itemData);
+
+        return new ResponseEntity<>(createdItem, HttpStatus.CREATED);
+    }
+
+    /** Change an item's title, done flag or position - fields left out are unchanged */
+    @StatementBudget(8) // locked todo (+ share lookup) + item + update (+ done flags, tag load, todo update, outbox insert if derived)
+    @PatchMapping("/{itemId}")
+    public ResponseEntity<TodoItem> updateItem(@PathVariable Long todoId, @PathVariable Long itemId,
+            @RequestBody TodoItem itemData) {
+        Long userId = getAuthenticatedUserId();
+
+        TodoItem updatedItem = todoItemService.updateItem(todoId, itemId, userId, itemData);
+
+        return new ResponseEntity<>(updatedItem, HttpStatus.OK);
+    }
+
+    @StatementBudget(8) // locked todo (+ share lookup) + item + delete (+ done flags, tag load, todo update, outbox insert if derived)
+    @DeleteMapping("/{itemId}")
+    public ResponseEntity<Void> deleteItem(@PathVariable Long todoId, @PathVariable Long itemId) {
+        Long userId = getAuthenticatedUserId();
+
+        todoItemService.deleteItem(todoId, itemId, userId);
+
+        return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+    }
+
+    /** The authenticated user's ID (set by JwtAuthenticationFilter) */
+    private Long getAuthenticatedUserId() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+
+        if (authentication == null || !authentication.isAuthenticated()) {
+            throw new RuntimeException("No authenticated user found");
+        }
+
+        return (Long) authentication.getPrincipal();
+    }
+}
@@ -0,0 +1,92 @@
+package com.todoApi.controller;
+
+import com.todoApi.dto.ShareRequest;
+import com.todoApi.model.TodoShare;
+import com.todoApi.service.TodoShareService;
+import com.todoApi.sharing.ShareGrant;
+import com.todoApi.sqlbudget.StatementBudget;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * Sharing the todo list with other users
+ * 
+ * PUT /api/shares/{username}    { "permission": "READ" | "WRITE" } - share, or change the permission
+ * DELETE /api/shares/{username} - stop sharing
+ * GET /api/shares               - who the list is shared with
+ * GET /api/shares/received      - whose lists are shared with me
+ * 
+ * Shared todos show up in GET /api/todos?includeShared=true and can be
+ * read (and with WRITE, edited) through the usual /api/todos/{id} endpoints.
+ * 
+ * Not with app.storage=embedded: shares reference the users table
+ * (EmbeddedUnsupportedController answers 501 instead).
+ */
+@RestController
+@ConditionalOnProperty(name = "app.storage", havingValue = "jpa", matchIfMissing = true)
+@RequestMapping("/api/shares")
+@RequiredArgsConstructor
+public class TodoShareController {
+
+    private final TodoShareService todoShareService;
+
+    @StatementBudget(1) // one select, grantees joined
+    @GetMapping
+    public ResponseEntity<List<TodoShare>> getShares() {
+        Long userId = getAuthenticatedUserId();
+
+        List<TodoShare> shares = todoShareService.getShares(userId);
+
+        return new ResponseEntity<>(shares, HttpStatus.OK);
+    }
+
+    @StatementBudget(1) // nothing on an ACL cache hit
+    @GetMapping("/received")
+    public ResponseEntity<List<ShareGrant>> getReceivedShares() {
+        Long userId = getAuthenticatedUserId();
+
+        List<ShareGrant> grants = todoShareService.getReceivedShares(userId);
+
+        return new ResponseEntity<>(grants, HttpStatus.OK);
+    }
+
+    @StatementBudget(4) // grantee + existing share + insert/update + share change
+    @PutMapping("/{username}")
+    public ResponseEntity<TodoShare> share(@PathVariable String username,
+            @Valid @RequestBody ShareRequest shareRequest) {
+        Long userId = getAuthenticatedUserId();
+
+        TodoShare share = todoShareService.share(userId, username, shareRequest.getPermission());
+
+        return new ResponseEntity<>(share, HttpStatus.OK);
+    }
+
+    @StatementBudget(4) // grantee + share + delete + share change
+    @DeleteMapping("/{username}")
+    public ResponseEntity<Void> unshare(@PathVariable String username) {
+        Long userId = getAuthenticatedUserId();
+
+        todoShareService.unshare(userId, username);
+
+        return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+    }
+
+    /** The authenticated user's ID (set by JwtAuthenticationFilter) */
+    private Long getAuthenticatedUserId() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+
+        if (authentication == null || !authentication.isAuthenticated()) {
+            throw new RuntimeException("No authenticated user found");
+        }
+
+        return (Long) authentication.getPrincipal();
+    }
+}
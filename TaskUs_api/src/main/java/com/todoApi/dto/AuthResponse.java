@@ -13,6 +13,7 @@ import lombok.NoArgsConstructor;
  * Example JSON response:
  * {
  * "token": "eyJhbGciOiJIUzI1NiIsInR5cCI6IkpXVCJ9...",
+ * "refreshToken": "eyJhbGciOiJIUzI1NiIsInR5cCI6IkpXVCJ9...",
  * "userId": 1,
  * "username": "john_doe",
  * "email": "john@example.com"
@@ -29,6 +30,12 @@ public class AuthResponse {
      */
     private String token;
 
+    /**
+     * Refresh token - Long-lived, only accepted by /api/auth/refresh
+     * Exchanged for a new access token when the short-lived one expires
+     */
+    private String refreshToken;
+
     /**
      * User ID - Useful for the client to store
      */
@@ -0,0 +1,30 @@
+package com.todoApi.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * AvailabilityResponse - Whether a username/email can still be registered
+ * 
+ * Example JSON response (for ?username=john_doe&email=john@example.com):
+ * {
+ * "username": false,
+ * "email": true
+ * }
+ * 
+ * true means free. Only the names that were asked about are present.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class AvailabilityResponse {
+
+    /** Is the username free? (absent if not asked) */
+    private Boolean username;
+
+    /** Is the email free? (absent if not asked) */
+    private Boolean email;
+}
@@ -0,0 +1,53 @@
+package com.todoApi.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * ImportSummary - Result of a bulk todo import
+ * 
+ * Example JSON response:
+ * {
+ * "accepted": 9998,
+ * "rejected": 2,
+ * "errors": [
+ * { "line": 17, "message": "title: Title is required" },
+ * { "line": 503, "message": "Invalid completed value: maybe" }
+ * ],
+ * "errorsTruncated": false
+ * }
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImportSummary {
+
+    /** Rows that were inserted */
+    private long accepted;
+
+    /** Rows that failed parsing or validation (not inserted) */
+    private long rejected;
+
+    /**
+     * The first rejected rows with the reason
+     * Capped so a bad file can't blow up the response
+     */
+    private List<RowError> errors = new ArrayList<>();
+
+    /** true if more rows were rejected than listed in errors */
+    private boolean errorsTruncated;
+
+    /** One rejected row */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class RowError {
+        /** 1-based line (NDJSON) or record (CSV, header excluded) number */
+        private long line;
+        private String message;
+    }
+}
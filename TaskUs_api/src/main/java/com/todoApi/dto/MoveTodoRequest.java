@@ -0,0 +1,27 @@
+package com.todoApi.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * MoveTodoRequest - Where to put a todo in the manual order
+ * 
+ * Example JSON (place the todo right after todo 12):
+ * {
+ * "afterId": 12
+ * }
+ * 
+ * Send "afterId": null (or an empty body) to move it to the top
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MoveTodoRequest {
+
+    /**
+     * The todo that should come right before the moved one
+     * null = move to the top of the list
+     */
+    private Long afterId;
+}
@@ -0,0 +1,26 @@
+package com.todoApi.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * RefreshRequest - Data Transfer Object for the refresh and logout endpoints
+ * 
+ * Example JSON:
+ * {
+ * "refreshToken": "eyJhbGciOiJIUzI1NiIsInR5cCI6IkpXVCJ9..."
+ * }
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RefreshRequest {
+
+    /**
+     * The refresh token received from login/register/refresh
+     */
+    @NotBlank(message = "Refresh token is required")
+    private String refreshToken;
+}
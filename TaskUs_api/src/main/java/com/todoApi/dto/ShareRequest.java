@@ -0,0 +1,25 @@
+package com.todoApi.dto;
+
+import com.todoApi.model.SharePermission;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * ShareRequest - Share the todo list with a user, or change what they may do
+ * 
+ * Example JSON (PUT /api/shares/alice):
+ * {
+ * "permission": "WRITE"
+ * }
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ShareRequest {
+
+    /** READ or WRITE */
+    @NotNull(message = "permission is required")
+    private SharePermission permission;
+}
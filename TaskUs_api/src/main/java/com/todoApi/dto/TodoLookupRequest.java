@@ -0,0 +1,27 @@
+package com.todoApi.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * TodoLookupRequest - Todos to fetch by id in one request
+ * 
+ * Example JSON:
+ * {
+ * "ids": [42, 7, 1093]
+ * }
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TodoLookupRequest {
+
+    /** The wanted todo ids - duplicates are ignored, at most app.todos.max-lookup-ids */
+    @NotEmpty(message = "ids is required")
+    private List<@NotNull(message = "ids cannot contain null") Long> ids;
+}
@@ -0,0 +1,32 @@
+package com.todoApi.dto;
+
+import com.todoApi.model.Todo;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * TodoLookupResponse - Result of a todo lookup by ids
+ * 
+ * Example JSON response (for ids [42, 7, 1093]):
+ * {
+ * "todos": [ { "id": 42, ... }, { "id": 1093, ... } ],
+ * "missing": [7]
+ * }
+ * 
+ * todos are in the order the ids were requested. missing lists the ids
+ * that don't exist or belong to someone else (deliberately not told apart).
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TodoLookupResponse {
+
+    /** Found todos, in request order */
+    private List<Todo> todos;
+
+    /** Requested ids that were not found, in request order */
+    private List<Long> missing;
+}
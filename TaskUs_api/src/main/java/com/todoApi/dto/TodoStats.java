@@ -0,0 +1,53 @@
+package com.todoApi.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * TodoStats - Productivity statistics for a date range
+ * 
+ * Example JSON response:
+ * {
+ * "from": "2025-01-01",
+ * "to": "2025-01-03",
+ * "created": 7,
+ * "completed": 5,
+ * "completionRate": 0.714,
+ * "days": [
+ * { "date": "2025-01-01", "created": 4, "completed": 1, "completionRate": 0.25 },
+ * { "date": "2025-01-02", "created": 0, "completed": 2, "completionRate": null },
+ * { "date": "2025-01-03", "created": 3, "completed": 2, "completionRate": 0.667 }
+ * ]
+ * }
+ * 
+ * completionRate = completed / created (null when nothing was created).
+ * Every day of the range is listed, including days without activity.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TodoStats {
+
+    private LocalDate from;
+    private LocalDate to;
+    private long created;
+    private long completed;
+    private Double completionRate;
+    private List<Day> days = new ArrayList<>();
+
+    /** One day of the range */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Day {
+        private LocalDate date;
+        private long created;
+        private long completed;
+        private Double completionRate;
+    }
+}
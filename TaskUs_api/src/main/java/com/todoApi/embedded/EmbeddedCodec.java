@@ -0,0 +1,132 @@
+package com.todoApi.embedded;
+
+import com.todoApi.model.Todo;
+import com.todoApi.model.User;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Binary encoding of todos and users in the embedded store's log records
+ * and snapshots (see EmbeddedStore)
+ *
+ * Fixed field order, no field names: a new field means a new format
+ * version. Strings are length-prefixed UTF-8 (-1 for null), times are
+ * UTC epoch seconds + nanos (Long.MIN_VALUE for null).
+ */
+final class EmbeddedCodec {
+
+    private static final long NULL_TIME = Long.MIN_VALUE;
+
+    private EmbeddedCodec() {
+    }
+
+    static void writeTodo(DataOutput out, Todo todo) throws IOException {
+        out.writeLong(todo.getId());
+        out.writeLong(todo.getUser().getId());
+        writeString(out, todo.getTitle());
+        writeString(out, todo.getDescription());
+        out.writeBoolean(Boolean.TRUE.equals(todo.getCompleted()));
+        out.writeBoolean(Boolean.TRUE.equals(todo.getCompletionFromItems()));
+        writeTime(out, todo.getCompletedAt());
+        writeString(out, todo.getPosition());
+        Set<String> tags = todo.getTags() == null ? Set.of() : todo.getTags();
+        out.writeShort(tags.size());
+        for (String tag : tags) {
+            writeString(out, tag);
+        }
+        writeTime(out, todo.getDueAt());
+        writeTime(out, todo.getRemindAt());
+        writeTime(out, todo.getReminderSentAt());
+        writeTime(out, todo.getCreatedAt());
+        writeTime(out, todo.getUpdatedAt());
+        out.writeLong(todo.getVersion());
+    }
+
+    static Todo readTodo(DataInput in) throws IOException {
+        Todo todo = new Todo();
+        todo.setId(in.readLong());
+        todo.setUser(owner(in.readLong()));
+        todo.setTitle(readString(in));
+        todo.setDescription(readString(in));
+        todo.setCompleted(in.readBoolean());
+        todo.setCompletionFromItems(in.readBoolean());
+        todo.setCompletedAt(readTime(in));
+        todo.setPosition(readString(in));
+        int tagCount = in.readShort();
+        Set<String> tags = new LinkedHashSet<>(tagCount * 2);
+        for (int i = 0; i < tagCount; i++) {
+            tags.add(readString(in));
+        }
+        todo.setTags(tags);
+        todo.setDueAt(readTime(in));
+        todo.setRemindAt(readTime(in));
+        todo.setReminderSentAt(readTime(in));
+        todo.setCreatedAt(readTime(in));
+        todo.setUpdatedAt(readTime(in));
+        todo.setVersion(in.readLong());
+        return todo;
+    }
+
+    static void writeUser(DataOutput out, User user) throws IOException {
+        out.writeLong(user.getId());
+        writeString(out, user.getUsername());
+        writeString(out, user.getEmail());
+        writeString(out, user.getPassword());
+        writeTime(out, user.getCreatedAt());
+    }
+
+    static User readUser(DataInput in) throws IOException {
+        return new User(in.readLong(), readString(in), readString(in), readString(in), readTime(in));
+    }
+
+    /** A user that only carries its id - what a todo holds, like the lazy proxy JPA gives it */
+    static User owner(long userId) {
+        User owner = new User();
+        owner.setId(userId);
+        return owner;
+    }
+
+    private static void writeString(DataOutput out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInput in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeTime(DataOutput out, LocalDateTime time) throws IOException {
+        if (time == null) {
+            out.writeLong(NULL_TIME);
+            return;
+        }
+        out.writeLong(time.toEpochSecond(ZoneOffset.UTC));
+        out.writeInt(time.getNano());
+    }
+
+    private static LocalDateTime readTime(DataInput in) throws IOException {
+        long seconds = in.readLong();
+        if (seconds == NULL_TIME) {
+            return null;
+        }
+        return LocalDateTime.ofEpochSecond(seconds, in.readInt(), ZoneOffset.UTC);
+    }
+}
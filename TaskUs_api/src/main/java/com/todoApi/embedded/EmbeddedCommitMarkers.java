@@ -0,0 +1,23 @@
+package com.todoApi.embedded;
+
+import java.util.Collection;
+import java.util.Set;
+
+/**
+ * Where the embedded store learns whether a transaction committed: a
+ * marker written in the database transaction itself (see EmbeddedStore)
+ */
+interface EmbeddedCommitMarkers {
+
+    /** Write a marker in the caller's transaction - it commits with it or not at all; returns its id */
+    long mark();
+
+    /** The markers among these ids that exist: their transactions committed */
+    Set<Long> committed(Collection<Long> ids);
+
+    /** Drop markers whose writes are in a snapshot */
+    void forget(Collection<Long> ids);
+
+    /** Drop all markers - on startup, once every write is settled */
+    void forgetAll();
+}
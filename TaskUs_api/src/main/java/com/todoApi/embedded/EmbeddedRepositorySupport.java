@@ -0,0 +1,177 @@
+package com.todoApi.embedded;
+
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.data.domain.Example;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.repository.query.FluentQuery;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * The generic JpaRepository methods of the embedded repositories, on top
+ * of a handful each store-backed repository implements
+ *
+ * Sorting, paging and query-by-example over a whole table are not
+ * supported - none of the services use them on todos or users.
+ */
+abstract class EmbeddedRepositorySupport<T> implements JpaRepository<T, Long> {
+
+    private final String entityName;
+
+    EmbeddedRepositorySupport(String entityName) {
+        this.entityName = entityName;
+    }
+
+    abstract Long idOf(T entity);
+
+    @Override
+    public <S extends T> List<S> saveAll(Iterable<S> entities) {
+        List<S> saved = new ArrayList<>();
+        for (S entity : entities) {
+            saved.add(save(entity));
+        }
+        return saved;
+    }
+
+    @Override
+    public <S extends T> S saveAndFlush(S entity) {
+        return save(entity);
+    }
+
+    @Override
+    public <S extends T> List<S> saveAllAndFlush(Iterable<S> entities) {
+        return saveAll(entities);
+    }
+
+    /** Writes are applied when the transaction commits - there is nothing to flush before */
+    @Override
+    public void flush() {
+    }
+
+    @Override
+    public boolean existsById(Long id) {
+        return findById(id).isPresent();
+    }
+
+    @Override
+    public List<T> findAllById(Iterable<Long> ids) {
+        List<T> found = new ArrayList<>();
+        for (Long id : ids) {
+            findById(id).ifPresent(found::add);
+        }
+        return found;
+    }
+
+    @Override
+    public void deleteAllById(Iterable<? extends Long> ids) {
+        for (Long id : ids) {
+            deleteById(id);
+        }
+    }
+
+    @Override
+    public void deleteAll(Iterable<? extends T> entities) {
+        for (T entity : entities) {
+            delete(entity);
+        }
+    }
+
+    @Override
+    public void deleteAll() {
+        deleteAll(findAll());
+    }
+
+    @Override
+    public void deleteAllInBatch(Iterable<T> entities) {
+        List<Long> ids = new ArrayList<>();
+        entities.forEach(entity -> ids.add(idOf(entity)));
+        deleteAllByIdInBatch(ids);
+    }
+
+    @Override
+    public void deleteAllByIdInBatch(Iterable<Long> ids) {
+        for (Long id : ids) {
+            deleteById(id);
+        }
+    }
+
+    @Override
+    public void deleteAllInBatch() {
+        deleteAllInBatch(findAll());
+    }
+
+    @Override
+    @Deprecated
+    public T getOne(Long id) {
+        return getReferenceById(id);
+    }
+
+    @Override
+    @Deprecated
+    public T getById(Long id) {
+        return getReferenceById(id);
+    }
+
+    @Override
+    public T getReferenceById(Long id) {
+        return findById(id).orElseThrow(() -> new EmptyResultDataAccessException(
+                "No " + entityName + " with id " + id, 1));
+    }
+
+    @Override
+    public List<T> findAll(Sort sort) {
+        throw unsupported("findAll(Sort)");
+    }
+
+    @Override
+    public Page<T> findAll(Pageable pageable) {
+        throw unsupported("findAll(Pageable)");
+    }
+
+    @Override
+    public <S extends T> Optional<S> findOne(Example<S> example) {
+        throw unsupported("query by example");
+    }
+
+    @Override
+    public <S extends T> List<S> findAll(Example<S> example) {
+        throw unsupported("query by example");
+    }
+
+    @Override
+    public <S extends T> List<S> findAll(Example<S> example, Sort sort) {
+        throw unsupported("query by example");
+    }
+
+    @Override
+    public <S extends T> Page<S> findAll(Example<S> example, Pageable pageable) {
+        throw unsupported("query by example");
+    }
+
+    @Override
+    public <S extends T> long count(Example<S> example) {
+        throw unsupported("query by example");
+    }
+
+    @Override
+    public <S extends T> boolean exists(Example<S> example) {
+        throw unsupported("query by example");
+    }
+
+    @Override
+    public <S extends T, R> R findBy(Example<S> example,
+            Function<FluentQuery.FetchableFluentQuery<S>, R> queryFunction) {
+        throw unsupported("query by example");
+    }
+
+    UnsupportedOperationException unsupported(String what) {
+        return new UnsupportedOperationException(what + " on " + entityName
+                + " is not supported by the embedded store (app.storage=embedded)");
+    }
+}
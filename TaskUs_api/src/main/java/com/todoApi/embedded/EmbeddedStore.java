@@ -0,0 +1,1257 @@
+package com.todoApi.embedded;
+
+import com.todoApi.model.Todo;
+import com.todoApi.model.User;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * EmbeddedStore - In-process storage engine for todos and users (app.storage=embedded)
+ *
+ * For single-node installs: todo and user rows live in this process,
+ * behind the same TodoRepository / UserRepository interfaces the
+ * services use (see EmbeddedTodoRepository, EmbeddedUserRepository),
+ * instead of in the database. The other tables stay in the database.
+ *
+ * In memory:
+ * - todos by id, and per user a primary index in list order (position
+ *   key, todos without one last, then id): lists, counts and the
+ *   neighbour lookups of a move read one user's index, nothing else
+ * - users by id, and the unique indexes on username and email
+ * Stored rows are never changed, a write replaces them: readers get
+ * copies, and a snapshot can keep the rows as they are without copying.
+ *
+ * Transactions: writes made inside a Spring transaction are collected
+ * and committed with it, all or nothing; reads in the same transaction
+ * see them. A todo write carries the version it was read at - if another
+ * transaction committed a change of that todo in between, the commit
+ * fails with an OptimisticLockingFailureException (the "where version = ?"
+ * of the JPA path). Usernames and emails are reserved when a user is
+ * saved, so a duplicate fails right away with a DataIntegrityViolationException.
+ * Writes outside a transaction commit on their own. Readers don't lock:
+ * a commit's rows become visible one after another, within microseconds.
+ *
+ * The database transaction decides - the outbox rows and stats written
+ * with the same transaction must not outlive a store change, nor the
+ * other way round. Two phases:
+ * - prepare (beforeCommit): insert a marker row in the database
+ *   transaction (EmbeddedCommitMarkers), check the writes, hold their
+ *   rows - another transaction changing one of them before this one is
+ *   done gets a conflict - and log them as prepared, under the marker id
+ * - complete: after the database commit the writes are applied and a
+ *   commit record is logged; after a rollback an abort record, nothing
+ *   is applied
+ * A crash in between leaves a prepared record without an outcome in the
+ * log: recovery applies it if the marker row exists, i.e. the database
+ * transaction committed. Markers are deleted once a snapshot holds their
+ * writes.
+ *
+ * Durability: records are queued on the write-ahead log (EmbeddedWal)
+ * under one short lock, and a prepare then waits - outside the lock -
+ * until the log writer has fsynced its record; concurrent commits share
+ * fsyncs. Commit and abort records aren't waited for: without them the
+ * marker decides.
+ *
+ * Snapshots: every app.embedded.snapshot.interval-ms (if anything was
+ * committed since the last one) the log moves on to a new generation
+ * and all rows as of that point are written to snapshot-<generation>.snap;
+ * the prepared records of transactions not completed yet are logged
+ * again in the new generation. Then older snapshots and log generations
+ * are deleted. Recovery on startup loads the newest snapshot and replays
+ * the log generations from its generation on.
+ *
+ * Log record: kind (1: apply, prepare, commit or abort), marker id (8, 0
+ * for apply); for apply and prepare the change count (4), then per change
+ * its kind (1) and the row (see EmbeddedCodec) or, for a delete, the id (8).
+ * Snapshot file: 8 byte header (magic, version, 3 unused), generation (4),
+ * last todo id (8), last user id (8), user count (4), users, todo count (4),
+ * todos, crc32c of everything before it (4).
+ *
+ * Metrics: embedded.commits, embedded.conflicts, embedded.wal.batches,
+ * embedded.wal.records
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.storage", havingValue = "embedded")
+public class EmbeddedStore {
+
+    /** Manual list order: position key, todos without one last, then id */
+    static final Comparator<Todo> LIST_ORDER = Comparator
+            .comparing(Todo::getPosition, Comparator.nullsLast(Comparator.<String>naturalOrder()))
+            .thenComparing(Todo::getId);
+
+    private static final int SNAPSHOT_MAGIC = 0x54534e50; // "TSNP"
+    private static final byte SNAPSHOT_VERSION = 1;
+    private static final int SNAPSHOT_HEADER_BYTES = 32;
+    private static final String SNAPSHOT_PREFIX = "snapshot-";
+    private static final String SNAPSHOT_SUFFIX = ".snap";
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private static final byte PUT_TODO = 1;
+    private static final byte DELETE_TODO = 2;
+    private static final byte PUT_USER = 3;
+    private static final byte DELETE_USER = 4;
+
+    /** Log record kinds: changes committed on their own, or the phases of a transaction */
+    private static final byte APPLY = 1;
+    private static final byte PREPARE = 2;
+    private static final byte COMMIT = 3;
+    private static final byte ABORT = 4;
+
+    /** One change of a commit, as logged and applied */
+    private record Change(byte kind, long id, Todo todo, User user) {
+    }
+
+    /** A username or email held for a user that is not committed yet */
+    private record Reservation(Map<String, Long> names, String name, long userId) {
+    }
+
+    private final Path directory;
+    private final EmbeddedWal wal;
+    private final EmbeddedCommitMarkers markers;
+    private final Counter commits;
+    private final Counter conflicts;
+
+    private final Map<Long, Todo> todos = new ConcurrentHashMap<>();
+    private final Map<Long, UserTodos> todosByUser = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListMap<Long, User> users = new ConcurrentSkipListMap<>();
+    /** Unique indexes - including names reserved by transactions that have not committed yet */
+    private final Map<String, Long> usernames = new ConcurrentHashMap<>();
+    private final Map<String, Long> emails = new ConcurrentHashMap<>();
+    private final AtomicLong lastTodoId = new AtomicLong();
+    private final AtomicLong lastUserId = new AtomicLong();
+
+    /** Serialises commits, and the start of a snapshot with them */
+    private final Object commitLock = new Object();
+    /** Log generation being written - guarded by commitLock */
+    private int generation;
+    /** Commits since the last snapshot - guarded by commitLock */
+    private long unsnapshotted;
+    /** Prepared transactions by marker id, until they complete - guarded by commitLock */
+    private final Map<Long, Tx> prepared = new LinkedHashMap<>();
+    /** Todos and users the prepared transactions change - guarded by commitLock */
+    private final Map<Long, Tx> heldTodos = new HashMap<>();
+    private final Map<Long, Tx> heldUsers = new HashMap<>();
+    /** Markers of the transactions applied since the last snapshot started - guarded by commitLock */
+    private List<Long> settledMarkers = new ArrayList<>();
+    private final Object snapshotLock = new Object();
+    private volatile boolean open;
+
+    public EmbeddedStore(MeterRegistry meterRegistry, EmbeddedCommitMarkers markers,
+            @Value("${app.embedded.dir:data/embedded}") String directory,
+            @Value("${app.embedded.wal.queue-capacity:10000}") int queueCapacity) {
+        this.directory = Path.of(directory);
+        this.wal = new EmbeddedWal(this.directory, queueCapacity, meterRegistry);
+        this.markers = markers;
+        this.commits = meterRegistry.counter("embedded.commits");
+        this.conflicts = meterRegistry.counter("embedded.conflicts");
+    }
+
+    @PostConstruct
+    void open() throws IOException {
+        Files.createDirectories(directory);
+        long started = System.nanoTime();
+
+        // A snapshot that was being written
+        try (DirectoryStream<Path> leftovers = Files.newDirectoryStream(directory, "*" + TEMP_SUFFIX)) {
+            for (Path leftover : leftovers) {
+                Files.delete(leftover);
+            }
+        }
+
+        TreeMap<Integer, Path> snapshots = files(SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX);
+        TreeMap<Integer, Path> logs = files(EmbeddedWal.PREFIX, EmbeddedWal.SUFFIX);
+        int base = 0;
+        if (!snapshots.isEmpty()) {
+            base = snapshots.lastKey();
+            loadSnapshot(snapshots.lastEntry().getValue(), base);
+        }
+        int replayed = 0;
+        Map<Long, List<Change>> inDoubt = new LinkedHashMap<>();
+        for (Map.Entry<Integer, Path> log : logs.tailMap(base, true).entrySet()) {
+            replayed += EmbeddedWal.replay(log.getValue(), record -> replay(record, inDoubt));
+        }
+        // Prepared, but the outcome didn't make it to the log: the database knows
+        Set<Long> committed = inDoubt.isEmpty() ? Set.of() : markers.committed(inDoubt.keySet());
+        for (Map.Entry<Long, List<Change>> transaction : inDoubt.entrySet()) {
+            if (committed.contains(transaction.getKey())) {
+                transaction.getValue().forEach(this::apply);
+            }
+        }
+        // Left behind by a snapshot that didn't get to clean up
+        deleteBefore(base);
+
+        // The replayed records aren't in a snapshot yet either
+        unsnapshotted = replayed;
+        generation = Math.max(base, logs.isEmpty() ? 0 : logs.lastKey()) + 1;
+        wal.open(generation);
+        if (!inDoubt.isEmpty()) {
+            CompletableFuture<Void> decided = null;
+            for (Long marker : inDoubt.keySet()) {
+                decided = wal.append(record(committed.contains(marker) ? COMMIT : ABORT, marker, null));
+            }
+            await(decided);
+        }
+        // Every transaction is settled in the log now - nothing else is running yet
+        markers.forgetAll();
+        open = true;
+
+        log.info("Embedded store opened: {} users, {} todos (snapshot {}, {} log records replayed, {} of {} "
+                + "prepared transactions committed) in {} ms", users.size(), todos.size(), base, replayed,
+                committed.size(), inDoubt.size(), (System.nanoTime() - started) / 1_000_000);
+    }
+
+    @PreDestroy
+    void close() throws InterruptedException, IOException {
+        if (!open) {
+            return;
+        }
+        open = false;
+        // The log writer drains what is queued before it stops
+        wal.close();
+    }
+
+    // ---------------------------------------------------------------- todos
+
+    /** A todo by id */
+    Optional<Todo> findTodo(long id) {
+        return Optional.ofNullable(todoRow(currentTx(), id)).map(EmbeddedStore::copy);
+    }
+
+    /** Some todos by id that match a filter, in no particular order (unknown ids are skipped) */
+    List<Todo> findTodos(Collection<Long> ids, Predicate<Todo> filter) {
+        Tx tx = currentTx();
+        List<Todo> found = new ArrayList<>(ids.size());
+        for (Long id : new LinkedHashSet<>(ids)) {
+            Todo row = todoRow(tx, id);
+            if (row != null && filter.test(row)) {
+                found.add(copy(row));
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Read one user's list, in list order
+     * The reader gets the store's own rows: whatever it returns must be copied
+     */
+    <R> R readList(long userId, Function<NavigableSet<Todo>, R> reader) {
+        Tx tx = currentTx();
+        if (tx != null && tx.touchedUsers.contains(userId)) {
+            // This transaction changed the list: read it as it will be after the commit
+            TreeSet<Todo> merged = new TreeSet<>(LIST_ORDER);
+            UserTodos committed = todosByUser.get(userId);
+            if (committed != null) {
+                committed.read(merged::addAll);
+            }
+            merged.removeIf(row -> tx.todoWrites.containsKey(row.getId()));
+            for (TodoWrite write : tx.todoWrites.values()) {
+                if (write.image != null && ownerOf(write.image) == userId) {
+                    merged.add(write.image);
+                }
+            }
+            return reader.apply(Collections.unmodifiableNavigableSet(merged));
+        }
+        UserTodos list = todosByUser.get(userId);
+        return list == null ? reader.apply(Collections.emptyNavigableSet()) : list.read(reader);
+    }
+
+    /** A user's todos that match a filter, in list order */
+    List<Todo> findList(long userId, Predicate<Todo> filter) {
+        return readList(userId, rows -> {
+            List<Todo> found = new ArrayList<>();
+            for (Todo row : rows) {
+                if (filter.test(row)) {
+                    found.add(copy(row));
+                }
+            }
+            return found;
+        });
+    }
+
+    /** All todos that match a filter, in no particular order - a full scan, for background jobs */
+    List<Todo> scanTodos(Predicate<Todo> filter) {
+        Tx tx = currentTx();
+        List<Todo> found = new ArrayList<>();
+        for (Todo row : todos.values()) {
+            if ((tx == null || !tx.todoWrites.containsKey(row.getId())) && filter.test(row)) {
+                found.add(copy(row));
+            }
+        }
+        if (tx != null) {
+            for (TodoWrite write : tx.todoWrites.values()) {
+                if (write.image != null && filter.test(write.image)) {
+                    found.add(copy(write.image));
+                }
+            }
+        }
+        return found;
+    }
+
+    long countTodos() {
+        return currentTx() == null ? todos.size() : scanTodos(row -> true).size();
+    }
+
+    /**
+     * Insert or update a todo, like JPA's save(): the given entity gets
+     * its id, timestamps and next version and is returned
+     * An update is checked against the version the entity was read at
+     * when the transaction commits; an entity without changes is not written.
+     */
+    Todo saveTodo(Todo entity) {
+        return write(tx -> {
+            LocalDateTime now = LocalDateTime.now();
+            if (entity.getId() == null) {
+                entity.setId(lastTodoId.incrementAndGet());
+                entity.setCreatedAt(now);
+                entity.setUpdatedAt(now);
+                entity.setVersion(0L);
+                if (entity.getCompletionFromItems() == null) {
+                    entity.setCompletionFromItems(false);
+                }
+                if (entity.getTags() == null) {
+                    entity.setTags(new LinkedHashSet<>());
+                }
+                tx.put(new TodoWrite(entity.getId(), copy(entity), true, null, null), null);
+                return entity;
+            }
+
+            TodoWrite pending = tx.todoWrites.get(entity.getId());
+            Todo current = todos.get(entity.getId());
+            Todo before = pending != null ? pending.image : current;
+            if (before == null) {
+                throw conflict(entity.getId());
+            }
+            if (sameState(entity, before)) {
+                return entity;
+            }
+            entity.setCreatedAt(before.getCreatedAt());
+            entity.setUpdatedAt(now);
+            if (pending != null) {
+                // Written before in this transaction - still one new version
+                entity.setVersion(before.getVersion());
+                pending.image = copy(entity);
+                pending.update = null;
+                tx.touchedUsers.add(ownerOf(entity));
+            } else {
+                Long readVersion = entity.getVersion() != null ? entity.getVersion() : before.getVersion();
+                entity.setVersion(readVersion + 1);
+                tx.put(new TodoWrite(entity.getId(), copy(entity), false, readVersion, null), current);
+            }
+            return entity;
+        });
+    }
+
+    /**
+     * Delete a todo
+     *
+     * @param readVersion Version the todo was read at (checked at commit), or null to delete whatever it is
+     */
+    void deleteTodo(long id, Long readVersion) {
+        write(tx -> {
+            TodoWrite pending = tx.todoWrites.get(id);
+            if (pending != null) {
+                if (pending.insert) {
+                    tx.todoWrites.remove(id);
+                } else {
+                    pending.image = null;
+                    pending.update = null;
+                }
+                return null;
+            }
+            Todo current = todos.get(id);
+            if (current != null) {
+                tx.put(new TodoWrite(id, null, false, readVersion, null), current);
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Bulk update of one todo, like a JPQL update: at commit the update is
+     * applied again to the row as it is then (it must bump the version
+     * itself). If it returns null there - its condition no longer holds -
+     * the commit fails.
+     *
+     * @return Rows changed: 0 if the todo doesn't exist or the update returns null for it
+     */
+    int updateTodo(long id, UnaryOperator<Todo> update) {
+        return write(tx -> {
+            TodoWrite pending = tx.todoWrites.get(id);
+            Todo current = todos.get(id);
+            Todo before = pending != null ? pending.image : current;
+            if (before == null) {
+                return 0;
+            }
+            Todo updated = update.apply(copy(before));
+            if (updated == null) {
+                return 0;
+            }
+            if (pending == null) {
+                tx.put(new TodoWrite(id, updated, false, current.getVersion(), update), current);
+            } else {
+                pending.image = updated;
+                if (pending.update != null) {
+                    UnaryOperator<Todo> first = pending.update;
+                    pending.update = row -> {
+                        Todo changed = first.apply(row);
+                        return changed == null ? null : update.apply(changed);
+                    };
+                }
+            }
+            return 1;
+        });
+    }
+
+    // ---------------------------------------------------------------- users
+
+    Optional<User> findUser(long id) {
+        return Optional.ofNullable(userRow(currentTx(), id)).map(EmbeddedStore::copy);
+    }
+
+    Optional<User> findUserByUsername(String username) {
+        return findUserByName(usernames, username, User::getUsername);
+    }
+
+    Optional<User> findUserByEmail(String email) {
+        return findUserByName(emails, email, User::getEmail);
+    }
+
+    private Optional<User> findUserByName(Map<String, Long> names, String name, Function<User, String> field) {
+        if (name == null) {
+            return Optional.empty();
+        }
+        Tx tx = currentTx();
+        if (tx != null) {
+            for (User image : tx.userWrites.values()) {
+                if (image != null && name.equals(field.apply(image))) {
+                    return Optional.of(copy(image));
+                }
+            }
+        }
+        Long id = names.get(name);
+        User row = id == null ? null : userRow(tx, id);
+        return row != null && name.equals(field.apply(row)) ? Optional.of(copy(row)) : Optional.empty();
+    }
+
+    /** Users with an id above afterId, in id order */
+    List<User> findUsersAfter(long afterId, int limit) {
+        Tx tx = currentTx();
+        long wanted = (long) limit + (tx == null ? 0 : tx.userWrites.size());
+        TreeMap<Long, User> found = new TreeMap<>();
+        for (User row : users.tailMap(afterId, false).values()) {
+            if (found.size() >= wanted) {
+                break;
+            }
+            found.put(row.getId(), row);
+        }
+        if (tx != null) {
+            for (Map.Entry<Long, User> write : tx.userWrites.entrySet()) {
+                if (write.getValue() == null) {
+                    found.remove(write.getKey());
+                } else if (write.getKey() > afterId) {
+                    found.put(write.getKey(), write.getValue());
+                }
+            }
+        }
+        return found.values().stream().limit(limit).map(EmbeddedStore::copy).toList();
+    }
+
+    /** Highest id of the users created before a time (null if none) - walks the ids from the newest */
+    Long findMaxUserIdCreatedBefore(LocalDateTime before) {
+        Tx tx = currentTx();
+        Long found = null;
+        if (tx != null) {
+            for (User image : tx.userWrites.values()) {
+                if (image != null && image.getCreatedAt().isBefore(before)
+                        && (found == null || image.getId() > found)) {
+                    found = image.getId();
+                }
+            }
+        }
+        for (User row : users.descendingMap().values()) {
+            if (found != null && row.getId() < found) {
+                break;
+            }
+            if ((tx == null || !tx.userWrites.containsKey(row.getId())) && row.getCreatedAt().isBefore(before)) {
+                return row.getId();
+            }
+        }
+        return found;
+    }
+
+    List<User> findAllUsers() {
+        return findUsersAfter(Long.MIN_VALUE, Integer.MAX_VALUE);
+    }
+
+    long countUsers() {
+        return currentTx() == null ? users.size() : findAllUsers().size();
+    }
+
+    /**
+     * Insert or update a user, like JPA's save()
+     * A username or email another user has (or is registering right now)
+     * fails with a DataIntegrityViolationException naming the column.
+     */
+    User saveUser(User entity) {
+        return write(tx -> {
+            if (entity.getId() == null) {
+                long id = lastUserId.incrementAndGet();
+                reserve(tx, usernames, entity.getUsername(), id, "username");
+                reserve(tx, emails, entity.getEmail(), id, "email");
+                entity.setId(id);
+                entity.setCreatedAt(LocalDateTime.now());
+                tx.userWrites.put(id, copy(entity));
+                return entity;
+            }
+
+            User before = userRow(tx, entity.getId());
+            if (before == null) {
+                throw new EmptyResultDataAccessException("User " + entity.getId() + " does not exist", 1);
+            }
+            if (!before.getUsername().equals(entity.getUsername())) {
+                reserve(tx, usernames, entity.getUsername(), entity.getId(), "username");
+            }
+            if (!before.getEmail().equals(entity.getEmail())) {
+                reserve(tx, emails, entity.getEmail(), entity.getId(), "email");
+            }
+            entity.setCreatedAt(before.getCreatedAt());
+            tx.userWrites.put(entity.getId(), copy(entity));
+            return entity;
+        });
+    }
+
+    void deleteUser(long id) {
+        write(tx -> {
+            if (userRow(tx, id) != null) {
+                tx.userWrites.put(id, null);
+            }
+            return null;
+        });
+    }
+
+    private static void reserve(Tx tx, Map<String, Long> names, String name, long userId, String column) {
+        if (name == null) {
+            throw new DataIntegrityViolationException("users." + column + " may not be null");
+        }
+        Long holder = names.putIfAbsent(name, userId);
+        if (holder != null && holder != userId) {
+            throw new DataIntegrityViolationException("Duplicate key users." + column + ": " + name);
+        }
+        if (holder == null) {
+            tx.reservations.add(new Reservation(names, name, userId));
+        }
+    }
+
+    // ---------------------------------------------------------------- snapshots
+
+    /**
+     * Write a snapshot of all rows and drop the log generations it covers
+     * Commits wait only while the rows are collected (references, no copies)
+     */
+    @Scheduled(fixedDelayString = "${app.embedded.snapshot.interval-ms:300000}",
+            initialDelayString = "${app.embedded.snapshot.interval-ms:300000}")
+    public void snapshot() throws IOException {
+        if (!open) {
+            return;
+        }
+        synchronized (snapshotLock) {
+            long started = System.nanoTime();
+            int snapshotGeneration;
+            CompletableFuture<Void> rolled;
+            List<User> userRows;
+            List<Todo> todoRows;
+            long todoId;
+            long userId;
+            List<Long> settled;
+            synchronized (commitLock) {
+                if (unsnapshotted == 0) {
+                    return;
+                }
+                // Commits from here on go to the next generation, which the snapshot doesn't contain
+                snapshotGeneration = ++generation;
+                rolled = wal.roll(snapshotGeneration);
+                // Nor the transactions that are prepared but not complete: their records move along
+                for (Tx tx : prepared.values()) {
+                    rolled = wal.append(tx.prepareRecord);
+                }
+                userRows = new ArrayList<>(users.values());
+                todoRows = new ArrayList<>(todos.values());
+                todoId = lastTodoId.get();
+                userId = lastUserId.get();
+                unsnapshotted = 0;
+                settled = settledMarkers;
+                settledMarkers = new ArrayList<>();
+            }
+
+            long bytes = writeSnapshot(snapshotGeneration, todoId, userId, userRows, todoRows);
+            // The log writer completes records in order: the last one covers the roll
+            await(rolled);
+            deleteBefore(snapshotGeneration);
+            markers.forget(settled);
+            log.info("Embedded store snapshot {}: {} users, {} todos, {} KB in {} ms", snapshotGeneration,
+                    userRows.size(), todoRows.size(), bytes / 1024, (System.nanoTime() - started) / 1_000_000);
+        }
+    }
+
+    private long writeSnapshot(int snapshotGeneration, long todoId, long userId, List<User> userRows,
+            List<Todo> todoRows) throws IOException {
+        Path target = directory.resolve(snapshotName(snapshotGeneration));
+        Path temp = directory.resolve(target.getFileName() + TEMP_SUFFIX);
+        CRC32C crc = new CRC32C();
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                    new CheckedOutputStream(Channels.newOutputStream(channel), crc), 1 << 16));
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeByte(SNAPSHOT_VERSION);
+            out.write(new byte[3]);
+            out.writeInt(snapshotGeneration);
+            out.writeLong(todoId);
+            out.writeLong(userId);
+            out.writeInt(userRows.size());
+            for (User user : userRows) {
+                EmbeddedCodec.writeUser(out, user);
+            }
+            out.writeInt(todoRows.size());
+            for (Todo todo : todoRows) {
+                EmbeddedCodec.writeTodo(out, todo);
+            }
+            out.flush();
+
+            ByteBuffer trailer = ByteBuffer.allocate(4).putInt((int) crc.getValue()).flip();
+            while (trailer.hasRemaining()) {
+                channel.write(trailer);
+            }
+            channel.force(true);
+        }
+        // Only a complete snapshot ever has the final name
+        Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+        return Files.size(target);
+    }
+
+    private void loadSnapshot(Path file, int expectedGeneration) throws IOException {
+        byte[] bytes = Files.readAllBytes(file);
+        CRC32C crc = new CRC32C();
+        crc.update(bytes, 0, Math.max(0, bytes.length - 4));
+        if (bytes.length < SNAPSHOT_HEADER_BYTES + 4
+                || (int) crc.getValue() != ByteBuffer.wrap(bytes, bytes.length - 4, 4).getInt()) {
+            throw new IOException("Snapshot " + file + " is damaged");
+        }
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes, 0, bytes.length - 4));
+        if (in.readInt() != SNAPSHOT_MAGIC || in.readByte() != SNAPSHOT_VERSION) {
+            throw new IOException("Not a snapshot of this version: " + file);
+        }
+        in.skipBytes(3);
+        if (in.readInt() != expectedGeneration) {
+            throw new IOException("Snapshot " + file + " doesn't hold the generation its name says");
+        }
+        lastTodoId.set(in.readLong());
+        lastUserId.set(in.readLong());
+        int userCount = in.readInt();
+        for (int i = 0; i < userCount; i++) {
+            putUser(EmbeddedCodec.readUser(in));
+        }
+        int todoCount = in.readInt();
+        for (int i = 0; i < todoCount; i++) {
+            putTodo(EmbeddedCodec.readTodo(in));
+        }
+    }
+
+    /** Snapshots and log generations before a generation */
+    private void deleteBefore(int keepFrom) throws IOException {
+        for (Path file : files(SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX).headMap(keepFrom).values()) {
+            Files.delete(file);
+        }
+        for (Path file : files(EmbeddedWal.PREFIX, EmbeddedWal.SUFFIX).headMap(keepFrom).values()) {
+            Files.delete(file);
+        }
+    }
+
+    /** Files named prefix-<generation>suffix, by generation */
+    private TreeMap<Integer, Path> files(String prefix, String suffix) throws IOException {
+        TreeMap<Integer, Path> found = new TreeMap<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, prefix + "*" + suffix)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                found.put(Integer.parseInt(name.substring(prefix.length(), name.length() - suffix.length())), file);
+            }
+        }
+        return found;
+    }
+
+    private static String snapshotName(int snapshotGeneration) {
+        return String.format("%s%010d%s", SNAPSHOT_PREFIX, snapshotGeneration, SNAPSHOT_SUFFIX);
+    }
+
+    // ---------------------------------------------------------------- commit
+
+    /** The writes of one transaction, committed with it */
+    private final class Tx implements TransactionSynchronization {
+
+        /** Pending todo writes by id, in write order */
+        final Map<Long, TodoWrite> todoWrites = new LinkedHashMap<>();
+        /** Pending user rows by id, in write order - null for a delete */
+        final Map<Long, User> userWrites = new LinkedHashMap<>();
+        /** Users whose lists the pending writes change */
+        final Set<Long> touchedUsers = new HashSet<>();
+        final List<Reservation> reservations = new ArrayList<>();
+        /** Set once prepared: the marker id, the changes to apply and their prepared record */
+        long marker;
+        List<Change> changes;
+        byte[] prepareRecord;
+        boolean committed;
+
+        EmbeddedStore store() {
+            return EmbeddedStore.this;
+        }
+
+        void put(TodoWrite write, Todo current) {
+            todoWrites.put(write.id, write);
+            if (current != null) {
+                touchedUsers.add(ownerOf(current));
+            }
+            if (write.image != null) {
+                touchedUsers.add(ownerOf(write.image));
+            }
+        }
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            prepare(this);
+        }
+
+        @Override
+        public void afterCommit() {
+            complete(this, true);
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            if (committed) {
+                return;
+            }
+            if (status == STATUS_UNKNOWN && changes != null) {
+                resolve(this);
+            } else {
+                complete(this, false);
+            }
+        }
+    }
+
+    private static final class TodoWrite {
+
+        final long id;
+        /** The row as it will be after the commit, null for a delete */
+        Todo image;
+        /** A new row, not in the store yet */
+        final boolean insert;
+        /**
+         * Version the write is based on, checked at commit - null for unconditional writes
+         * A bulk update is not checked; once a save or delete replaces it in the same
+         * transaction, the version it was applied to is.
+         */
+        final Long readVersion;
+        /** A bulk update, applied to the row current at commit instead of writing the image */
+        UnaryOperator<Todo> update;
+
+        TodoWrite(long id, Todo image, boolean insert, Long readVersion, UnaryOperator<Todo> update) {
+            this.id = id;
+            this.image = image;
+            this.insert = insert;
+            this.readVersion = readVersion;
+            this.update = update;
+        }
+    }
+
+    /** The transaction the caller runs in, if it wrote to the store already */
+    private Tx currentTx() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return null;
+        }
+        // Synchronizations are suspended and resumed with their transaction (REQUIRES_NEW), resources are not
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            if (synchronization instanceof Tx tx && tx.store() == this) {
+                return tx;
+            }
+        }
+        return null;
+    }
+
+    /** Run a write in the caller's transaction - or, without one, commit it right away */
+    private <R> R write(Function<Tx, R> action) {
+        failIfUnavailable();
+        Tx tx = currentTx();
+        if (tx == null && TransactionSynchronizationManager.isSynchronizationActive()) {
+            tx = new Tx();
+            TransactionSynchronizationManager.registerSynchronization(tx);
+        }
+        if (tx != null) {
+            return action.apply(tx);
+        }
+
+        Tx own = new Tx();
+        try {
+            R result = action.apply(own);
+            commitAlone(own);
+            return result;
+        } finally {
+            if (!own.committed) {
+                release(own, null);
+            }
+        }
+    }
+
+    /** Commit writes made outside a transaction: nothing else to agree with, one record */
+    private void commitAlone(Tx tx) {
+        CompletableFuture<Void> durable = CompletableFuture.completedFuture(null);
+        synchronized (commitLock) {
+            failIfUnavailable();
+            List<Change> changes = changes(tx);
+            if (!changes.isEmpty()) {
+                failIfHeld(changes);
+                durable = wal.append(record(APPLY, 0, changes));
+                changes.forEach(this::apply);
+                unsnapshotted++;
+            }
+            tx.committed = true;
+            release(tx, tx.userWrites);
+        }
+        commits.increment();
+        await(durable);
+    }
+
+    /**
+     * First phase, before the database commits: mark the database transaction,
+     * check the writes, hold their rows and log them as prepared
+     * Any exception here rolls the database transaction back.
+     */
+    private void prepare(Tx tx) {
+        if (tx.todoWrites.isEmpty() && tx.userWrites.isEmpty()) {
+            return;
+        }
+        failIfUnavailable();
+        // Outside the lock: a database round trip
+        long marker = markers.mark();
+        CompletableFuture<Void> durable;
+        synchronized (commitLock) {
+            failIfUnavailable();
+            List<Change> changes = changes(tx);
+            failIfHeld(changes);
+            for (Change change : changes) {
+                (isTodo(change) ? heldTodos : heldUsers).put(change.id, tx);
+            }
+            tx.marker = marker;
+            tx.changes = changes;
+            tx.prepareRecord = record(PREPARE, marker, changes);
+            prepared.put(marker, tx);
+            durable = wal.append(tx.prepareRecord);
+        }
+        await(durable);
+    }
+
+    /**
+     * Second phase, once the database transaction's outcome is known: apply
+     * the writes or drop them, and let go of their rows
+     * Not after close(): a prepared transaction stays in doubt for recovery.
+     */
+    private void complete(Tx tx, boolean commit) {
+        synchronized (commitLock) {
+            if (tx.changes != null) {
+                if (!open || prepared.remove(tx.marker) == null) {
+                    return;
+                }
+                for (Change change : tx.changes) {
+                    (isTodo(change) ? heldTodos : heldUsers).remove(change.id, tx);
+                }
+                // Not waited for - until it is durable, the marker says the same
+                wal.append(record(commit ? COMMIT : ABORT, tx.marker, null));
+                if (commit) {
+                    tx.changes.forEach(this::apply);
+                    unsnapshotted++;
+                    settledMarkers.add(tx.marker);
+                }
+            }
+            tx.committed = commit;
+            release(tx, commit ? tx.userWrites : null);
+        }
+        if (commit) {
+            commits.increment();
+        }
+    }
+
+    /** The database doesn't know if it committed (the connection broke during the commit): ask again */
+    private void resolve(Tx tx) {
+        boolean committed;
+        try {
+            committed = markers.committed(List.of(tx.marker)).contains(tx.marker);
+        } catch (RuntimeException e) {
+            // Its rows stay held; the next start decides from the marker
+            log.error("Embedded store: outcome of transaction {} unknown, its writes wait for a restart", tx.marker, e);
+            return;
+        }
+        complete(tx, committed);
+    }
+
+    /** The changes a transaction makes to the rows as they are now - guarded by commitLock */
+    private List<Change> changes(Tx tx) {
+        List<Change> changes = new ArrayList<>(tx.todoWrites.size() + tx.userWrites.size());
+        for (TodoWrite write : tx.todoWrites.values()) {
+            Todo current = todos.get(write.id);
+            if (write.update != null) {
+                if (current == null) {
+                    continue; // deleted since: the update changes no row
+                }
+                Todo updated = write.update.apply(copy(current));
+                if (updated == null) {
+                    throw conflict(write.id);
+                }
+                changes.add(new Change(PUT_TODO, write.id, updated, null));
+                continue;
+            }
+            if (write.readVersion != null
+                    && (current == null || !write.readVersion.equals(current.getVersion()))) {
+                throw conflict(write.id);
+            }
+            if (write.image != null) {
+                changes.add(new Change(PUT_TODO, write.id, write.image, null));
+            } else if (current != null) {
+                changes.add(new Change(DELETE_TODO, write.id, null, null));
+            }
+        }
+        for (Map.Entry<Long, User> write : tx.userWrites.entrySet()) {
+            if (write.getValue() != null) {
+                changes.add(new Change(PUT_USER, write.getKey(), null, write.getValue()));
+            } else if (users.containsKey(write.getKey())) {
+                changes.add(new Change(DELETE_USER, write.getKey(), null, null));
+            }
+        }
+        return changes;
+    }
+
+    /** A row a prepared transaction changes can't be changed until it completes - guarded by commitLock */
+    private void failIfHeld(List<Change> changes) {
+        for (Change change : changes) {
+            if ((isTodo(change) ? heldTodos : heldUsers).containsKey(change.id)) {
+                conflicts.increment();
+                throw new OptimisticLockingFailureException((isTodo(change) ? "Todo " : "User ") + change.id
+                        + " is being changed by another transaction");
+            }
+        }
+    }
+
+    private static boolean isTodo(Change change) {
+        return change.kind == PUT_TODO || change.kind == DELETE_TODO;
+    }
+
+    /** Give back reserved names - all of them, or those the committed users don't have */
+    private void release(Tx tx, Map<Long, User> committedUsers) {
+        for (Reservation reservation : tx.reservations) {
+            User user = committedUsers == null ? null : committedUsers.get(reservation.userId);
+            String kept = user == null ? null
+                    : reservation.names == usernames ? user.getUsername() : user.getEmail();
+            if (!reservation.name.equals(kept)) {
+                reservation.names.remove(reservation.name, reservation.userId);
+            }
+        }
+        tx.reservations.clear();
+    }
+
+    private OptimisticLockingFailureException conflict(long todoId) {
+        conflicts.increment();
+        return new OptimisticLockingFailureException("Todo " + todoId + " was changed or deleted by another transaction");
+    }
+
+    private void failIfUnavailable() {
+        if (!open) {
+            throw new DataAccessResourceFailureException("Embedded store is not open");
+        }
+        if (wal.failure() != null) {
+            throw new DataAccessResourceFailureException("Embedded store: the log can't be written", wal.failure());
+        }
+    }
+
+    private static void await(CompletableFuture<Void> durable) {
+        try {
+            durable.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DataAccessResourceFailureException("Interrupted while waiting for the log", e);
+        } catch (ExecutionException e) {
+            throw new DataAccessResourceFailureException("Embedded store: writing the log failed", e.getCause());
+        }
+    }
+
+    // ---------------------------------------------------------------- state
+
+    /** A user's todos in list order, guarded by its own lock */
+    private static final class UserTodos {
+
+        private final TreeSet<Todo> ordered = new TreeSet<>(LIST_ORDER);
+        private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+        <R> R read(Function<NavigableSet<Todo>, R> reader) {
+            lock.readLock().lock();
+            try {
+                return reader.apply(Collections.unmodifiableNavigableSet(ordered));
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        void replace(Todo old, Todo row) {
+            lock.writeLock().lock();
+            try {
+                if (old != null) {
+                    ordered.remove(old);
+                }
+                if (row != null) {
+                    ordered.add(row);
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    private Todo todoRow(Tx tx, long id) {
+        if (tx != null) {
+            TodoWrite write = tx.todoWrites.get(id);
+            if (write != null) {
+                return write.image;
+            }
+        }
+        return todos.get(id);
+    }
+
+    private User userRow(Tx tx, long id) {
+        if (tx != null && tx.userWrites.containsKey(id)) {
+            return tx.userWrites.get(id);
+        }
+        return users.get(id);
+    }
+
+    private void apply(Change change) {
+        switch (change.kind) {
+            case PUT_TODO -> putTodo(change.todo);
+            case DELETE_TODO -> removeTodo(change.id);
+            case PUT_USER -> putUser(change.user);
+            case DELETE_USER -> removeUser(change.id);
+            default -> throw new IllegalStateException("Unknown change kind " + change.kind);
+        }
+    }
+
+    private void putTodo(Todo row) {
+        Todo old = todos.put(row.getId(), row);
+        if (old != null && ownerOf(old) != ownerOf(row)) {
+            index(ownerOf(old)).replace(old, null);
+            old = null;
+        }
+        index(ownerOf(row)).replace(old, row);
+        lastTodoId.accumulateAndGet(row.getId(), Math::max);
+    }
+
+    private void removeTodo(long id) {
+        Todo old = todos.remove(id);
+        if (old != null) {
+            index(ownerOf(old)).replace(old, null);
+        }
+    }
+
+    private void putUser(User row) {
+        User old = users.put(row.getId(), row);
+        if (old != null) {
+            usernames.remove(old.getUsername(), old.getId());
+            emails.remove(old.getEmail(), old.getId());
+        }
+        usernames.put(row.getUsername(), row.getId());
+        emails.put(row.getEmail(), row.getId());
+        lastUserId.accumulateAndGet(row.getId(), Math::max);
+    }
+
+    private void removeUser(long id) {
+        User old = users.remove(id);
+        if (old != null) {
+            usernames.remove(old.getUsername(), id);
+            emails.remove(old.getEmail(), id);
+        }
+    }
+
+    private UserTodos index(long userId) {
+        return todosByUser.computeIfAbsent(userId, id -> new UserTodos());
+    }
+
+    private static byte[] record(byte kind, long marker, List<Change> changes) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(changes == null ? 9 : 256 * changes.size());
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeByte(kind);
+            out.writeLong(marker);
+            if (changes != null) {
+                out.writeInt(changes.size());
+                for (Change change : changes) {
+                    out.writeByte(change.kind);
+                    switch (change.kind) {
+                        case PUT_TODO -> EmbeddedCodec.writeTodo(out, change.todo);
+                        case PUT_USER -> EmbeddedCodec.writeUser(out, change.user);
+                        default -> out.writeLong(change.id);
+                    }
+                }
+            }
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Replay one log record: apply it, or for a transaction keep its changes
+     * until its outcome comes up - those left in inDoubt have none logged
+     */
+    private void replay(ByteBuffer record, Map<Long, List<Change>> inDoubt) {
+        byte[] bytes = new byte[record.remaining()];
+        record.get(bytes);
+        try {
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+            byte kind = in.readByte();
+            long marker = in.readLong();
+            switch (kind) {
+                case APPLY -> readChanges(in).forEach(this::apply);
+                case PREPARE -> inDoubt.put(marker, readChanges(in));
+                case COMMIT -> {
+                    List<Change> changes = inDoubt.remove(marker);
+                    if (changes == null) {
+                        throw new IOException("Commit of transaction " + marker + " without its prepared record");
+                    }
+                    changes.forEach(this::apply);
+                }
+                case ABORT -> inDoubt.remove(marker);
+                default -> throw new IOException("Unknown log record kind " + kind);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static List<Change> readChanges(DataInputStream in) throws IOException {
+        int count = in.readInt();
+        List<Change> changes = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            byte kind = in.readByte();
+            switch (kind) {
+                case PUT_TODO -> {
+                    Todo todo = EmbeddedCodec.readTodo(in);
+                    changes.add(new Change(kind, todo.getId(), todo, null));
+                }
+                case PUT_USER -> {
+                    User user = EmbeddedCodec.readUser(in);
+                    changes.add(new Change(kind, user.getId(), null, user));
+                }
+                default -> changes.add(new Change(kind, in.readLong(), null, null));
+            }
+        }
+        return changes;
+    }
+
+    static long ownerOf(Todo todo) {
+        return todo.getUser().getId();
+    }
+
+    static Todo copy(Todo row) {
+        Todo copy = new Todo();
+        copy.setId(row.getId());
+        copy.setTitle(row.getTitle());
+        copy.setDescription(row.getDescription());
+        copy.setCompleted(row.getCompleted());
+        copy.setCompletionFromItems(row.getCompletionFromItems());
+        copy.setCompletedAt(row.getCompletedAt());
+        copy.setPosition(row.getPosition());
+        copy.setTags(row.getTags() == null ? new LinkedHashSet<>() : new LinkedHashSet<>(row.getTags()));
+        copy.setDueAt(row.getDueAt());
+        copy.setRemindAt(row.getRemindAt());
+        copy.setReminderSentAt(row.getReminderSentAt());
+        copy.setCreatedAt(row.getCreatedAt());
+        copy.setUpdatedAt(row.getUpdatedAt());
+        copy.setVersion(row.getVersion());
+        copy.setUser(EmbeddedCodec.owner(ownerOf(row)));
+        return copy;
+    }
+
+    static User copy(User row) {
+        return new User(row.getId(), row.getUsername(), row.getEmail(), row.getPassword(), row.getCreatedAt());
+    }
+
+    /** Same persistent state - a save of it writes nothing (no new version, like a clean JPA entity) */
+    private static boolean sameState(Todo entity, Todo row) {
+        Set<String> tags = entity.getTags() == null ? Set.of() : entity.getTags();
+        return ownerOf(entity) == ownerOf(row)
+                && Objects.equals(entity.getTitle(), row.getTitle())
+                && Objects.equals(entity.getDescription(), row.getDescription())
+                && Objects.equals(entity.getCompleted(), row.getCompleted())
+                && Objects.equals(entity.getCompletionFromItems(), row.getCompletionFromItems())
+                && Objects.equals(entity.getCompletedAt(), row.getCompletedAt())
+                && Objects.equals(entity.getPosition(), row.getPosition())
+                && tags.equals(row.getTags())
+                && Objects.equals(entity.getDueAt(), row.getDueAt())
+                && Objects.equals(entity.getRemindAt(), row.getRemindAt())
+                && Objects.equals(entity.getReminderSentAt(), row.getReminderSentAt())
+                && Objects.equals(entity.getUpdatedAt(), row.getUpdatedAt());
+    }
+}
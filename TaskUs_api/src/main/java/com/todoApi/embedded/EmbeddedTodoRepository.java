@@ -0,0 +1,307 @@
+package com.todoApi.embedded;
+
+import com.todoApi.model.Todo;
+import com.todoApi.reminder.DueReminder;
+import com.todoApi.repository.TodoRepository;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * TodoRepository on the embedded store (app.storage=embedded)
+ * Takes the place of the JPA repository for every service (@Primary).
+ *
+ * List reads and the position lookups read one user's index in the
+ * store; the reminder and rebalancer queries scan all todos (background
+ * jobs only). Archiving copies rows with SQL and stays JPA-only (the
+ * archiver is off with this store).
+ */
+@Primary
+@Repository
+@ConditionalOnProperty(name = "app.storage", havingValue = "embedded")
+public class EmbeddedTodoRepository extends EmbeddedRepositorySupport<Todo> implements TodoRepository {
+
+    private static final Comparator<DueReminder> DUE_ORDER = Comparator
+            .comparing(DueReminder::remindAt).thenComparing(DueReminder::todoId);
+
+    private final EmbeddedStore store;
+
+    public EmbeddedTodoRepository(EmbeddedStore store) {
+        super("Todo");
+        this.store = store;
+    }
+
+    @Override
+    Long idOf(Todo todo) {
+        return todo.getId();
+    }
+
+    @Override
+    public List<Todo> findByUser_IdOrderByPositionAsc(Long userId) {
+        return store.findList(userId, row -> true);
+    }
+
+    @Override
+    public List<Todo> findByUser_IdAndIdInOrderByPositionAsc(Long userId, Collection<Long> ids) {
+        List<Todo> found = store.findTodos(ids, row -> EmbeddedStore.ownerOf(row) == userId);
+        found.sort(EmbeddedStore.LIST_ORDER);
+        return found;
+    }
+
+    @Override
+    public List<Object[]> findTagRowsByUserId(Long userId) {
+        return store.readList(userId, rows -> {
+            List<Object[]> tagRows = new ArrayList<>(rows.size());
+            for (Todo row : rows) {
+                if (row.getTags().isEmpty()) {
+                    tagRows.add(new Object[] { row.getId(), row.getCompleted(), null });
+                }
+                for (String tag : row.getTags()) {
+                    tagRows.add(new Object[] { row.getId(), row.getCompleted(), tag });
+                }
+            }
+            return tagRows;
+        });
+    }
+
+    @Override
+    public int deleteTagsByTodoIds(Collection<Long> ids) {
+        int deleted = 0;
+        for (Todo todo : store.findTodos(ids, row -> !row.getTags().isEmpty())) {
+            deleted += todo.getTags().size();
+            store.updateTodo(todo.getId(), row -> {
+                row.getTags().clear();
+                return row;
+            });
+        }
+        return deleted;
+    }
+
+    @Override
+    public Optional<Todo> findWithTagsById(Long id) {
+        return store.findTodo(id);
+    }
+
+    @Override
+    public List<Todo> findByUser_IdInOrderByUser_IdAscPositionAsc(Collection<Long> userIds) {
+        List<Todo> found = new ArrayList<>();
+        for (Long userId : new TreeSet<>(userIds)) {
+            found.addAll(store.findList(userId, row -> true));
+        }
+        return found;
+    }
+
+    @Override
+    public List<Todo> findByUser_IdInAndCompletedOrderByUser_IdAscPositionAsc(Collection<Long> userIds,
+            Boolean completed) {
+        List<Todo> found = new ArrayList<>();
+        for (Long userId : new TreeSet<>(userIds)) {
+            found.addAll(store.findList(userId, row -> completed.equals(row.getCompleted())));
+        }
+        return found;
+    }
+
+    @Override
+    public List<Todo> findByUser_IdInAndIdIn(Collection<Long> userIds, Collection<Long> ids) {
+        Set<Long> owners = new HashSet<>(userIds);
+        return store.findTodos(ids, row -> owners.contains(EmbeddedStore.ownerOf(row)));
+    }
+
+    @Override
+    public Optional<Todo> findByIdAndUser_Id(Long id, Long userId) {
+        return store.findTodo(id).filter(todo -> EmbeddedStore.ownerOf(todo) == userId);
+    }
+
+    @Override
+    public List<Todo> findByUser_IdAndCompletedOrderByPositionAsc(Long userId, Boolean completed) {
+        return store.findList(userId, row -> completed.equals(row.getCompleted()));
+    }
+
+    @Override
+    public Long countByUser_Id(Long userId) {
+        return store.readList(userId, rows -> (long) rows.size());
+    }
+
+    @Override
+    public List<Long> findIdsByUserId(Long userId, Pageable pageable) {
+        TreeSet<Long> ids = store.readList(userId, rows -> {
+            TreeSet<Long> all = new TreeSet<>();
+            rows.forEach(row -> all.add(row.getId()));
+            return all;
+        });
+        return ids.stream().skip(pageable.getOffset()).limit(pageable.getPageSize()).toList();
+    }
+
+    @Override
+    public String findMaxPosition(Long userId) {
+        return store.readList(userId, rows -> {
+            // Todos without a key sort last
+            for (Todo row : rows.descendingSet()) {
+                if (row.getPosition() != null) {
+                    return row.getPosition();
+                }
+            }
+            return null;
+        });
+    }
+
+    @Override
+    public String findMinPosition(Long userId, Long excludedId) {
+        return store.readList(userId, rows -> {
+            for (Todo row : rows) {
+                if (row.getPosition() == null) {
+                    return null;
+                }
+                if (!row.getId().equals(excludedId)) {
+                    return row.getPosition();
+                }
+            }
+            return null;
+        });
+    }
+
+    @Override
+    public String findNextPosition(Long userId, String position, Long excludedId) {
+        Todo probe = new Todo();
+        probe.setPosition(position);
+        probe.setId(Long.MAX_VALUE);
+        return store.readList(userId, rows -> {
+            for (Todo row : rows.tailSet(probe, false)) {
+                if (row.getPosition() == null) {
+                    return null;
+                }
+                if (!row.getId().equals(excludedId) && row.getPosition().compareTo(position) > 0) {
+                    return row.getPosition();
+                }
+            }
+            return null;
+        });
+    }
+
+    @Override
+    public List<Long> findUserIdsNeedingRebalance(int maxLength) {
+        Set<Long> userIds = new LinkedHashSet<>();
+        for (Todo todo : store.scanTodos(row -> row.getPosition() == null || row.getPosition().length() > maxLength)) {
+            userIds.add(EmbeddedStore.ownerOf(todo));
+        }
+        return new ArrayList<>(userIds);
+    }
+
+    @Override
+    public List<Long> findIdsInPositionOrder(Long userId) {
+        return store.readList(userId, rows -> rows.stream().map(Todo::getId).toList());
+    }
+
+    @Override
+    public int updatePositions(Long userId, List<Long> ids, List<String> positions) {
+        int updated = 0;
+        for (int i = 0; i < ids.size(); i++) {
+            String position = positions.get(i);
+            updated += store.updateTodo(ids.get(i), row -> {
+                if (!userId.equals(EmbeddedStore.ownerOf(row))) {
+                    return null;
+                }
+                row.setPosition(position);
+                row.setVersion(row.getVersion() + 1);
+                return row;
+            });
+        }
+        return updated;
+    }
+
+    @Override
+    public List<DueReminder> findDueReminders(LocalDateTime until, LocalDateTime afterTime, Long afterId,
+            Pageable pageable) {
+        return store.scanTodos(row -> row.getRemindAt() != null
+                        && !row.getRemindAt().isAfter(until)
+                        && (row.getRemindAt().isAfter(afterTime)
+                                || (row.getRemindAt().isEqual(afterTime) && row.getId() > afterId)))
+                .stream()
+                .map(todo -> new DueReminder(todo.getId(), EmbeddedStore.ownerOf(todo), todo.getTitle(),
+                        todo.getDueAt(), todo.getRemindAt()))
+                .sorted(DUE_ORDER)
+                .limit(pageable.getPageSize())
+                .toList();
+    }
+
+    @Override
+    public int claimReminder(Long id, LocalDateTime remindAt, LocalDateTime now) {
+        return store.updateTodo(id, row -> {
+            if (!remindAt.equals(row.getRemindAt())) {
+                return null;
+            }
+            row.setRemindAt(null);
+            row.setReminderSentAt(now);
+            row.setUpdatedAt(now);
+            row.setVersion(row.getVersion() + 1);
+            return row;
+        });
+    }
+
+    /** Nothing is archived out of the store - TodoArchiver only runs with app.storage=jpa */
+    @Override
+    public List<Todo> findArchivable(LocalDateTime cutoff, Long afterId, Pageable pageable) {
+        return List.of();
+    }
+
+    /** Nothing to sync: the store is single-node, every write goes through this instance's TagIndex */
+    @Override
+    public List<Object[]> findTagRowsUpdatedAfter(LocalDateTime since) {
+        return List.of();
+    }
+
+    /** No row locks - commits are serialised and version-checked by the store */
+    @Override
+    public Optional<Todo> findForUpdateById(Long id) {
+        return store.findTodo(id);
+    }
+
+    @Override
+    public Boolean existsByIdAndUser_Id(Long id, Long userId) {
+        return findByIdAndUser_Id(id, userId).isPresent();
+    }
+
+    @Override
+    public <S extends Todo> S save(S todo) {
+        store.saveTodo(todo);
+        return todo;
+    }
+
+    @Override
+    public Optional<Todo> findById(Long id) {
+        return store.findTodo(id);
+    }
+
+    @Override
+    public List<Todo> findAll() {
+        return store.scanTodos(row -> true);
+    }
+
+    @Override
+    public long count() {
+        return store.countTodos();
+    }
+
+    @Override
+    public void deleteById(Long id) {
+        store.deleteTodo(id, null);
+    }
+
+    /** Checked against the version the todo was read at, like JPA's delete of a versioned entity */
+    @Override
+    public void delete(Todo todo) {
+        store.deleteTodo(todo.getId(), todo.getVersion());
+    }
+}
@@ -0,0 +1,36 @@
+package com.todoApi.embedded;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * The endpoints that need todos and users in the database, while they
+ * live in the embedded store (app.storage=embedded): 501 Not Implemented
+ *
+ * Checklist items and shares are rows with foreign keys to the todos
+ * and users tables, which stay empty in this mode - their controllers
+ * are off (see TodoItemController, TodoShareController) and these
+ * paths answer instead of a 404 or a constraint violation.
+ */
+@RestController
+@ConditionalOnProperty(name = "app.storage", havingValue = "embedded")
+public class EmbeddedUnsupportedController {
+
+    @RequestMapping({ "/api/todos/{todoId}/items", "/api/todos/{todoId}/items/**" })
+    public void items() {
+        throw notImplemented("Checklist items");
+    }
+
+    @RequestMapping({ "/api/shares", "/api/shares/**" })
+    public void shares() {
+        throw notImplemented("Sharing");
+    }
+
+    private static ResponseStatusException notImplemented(String feature) {
+        return new ResponseStatusException(HttpStatus.NOT_IMPLEMENTED,
+                feature + " needs app.storage=jpa - not available with the embedded store");
+    }
+}
@@ -0,0 +1,112 @@
+package com.todoApi.embedded;
+
+import com.todoApi.availability.RegisteredNames;
+import com.todoApi.model.User;
+import com.todoApi.repository.UserRepository;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * UserRepository on the embedded store (app.storage=embedded)
+ * Takes the place of the JPA repository for every service (@Primary)
+ */
+@Primary
+@Repository
+@ConditionalOnProperty(name = "app.storage", havingValue = "embedded")
+public class EmbeddedUserRepository extends EmbeddedRepositorySupport<User> implements UserRepository {
+
+    private final EmbeddedStore store;
+
+    public EmbeddedUserRepository(EmbeddedStore store) {
+        super("User");
+        this.store = store;
+    }
+
+    @Override
+    Long idOf(User user) {
+        return user.getId();
+    }
+
+    @Override
+    public Optional<User> findByUsername(String username) {
+        return store.findUserByUsername(username);
+    }
+
+    @Override
+    public Optional<User> findByEmail(String email) {
+        return store.findUserByEmail(email);
+    }
+
+    @Override
+    public Boolean existsByUsername(String username) {
+        return store.findUserByUsername(username).isPresent();
+    }
+
+    @Override
+    public Boolean existsByEmail(String email) {
+        return store.findUserByEmail(email).isPresent();
+    }
+
+    @Override
+    public List<RegisteredNames> findRegisteredNamesAfter(Long afterId, Pageable pageable) {
+        return store.findUsersAfter(afterId, pageable.getPageSize()).stream()
+                .map(user -> new RegisteredNames(user.getId(), user.getUsername(), user.getEmail()))
+                .toList();
+    }
+
+    @Override
+    public Long findMaxIdCreatedBefore(LocalDateTime before) {
+        return store.findMaxUserIdCreatedBefore(before);
+    }
+
+    @Override
+    public List<Long> findWarmUpUserIdsCreatedBefore(LocalDateTime before) {
+        return store.findAllUsers().stream()
+                .filter(user -> user.getUsername().startsWith("warmup") && user.getEmail().endsWith("@warmup.invalid")
+                        && user.getCreatedAt().isBefore(before))
+                .map(User::getId)
+                .toList();
+    }
+
+    @Override
+    public <S extends User> S save(S user) {
+        store.saveUser(user);
+        return user;
+    }
+
+    @Override
+    public Optional<User> findById(Long id) {
+        return store.findUser(id);
+    }
+
+    @Override
+    public Optional<User> findForUpdateById(Long id) {
+        return store.findUser(id);
+    }
+
+    @Override
+    public List<User> findAll() {
+        return store.findAllUsers();
+    }
+
+    @Override
+    public long count() {
+        return store.countUsers();
+    }
+
+    @Override
+    public void deleteById(Long id) {
+        store.deleteUser(id);
+    }
+
+    @Override
+    public void delete(User user) {
+        store.deleteUser(user.getId());
+    }
+}
@@ -0,0 +1,257 @@
+package com.todoApi.embedded;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.zip.CRC32C;
+
+/**
+ * EmbeddedWal - Write-ahead log of the embedded store (see EmbeddedStore)
+ *
+ * Every commit is one record. append() only queues it and returns a
+ * future; a single writer thread drains the queue in batches, writes a
+ * batch with one write, makes it durable with one fsync (group commit)
+ * and then completes the batch's futures. A committing request waits
+ * for its future, so under load many commits share one fsync.
+ *
+ * The log is split into generations (wal-<generation>.log). A snapshot
+ * switches to the next generation (roll), and the generations before it
+ * are deleted once the snapshot is on disk.
+ *
+ * If a write or fsync fails, the failure is sticky: the waiting commits
+ * and every later append fail, so nothing is acknowledged that may not
+ * be on disk.
+ *
+ * File: 8 byte header (magic, version, 3 unused), then records:
+ *   length (4) | crc32c (4) | payload (length)
+ * The crc covers the payload. Replay stops at the first torn or corrupt
+ * record of a file - only the last file written before a crash has one.
+ */
+@Slf4j
+final class EmbeddedWal {
+
+    private static final int MAGIC = 0x54574c47; // "TWLG"
+    private static final byte VERSION = 1;
+    private static final int HEADER_BYTES = 8;
+    private static final int RECORD_HEADER_BYTES = 8;
+    private static final int MAX_BATCH = 512;
+
+    static final String PREFIX = "wal-";
+    static final String SUFFIX = ".log";
+
+    /** A commit's record, or a switch to a new generation (payload null) */
+    private record Entry(byte[] payload, int generation, CompletableFuture<Void> done) {
+    }
+
+    private final Path directory;
+    private final BlockingQueue<Entry> queue;
+    private final Counter batches;
+    private final Counter records;
+
+    /** Only the writer thread touches the channel after open() */
+    private FileChannel channel;
+    private volatile IOException failure;
+    private volatile boolean running;
+    private Thread writer;
+
+    EmbeddedWal(Path directory, int queueCapacity, MeterRegistry meterRegistry) {
+        this.directory = directory;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batches = meterRegistry.counter("embedded.wal.batches");
+        this.records = meterRegistry.counter("embedded.wal.records");
+    }
+
+    static Path path(Path directory, int generation) {
+        return directory.resolve(String.format("%s%010d%s", PREFIX, generation, SUFFIX));
+    }
+
+    /** Start writing to a new generation */
+    void open(int generation) throws IOException {
+        channel = create(generation);
+        running = true;
+        writer = new Thread(this::writeLoop, "embedded-wal-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /** Write what is queued, then stop */
+    void close() throws InterruptedException, IOException {
+        if (!running) {
+            return;
+        }
+        running = false;
+        writer.join(TimeUnit.SECONDS.toMillis(10));
+        channel.close();
+    }
+
+    /**
+     * Queue a record - the future completes once it is durable
+     * Blocks while the queue is full (the writer is behind on fsyncs)
+     */
+    CompletableFuture<Void> append(byte[] payload) {
+        return enqueue(new Entry(payload, 0, new CompletableFuture<>()));
+    }
+
+    /** Switch to a new generation after the records queued so far - the future completes once switched */
+    CompletableFuture<Void> roll(int generation) {
+        return enqueue(new Entry(null, generation, new CompletableFuture<>()));
+    }
+
+    /** Set once a write has failed - the store refuses commits from then on */
+    IOException failure() {
+        return failure;
+    }
+
+    private CompletableFuture<Void> enqueue(Entry entry) {
+        if (failure != null) {
+            entry.done.completeExceptionally(failure);
+            return entry.done;
+        }
+        try {
+            queue.put(entry);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            entry.done.completeExceptionally(e);
+        }
+        return entry.done;
+    }
+
+    private void writeLoop() {
+        List<Entry> batch = new ArrayList<>(MAX_BATCH);
+        while (running || !queue.isEmpty()) {
+            try {
+                Entry first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, MAX_BATCH - 1);
+                if (failure != null) {
+                    batch.forEach(entry -> entry.done.completeExceptionally(failure));
+                } else {
+                    write(batch);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (IOException e) {
+                log.error("Embedded store: writing the log failed, no more commits are accepted", e);
+                failure = e;
+                batch.forEach(entry -> entry.done.completeExceptionally(e));
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void write(List<Entry> batch) throws IOException {
+        int from = 0;
+        while (from < batch.size()) {
+            Entry entry = batch.get(from);
+            if (entry.payload == null) {
+                // Everything before the roll is already forced
+                channel.close();
+                channel = create(entry.generation);
+                entry.done.complete(null);
+                from++;
+                continue;
+            }
+
+            int to = from;
+            int bytes = 0;
+            while (to < batch.size() && batch.get(to).payload != null) {
+                bytes += RECORD_HEADER_BYTES + batch.get(to).payload.length;
+                to++;
+            }
+            ByteBuffer buffer = ByteBuffer.allocate(bytes);
+            CRC32C crc = new CRC32C();
+            for (int i = from; i < to; i++) {
+                byte[] payload = batch.get(i).payload;
+                crc.reset();
+                crc.update(payload);
+                buffer.putInt(payload.length).putInt((int) crc.getValue()).put(payload);
+            }
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+            batches.increment();
+            records.increment(to - from);
+
+            for (int i = from; i < to; i++) {
+                batch.get(i).done.complete(null);
+            }
+            from = to;
+        }
+    }
+
+    private FileChannel create(int generation) throws IOException {
+        FileChannel created = FileChannel.open(path(directory, generation),
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).putInt(MAGIC).put(VERSION);
+        header.position(HEADER_BYTES).flip();
+        while (header.hasRemaining()) {
+            created.write(header);
+        }
+        // The file itself must survive a crash, not just the records written into it later
+        created.force(true);
+        return created;
+    }
+
+    /**
+     * Hand every intact record of a log file to the consumer, in order
+     *
+     * @return Number of records read
+     */
+    static int replay(Path file, Consumer<ByteBuffer> consumer) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_BYTES) {
+                // Crashed while creating it - nothing was committed to it
+                return 0;
+            }
+            MappedByteBuffer data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (data.getInt(0) != MAGIC || data.get(4) != VERSION) {
+                throw new IOException("Not a write-ahead log of this version: " + file);
+            }
+
+            int count = 0;
+            int offset = HEADER_BYTES;
+            CRC32C crc = new CRC32C();
+            while (offset + RECORD_HEADER_BYTES <= data.limit()) {
+                int length = data.getInt(offset);
+                if (length <= 0 || offset + RECORD_HEADER_BYTES + length > data.limit()) {
+                    break;
+                }
+                ByteBuffer payload = data.slice(offset + RECORD_HEADER_BYTES, length);
+                crc.reset();
+                crc.update(payload.duplicate());
+                if ((int) crc.getValue() != data.getInt(offset + 4)) {
+                    break;
+                }
+                consumer.accept(payload);
+                count++;
+                offset += RECORD_HEADER_BYTES + length;
+            }
+            if (offset < data.limit()) {
+                log.warn("Embedded store: {} ends with {} bytes of a torn record, ignored",
+                        file.getFileName(), data.limit() - offset);
+            }
+            return count;
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.todoApi.embedded;
+
+import com.todoApi.model.EmbeddedCommit;
+import com.todoApi.repository.EmbeddedCommitRepository;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/** Commit markers as rows of embedded_commits, in the same database as the outbox and the stats */
+@Component
+@ConditionalOnProperty(name = "app.storage", havingValue = "embedded")
+class JpaCommitMarkers implements EmbeddedCommitMarkers {
+
+    /** Ids per delete statement */
+    private static final int DELETE_CHUNK = 1_000;
+
+    private final EmbeddedCommitRepository repository;
+
+    JpaCommitMarkers(EmbeddedCommitRepository repository) {
+        this.repository = repository;
+    }
+
+    @Override
+    public long mark() {
+        // IDENTITY: inserted right away, so the id is known before the commit
+        return repository.save(new EmbeddedCommit(null, LocalDateTime.now())).getId();
+    }
+
+    @Override
+    public Set<Long> committed(Collection<Long> ids) {
+        return repository.findAllById(ids).stream().map(EmbeddedCommit::getId).collect(Collectors.toSet());
+    }
+
+    @Override
+    public void forget(Collection<Long> ids) {
+        List<Long> all = new ArrayList<>(ids);
+        for (int from = 0; from < all.size(); from += DELETE_CHUNK) {
+            repository.deleteAllByIdInBatch(all.subList(from, Math.min(from + DELETE_CHUNK, all.size())));
+        }
+    }
+
+    @Override
+    public void forgetAll() {
+        repository.deleteAllInBatch();
+    }
+}
@@ -0,0 +1,31 @@
+package com.todoApi.history;
+
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * HistoryEntry - One recorded change of a todo
+ *
+ * Example JSON:
+ * {
+ * "at": "2026-10-18T09:15:02.120Z",
+ * "by": 12,
+ * "type": "UPDATED",
+ * "changes": { "title": { "from": "Buy milk", "to": "Buy oat milk" } }
+ * }
+ *
+ * @param at      When the change was committed
+ * @param by      The user who made it (the owner, or someone the list is shared with)
+ * @param type    CREATED (changes hold the initial values), UPDATED or DELETED
+ * @param changes Changed fields (title, description, completed): old and new value
+ */
+public record HistoryEntry(Instant at, Long by, Type type, Map<String, Change> changes) {
+
+    public enum Type {
+        CREATED, UPDATED, DELETED
+    }
+
+    /** A field's value before and after the change */
+    public record Change(Object from, Object to) {
+    }
+}
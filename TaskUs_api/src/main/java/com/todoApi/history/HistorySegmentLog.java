@@ -0,0 +1,934 @@
+package com.todoApi.history;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+import java.util.zip.CRC32C;
+
+/**
+ * HistorySegmentLog - Append-only log of todo history records in local segment files
+ *
+ * Keeps todo history off the main database: a history row per change
+ * would double the write cost of every edit.
+ *
+ * Writing: append() only puts the record on a bounded queue. A single
+ * writer thread drains the queue in batches, writes each batch with one
+ * write and makes it durable with one fsync (group commit) - under load
+ * many changes share one fsync. Records are appended to the active
+ * segment until it reaches app.history.segment-bytes, then a new one is
+ * started. If the queue is full the record is dropped and counted
+ * (todo.history.dropped) rather than slowing down the request.
+ *
+ * Reading: every segment is memory-mapped; an in-memory index maps each
+ * todo to the locations (segment, offset) of its records, so a todo's
+ * history is a few direct reads, without scanning. The index is rebuilt
+ * from the segments on startup; a torn record at the end of the last
+ * segment (crash mid-write) is cut off. A segment is mapped at its full
+ * size when it is sealed (or written by a compaction) and never re-mapped
+ * after: a reader still holding a segment that a compaction has just
+ * replaced keeps reading the old mapping, which stays valid after the
+ * file is closed and deleted.
+ *
+ * Compaction drops records of deleted todos and records older than
+ * app.history.retention-days, without rewriting all history every run:
+ * - the segments sealed since the last run are merged - together with
+ *   the last compacted segment while it is less than half full - into
+ *   compacted segments of at most app.history.segment-bytes each
+ * - an older compacted segment is rewritten in place only once at least
+ *   app.history.compact-garbage-ratio of it can be dropped
+ * A deletion marker is copied along as long as an older segment still
+ * holds records of its todo: without it, startup would index them again.
+ *
+ * Segments are ordered by (id, part). New segments are (id, 0); the
+ * segments a merge writes are (id of the newest merged segment, 1..n),
+ * so they take the place of what they replace and every todo's records
+ * stay in write order. A merge writes its segments as *.compacting
+ * files; the first rename to *.log commits it (startup renames the rest)
+ * and each header names the first segment the merge replaced: on
+ * startup, segments from that one up to the merge's own id are
+ * leftovers of a finished merge and deleted.
+ *
+ * Segment file: 16 byte header (magic, version, flags, id and part of
+ * the first segment a compaction replaced), then records:
+ *   length (4) | crc32c (4) | todo id (8) | time millis (8) | kind (1) | payload (length)
+ * The crc covers everything after itself. The payload is the entry's JSON.
+ *
+ * Metrics: todo.history.appended, todo.history.dropped, todo.history.batches,
+ * todo.history.queue
+ */
+@Slf4j
+@Component
+public class HistorySegmentLog {
+
+    /** A record as read back */
+    public record Record(long todoId, long timeMillis, boolean deleted, byte[] payload) {
+    }
+
+    private static final int MAGIC = 0x54484c47; // "THLG"
+    private static final byte VERSION = 1;
+    private static final byte FLAG_COMPACTED = 1;
+    private static final int HEADER_BYTES = 16;
+    private static final int RECORD_HEADER_BYTES = 25;
+    /** Offsets are ints and a mapping can't exceed Integer.MAX_VALUE bytes - segments stay well below */
+    private static final long MAX_SEGMENT_BYTES = 1L << 30;
+
+    private static final byte KIND_CHANGE = 0;
+    private static final byte KIND_DELETED = 1;
+
+    private static final int MAX_BATCH = 512;
+    private static final String SUFFIX = ".log";
+    private static final String COMPACTING = ".compacting";
+    private static final String REWRITING = ".rewriting";
+
+    private final Path directory;
+    private final boolean enabled;
+    private final long segmentBytes;
+    private final long retentionMillis;
+    private final double garbageRatio;
+    private final BlockingQueue<Record> queue;
+
+    private final Counter appended;
+    private final Counter dropped;
+    private final Counter batches;
+
+    /**
+     * Segments by (id, part) and by slot, and the per-todo index - all
+     * guarded by this. A slot is a segment's number in this process; the
+     * index stores (slot, offset), so a rewritten segment gets a new slot.
+     */
+    private final TreeMap<Long, Segment> segments = new TreeMap<>();
+    private final Map<Integer, Segment> bySlot = new HashMap<>();
+    private final Map<Long, Locations> index = new HashMap<>();
+    private final AtomicInteger nextSlot = new AtomicInteger();
+
+    /** Only the writer thread appends to it (and replaces it) */
+    private volatile Segment active;
+    private volatile boolean running;
+    private Thread writer;
+
+    public HistorySegmentLog(MeterRegistry meterRegistry,
+            @Value("${app.history.enabled:true}") boolean enabled,
+            @Value("${app.history.dir:data/history}") String directory,
+            @Value("${app.history.segment-bytes:67108864}") long segmentBytes,
+            @Value("${app.history.retention-days:365}") long retentionDays,
+            @Value("${app.history.compact-garbage-ratio:0.25}") double garbageRatio,
+            @Value("${app.history.queue-capacity:10000}") int queueCapacity) {
+        this.enabled = enabled;
+        this.directory = Path.of(directory);
+        this.segmentBytes = Math.min(segmentBytes, MAX_SEGMENT_BYTES);
+        this.retentionMillis = TimeUnit.DAYS.toMillis(retentionDays);
+        this.garbageRatio = garbageRatio;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+
+        this.appended = meterRegistry.counter("todo.history.appended");
+        this.dropped = meterRegistry.counter("todo.history.dropped");
+        this.batches = meterRegistry.counter("todo.history.batches");
+        meterRegistry.gauge("todo.history.queue", queue, BlockingQueue::size);
+    }
+
+    @PostConstruct
+    void open() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        Files.createDirectories(directory);
+        long started = System.nanoTime();
+
+        // Unfinished in-place rewrites
+        try (DirectoryStream<Path> leftovers = Files.newDirectoryStream(directory, "*" + REWRITING)) {
+            for (Path leftover : leftovers) {
+                Files.delete(leftover);
+            }
+        }
+        // Merge output: committed if any of it was renamed already, else unfinished
+        try (DirectoryStream<Path> outputs = Files.newDirectoryStream(directory, "*" + COMPACTING)) {
+            for (Path output : outputs) {
+                String name = output.getFileName().toString();
+                Path target = directory.resolve(name.substring(0, name.length() - COMPACTING.length()));
+                // Version 1 wrote history-<id>.compacting - never renamed before it was complete
+                if (target.toString().endsWith(SUFFIX) && hasMergeOutput(idOf(parseKey(target)))) {
+                    Files.move(output, target, StandardCopyOption.ATOMIC_MOVE);
+                } else {
+                    Files.delete(output);
+                }
+            }
+        }
+
+        TreeMap<Long, Segment> found = new TreeMap<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "history-*" + SUFFIX)) {
+            for (Path file : files) {
+                long key = parseKey(file);
+                found.put(key, Segment.open(file, idOf(key), partOf(key), nextSlot.getAndIncrement()));
+            }
+        }
+
+        // Segments a finished compaction replaced but didn't get to delete
+        Set<Long> replaced = new HashSet<>();
+        for (Segment segment : found.values()) {
+            if (segment.compacted && segment.replacedFrom <= key(segment.id, 0)) {
+                for (Long key : found.subMap(segment.replacedFrom, true, key(segment.id, 0), true).keySet()) {
+                    if (key != segment.key()) {
+                        replaced.add(key);
+                    }
+                }
+            }
+        }
+        for (Long key : replaced) {
+            Segment segment = found.remove(key);
+            segment.close();
+            Files.delete(segment.path);
+        }
+
+        long records = 0;
+        Long newest = found.isEmpty() ? null : found.lastKey();
+        for (Segment segment : found.values()) {
+            if (segment.isEmpty() && !segment.compacted) {
+                // An active segment nothing was written to
+                segment.close();
+                Files.delete(segment.path);
+                continue;
+            }
+            records += load(segment, segment.key() == newest && !segment.compacted);
+            publish(segment);
+        }
+
+        int nextId = found.isEmpty() ? 1 : idOf(found.lastKey()) + 1;
+        active = Segment.create(segmentPath(nextId, 0), nextId, nextSlot.getAndIncrement());
+        publish(active);
+
+        running = true;
+        writer = new Thread(this::writeLoop, "history-writer");
+        writer.setDaemon(true);
+        writer.start();
+
+        log.info("History log opened: {} segments, {} records, {} todos in {} ms",
+                segments.size(), records, index.size(), (System.nanoTime() - started) / 1_000_000);
+    }
+
+    @PreDestroy
+    void close() throws InterruptedException {
+        if (!running) {
+            return;
+        }
+        // The writer drains what is queued before it stops
+        running = false;
+        writer.join(TimeUnit.SECONDS.toMillis(10));
+        synchronized (this) {
+            for (Segment segment : segments.values()) {
+                segment.close();
+            }
+        }
+    }
+
+    /** Queue a change record - written by the writer thread shortly after */
+    public void append(long todoId, long timeMillis, byte[] payload) {
+        offer(new Record(todoId, timeMillis, false, payload));
+    }
+
+    /** Queue a deletion marker: the todo's history is no longer served and is dropped by compaction */
+    public void appendDeleted(long todoId, long timeMillis, byte[] payload) {
+        offer(new Record(todoId, timeMillis, true, payload));
+    }
+
+    /** A todo's records, oldest first (empty for unknown or deleted todos) */
+    public List<Record> read(long todoId) {
+        if (!enabled) {
+            return List.of();
+        }
+        long[] locations;
+        Segment[] segmentsRead;
+        synchronized (this) {
+            Locations todoLocations = index.get(todoId);
+            if (todoLocations == null) {
+                return List.of();
+            }
+            locations = todoLocations.toArray();
+            // Resolve segments now: a compaction may replace them once the lock is released
+            segmentsRead = new Segment[locations.length];
+            for (int i = 0; i < locations.length; i++) {
+                segmentsRead[i] = bySlot.get(slotOf(locations[i]));
+            }
+        }
+
+        List<Record> records = new ArrayList<>(locations.length);
+        for (int i = 0; i < locations.length; i++) {
+            records.add(segmentsRead[i].read(offset(locations[i])));
+        }
+        return records;
+    }
+
+    /**
+     * Drop records of deleted todos and records past the retention period:
+     * rewrite the compacted segments that have collected enough of them,
+     * then merge the segments sealed since the last run
+     */
+    @Scheduled(fixedDelayString = "${app.history.compact-interval-ms:3600000}",
+            initialDelayString = "${app.history.compact-initial-delay-ms:600000}")
+    public void compact() throws IOException {
+        if (!running) {
+            return;
+        }
+        long started = System.nanoTime();
+        long cutoff = System.currentTimeMillis() - retentionMillis;
+
+        int rewritten = 0;
+        for (Segment segment : sealed()) {
+            if (segment.compacted && !segment.isEmpty()) {
+                long droppable = droppableBytes(segment, cutoff);
+                if (droppable > 0 && droppable >= (segment.size - segment.dataStart) * garbageRatio) {
+                    rewrite(segment, cutoff);
+                    rewritten++;
+                }
+            }
+        }
+
+        List<Segment> sealed = sealed();
+        int firstNew = 0;
+        while (firstNew < sealed.size() && sealed.get(firstNew).compacted) {
+            firstNew++;
+        }
+        int merged = 0;
+        if (firstNew < sealed.size()) {
+            List<Segment> group = new ArrayList<>(sealed.subList(firstNew, sealed.size()));
+            if (firstNew > 0 && sealed.get(firstNew - 1).size < segmentBytes / 2) {
+                group.add(0, sealed.get(firstNew - 1));
+            }
+            merge(group, cutoff);
+            merged = group.size();
+        }
+
+        if (rewritten > 0 || merged > 0) {
+            log.info("History compaction: {} segments merged, {} rewritten in {} ms",
+                    merged, rewritten, (System.nanoTime() - started) / 1_000_000);
+        }
+    }
+
+    /** Merge a run of segments ending with a new one into compacted segments in its place */
+    private void merge(List<Segment> group, long cutoff) throws IOException {
+        Segment first = group.get(0);
+        int id = group.get(group.size() - 1).id;
+        Set<Long> keptMarkers = withRecordsBefore(first.key(), deletedIn(group));
+        Copy copy = copy(group, cutoff, keptMarkers, segmentBytes,
+                i -> directory.resolve(segmentPath(id, i + 1).getFileName() + COMPACTING),
+                header(FLAG_COMPACTED, first.id, first.part));
+
+        // The first rename commits the merge: from there on, startup finishes it
+        List<Segment> outputs = new ArrayList<>();
+        for (int i = 0; i < copy.files.size(); i++) {
+            Files.move(copy.files.get(i), segmentPath(id, i + 1), StandardCopyOption.ATOMIC_MOVE);
+        }
+        for (int i = 0; i < copy.files.size(); i++) {
+            outputs.add(Segment.open(segmentPath(id, i + 1), id, i + 1, nextSlot.getAndIncrement()));
+        }
+        replace(group, outputs, copy.moved);
+
+        for (Segment segment : group) {
+            segment.close();
+            Files.deleteIfExists(segment.path);
+        }
+    }
+
+    /** Rewrite a compacted segment without its droppable records, under the same id and part */
+    private void rewrite(Segment segment, long cutoff) throws IOException {
+        Path temp = directory.resolve(segment.path.getFileName() + REWRITING);
+        // The output is never larger than the segment, so it is one file
+        Set<Long> keptMarkers = withRecordsBefore(segment.key(), deletedIn(List.of(segment)));
+        Copy copy = copy(List.of(segment), cutoff, keptMarkers, Long.MAX_VALUE, i -> temp,
+                header(segment.flags, idOf(segment.replacedFrom), partOf(segment.replacedFrom)));
+
+        List<Segment> outputs = new ArrayList<>();
+        if (!copy.files.isEmpty()) {
+            Files.move(temp, segment.path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            outputs.add(Segment.open(segment.path, segment.id, segment.part, nextSlot.getAndIncrement()));
+        }
+        replace(List.of(segment), outputs, copy.moved);
+
+        segment.close();
+        if (outputs.isEmpty()) {
+            Files.deleteIfExists(segment.path);
+        }
+    }
+
+    /** Files written by copy() and where each todo's records landed in them */
+    private static final class Copy {
+
+        final List<Path> files = new ArrayList<>();
+        /** Locations as (index into files, offset) until the files are opened as segments */
+        final Map<Long, Locations> moved = new HashMap<>();
+    }
+
+    /**
+     * Copy the records of live todos within the retention period, and the
+     * deletion markers of keptMarkers, into new files of at most maxBytes
+     * each (at least one record per file)
+     */
+    private Copy copy(List<Segment> group, long cutoff, Set<Long> keptMarkers, long maxBytes,
+            IntFunction<Path> output, ByteBuffer header) throws IOException {
+        Copy copy = new Copy();
+        FileChannel channel = null;
+        long position = 0;
+        try {
+            for (Segment segment : group) {
+                for (int offset = segment.dataStart; offset < segment.size; ) {
+                    int length = segment.recordLength(offset);
+                    long todoId = segment.todoId(offset);
+                    boolean marker = segment.deleted(offset);
+                    if (marker ? keptMarkers.contains(todoId) : segment.timeMillis(offset) >= cutoff && isLive(todoId)) {
+                        if (channel == null || position + length > maxBytes) {
+                            finish(channel);
+                            channel = null;
+                            Path file = output.apply(copy.files.size());
+                            // Left behind by a failed run
+                            Files.deleteIfExists(file);
+                            channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+                            copy.files.add(file);
+                            writeFully(channel, header.duplicate());
+                            position = HEADER_BYTES;
+                        }
+                        writeFully(channel, segment.slice(offset, length));
+                        if (!marker) {
+                            copy.moved.computeIfAbsent(todoId, id -> new Locations())
+                                    .add(location(copy.files.size() - 1, position));
+                        }
+                        position += length;
+                    }
+                    offset += length;
+                }
+            }
+            finish(channel);
+        } catch (IOException | RuntimeException e) {
+            if (channel != null) {
+                channel.close();
+            }
+            for (Path file : copy.files) {
+                Files.deleteIfExists(file);
+            }
+            throw e;
+        }
+        return copy;
+    }
+
+    /**
+     * Swap a group of segments for the ones that replace it
+     * Each todo keeps its records before the group, then the copies,
+     * then its records after the group.
+     */
+    private synchronized void replace(List<Segment> group, List<Segment> outputs, Map<Long, Locations> moved) {
+        Set<Integer> replaced = new HashSet<>();
+        for (Segment segment : group) {
+            segments.remove(segment.key());
+            bySlot.remove(segment.slot);
+            replaced.add(segment.slot);
+        }
+        int[] outputSlots = new int[outputs.size()];
+        for (int i = 0; i < outputs.size(); i++) {
+            publish(outputs.get(i));
+            outputSlots[i] = outputs.get(i).slot;
+        }
+
+        index.entrySet().removeIf(entry -> {
+            Locations spliced = entry.getValue().replace(replaced, moved.get(entry.getKey()), outputSlots);
+            entry.setValue(spliced);
+            return spliced.isEmpty();
+        });
+    }
+
+    /** Bytes of a segment's records that a rewrite would drop */
+    private long droppableBytes(Segment segment, long cutoff) {
+        Set<Long> keptMarkers = withRecordsBefore(segment.key(), deletedIn(List.of(segment)));
+        long bytes = 0;
+        for (int offset = segment.dataStart; offset < segment.size; ) {
+            int length = segment.recordLength(offset);
+            long todoId = segment.todoId(offset);
+            if (segment.deleted(offset) ? !keptMarkers.contains(todoId)
+                    : segment.timeMillis(offset) < cutoff || !isLive(todoId)) {
+                bytes += length;
+            }
+            offset += length;
+        }
+        return bytes;
+    }
+
+    /** Todos with a deletion marker in these segments */
+    private static Set<Long> deletedIn(List<Segment> group) {
+        Set<Long> deleted = new HashSet<>();
+        for (Segment segment : group) {
+            for (int offset = segment.dataStart; offset < segment.size; offset += segment.recordLength(offset)) {
+                if (segment.deleted(offset)) {
+                    deleted.add(segment.todoId(offset));
+                }
+            }
+        }
+        return deleted;
+    }
+
+    /** Of these todos, the ones that still have records in segments before the given (id, part) */
+    private Set<Long> withRecordsBefore(long key, Set<Long> todoIds) {
+        Set<Long> found = new HashSet<>();
+        if (todoIds.isEmpty()) {
+            return found;
+        }
+        for (Segment segment : sealed()) {
+            if (segment.key() >= key) {
+                break;
+            }
+            for (int offset = segment.dataStart; offset < segment.size; offset += segment.recordLength(offset)) {
+                long todoId = segment.todoId(offset);
+                if (!segment.deleted(offset) && todoIds.contains(todoId)) {
+                    found.add(todoId);
+                }
+            }
+        }
+        return found;
+    }
+
+    private synchronized List<Segment> sealed() {
+        return new ArrayList<>(segments.headMap(active.key()).values());
+    }
+
+    private synchronized void publish(Segment segment) {
+        segments.put(segment.key(), segment);
+        bySlot.put(segment.slot, segment);
+    }
+
+    private void offer(Record record) {
+        if (!running) {
+            return;
+        }
+        if (RECORD_HEADER_BYTES + (long) record.payload().length > segmentBytes - HEADER_BYTES) {
+            log.warn("History record of todo {} is larger than a segment, dropped", record.todoId());
+            dropped.increment();
+            return;
+        }
+        if (!queue.offer(record)) {
+            dropped.increment();
+        }
+    }
+
+    private synchronized boolean isLive(long todoId) {
+        return index.containsKey(todoId);
+    }
+
+    /** The writer thread: drain, write, fsync once per batch, then index */
+    private void writeLoop() {
+        List<Record> batch = new ArrayList<>(MAX_BATCH);
+        while (running || !queue.isEmpty()) {
+            try {
+                Record first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, MAX_BATCH - 1);
+                write(batch);
+                batches.increment();
+                appended.increment(batch.size());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (IOException | RuntimeException e) {
+                log.error("Writing {} history records failed, they are lost", batch.size(), e);
+                dropped.increment(batch.size());
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void write(List<Record> batch) throws IOException {
+        int from = 0;
+        while (from < batch.size()) {
+            // As many records as fit into the active segment (at least one)
+            long size = active.size;
+            int to = from;
+            long bytes = 0;
+            while (to < batch.size()) {
+                long length = RECORD_HEADER_BYTES + batch.get(to).payload().length;
+                if (to > from && size + bytes + length > segmentBytes) {
+                    break;
+                }
+                bytes += length;
+                to++;
+            }
+            if (!active.isEmpty() && size + bytes > segmentBytes) {
+                roll();
+                continue;
+            }
+
+            ByteBuffer buffer = ByteBuffer.allocate((int) bytes);
+            long[] locations = new long[to - from];
+            for (int i = from; i < to; i++) {
+                locations[i - from] = location(active.slot, size + buffer.position());
+                encode(batch.get(i), buffer);
+            }
+            buffer.flip();
+            active.append(buffer);
+
+            synchronized (this) {
+                for (int i = from; i < to; i++) {
+                    Record record = batch.get(i);
+                    if (record.deleted()) {
+                        index.remove(record.todoId());
+                    } else {
+                        index.computeIfAbsent(record.todoId(), id -> new Locations()).add(locations[i - from]);
+                    }
+                }
+            }
+            from = to;
+        }
+    }
+
+    private void roll() throws IOException {
+        Segment next = Segment.create(segmentPath(active.id + 1, 0), active.id + 1, nextSlot.getAndIncrement());
+        active.seal();
+        synchronized (this) {
+            publish(next);
+            active = next;
+        }
+    }
+
+    /** Scan a segment into the index - returns the number of records */
+    private long load(Segment segment, boolean last) throws IOException {
+        long records = 0;
+        int offset = segment.dataStart;
+        while (offset < segment.size) {
+            int length = segment.validRecordLength(offset);
+            if (length < 0) {
+                if (last) {
+                    log.warn("History segment {}: torn record at offset {}, truncating", segment.path, offset);
+                    segment.truncate(offset);
+                } else {
+                    log.error("History segment {}: corrupt record at offset {}, ignoring the rest",
+                            segment.path, offset);
+                    segment.size = offset;
+                }
+                break;
+            }
+            long todoId = segment.todoId(offset);
+            if (segment.deleted(offset)) {
+                index.remove(todoId);
+            } else {
+                index.computeIfAbsent(todoId, id -> new Locations()).add(location(segment.slot, offset));
+            }
+            offset += length;
+            records++;
+        }
+        return records;
+    }
+
+    /** Did a merge into segments of this id rename any of its output yet? */
+    private boolean hasMergeOutput(int id) throws IOException {
+        try (DirectoryStream<Path> outputs = Files.newDirectoryStream(directory,
+                String.format("history-%010d-*%s", id, SUFFIX))) {
+            return outputs.iterator().hasNext();
+        }
+    }
+
+    private Path segmentPath(int id, int part) {
+        return directory.resolve(part == 0
+                ? String.format("history-%010d%s", id, SUFFIX)
+                : String.format("history-%010d-%05d%s", id, part, SUFFIX));
+    }
+
+    /** (id, part) of a segment file: history-<id>.log or history-<id>-<part>.log */
+    private static long parseKey(Path path) {
+        String name = path.getFileName().toString();
+        String[] parts = name.substring("history-".length(), name.length() - SUFFIX.length()).split("-");
+        return key(Integer.parseInt(parts[0]), parts.length > 1 ? Integer.parseInt(parts[1]) : 0);
+    }
+
+    private static ByteBuffer header(byte flags, int replacedFromId, int replacedFromPart) {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        header.putInt(MAGIC).put(VERSION).put(flags).putShort((short) 0)
+                .putInt(replacedFromId).putInt(replacedFromPart).flip();
+        return header;
+    }
+
+    private static void encode(Record record, ByteBuffer buffer) {
+        int start = buffer.position();
+        buffer.putInt(record.payload().length);
+        buffer.putInt(0); // crc, filled in below
+        buffer.putLong(record.todoId());
+        buffer.putLong(record.timeMillis());
+        buffer.put(record.deleted() ? KIND_DELETED : KIND_CHANGE);
+        buffer.put(record.payload());
+
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.duplicate().position(start + 8).limit(buffer.position()));
+        buffer.putInt(start + 4, (int) crc.getValue());
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    /** Sync and close a finished output file */
+    private static void finish(FileChannel channel) throws IOException {
+        if (channel != null) {
+            channel.force(true);
+            channel.close();
+        }
+    }
+
+    /** Segment id and part packed into one long, ordered like the segments */
+    private static long key(int id, int part) {
+        return ((long) id << 32) | part;
+    }
+
+    private static int idOf(long key) {
+        return (int) (key >>> 32);
+    }
+
+    private static int partOf(long key) {
+        return (int) key;
+    }
+
+    /** Segment slot and offset packed into one long */
+    private static long location(int slot, long offset) {
+        return ((long) slot << 32) | offset;
+    }
+
+    private static int slotOf(long location) {
+        return (int) (location >>> 32);
+    }
+
+    private static int offset(long location) {
+        return (int) location;
+    }
+
+    /** A todo's record locations in write order - a growable long array */
+    private static final class Locations {
+
+        private long[] values = new long[4];
+        private int size;
+
+        void add(long location) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = location;
+        }
+
+        /**
+         * These locations with the ones in the replaced slots swapped for
+         * their copies (located by output index and offset, see Copy)
+         */
+        Locations replace(Set<Integer> replaced, Locations copies, int[] outputSlots) {
+            Locations result = new Locations();
+            boolean copied = false;
+            for (int i = 0; i < size; i++) {
+                if (!replaced.contains(slotOf(values[i]))) {
+                    result.add(values[i]);
+                } else if (!copied) {
+                    copied = true;
+                    for (int j = 0; copies != null && j < copies.size; j++) {
+                        result.add(location(outputSlots[slotOf(copies.values[j])], offset(copies.values[j])));
+                    }
+                }
+            }
+            return result;
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        long[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+
+    /** One segment file and its read-only mapping */
+    private static final class Segment {
+
+        final int id;
+        final int part;
+        final int slot;
+        final Path path;
+        final byte flags;
+        final boolean compacted;
+        /** (id, part) of the first segment the compaction that wrote this one replaced */
+        final long replacedFrom;
+        /** Offset of the first record */
+        final int dataStart;
+        private final FileChannel channel;
+        /** Bytes written and synced - readers never look past this */
+        volatile long size;
+        private volatile MappedByteBuffer map;
+
+        private Segment(int id, int part, int slot, Path path, byte flags, long replacedFrom, int dataStart,
+                FileChannel channel, long size, MappedByteBuffer map) {
+            this.id = id;
+            this.part = part;
+            this.slot = slot;
+            this.path = path;
+            this.flags = flags;
+            this.compacted = (flags & FLAG_COMPACTED) != 0;
+            this.replacedFrom = replacedFrom;
+            this.dataStart = dataStart;
+            this.channel = channel;
+            this.size = size;
+            this.map = map;
+        }
+
+        /** A new, empty segment (the next active one) */
+        static Segment create(Path path, int id, int slot) throws IOException {
+            FileChannel channel = FileChannel.open(path,
+                    StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            writeFully(channel, header((byte) 0, 0, 0));
+            channel.force(true);
+            return new Segment(id, 0, slot, path, (byte) 0, 0, HEADER_BYTES, channel, HEADER_BYTES,
+                    channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES));
+        }
+
+        /** An existing segment, mapped at its full size */
+        static Segment open(Path path, int id, int part, int slot) throws IOException {
+            FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            long size = channel.size();
+            if (size < HEADER_BYTES || size > Integer.MAX_VALUE) {
+                channel.close();
+                throw new IOException("Not a history segment: " + path);
+            }
+            MappedByteBuffer map = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            if (map.getInt(0) != MAGIC || map.get(4) != VERSION) {
+                channel.close();
+                throw new IOException("Not a history segment (or an unknown version): " + path);
+            }
+            byte flags = map.get(5);
+            return new Segment(id, part, slot, path, flags, HistorySegmentLog.key(map.getInt(8), map.getInt(12)), HEADER_BYTES,
+                    channel, size, map);
+        }
+
+        long key() {
+            return HistorySegmentLog.key(id, part);
+        }
+
+        boolean isEmpty() {
+            return size <= dataStart;
+        }
+
+        /** Writer thread only: append and sync, then make the bytes visible to readers */
+        void append(ByteBuffer buffer) throws IOException {
+            long position = size;
+            while (buffer.hasRemaining()) {
+                position += channel.write(buffer, position);
+            }
+            channel.force(false);
+            size = position;
+        }
+
+        /** No more appends: map it at its full size now, it is never re-mapped after */
+        void seal() {
+            mapped(size);
+        }
+
+        Record read(int offset) {
+            ByteBuffer buffer = mapped(offset + RECORD_HEADER_BYTES);
+            int length = buffer.getInt(offset);
+            byte[] payload = new byte[length];
+            mapped(offset + RECORD_HEADER_BYTES + length).get(offset + RECORD_HEADER_BYTES, payload);
+            return new Record(buffer.getLong(offset + 8), buffer.getLong(offset + 16),
+                    buffer.get(offset + 24) == KIND_DELETED, payload);
+        }
+
+        int recordLength(int offset) {
+            return RECORD_HEADER_BYTES + mapped(offset + 4).getInt(offset);
+        }
+
+        long todoId(int offset) {
+            return mapped(offset + 16).getLong(offset + 8);
+        }
+
+        long timeMillis(int offset) {
+            return mapped(offset + 24).getLong(offset + 16);
+        }
+
+        boolean deleted(int offset) {
+            return mapped(offset + RECORD_HEADER_BYTES).get(offset + 24) == KIND_DELETED;
+        }
+
+        /** The whole record, for copying */
+        ByteBuffer slice(int offset, int length) {
+            return mapped(offset + length).slice(offset, length);
+        }
+
+        /** Length of a complete record with a matching crc at offset, or -1 */
+        int validRecordLength(int offset) {
+            if (offset + RECORD_HEADER_BYTES > size) {
+                return -1;
+            }
+            ByteBuffer buffer = mapped((int) size);
+            int length = buffer.getInt(offset);
+            if (length < 0 || (long) offset + RECORD_HEADER_BYTES + length > size) {
+                return -1;
+            }
+            CRC32C crc = new CRC32C();
+            crc.update(buffer.slice(offset + 8, RECORD_HEADER_BYTES - 8 + length));
+            return (int) crc.getValue() == buffer.getInt(offset + 4) ? RECORD_HEADER_BYTES + length : -1;
+        }
+
+        /** Startup only, before the segment is published */
+        void truncate(int length) throws IOException {
+            channel.truncate(length);
+            channel.force(true);
+            size = length;
+            map = channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+        }
+
+        /** The mapping, re-mapped if the active segment has grown past it */
+        private ByteBuffer mapped(long end) {
+            MappedByteBuffer current = map;
+            if (end <= current.capacity()) {
+                return current;
+            }
+            synchronized (this) {
+                if (end > map.capacity()) {
+                    try {
+                        map = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+                    } catch (IOException e) {
+                        throw new IllegalStateException("Mapping history segment " + path + " failed", e);
+                    }
+                }
+                return map;
+            }
+        }
+
+        void close() {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                log.warn("Closing history segment {} failed: {}", path, e.toString());
+            }
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.todoApi.history;
+
+import com.todoApi.model.Todo;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import tools.jackson.databind.ObjectMapper;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * TodoHistory - Records changes to a todo's title, description and completed flag
+ *
+ * Called from TodoService inside the mutation's transaction; the record
+ * is handed to the HistorySegmentLog once the transaction commits, so
+ * rolled-back changes never show up. The request never waits for the
+ * disk - the log's writer thread does.
+ *
+ * The history lives on the local disk of the instance that made the
+ * change: with several instances, each one only knows its own share.
+ */
+@Component
+@RequiredArgsConstructor
+public class TodoHistory {
+
+    private final HistorySegmentLog segmentLog;
+    private final ObjectMapper objectMapper;
+
+    /** The tracked fields of a todo before a change */
+    public record Snapshot(String title, String description, Boolean completed) {
+    }
+
+    public static Snapshot snapshot(Todo todo) {
+        return new Snapshot(todo.getTitle(), todo.getDescription(), todo.getCompleted());
+    }
+
+    /** A new todo: its initial values */
+    public void created(Todo todo, Long by) {
+        record(todo.getId(), by, HistoryEntry.Type.CREATED, diff(new Snapshot(null, null, null), todo));
+    }
+
+    /** A changed todo - nothing is recorded if no tracked field changed */
+    public void changed(Snapshot before, Todo after, Long by) {
+        Map<String, HistoryEntry.Change> changes = diff(before, after);
+        if (!changes.isEmpty()) {
+            record(after.getId(), by, HistoryEntry.Type.UPDATED, changes);
+        }
+    }
+
+    /** A deleted todo - its history is no longer served */
+    public void deleted(Long todoId, Long by) {
+        record(todoId, by, HistoryEntry.Type.DELETED, Map.of());
+    }
+
+    /** Todos deleted in bulk (purges) */
+    public void deleted(Collection<Long> todoIds) {
+        List<Long> ids = new ArrayList<>(todoIds);
+        afterCommit(() -> {
+            long now = System.currentTimeMillis();
+            for (Long todoId : ids) {
+                segmentLog.appendDeleted(todoId, now, payload(now, null, HistoryEntry.Type.DELETED, Map.of()));
+            }
+        });
+    }
+
+    /** A todo's history, oldest first */
+    public List<HistoryEntry> read(Long todoId) {
+        List<HistoryEntry> entries = new ArrayList<>();
+        for (HistorySegmentLog.Record record : segmentLog.read(todoId)) {
+            entries.add(objectMapper.readValue(record.payload(), HistoryEntry.class));
+        }
+        return entries;
+    }
+
+    private void record(Long todoId, Long by, HistoryEntry.Type type, Map<String, HistoryEntry.Change> changes) {
+        afterCommit(() -> {
+            long now = System.currentTimeMillis();
+            byte[] payload = payload(now, by, type, changes);
+            if (type == HistoryEntry.Type.DELETED) {
+                segmentLog.appendDeleted(todoId, now, payload);
+            } else {
+                segmentLog.append(todoId, now, payload);
+            }
+        });
+    }
+
+    private byte[] payload(long now, Long by, HistoryEntry.Type type, Map<String, HistoryEntry.Change> changes) {
+        return objectMapper.writeValueAsBytes(new HistoryEntry(Instant.ofEpochMilli(now), by, type, changes));
+    }
+
+    private static Map<String, HistoryEntry.Change> diff(Snapshot before, Todo after) {
+        Map<String, HistoryEntry.Change> changes = new LinkedHashMap<>();
+        put(changes, "title", before.title(), after.getTitle());
+        put(changes, "description", before.description(), after.getDescription());
+        put(changes, "completed", before.completed(), after.getCompleted());
+        return changes;
+    }
+
+    private static void put(Map<String, HistoryEntry.Change> changes, String field, Object from, Object to) {
+        if (!Objects.equals(from, to)) {
+            changes.put(field, new HistoryEntry.Change(from, to));
+        }
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
@@ -0,0 +1,201 @@
+package com.todoApi.jsoncache;
+
+import com.todoApi.model.Todo;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * TodoJsonCache - Pre-serialized JSON of todos, reused across list responses
+ *
+ * Most todos in a list have not changed since the last time they were
+ * sent, yet Jackson would walk and encode them again on every request.
+ * This cache keeps each todo's JSON bytes together with the version they
+ * were built from; list responses are assembled by writing the cached
+ * fragments straight to the output stream.
+ *
+ * Invalidation is by version: a fragment is only used if the todo's
+ * current version (Todo.version, bumped on every write) matches,
+ * otherwise it is re-serialized and replaces the old one.
+ *
+ * Memory: bounded by app.json-cache.max-bytes, split over 16 segments
+ * (less lock contention), each evicting its least recently used
+ * fragments when over its share.
+ *
+ * Metrics: todo.json-cache.hits / misses / evictions, todo.json-cache.bytes
+ */
+@Component
+public class TodoJsonCache {
+
+    private static final int SEGMENTS = 16;
+    /** Rough per-entry overhead (map node, key, entry, array header) counted against the budget */
+    private static final int ENTRY_OVERHEAD = 96;
+
+    private static final byte[] OPEN = { '[' };
+    private static final byte[] SEPARATOR = { ',' };
+    private static final byte[] CLOSE = { ']' };
+
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+    private final Segment[] segments = new Segment[SEGMENTS];
+
+    private final AtomicLong bytes = new AtomicLong();
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter evictions;
+
+    public TodoJsonCache(ObjectMapper objectMapper,
+            MeterRegistry meterRegistry,
+            @Value("${app.json-cache.enabled:true}") boolean enabled,
+            @Value("${app.json-cache.max-bytes:67108864}") long maxBytes) {
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment(maxBytes / SEGMENTS);
+        }
+
+        meterRegistry.gauge("todo.json-cache.bytes", bytes);
+        this.hits = meterRegistry.counter("todo.json-cache.hits");
+        this.misses = meterRegistry.counter("todo.json-cache.misses");
+        this.evictions = meterRegistry.counter("todo.json-cache.evictions");
+    }
+
+    /**
+     * JSON fragments for a list of todos, from the cache where possible
+     * Call while the todos are still attached (lazy fields may be read)
+     */
+    public List<byte[]> fragments(List<Todo> todos) {
+        List<byte[]> fragments = new ArrayList<>(todos.size());
+        for (Todo todo : todos) {
+            fragments.add(fragment(todo));
+        }
+        return fragments;
+    }
+
+    /** JSON fragments for values that are not worth caching (e.g. rarely read archived todos) */
+    public List<byte[]> uncachedFragments(List<?> values) {
+        List<byte[]> fragments = new ArrayList<>(values.size());
+        for (Object value : values) {
+            fragments.add(objectMapper.writeValueAsBytes(value));
+        }
+        return fragments;
+    }
+
+    /**
+     * A fragment with one more field, e.g. "items": [...] - the cached
+     * fragment itself is left as it is
+     */
+    public byte[] withField(byte[] fragment, String name, Object value) {
+        byte[] field = objectMapper.writeValueAsBytes(name);
+        byte[] json = objectMapper.writeValueAsBytes(value);
+        // Drop the closing '}', append [,]"name":value}
+        boolean empty = fragment.length <= 2;
+        byte[] result = new byte[fragment.length + (empty ? 0 : 1) + field.length + 1 + json.length];
+        int at = fragment.length - 1;
+        System.arraycopy(fragment, 0, result, 0, at);
+        if (!empty) {
+            result[at++] = ',';
+        }
+        System.arraycopy(field, 0, result, at, field.length);
+        at += field.length;
+        result[at++] = ':';
+        System.arraycopy(json, 0, result, at, json.length);
+        at += json.length;
+        result[at] = '}';
+        return result;
+    }
+
+    /** Write fragments as a JSON array */
+    public static void writeArray(List<byte[]> fragments, OutputStream out) throws IOException {
+        out.write(OPEN);
+        for (int i = 0; i < fragments.size(); i++) {
+            if (i > 0) {
+                out.write(SEPARATOR);
+            }
+            out.write(fragments.get(i));
+        }
+        out.write(CLOSE);
+    }
+
+    /** JSON of one todo, from the cache if its version hasn't changed */
+    public byte[] fragment(Todo todo) {
+        if (!enabled || todo.getId() == null || todo.getVersion() == null) {
+            return objectMapper.writeValueAsBytes(todo);
+        }
+
+        Segment segment = segments[Long.hashCode(todo.getId()) & (SEGMENTS - 1)];
+        byte[] cached = segment.get(todo);
+        if (cached != null) {
+            hits.increment();
+            return cached;
+        }
+
+        misses.increment();
+        byte[] json = objectMapper.writeValueAsBytes(todo);
+        segment.put(todo, json);
+        return json;
+    }
+
+    /** A fragment and the version it was serialized from */
+    private record Entry(long version, byte[] json) {
+
+        boolean matches(Todo todo) {
+            return version == todo.getVersion();
+        }
+
+        long size() {
+            return json.length + ENTRY_OVERHEAD;
+        }
+    }
+
+    /** One LRU segment: a small access-ordered map with its own byte budget */
+    private final class Segment {
+
+        private final long maxBytes;
+        private final LinkedHashMap<Long, Entry> entries = new LinkedHashMap<>(64, 0.75f, true);
+        private long size;
+
+        Segment(long maxBytes) {
+            this.maxBytes = maxBytes;
+        }
+
+        synchronized byte[] get(Todo todo) {
+            Entry entry = entries.get(todo.getId());
+            return entry != null && entry.matches(todo) ? entry.json() : null;
+        }
+
+        synchronized void put(Todo todo, byte[] json) {
+            Long id = todo.getId();
+            Entry entry = new Entry(todo.getVersion(), json);
+            if (entry.size() > maxBytes) {
+                return; // would evict everything else - don't cache
+            }
+            Entry previous = entries.put(id, entry);
+            long delta = entry.size() - (previous != null ? previous.size() : 0);
+
+            Iterator<Map.Entry<Long, Entry>> eldest = entries.entrySet().iterator();
+            while (size + delta > maxBytes && eldest.hasNext()) {
+                Map.Entry<Long, Entry> evicted = eldest.next();
+                if (evicted.getKey().equals(id)) {
+                    continue;
+                }
+                delta -= evicted.getValue().size();
+                eldest.remove();
+                evictions.increment();
+            }
+            size += delta;
+            bytes.addAndGet(delta);
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.todoApi.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+import org.hibernate.annotations.BatchSize;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * ArchivedTodo Entity - A completed todo moved out of the hot "todos" table
+ * This maps to the "archived_todos" table in the database
+ *
+ * Completed todos older than app.archive.after-days are moved here by
+ * TodoArchiver, so the todos table (and its indexes, which every list
+ * query walks) only holds what users are actually working on.
+ *
+ * Read-only: rows are written with INSERT ... SELECT from todos and
+ * keep the todo's id. Only the fields worth browsing are kept - no
+ * position, reminder or version.
+ */
+@Entity
+@Table(name = "archived_todos", indexes = {
+        @Index(name = "idx_archived_todos_user_completed", columnList = "user_id, completed_at")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ArchivedTodo {
+
+    /**
+     * Primary Key - The id the todo had in the todos table
+     */
+    @Id
+    private Long id;
+
+    /**
+     * Owner - Plain id, archived todos are never loaded together with users
+     */
+    @JsonIgnore
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(nullable = false, length = 100)
+    private String title;
+
+    @Column(columnDefinition = "TEXT")
+    private String description;
+
+    /**
+     * When the todo was completed - the archive is browsed newest first
+     */
+    @Column(name = "completed_at", nullable = false)
+    private LocalDateTime completedAt;
+
+    @Column(name = "due_at")
+    private LocalDateTime dueAt;
+
+    /**
+     * Tags - Copied from todo_tags into archived_todo_tags
+     */
+    @ElementCollection
+    @CollectionTable(name = "archived_todo_tags", joinColumns = @JoinColumn(name = "todo_id"))
+    @Column(name = "tag", nullable = false, length = 50)
+    @BatchSize(size = 100)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private Set<String> tags;
+
+    /**
+     * Checklist items - Copied from todo_items into archived_todo_items
+     */
+    @ElementCollection
+    @CollectionTable(name = "archived_todo_items", joinColumns = @JoinColumn(name = "todo_id"))
+    @OrderBy("position")
+    @BatchSize(size = 500)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private List<ArchivedTodoItem> items;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(nullable = false)
+    private LocalDateTime updatedAt;
+
+    /**
+     * When the todo was moved to the archive
+     */
+    @Column(name = "archived_at", nullable = false)
+    private LocalDateTime archivedAt;
+
+    /**
+     * Only completed todos are archived - kept in the JSON so archived
+     * and live todos can be shown by the same client code
+     */
+    @JsonProperty("completed")
+    public boolean isCompleted() {
+        return true;
+    }
+}
@@ -0,0 +1,27 @@
+package com.todoApi.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * ArchivedTodoItem - A checklist item of an archived todo
+ * Copied from todo_items into archived_todo_items when the todo is archived
+ */
+@Embeddable
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ArchivedTodoItem {
+
+    @Column(nullable = false, length = 200)
+    private String title;
+
+    @Column(nullable = false)
+    private Boolean done;
+
+    @Column(nullable = false)
+    private Integer position;
+}
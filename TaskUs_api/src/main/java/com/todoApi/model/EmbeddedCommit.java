@@ -0,0 +1,35 @@
+package com.todoApi.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * EmbeddedCommit Entity - Proof that a transaction with embedded store writes committed
+ * This maps to the "embedded_commits" table in the database
+ *
+ * Only used with app.storage=embedded: the store inserts a row in the
+ * transaction it commits with, so the row exists if and only if the
+ * database transaction committed. After a crash, a store write that was
+ * logged but whose outcome wasn't is applied only if its row is here.
+ * Rows are deleted once a store snapshot contains the write.
+ */
+@Entity
+@Table(name = "embedded_commits")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EmbeddedCommit {
+
+    /** Primary Key - Names the transaction in the store's log */
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /** When the transaction prepared its store writes (for diagnosis) */
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime preparedAt;
+}
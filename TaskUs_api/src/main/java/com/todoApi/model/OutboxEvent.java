@@ -0,0 +1,55 @@
+package com.todoApi.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * OutboxEvent Entity - A todo change waiting to be delivered downstream
+ * This maps to the "todo_outbox" table in the database
+ *
+ * Rows are written in the SAME transaction as the todo mutation,
+ * so a change is recorded if and only if it was committed.
+ * The OutboxRelay drains this table in id order and deletes rows
+ * once every sink has accepted them (at-least-once delivery).
+ * Ids are assigned at insert, not at commit - the relay waits for
+ * missing ids rather than delivering around them (see OutboxRelay).
+ */
+@Entity
+@Table(name = "todo_outbox")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OutboxEvent {
+
+    /** Primary Key - Defines the delivery order (insert order; the relay holds back behind uncommitted ids) */
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /** Owner of the changed todo - events are ordered per user */
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    /** The changed todo (may no longer exist for delete events) */
+    @Column(name = "todo_id")
+    private Long todoId;
+
+    /** What happened to the todo */
+    @Enumerated(EnumType.STRING)
+    @Column(name = "event_type", nullable = false, length = 32)
+    private TodoEventType eventType;
+
+    /** JSON snapshot of the todo after the change */
+    @Column(columnDefinition = "TEXT")
+    private String payload;
+
+    /** When the change was written (inside its transaction) - used for lag metrics */
+    @CreationTimestamp
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime occurredAt;
+}
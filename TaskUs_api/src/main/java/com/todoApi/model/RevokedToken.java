@@ -0,0 +1,48 @@
+package com.todoApi.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * RevokedToken Entity - A JWT that must no longer be accepted
+ * This maps to the "revoked_tokens" table in the database
+ *
+ * For access tokens the table is only the durable copy: requests are
+ * checked against the in-memory TokenRevocationList, never against this
+ * table. Refresh tokens are only checked here, when they are consumed.
+ * Rows can be dropped once the token would have expired anyway.
+ */
+@Entity
+@Table(name = "revoked_tokens", indexes = {
+        @Index(name = "idx_revoked_tokens_revoked_at", columnList = "revoked_at")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RevokedToken {
+
+    /** The token's jti claim */
+    @Id
+    @Column(length = 36)
+    private String tokenId;
+
+    /** Owner of the token (for auditing) */
+    @Column(nullable = false)
+    private Long userId;
+
+    /** A used or revoked refresh token - these are never loaded into memory */
+    @Column(nullable = false)
+    private boolean refreshToken;
+
+    /** When the token expires on its own - after this the row is useless */
+    @Column(nullable = false)
+    private LocalDateTime expiresAt;
+
+    /** When the token was revoked (database clock, see RevokedTokenRepository.insertIfAbsent) - used to sync other instances */
+    @Column(name = "revoked_at", nullable = false, updatable = false)
+    private LocalDateTime revokedAt;
+}
@@ -0,0 +1,39 @@
+package com.todoApi.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * ShareChange Entity - A grantee whose shares changed
+ * This maps to the "share_changes" table in the database
+ *
+ * Written in the transaction that shares or unshares, so other
+ * instances can drop their cached copy of the grantee's shares (see
+ * ShareAcl.sync). Rows can be dropped once every cached entry that
+ * predates them has expired anyway.
+ */
+@Entity
+@Table(name = "share_changes", indexes = {
+        @Index(name = "idx_share_changes_changed_at", columnList = "changed_at")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ShareChange {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /** The user whose received shares changed */
+    @Column(nullable = false)
+    private Long granteeId;
+
+    /** When the share changed (database clock, see ShareChangeRepository.record) */
+    @Column(name = "changed_at", nullable = false, updatable = false)
+    private LocalDateTime changedAt;
+}
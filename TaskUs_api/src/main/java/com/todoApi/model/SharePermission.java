@@ -0,0 +1,19 @@
+package com.todoApi.model;
+
+/**
+ * SharePermission - What a user may do with a todo list shared with them
+ *
+ * READ  - see the todos (and their checklist items)
+ * WRITE - also edit them: update, toggle, change checklist items
+ *
+ * Creating, moving and deleting todos stays with the owner.
+ */
+public enum SharePermission {
+    READ,
+    WRITE;
+
+    /** Does this permission cover the needed one? */
+    public boolean allows(SharePermission needed) {
+        return this == WRITE || needed == READ;
+    }
+}
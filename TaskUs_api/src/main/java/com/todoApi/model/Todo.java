@@ -1,22 +1,33 @@
 package com.todoApi.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.ColumnDefault;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
 
 import java.time.LocalDateTime;
+import java.util.Set;
 
 /**
  * Todo Entity - Represents a todo/task item
  * This maps to the "todos" table in the database
  */
 @Entity
-@Table(name = "todos")
+@Table(name = "todos", indexes = {
+        @Index(name = "idx_todos_user_position", columnList = "user_id, position"),
+        @Index(name = "idx_todos_remind_at", columnList = "remind_at"),
+        @Index(name = "idx_todos_updated_at", columnList = "updated_at")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -54,6 +65,75 @@ public class Todo {
     @Column(nullable = false)
     private Boolean completed = false;
 
+    /**
+     * Completion derived from checklist items?
+     * If true, the todo is completed exactly when it has items and all of
+     * them are done - it follows item changes (see TodoItemService) and
+     * can't be completed or reopened directly.
+     * (No Java default: null in a PATCH body means "leave unchanged")
+     */
+    @ColumnDefault("false")
+    @Column(name = "completion_from_items", nullable = false)
+    private Boolean completionFromItems;
+
+    /**
+     * When the todo was completed - set by the server, cleared when reopened
+     * Feeds the daily completion counts (see TodoStatsService)
+     */
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    @Column(name = "completed_at")
+    private LocalDateTime completedAt;
+
+    /**
+     * Position - Manual sort key within the owner's list
+     * Fractional/lexicographic key (see PositionKeys): lists are ordered
+     * by it, and moving a todo rewrites only this one value.
+     * Null for rows created before ordering existed, until the
+     * background rebalancer assigns one.
+     */
+    @Column(length = 255)
+    private String position;
+
+    /**
+     * Tags - User-defined labels, e.g. ["work", "urgent"]
+     * Stored lower-cased in their own table (todo_tags), one row per tag.
+     * 
+     * @ElementCollection - A collection of simple values owned by the todo
+     * @BatchSize - If tags are loaded lazily for many todos, load them
+     *            100 todos at a time instead of one query per todo
+     *            (list queries fetch them with a join, see TodoRepository)
+     */
+    @ElementCollection
+    @CollectionTable(name = "todo_tags", joinColumns = @JoinColumn(name = "todo_id"))
+    @Column(name = "tag", nullable = false, length = 50)
+    @BatchSize(size = 100)
+    @Size(max = 20, message = "A todo cannot have more than 20 tags")
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private Set<String> tags;
+
+    /**
+     * Due date - When the task should be done (optional)
+     */
+    @Column(name = "due_at")
+    private LocalDateTime dueAt;
+
+    /**
+     * Reminder time - When to remind the owner (optional)
+     * Only PENDING reminders have a value: once the reminder fires it is
+     * cleared and reminderSentAt is set. That keeps the remind_at index
+     * limited to reminders that still have to fire.
+     */
+    @Column(name = "remind_at")
+    private LocalDateTime remindAt;
+
+    /**
+     * When the last reminder fired - set by the server only
+     */
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    @Column(name = "reminder_sent_at")
+    private LocalDateTime reminderSentAt;
+
     /**
      * Created timestamp - When was this todo created?
      * Automatically populated by Hibernate
@@ -70,6 +150,22 @@ public class Todo {
     @Column(nullable = false)
     private LocalDateTime updatedAt;
 
+    /**
+     * Version - Incremented by Hibernate on every update
+     * 
+     * @Version - Optimistic locking: every UPDATE/DELETE of this todo is
+     *          "... where id = ? and version = ?". If someone else changed
+     *          the row since it was read, nothing matches and the write
+     *          fails instead of silently overwriting their change.
+     *          Sent to clients as the ETag (see TodoController).
+     * @ColumnDefault - Existing rows start at 0 when the column is added
+     */
+    @Version
+    @ColumnDefault("0")
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    @Column(nullable = false)
+    private Long version;
+
     /**
      * User relationship - Who owns this todo?
      * 
@@ -85,8 +181,24 @@ public class Todo {
      *             In the database, this creates:
      *             todos table will have a "user_id" column
      *             FOREIGN KEY constraint linking to users(id)
+     * 
+     * @JsonIgnore - Never serialize the owner: it would initialize the lazy
+     *             proxy (one extra query per response - an N+1 trap for
+     *             lists) and would expose the user's password hash
      */
+    @JsonIgnore
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false)
     private User user;
+
+    /**
+     * Defaults for fields that stay null in request bodies
+     * @PrePersist - Runs right before the INSERT
+     */
+    @PrePersist
+    void applyDefaults() {
+        if (completionFromItems == null) {
+            completionFromItems = false;
+        }
+    }
 }
\ No newline at end of file
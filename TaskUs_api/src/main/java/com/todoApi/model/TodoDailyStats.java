@@ -0,0 +1,52 @@
+package com.todoApi.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+/**
+ * TodoDailyStats Entity - One user's activity on one day
+ * This maps to the "todo_daily_stats" table in the database
+ *
+ * A rollup: the counters are incremented as todos change (see
+ * TodoStatsService), so reading a date range never touches the todos
+ * table. The primary key (user_id, stat_date) is also the index the
+ * stats endpoint range-scans.
+ */
+@Entity
+@Table(name = "todo_daily_stats")
+@IdClass(TodoDailyStats.Key.class)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TodoDailyStats {
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Id
+    @Column(name = "stat_date")
+    private LocalDate date;
+
+    /** Todos created on this day */
+    @Column(name = "created_count", nullable = false)
+    private long created;
+
+    /** Todos completed on this day (and not reopened since) */
+    @Column(name = "completed_count", nullable = false)
+    private long completed;
+
+    /** Composite primary key */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private Long userId;
+        private LocalDate date;
+    }
+}
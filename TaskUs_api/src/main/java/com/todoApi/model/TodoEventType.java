@@ -0,0 +1,23 @@
+package com.todoApi.model;
+
+/**
+ * TodoEventType - The kind of change recorded in the outbox
+ * Downstream consumers switch on this value to interpret the payload
+ */
+public enum TodoEventType {
+    TODO_CREATED,
+    TODO_UPDATED,
+    TODO_DELETED,
+
+    /** Many todos of one user removed at once (payload carries the count) */
+    TODOS_PURGED,
+
+    /** Old completed todos of one user moved to the archive (payload carries the ids) */
+    TODOS_ARCHIVED,
+
+    /** A batch of todos created by a bulk import (payload carries the new ids) */
+    TODOS_IMPORTED,
+
+    /** A todo's reminder time has come (fired once per reminder) */
+    REMINDER_DUE
+}
@@ -0,0 +1,81 @@
+package com.todoApi.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * TodoItem Entity - One checklist item (subtask) of a todo
+ * This maps to the "todo_items" table in the database
+ *
+ * Managed under /api/todos/{id}/items (see TodoItemController) and
+ * optionally embedded in list responses (GET /api/todos?include=items).
+ */
+@Entity
+@Table(name = "todo_items", indexes = {
+        @Index(name = "idx_todo_items_todo_position", columnList = "todo_id, position")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TodoItem {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @NotBlank(message = "Title is required")
+    @Size(max = 200, message = "Title cannot exceed 200 characters")
+    @Column(nullable = false, length = 200)
+    private String title;
+
+    /**
+     * Done - Is this item checked off?
+     * Set to false on create if not given (no Java default: null in a
+     * PATCH body means "leave unchanged")
+     */
+    @Column(nullable = false)
+    private Boolean done;
+
+    /**
+     * Position - Order within the todo's checklist (ascending)
+     * New items go to the end unless a position is given
+     */
+    @Column(nullable = false)
+    private Integer position;
+
+    @CreationTimestamp
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @UpdateTimestamp
+    @Column(nullable = false)
+    private LocalDateTime updatedAt;
+
+    /**
+     * The todo this item belongs to
+     *
+     * @OnDelete - The foreign key is ON DELETE CASCADE, so the database
+     *           removes a todo's items with it - including the bulk
+     *           deletes of purges and archiving, which bypass Hibernate
+     */
+    @JsonIgnore
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "todo_id", nullable = false)
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private Todo todo;
+}
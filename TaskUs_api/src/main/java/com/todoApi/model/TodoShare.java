@@ -0,0 +1,83 @@
+package com.todoApi.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * TodoShare Entity - An owner's todo list shared with another user
+ * This maps to the "todo_shares" table in the database
+ *
+ * The whole list is shared: the grantee sees all of the owner's todos
+ * (READ) or may also edit them (WRITE), see SharePermission. At most
+ * one share per (owner, grantee) - sharing again changes its permission.
+ *
+ * Read on the request path only through ShareAcl, which caches each
+ * grantee's shares in memory.
+ */
+@Entity
+@Table(name = "todo_shares",
+        uniqueConstraints = @UniqueConstraint(name = "uk_todo_shares_owner_grantee", columnNames = { "owner_id", "grantee_id" }),
+        indexes = @Index(name = "idx_todo_shares_grantee", columnList = "grantee_id"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TodoShare {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /**
+     * The user whose todos are shared
+     *
+     * @OnDelete - Shares go with either of their users
+     */
+    @JsonIgnore
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "owner_id", nullable = false)
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private User owner;
+
+    /**
+     * The user the todos are shared with
+     */
+    @JsonIgnore
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "grantee_id", nullable = false)
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private User grantee;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 10)
+    private SharePermission permission;
+
+    @CreationTimestamp
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @UpdateTimestamp
+    @Column(nullable = false)
+    private LocalDateTime updatedAt;
+
+    /** Who the list is shared with, for the owner's list of shares */
+    @JsonProperty("username")
+    public String getGranteeUsername() {
+        return grantee != null ? grantee.getUsername() : null;
+    }
+}
@@ -0,0 +1,73 @@
+package com.todoApi.outbox;
+
+import com.todoApi.model.OutboxEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * FileTodoEventSink - Appends events to a local NDJSON file
+ *
+ * One JSON object per line, e.g.
+ * {"eventId":42,"type":"TODO_UPDATED","userId":1,"todoId":7,"occurredAt":"...","payload":{...}}
+ *
+ * The batch is written with a single write + fsync, so a batch is
+ * either fully on disk or will be retried (possibly duplicating lines).
+ */
+@Component
+@ConditionalOnProperty(name = "app.outbox.file-sink.enabled", havingValue = "true")
+public class FileTodoEventSink implements TodoEventSink {
+
+    private final ObjectMapper objectMapper;
+    private final Path file;
+
+    public FileTodoEventSink(ObjectMapper objectMapper,
+            @Value("${app.outbox.file-sink.path:data/todo-events.ndjson}") String path) throws IOException {
+        this.objectMapper = objectMapper;
+        this.file = Path.of(path);
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+    }
+
+    @Override
+    public String name() {
+        return "file";
+    }
+
+    @Override
+    public synchronized void deliver(List<OutboxEvent> events) throws IOException {
+        StringBuilder lines = new StringBuilder();
+        for (OutboxEvent event : events) {
+            Map<String, Object> line = new LinkedHashMap<>();
+            line.put("eventId", event.getId());
+            line.put("type", event.getEventType());
+            line.put("userId", event.getUserId());
+            line.put("todoId", event.getTodoId());
+            line.put("occurredAt", event.getOccurredAt());
+            line.put("payload", objectMapper.readTree(event.getPayload()));
+            lines.append(objectMapper.writeValueAsString(line)).append('\n');
+        }
+
+        try (FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            ByteBuffer buffer = ByteBuffer.wrap(lines.toString().getBytes(StandardCharsets.UTF_8));
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.todoApi.outbox;
+
+import com.todoApi.model.OutboxEvent;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * InMemoryTodoEventSink - Keeps delivered events in a list
+ * Meant for tests: assert on received() after the relay has run
+ */
+@Component
+@ConditionalOnProperty(name = "app.outbox.memory-sink.enabled", havingValue = "true")
+public class InMemoryTodoEventSink implements TodoEventSink {
+
+    private final List<OutboxEvent> received = new CopyOnWriteArrayList<>();
+
+    @Override
+    public String name() {
+        return "memory";
+    }
+
+    @Override
+    public void deliver(List<OutboxEvent> events) {
+        received.addAll(events);
+    }
+
+    /** Snapshot of everything delivered so far, in delivery order */
+    public List<OutboxEvent> received() {
+        return new ArrayList<>(received);
+    }
+
+    /** Forget everything delivered so far */
+    public void clear() {
+        received.clear();
+    }
+}
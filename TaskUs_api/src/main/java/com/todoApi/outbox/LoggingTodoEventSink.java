@@ -0,0 +1,31 @@
+package com.todoApi.outbox;
+
+import com.todoApi.model.OutboxEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * LoggingTodoEventSink - Writes events to the application log
+ * Enabled by default so the outbox never grows without a consumer
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.outbox.log-sink.enabled", havingValue = "true", matchIfMissing = true)
+public class LoggingTodoEventSink implements TodoEventSink {
+
+    @Override
+    public String name() {
+        return "log";
+    }
+
+    @Override
+    public void deliver(List<OutboxEvent> events) {
+        for (OutboxEvent event : events) {
+            log.debug("todo event #{} {} user={} todo={}",
+                    event.getId(), event.getEventType(), event.getUserId(), event.getTodoId());
+        }
+    }
+}
@@ -0,0 +1,257 @@
+package com.todoApi.outbox;
+
+import com.todoApi.model.OutboxEvent;
+import com.todoApi.repository.OutboxEventRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * OutboxRelay - Drains the outbox table to the configured sinks
+ *
+ * Every poll:
+ * 1. Read the oldest N events in id order
+ * 2. Keep only those before the first gap in the ids (see below)
+ * 3. Group them by user, keeping the order inside each group
+ * 4. Hand each user's group to every sink
+ * 5. Delete the rows that every sink accepted
+ *
+ * Gaps: ids come from an identity column, so they are handed out when
+ * a row is inserted, not when its transaction commits. Id N+1 can be
+ * visible while the transaction holding N is still running; delivering
+ * N+1 first would break the per-user order. So the relay only moves
+ * past the highest id it has handled when the next ids are there. A
+ * missing id is waited for up to app.outbox.gap-timeout-ms - longer
+ * than the transaction timeout (spring.transaction.default-timeout),
+ * so by then its transaction has committed or rolled back, and a still
+ * missing id belongs to a rollback and is skipped. Every gap in the
+ * batch is timed from when it was first seen, not from when the gaps
+ * before it closed: only the oldest open gap holds delivery back, and
+ * once it times out the relay moves straight past any later gap that
+ * has waited as long - a run of rollbacks costs one timeout, not one
+ * each. At startup the
+ * relay doesn't know which ids are handled, so it also waits out one
+ * gap timeout before its first delivery.
+ *
+ * Guarantees:
+ * - At-least-once: rows are only deleted after delivery succeeded
+ * - Per-user ordering: if a user's group fails, none of that user's
+ *   later events are delivered until the failed ones go through
+ *
+ * Run the relay on ONE instance only (app.outbox.relay.enabled),
+ * otherwise two relays may interleave a user's events.
+ *
+ * Metrics (Micrometer):
+ * - todo.outbox.pending       rows waiting in the table
+ * - todo.outbox.lag           age of the oldest pending event (ms)
+ * - todo.outbox.delivered     events handed to all sinks
+ * - todo.outbox.failures      failed user-group deliveries
+ * - todo.outbox.delivery.lag  commit-to-delivery latency
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.outbox.relay.enabled", havingValue = "true", matchIfMissing = true)
+public class OutboxRelay {
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final List<TodoEventSink> sinks;
+    private final int batchSize;
+    private final long gapTimeoutMillis;
+    private final LongSupplier clock;
+
+    private final AtomicLong pending = new AtomicLong();
+    private final AtomicLong lagMillis = new AtomicLong();
+    private final Counter delivered;
+    private final Counter failures;
+    private final Timer deliveryLag;
+
+    /** Every id up to here has been delivered, is being retried or was rolled back; -1 until the first delivery */
+    private long handledUpTo = -1;
+    /** When rows were first seen after startup (0 = not yet) */
+    private long startupSeenAt;
+    /** Ids above handledUpTo missing from the outbox, by the first id of each range */
+    private NavigableMap<Long, Gap> gaps = new TreeMap<>();
+
+    /** Missing ids from..to, first seen at seenAt */
+    private record Gap(long from, long to, long seenAt) {
+    }
+
+    @Autowired
+    public OutboxRelay(OutboxEventRepository outboxEventRepository,
+            List<TodoEventSink> sinks,
+            MeterRegistry meterRegistry,
+            @Value("${app.outbox.batch-size:200}") int batchSize,
+            @Value("${app.outbox.gap-timeout-ms:10000}") long gapTimeoutMillis) {
+        this(outboxEventRepository, sinks, meterRegistry, batchSize, gapTimeoutMillis, System::currentTimeMillis);
+    }
+
+    /** For tests: with a controllable clock */
+    OutboxRelay(OutboxEventRepository outboxEventRepository, List<TodoEventSink> sinks, MeterRegistry meterRegistry,
+            int batchSize, long gapTimeoutMillis, LongSupplier clock) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.sinks = sinks;
+        this.batchSize = batchSize;
+        this.gapTimeoutMillis = gapTimeoutMillis;
+        this.clock = clock;
+
+        meterRegistry.gauge("todo.outbox.pending", pending);
+        meterRegistry.gauge("todo.outbox.lag", lagMillis);
+        this.delivered = meterRegistry.counter("todo.outbox.delivered");
+        this.failures = meterRegistry.counter("todo.outbox.failures");
+        this.deliveryLag = meterRegistry.timer("todo.outbox.delivery.lag");
+    }
+
+    /**
+     * Poll the outbox
+     * Keeps draining full batches so a backlog is cleared quickly,
+     * and stops as soon as a batch comes back short or nothing moved.
+     * The first poll is delayed so it does not compete with startup.
+     */
+    @Scheduled(fixedDelayString = "${app.outbox.poll-interval-ms:1000}",
+            initialDelayString = "${app.outbox.initial-delay-ms:5000}")
+    public void poll() {
+        int deliveredInBatch;
+        List<OutboxEvent> batch;
+        do {
+            batch = outboxEventRepository.findByOrderByIdAsc(PageRequest.of(0, batchSize));
+            updateLag(batch);
+            deliveredInBatch = relay(deliverable(batch));
+        } while (batch.size() == batchSize && deliveredInBatch > 0);
+
+        pending.set(outboxEventRepository.count());
+    }
+
+    /**
+     * The events of a batch (in id order) that can go out now: those
+     * before the first id that is missing and may still commit
+     */
+    List<OutboxEvent> deliverable(List<OutboxEvent> batch) {
+        if (batch.isEmpty()) {
+            return batch;
+        }
+        long now = clock.getAsLong();
+        if (handledUpTo < 0) {
+            // Ids below the first row seen may belong to transactions still running - wait them out once
+            if (startupSeenAt == 0) {
+                startupSeenAt = now;
+            }
+            if (now - startupSeenAt < gapTimeoutMillis) {
+                return List.of();
+            }
+            handledUpTo = batch.get(0).getId() - 1;
+        }
+
+        // The whole batch is scanned so the gaps behind the one that holds delivery back start ageing too
+        NavigableMap<Long, Gap> open = new TreeMap<>();
+        long expected = handledUpTo + 1;
+        int end = -1;
+        for (int i = 0; i < batch.size(); i++) {
+            long id = batch.get(i).getId();
+            // id < expected: a row whose delivery failed before, retried in place
+            if (id > expected) {
+                Gap gap = gap(expected, id - 1, now);
+                if (end >= 0 || now - gap.seenAt() < gapTimeoutMillis) {
+                    open.put(gap.from(), gap);
+                    if (end < 0) {
+                        end = i;
+                        handledUpTo = expected - 1;
+                    }
+                } else {
+                    log.debug("Outbox ids {}..{} never committed, skipping", expected, id - 1);
+                }
+            }
+            expected = Math.max(expected, id + 1);
+        }
+        gaps = open;
+        if (end < 0) {
+            handledUpTo = expected - 1;
+            return batch;
+        }
+        return batch.subList(0, end);
+    }
+
+    /** The gap from..to, timed from when its first id was first seen missing */
+    private Gap gap(long from, long to, long now) {
+        Map.Entry<Long, Gap> known = gaps.floorEntry(from);
+        if (known != null && known.getValue().to() >= from) {
+            return new Gap(from, to, known.getValue().seenAt());
+        }
+        return new Gap(from, to, now);
+    }
+
+    /**
+     * Deliver one batch
+     *
+     * @return Number of events delivered (and removed from the outbox)
+     */
+    int relay(List<OutboxEvent> batch) {
+        if (batch.isEmpty()) {
+            return 0;
+        }
+
+        // Group by user - LinkedHashMap + ordered gap-free batch keeps commit order per user
+        Map<Long, List<OutboxEvent>> byUser = new LinkedHashMap<>();
+        for (OutboxEvent event : batch) {
+            byUser.computeIfAbsent(event.getUserId(), id -> new ArrayList<>()).add(event);
+        }
+
+        List<Long> done = new ArrayList<>();
+        for (Map.Entry<Long, List<OutboxEvent>> group : byUser.entrySet()) {
+            if (deliver(group.getKey(), group.getValue())) {
+                group.getValue().forEach(event -> done.add(event.getId()));
+            }
+        }
+
+        if (!done.isEmpty()) {
+            outboxEventRepository.deleteAllByIdInBatch(done);
+            delivered.increment(done.size());
+        }
+        return done.size();
+    }
+
+    /** Hand one user's events to every sink; false means retry later */
+    private boolean deliver(Long userId, List<OutboxEvent> events) {
+        for (TodoEventSink sink : sinks) {
+            try {
+                sink.deliver(events);
+            } catch (Exception e) {
+                failures.increment();
+                log.warn("Outbox sink '{}' failed for user {} ({} events), will retry: {}",
+                        sink.name(), userId, events.size(), e.getMessage());
+                return false;
+            }
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        for (OutboxEvent event : events) {
+            deliveryLag.record(Duration.between(event.getOccurredAt(), now));
+        }
+        return true;
+    }
+
+    private void updateLag(List<OutboxEvent> batch) {
+        if (batch.isEmpty()) {
+            lagMillis.set(0);
+        } else {
+            lagMillis.set(Duration.between(batch.get(0).getOccurredAt(), LocalDateTime.now()).toMillis());
+        }
+    }
+}
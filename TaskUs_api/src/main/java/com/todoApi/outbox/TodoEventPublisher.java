@@ -0,0 +1,128 @@
+package com.todoApi.outbox;
+
+import com.todoApi.model.OutboxEvent;
+import com.todoApi.model.Todo;
+import com.todoApi.model.TodoEventType;
+import com.todoApi.repository.OutboxEventRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import tools.jackson.databind.ObjectMapper;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * TodoEventPublisher - Appends todo changes to the outbox table
+ *
+ * Called from TodoService inside the mutation's transaction.
+ * Propagation.MANDATORY makes sure nobody publishes outside of one,
+ * otherwise an event could be recorded for a change that rolled back.
+ *
+ * The request path only pays for one extra INSERT - delivery to
+ * sinks happens later in OutboxRelay.
+ */
+@Component
+@RequiredArgsConstructor
+public class TodoEventPublisher {
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final ObjectMapper objectMapper;
+
+    /** Turn the outbox off entirely (no rows written, nothing to relay) */
+    @Value("${app.outbox.enabled:true}")
+    private boolean enabled;
+
+    /** Users whose changes are not published (e.g. the startup warm-up's scratch user) */
+    private final Set<Long> mutedUsers = ConcurrentHashMap.newKeySet();
+
+    /** Stop publishing events for a user's changes until unmute() */
+    public void mute(Long userId) {
+        mutedUsers.add(userId);
+    }
+
+    public void unmute(Long userId) {
+        mutedUsers.remove(userId);
+    }
+
+    /**
+     * Record a change to a single todo
+     *
+     * @param type What happened
+     * @param todo The todo as it looks after the change
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void publish(TodoEventType type, Todo todo) {
+        if (!enabled || mutedUsers.contains(todo.getUser().getId())) {
+            return;
+        }
+
+        OutboxEvent event = new OutboxEvent();
+        event.setUserId(todo.getUser().getId());
+        event.setTodoId(todo.getId());
+        event.setEventType(type);
+        event.setPayload(objectMapper.writeValueAsString(snapshot(type, todo)));
+
+        outboxEventRepository.save(event);
+    }
+
+    /**
+     * Record a change that affects many todos of one user at once
+     * (bulk deletes, imports...) - one event instead of one per row
+     *
+     * @param type    What happened
+     * @param userId  Owner of the affected todos
+     * @param payload Event-specific details
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void publishBulk(TodoEventType type, Long userId, Map<String, Object> payload) {
+        publish(type, userId, null, payload);
+    }
+
+    /**
+     * Record an event with a custom payload
+     * (for events that are not a plain snapshot of the todo, e.g. reminders)
+     *
+     * @param type    What happened
+     * @param userId  Owner of the todo
+     * @param todoId  The todo concerned (null if several)
+     * @param payload Event-specific details
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void publish(TodoEventType type, Long userId, Long todoId, Map<String, Object> payload) {
+        if (!enabled || mutedUsers.contains(userId)) {
+            return;
+        }
+
+        OutboxEvent event = new OutboxEvent();
+        event.setUserId(userId);
+        event.setTodoId(todoId);
+        event.setEventType(type);
+        event.setPayload(objectMapper.writeValueAsString(payload));
+
+        outboxEventRepository.save(event);
+    }
+
+    /**
+     * Build the JSON payload for an event
+     * Delete events only carry the id - the todo is gone
+     */
+    private Map<String, Object> snapshot(TodoEventType type, Todo todo) {
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("id", todo.getId());
+        if (type != TodoEventType.TODO_DELETED) {
+            payload.put("title", todo.getTitle());
+            payload.put("description", todo.getDescription());
+            payload.put("completed", todo.getCompleted());
+            payload.put("position", todo.getPosition());
+            payload.put("tags", todo.getTags());
+            payload.put("dueAt", todo.getDueAt());
+            payload.put("remindAt", todo.getRemindAt());
+        }
+        return payload;
+    }
+}
@@ -0,0 +1,26 @@
+package com.todoApi.outbox;
+
+import com.todoApi.model.OutboxEvent;
+
+import java.util.List;
+
+/**
+ * TodoEventSink - A downstream destination for todo change events
+ *
+ * The relay calls deliver() with a batch of events for ONE user,
+ * in the order they were committed.
+ *
+ * Contract:
+ * - Return normally only once the whole batch is safely handed over
+ * - Throw to make the relay retry the batch on the next poll
+ * - Sinks may see the same event more than once (at-least-once),
+ *   so consumers should de-duplicate on the event id
+ */
+public interface TodoEventSink {
+
+    /** Short name used in logs and metrics */
+    String name();
+
+    /** Deliver events for a single user, oldest first */
+    void deliver(List<OutboxEvent> events) throws Exception;
+}
@@ -0,0 +1,236 @@
+package com.todoApi.query;
+
+import com.todoApi.model.Todo;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Predicate;
+
+/**
+ * TodoQuery - A parsed filter (?q=) and sort (?sort=) expression
+ *
+ * Filter: comma-separated terms, all of which must match
+ *   completed:true                  completion state
+ *   created>=2025-01-01             created range (>=, >, <=, <),
+ *   updated<2025-03-01T12:00        dates or date-times
+ *   title:buy                       title starts with (case-insensitive)
+ *
+ * Sort: comma-separated keys, each optionally followed by :asc/:desc
+ *   sort=updated:desc,title
+ * Keys: created, updated, title, position (the default: manual order)
+ *
+ * Example: GET /api/todos?q=completed:false,created>=2025-01-01&sort=created:desc
+ *
+ * The parsed query has a "shape" - the fields, operators and sort order,
+ * without the values. Queries with the same shape compile to the same
+ * JPQL (see TodoQueryService), only their parameters differ. Without SQL
+ * (the embedded store) the same query runs as predicate() and comparator().
+ */
+public final class TodoQuery {
+
+    private static final int MAX_TERMS = 10;
+
+    /** One filter term: field, operator and the already-converted value */
+    public record Term(String field, String operator, Object value) {
+    }
+
+    /** One sort key */
+    public record Order(String field, boolean descending) {
+    }
+
+    private final List<Term> terms;
+    private final List<Order> orders;
+
+    private TodoQuery(List<Term> terms, List<Order> orders) {
+        this.terms = terms;
+        this.orders = orders;
+    }
+
+    public List<Term> terms() {
+        return terms;
+    }
+
+    public List<Order> orders() {
+        return orders;
+    }
+
+    /** Same query plus a completed:x term (for the older ?completed= parameter) */
+    public TodoQuery withCompleted(Boolean completed) {
+        if (completed == null) {
+            return this;
+        }
+        List<Term> withTerm = new ArrayList<>(terms);
+        withTerm.add(new Term("completed", ":", completed));
+        return new TodoQuery(withTerm, orders);
+    }
+
+    /** Cache key: everything except the values */
+    public String shape() {
+        StringBuilder shape = new StringBuilder();
+        for (Term term : terms) {
+            shape.append(term.field()).append(term.operator()).append(';');
+        }
+        shape.append("sort");
+        for (Order order : orders) {
+            shape.append(';').append(order.field()).append(order.descending() ? " desc" : " asc");
+        }
+        return shape.toString();
+    }
+
+    /** The filter as a test on a loaded todo - what the JPQL's where clause selects */
+    public Predicate<Todo> predicate() {
+        Predicate<Todo> all = todo -> true;
+        for (Term term : terms) {
+            all = all.and(switch (term.field()) {
+                case "completed" -> todo -> term.value().equals(todo.getCompleted());
+                case "created" -> todo -> inRange(todo.getCreatedAt(), term);
+                case "updated" -> todo -> inRange(todo.getUpdatedAt(), term);
+                case "title" -> todo -> todo.getTitle() != null
+                        && todo.getTitle().toLowerCase(Locale.ROOT).startsWith((String) term.value());
+                default -> throw new IllegalStateException("Unknown field " + term.field());
+            });
+        }
+        return all;
+    }
+
+    /**
+     * The sort as a comparator - the JPQL's order by: manual order if no key
+     * is given, then id. Nulls sort as the highest values, like in the database.
+     */
+    public Comparator<Todo> comparator() {
+        Comparator<Todo> comparator = null;
+        for (Order order : orders.isEmpty() ? List.of(new Order("position", false)) : orders) {
+            Comparator<Todo> key = switch (order.field()) {
+                case "created" -> Comparator.comparing(Todo::getCreatedAt, Comparator.nullsLast(Comparator.naturalOrder()));
+                case "updated" -> Comparator.comparing(Todo::getUpdatedAt, Comparator.nullsLast(Comparator.naturalOrder()));
+                case "title" -> Comparator.comparing(
+                        todo -> todo.getTitle() == null ? null : todo.getTitle().toLowerCase(Locale.ROOT),
+                        Comparator.nullsLast(Comparator.<String>naturalOrder()));
+                default -> Comparator.comparing(Todo::getPosition, Comparator.nullsLast(Comparator.naturalOrder()));
+            };
+            key = order.descending() ? key.reversed() : key;
+            comparator = comparator == null ? key : comparator.thenComparing(key);
+        }
+        return comparator.thenComparing(Todo::getId);
+    }
+
+    private static boolean inRange(LocalDateTime time, Term term) {
+        if (time == null) {
+            return false;
+        }
+        int compared = time.compareTo((LocalDateTime) term.value());
+        return switch (term.operator()) {
+            case ">=" -> compared >= 0;
+            case ">" -> compared > 0;
+            case "<=" -> compared <= 0;
+            default -> compared < 0;
+        };
+    }
+
+    /**
+     * Parse the filter and sort expressions (either may be null or blank)
+     * @throws ResponseStatusException 400 if either is malformed
+     */
+    public static TodoQuery parse(String filter, String sort) {
+        return new TodoQuery(parseTerms(filter), parseOrders(sort));
+    }
+
+    private static List<Term> parseTerms(String filter) {
+        List<Term> terms = new ArrayList<>();
+        if (filter == null || filter.isBlank()) {
+            return terms;
+        }
+        for (String raw : filter.split(",")) {
+            if (raw.isBlank()) {
+                continue;
+            }
+            terms.add(parseTerm(raw.trim()));
+        }
+        if (terms.size() > MAX_TERMS) {
+            throw badRequest("A filter cannot have more than " + MAX_TERMS + " terms");
+        }
+        return terms;
+    }
+
+    private static Term parseTerm(String raw) {
+        // The operator is the first ':', '<' or '>' (optionally followed by '=')
+        int index = -1;
+        for (int i = 0; i < raw.length() && index < 0; i++) {
+            char c = raw.charAt(i);
+            if (c == ':' || c == '<' || c == '>') {
+                index = i;
+            }
+        }
+        if (index <= 0) {
+            throw badRequest("Cannot parse filter term '" + raw + "'");
+        }
+        String operator = raw.charAt(index) != ':' && index + 1 < raw.length() && raw.charAt(index + 1) == '='
+                ? raw.substring(index, index + 2)
+                : raw.substring(index, index + 1);
+        String field = raw.substring(0, index).trim().toLowerCase(Locale.ROOT);
+        String value = raw.substring(index + operator.length()).trim();
+
+        switch (field) {
+            case "completed":
+                if (!operator.equals(":") || !(value.equals("true") || value.equals("false"))) {
+                    throw badRequest("Use completed:true or completed:false");
+                }
+                return new Term(field, operator, Boolean.valueOf(value));
+            case "created":
+            case "updated":
+                if (operator.equals(":")) {
+                    throw badRequest("Use >=, >, <= or < with " + field);
+                }
+                return new Term(field, operator, parseTime(value));
+            case "title":
+                if (!operator.equals(":") || value.isEmpty()) {
+                    throw badRequest("Use title:<prefix>");
+                }
+                return new Term(field, operator, value.toLowerCase(Locale.ROOT));
+            default:
+                throw badRequest("Unknown filter field '" + field + "'");
+        }
+    }
+
+    private static LocalDateTime parseTime(String value) {
+        try {
+            return value.contains("T") ? LocalDateTime.parse(value) : LocalDate.parse(value).atStartOfDay();
+        } catch (DateTimeParseException e) {
+            throw badRequest("Invalid date '" + value + "', expected e.g. 2025-01-31 or 2025-01-31T09:30");
+        }
+    }
+
+    private static List<Order> parseOrders(String sort) {
+        List<Order> orders = new ArrayList<>();
+        if (sort == null || sort.isBlank()) {
+            return orders;
+        }
+        for (String raw : sort.split(",")) {
+            String[] parts = raw.trim().toLowerCase(Locale.ROOT).split(":");
+            String field = parts[0];
+            if (!List.of("created", "updated", "title", "position").contains(field)) {
+                throw badRequest("Cannot sort by '" + field + "'");
+            }
+            boolean descending = parts.length > 1 && parts[1].equals("desc");
+            if (parts.length > 2 || (parts.length == 2 && !descending && !parts[1].equals("asc"))) {
+                throw badRequest("Invalid sort key '" + raw.trim() + "'");
+            }
+            orders.add(new Order(field, descending));
+        }
+        if (orders.size() > 4) {
+            throw badRequest("Sort by at most 4 keys");
+        }
+        return orders;
+    }
+
+    private static ResponseStatusException badRequest(String message) {
+        return new ResponseStatusException(HttpStatus.BAD_REQUEST, message);
+    }
+}
@@ -0,0 +1,233 @@
+package com.todoApi.query;
+
+import com.todoApi.model.Todo;
+import com.todoApi.repository.TodoRepository;
+import com.todoApi.tags.TagFilter;
+import com.todoApi.tags.TagIndex;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import org.hibernate.Hibernate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * TodoQueryService - Runs a TodoQuery against the database, one page at a time
+ *
+ * Compiling: a query is turned into JPQL once per shape (fields,
+ * operators and sort order - see TodoQuery.shape()). Values are always
+ * bind parameters, so every query of a shape produces the identical
+ * JPQL string. That string is what Hibernate's query plan cache is
+ * keyed on, and the resulting SQL is what the JDBC driver/database
+ * re-use prepared statements for - repeated queries skip parsing and
+ * planning at every layer.
+ *
+ * Tags: a ?tags= filter is matched on the in-memory bitmaps (TagIndex)
+ * and becomes an id restriction. Above MAX_ID_RESTRICTION matches the
+ * ids would make a huge IN list: then the query runs once for ids only
+ * (same terms, same order), read until the page is complete while
+ * skipping ids the bitmaps didn't match, and the page's rows are loaded
+ * by id.
+ *
+ * Paging: the page is fetched with LIMIT size + 1. The extra row only
+ * tells whether there is a next page (Slice.hasNext), so no COUNT(*)
+ * query is needed.
+ *
+ * With app.storage=embedded there is no todos table to query: the user's
+ * list is read from the store (one in-memory index) and filtered, sorted
+ * and paged with TodoQuery.predicate() / comparator().
+ */
+@Service
+public class TodoQueryService {
+
+    /** Distinct shapes are few (at most 10 terms, 4 sort keys); this only guards against abuse */
+    private static final int MAX_CACHED_SHAPES = 1000;
+
+    /** Largest tag match set passed to SQL as an id list */
+    private static final int MAX_ID_RESTRICTION = 1000;
+
+    private final EntityManager entityManager;
+    private final TodoRepository todoRepository;
+    private final TagIndex tagIndex;
+    private final boolean inMemory;
+    private final Map<String, String> compiled = new ConcurrentHashMap<>();
+
+    public TodoQueryService(EntityManager entityManager, TodoRepository todoRepository, TagIndex tagIndex,
+            @Value("${app.storage:jpa}") String storage) {
+        this.entityManager = entityManager;
+        this.todoRepository = todoRepository;
+        this.tagIndex = tagIndex;
+        this.inMemory = "embedded".equals(storage);
+    }
+
+    /**
+     * Fetch one page of a user's todos
+     *
+     * @param tags Optional tag filter, null for none
+     */
+    @Transactional(readOnly = true)
+    public Slice<Todo> find(Long userId, TodoQuery query, TagFilter tags, int page, int size) {
+        // Tag filters are matched on the bitmap index; the matching ids then
+        // restrict the SQL query - or, too many for an IN list, the rows it returns
+        List<Long> todoIds = null;
+        if (tags == null && inMemory) {
+            return findInMemory(userId, query, null, page, size);
+        }
+        if (tags != null) {
+            todoIds = tagIndex.match(userId, tags, null);
+            if (todoIds.isEmpty()) {
+                return new SliceImpl<>(List.of(), PageRequest.of(page, size), false);
+            }
+            if (inMemory) {
+                return findInMemory(userId, query, new HashSet<>(todoIds), page, size);
+            }
+            if (todoIds.size() > MAX_ID_RESTRICTION) {
+                return findAmongMatches(userId, query, new HashSet<>(todoIds), page, size);
+            }
+        }
+
+        TypedQuery<Todo> typed = query(userId, query, todoIds != null, Todo.class);
+        if (todoIds != null) {
+            typed.setParameter("ids", todoIds);
+        }
+        typed.setFirstResult(Math.toIntExact((long) page * size));
+        typed.setMaxResults(size + 1);
+
+        return slice(typed.getResultList(), page, size);
+    }
+
+    /**
+     * A page of the todos among many tag matches: the query's ids in its
+     * order, read (streamed) until the page is complete, then the page's
+     * rows by id
+     */
+    private Slice<Todo> findAmongMatches(Long userId, TodoQuery query, Set<Long> matching, int page, int size) {
+        long skip = (long) page * size;
+        List<Long> pageIds = new ArrayList<>(size + 1);
+        try (Stream<Long> ids = query(userId, query, false, Long.class).getResultStream()) {
+            Iterator<Long> iterator = ids.iterator();
+            while (pageIds.size() <= size && iterator.hasNext()) {
+                Long id = iterator.next();
+                if (matching.contains(id) && skip-- <= 0) {
+                    pageIds.add(id);
+                }
+            }
+        }
+        if (pageIds.isEmpty()) {
+            return new SliceImpl<>(List.of(), PageRequest.of(page, size), false);
+        }
+
+        Map<Long, Todo> byId = todoRepository.findAllById(pageIds).stream()
+                .collect(Collectors.toMap(Todo::getId, Function.identity()));
+        List<Todo> rows = pageIds.stream().map(byId::get).filter(Objects::nonNull).toList();
+        return slice(rows, page, size);
+    }
+
+    /** The query compiled for its shape, with its parameters bound - todos, or only their ids */
+    private <T> TypedQuery<T> query(Long userId, TodoQuery query, boolean restrictToIds, Class<T> result) {
+        boolean idsOnly = result == Long.class;
+        String shape = query.shape() + (restrictToIds ? ";ids" : "") + (idsOnly ? ";select-ids" : "");
+        String jpql = compiled.get(shape);
+        if (jpql == null) {
+            if (compiled.size() >= MAX_CACHED_SHAPES) {
+                compiled.clear();
+            }
+            jpql = compile(query, restrictToIds, idsOnly);
+            compiled.put(shape, jpql);
+        }
+
+        TypedQuery<T> typed = entityManager.createQuery(jpql, result);
+        typed.setParameter("userId", userId);
+        List<TodoQuery.Term> terms = query.terms();
+        for (int i = 0; i < terms.size(); i++) {
+            TodoQuery.Term term = terms.get(i);
+            Object value = term.field().equals("title") ? escapeLike((String) term.value()) + "%" : term.value();
+            typed.setParameter("p" + i, value);
+        }
+        return typed;
+    }
+
+    /** Up to size + 1 rows as a page - the extra row only tells there is a next one */
+    private static Slice<Todo> slice(List<Todo> rows, int page, int size) {
+        boolean hasNext = rows.size() > size;
+        List<Todo> content = hasNext ? rows.subList(0, size) : rows;
+
+        // Load the page's tags now (batched, see @BatchSize on Todo.tags),
+        // not one by one while the response is written
+        for (Todo todo : content) {
+            Hibernate.initialize(todo.getTags());
+        }
+
+        return new SliceImpl<>(List.copyOf(content), PageRequest.of(page, size), hasNext);
+    }
+
+    /** The query on the user's list as the repository returns it (the embedded store's index) */
+    private Slice<Todo> findInMemory(Long userId, TodoQuery query, Set<Long> todoIds, int page, int size) {
+        List<Todo> matching = todoRepository.findByUser_IdOrderByPositionAsc(userId).stream()
+                .filter(todo -> todoIds == null || todoIds.contains(todo.getId()))
+                .filter(query.predicate())
+                .sorted(query.comparator())
+                .toList();
+        int from = (int) Math.min((long) page * size, matching.size());
+        int to = (int) Math.min((long) from + size, matching.size());
+        return new SliceImpl<>(matching.subList(from, to), PageRequest.of(page, size), to < matching.size());
+    }
+
+    private static String compile(TodoQuery query, boolean restrictToIds, boolean idsOnly) {
+        StringBuilder jpql = new StringBuilder(idsOnly ? "select t.id" : "select t")
+                .append(" from Todo t where t.user.id = :userId");
+
+        List<TodoQuery.Term> terms = query.terms();
+        for (int i = 0; i < terms.size(); i++) {
+            TodoQuery.Term term = terms.get(i);
+            String parameter = ":p" + i;
+            jpql.append(" and ");
+            switch (term.field()) {
+                case "completed" -> jpql.append("t.completed = ").append(parameter);
+                case "created" -> jpql.append("t.createdAt ").append(term.operator()).append(' ').append(parameter);
+                case "updated" -> jpql.append("t.updatedAt ").append(term.operator()).append(' ').append(parameter);
+                case "title" -> jpql.append("lower(t.title) like ").append(parameter).append(" escape '\\'");
+                default -> throw new IllegalStateException("Unknown field " + term.field());
+            }
+        }
+        if (restrictToIds) {
+            jpql.append(" and t.id in :ids");
+        }
+
+        jpql.append(" order by ");
+        for (TodoQuery.Order order : query.orders()) {
+            jpql.append(switch (order.field()) {
+                case "created" -> "t.createdAt";
+                case "updated" -> "t.updatedAt";
+                case "title" -> "lower(t.title)";
+                default -> "t.position";
+            });
+            jpql.append(order.descending() ? " desc, " : " asc, ");
+        }
+        if (query.orders().isEmpty()) {
+            jpql.append("t.position asc, ");
+        }
+        // Unique tie-breaker keeps pages stable
+        jpql.append("t.id asc");
+        return jpql.toString();
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
@@ -0,0 +1,60 @@
+package com.todoApi.reactive;
+
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.r2dbc.core.DatabaseClient;
+
+/**
+ * ReactiveReadConfig - Database access for the reactive read API
+ *
+ * Only active with app.reactive.enabled=true, and not with
+ * app.storage=embedded (it reads the todos table). The connection pool is
+ * built here by hand (no R2DBC auto-configuration) so it sits next to
+ * the JDBC/JPA setup without replacing any of it. It is deliberately not
+ * a bean: a ConnectionFactory bean makes DataSourceAutoConfiguration back
+ * off, and JPA would go with it.
+ *
+ * Example (dev database):
+ *   app.reactive.r2dbc.url=r2dbc:postgresql://localhost:5432/todo_app_db
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.reactive.enabled", havingValue = "true")
+@ConditionalOnProperty(name = "app.storage", havingValue = "jpa", matchIfMissing = true)
+public class ReactiveReadConfig {
+
+    private volatile ConnectionPool pool;
+
+    @Bean
+    public DatabaseClient reactiveDatabaseClient(
+            @Value("${app.reactive.r2dbc.url}") String url,
+            @Value("${app.reactive.r2dbc.username:${spring.datasource.username:}}") String username,
+            @Value("${app.reactive.r2dbc.password:${spring.datasource.password:}}") String password,
+            @Value("${app.reactive.r2dbc.pool-size:20}") int poolSize) {
+        ConnectionFactoryOptions options = ConnectionFactoryOptions.parse(url).mutate()
+                .option(ConnectionFactoryOptions.USER, username)
+                .option(ConnectionFactoryOptions.PASSWORD, password)
+                .build();
+
+        ConnectionPoolConfiguration configuration = ConnectionPoolConfiguration
+                .builder(ConnectionFactories.get(options))
+                .initialSize(Math.min(poolSize, 5))
+                .maxSize(poolSize)
+                .build();
+        pool = new ConnectionPool(configuration);
+        return DatabaseClient.create(pool);
+    }
+
+    @PreDestroy
+    void closePool() {
+        if (pool != null) {
+            pool.dispose();
+        }
+    }
+}
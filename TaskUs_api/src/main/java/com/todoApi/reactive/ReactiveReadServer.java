@@ -0,0 +1,69 @@
+package com.todoApi.reactive;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.http.server.reactive.HttpHandler;
+import org.springframework.http.server.reactive.ReactorHttpHandlerAdapter;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+
+/**
+ * ReactiveReadServer - Runs the reactive read API on its own port
+ *
+ * A Reactor Netty server inside the same application: it shares the
+ * beans (JwtUtil, revocation list, outbox) with the servlet side, but
+ * has its own event-loop threads, port (app.reactive.port) and R2DBC
+ * connection pool. Writes stay on the servlet port.
+ *
+ * Enable with app.reactive.enabled=true; scripts/reactive-load-test.sh
+ * runs the same read load against both ports.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.reactive.enabled", havingValue = "true")
+@ConditionalOnProperty(name = "app.storage", havingValue = "jpa", matchIfMissing = true)
+public class ReactiveReadServer implements SmartLifecycle {
+
+    private final ReactiveTodoHandler handler;
+    private final int port;
+    private volatile DisposableServer server;
+
+    public ReactiveReadServer(ReactiveTodoHandler handler,
+            @Value("${app.reactive.port:8081}") int port) {
+        this.handler = handler;
+        this.port = port;
+    }
+
+    @Override
+    public void start() {
+        HttpHandler httpHandler = RouterFunctions.toHttpHandler(handler.routes());
+        server = HttpServer.create()
+                .port(port)
+                .handle(new ReactorHttpHandlerAdapter(httpHandler))
+                .bindNow();
+        log.info("Reactive read API listening on port {}", server.port());
+    }
+
+    /** The bound port (app.reactive.port=0 picks a free one) */
+    public int port() {
+        return server.port();
+    }
+
+    @Override
+    public void stop() {
+        DisposableServer running = server;
+        if (running != null) {
+            running.disposeNow();
+            server = null;
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return server != null;
+    }
+}
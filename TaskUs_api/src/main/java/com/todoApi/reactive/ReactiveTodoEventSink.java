@@ -0,0 +1,50 @@
+package com.todoApi.reactive;
+
+import com.todoApi.model.OutboxEvent;
+import com.todoApi.outbox.TodoEventSink;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+import java.util.List;
+
+/**
+ * ReactiveTodoEventSink - Feeds outbox events to the SSE streams
+ *
+ * The outbox relay delivers to it like to any other sink; every open
+ * /api/todos/stream connection subscribes and keeps its user's events.
+ * Emission never blocks the relay: a subscriber that can't keep up
+ * misses events rather than holding up delivery for everyone else.
+ *
+ * Events are only seen on the instance that runs the relay
+ * (app.outbox.relay.enabled), so serve SSE from that instance - the
+ * others answer /api/todos/stream with 503 (see ReactiveTodoHandler).
+ * Tailing the outbox table on every instance wouldn't do: the relay
+ * deletes the rows as soon as they are delivered.
+ */
+@Component
+@ConditionalOnProperty(name = "app.reactive.enabled", havingValue = "true")
+@ConditionalOnProperty(name = "app.storage", havingValue = "jpa", matchIfMissing = true)
+public class ReactiveTodoEventSink implements TodoEventSink {
+
+    private final Sinks.Many<OutboxEvent> events = Sinks.many().multicast().directBestEffort();
+
+    @Override
+    public String name() {
+        return "sse";
+    }
+
+    @Override
+    public void deliver(List<OutboxEvent> batch) {
+        for (OutboxEvent event : batch) {
+            // FAIL_ZERO_SUBSCRIBER (nobody listening) is fine - nothing to deliver
+            events.tryEmitNext(event);
+        }
+    }
+
+    /** Live events of one user */
+    public Flux<OutboxEvent> eventsFor(Long userId) {
+        return events.asFlux().filter(event -> userId.equals(event.getUserId()));
+    }
+}
@@ -0,0 +1,199 @@
+package com.todoApi.reactive;
+
+import com.fasterxml.jackson.annotation.JsonUnwrapped;
+import com.todoApi.model.Todo;
+import com.todoApi.security.JwtUtil;
+import com.todoApi.security.TokenRevocationList;
+import com.todoApi.sharing.ShareAcl;
+import com.todoApi.sharing.ShareGrant;
+import io.jsonwebtoken.Claims;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.BodyInserters;
+import org.springframework.web.reactive.function.server.HandlerFilterFunction;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+/**
+ * ReactiveTodoHandler - The read endpoints of the reactive API
+ *
+ * Same paths and JSON as TodoController, on the reactive port:
+ *   GET /api/todos            (?completed=true|false, ?includeShared=true)
+ *   GET /api/todos/{id}       the user's own todo, or one shared with them
+ *   GET /api/todos/count
+ *   GET /api/todos/stream     Server-Sent Events: the user's todo changes
+ *
+ * Authentication is the same JWT check as JwtAuthenticationFilter
+ * (signature, expiry, access token, not revoked); all of it is CPU or
+ * in-memory work, so it runs on the event loop without blocking.
+ *
+ * Shared lists are checked against ShareAcl like TodoService does for
+ * reads. Its cache misses are JDBC queries, so those calls run on the
+ * bounded-elastic scheduler, never on the event loop.
+ *
+ * The stream only carries what the outbox relay delivers, and the relay
+ * runs on one instance (app.outbox.relay.enabled). Other instances
+ * answer /api/todos/stream with 503 rather than hold a connection that
+ * would never see an event - route SSE to the relay's instance.
+ */
+@Component
+@ConditionalOnProperty(name = "app.reactive.enabled", havingValue = "true")
+@ConditionalOnProperty(name = "app.storage", havingValue = "jpa", matchIfMissing = true)
+public class ReactiveTodoHandler {
+
+    private static final String USER_ID = "userId";
+
+    /** A todo of a list shared with the user, marked the way TodoController marks it */
+    record SharedTodo(@JsonUnwrapped Todo todo, ShareGrant sharedBy) {
+    }
+
+    private final ReactiveTodoRepository todoRepository;
+    private final ReactiveTodoEventSink eventSink;
+    private final JwtUtil jwtUtil;
+    private final TokenRevocationList revocationList;
+    private final ShareAcl shareAcl;
+    private final boolean relayEnabled;
+
+    public ReactiveTodoHandler(ReactiveTodoRepository todoRepository,
+            ReactiveTodoEventSink eventSink,
+            JwtUtil jwtUtil,
+            TokenRevocationList revocationList,
+            ShareAcl shareAcl,
+            @Value("${app.outbox.relay.enabled:true}") boolean relayEnabled) {
+        this.todoRepository = todoRepository;
+        this.eventSink = eventSink;
+        this.jwtUtil = jwtUtil;
+        this.revocationList = revocationList;
+        this.shareAcl = shareAcl;
+        this.relayEnabled = relayEnabled;
+    }
+
+    public RouterFunction<ServerResponse> routes() {
+        return RouterFunctions.route()
+                .GET("/api/todos/count", this::count)
+                .GET("/api/todos/stream", this::stream)
+                .GET("/api/todos/{id}", this::get)
+                .GET("/api/todos", this::list)
+                .filter(authenticate())
+                .build();
+    }
+
+    private Mono<ServerResponse> list(ServerRequest request) {
+        Boolean completed = request.queryParam("completed").map(Boolean::valueOf).orElse(null);
+        boolean includeShared = request.queryParam("includeShared").map(Boolean::parseBoolean).orElse(false);
+        Long userId = userId(request);
+        if (!includeShared) {
+            return ServerResponse.ok()
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(todoRepository.findByUsers(userId, List.of(userId), completed), Todo.class);
+        }
+
+        Flux<Object> todos = blocking(() -> shareAcl.grantsTo(userId))
+                .flatMapMany(grants -> todoRepository.findByUsers(userId, ownerIds(userId, grants), completed)
+                        .map(todo -> {
+                            Long ownerId = todo.getUser().getId();
+                            return ownerId.equals(userId) ? todo : new SharedTodo(todo, grants.get(ownerId));
+                        }));
+        return ServerResponse.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(todos, Object.class);
+    }
+
+    private Mono<ServerResponse> get(ServerRequest request) {
+        long id;
+        try {
+            id = Long.parseLong(request.pathVariable("id"));
+        } catch (NumberFormatException e) {
+            return ServerResponse.badRequest().build();
+        }
+        Long userId = userId(request);
+        // Someone else's todo that isn't shared with the user is not found, like on the servlet side
+        return todoRepository.findById(id)
+                .filterWhen(todo -> todo.getUser().getId().equals(userId)
+                        ? Mono.just(true)
+                        : blocking(() -> shareAcl.permission(userId, todo.getUser().getId()) != null))
+                .flatMap(todo -> ServerResponse.ok().contentType(MediaType.APPLICATION_JSON).bodyValue(todo))
+                .switchIfEmpty(ServerResponse.notFound().build());
+    }
+
+    private Mono<ServerResponse> count(ServerRequest request) {
+        return todoRepository.countByUser(userId(request))
+                .flatMap(count -> ServerResponse.ok().contentType(MediaType.APPLICATION_JSON).bodyValue(count));
+    }
+
+    /**
+     * Long-lived SSE connection with the user's todo events
+     * A comment line every 15 s keeps idle connections open through proxies
+     */
+    private Mono<ServerResponse> stream(ServerRequest request) {
+        if (!relayEnabled) {
+            return ServerResponse.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .contentType(MediaType.TEXT_PLAIN)
+                    .bodyValue("Todo events are streamed by the instance that runs the outbox relay");
+        }
+        Flux<ServerSentEvent<String>> events = eventSink.eventsFor(userId(request))
+                .map(event -> ServerSentEvent.<String>builder()
+                        .id(String.valueOf(event.getId()))
+                        .event(event.getEventType().name())
+                        .data(event.getPayload())
+                        .build());
+        Flux<ServerSentEvent<String>> heartbeats = Flux.interval(Duration.ofSeconds(15))
+                .map(tick -> ServerSentEvent.<String>builder().comment("keep-alive").build());
+
+        return ServerResponse.ok()
+                .contentType(MediaType.TEXT_EVENT_STREAM)
+                .body(BodyInserters.fromServerSentEvents(Flux.merge(events, heartbeats)));
+    }
+
+    /** Reject requests without a valid access token, otherwise remember the user id */
+    private HandlerFilterFunction<ServerResponse, ServerResponse> authenticate() {
+        return (request, next) -> {
+            String header = request.headers().firstHeader("Authorization");
+            if (header == null || !header.startsWith("Bearer ")) {
+                return ServerResponse.status(HttpStatus.UNAUTHORIZED).build();
+            }
+            try {
+                Claims claims = jwtUtil.extractAllClaims(header.substring(7));
+                if (!jwtUtil.isAccessToken(claims) || revocationList.isRevoked(claims.getId())) {
+                    return ServerResponse.status(HttpStatus.UNAUTHORIZED).build();
+                }
+                request.attributes().put(USER_ID, claims.get("userId", Long.class));
+            } catch (Exception e) {
+                return ServerResponse.status(HttpStatus.UNAUTHORIZED).build();
+            }
+            return next.handle(request);
+        };
+    }
+
+    private static Long userId(ServerRequest request) {
+        return (Long) request.attributes().get(USER_ID);
+    }
+
+    /** The user and the owners of the lists shared with them */
+    private static List<Long> ownerIds(Long userId, Map<Long, ShareGrant> grants) {
+        List<Long> ownerIds = new ArrayList<>(grants.size() + 1);
+        ownerIds.add(userId);
+        ownerIds.addAll(grants.keySet());
+        return ownerIds;
+    }
+
+    /** A call that may block (JDBC), off the event loop */
+    private static <T> Mono<T> blocking(Callable<T> call) {
+        return Mono.fromCallable(call).subscribeOn(Schedulers.boundedElastic());
+    }
+}
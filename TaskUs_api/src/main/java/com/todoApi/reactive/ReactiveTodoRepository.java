@@ -0,0 +1,131 @@
+package com.todoApi.reactive;
+
+import com.todoApi.model.Todo;
+import com.todoApi.model.User;
+import io.r2dbc.spi.Row;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * ReactiveTodoRepository - Non-blocking reads of the todos tables
+ *
+ * Same tables and the same Todo class as the JPA side, written as plain
+ * SQL over R2DBC. Read-only: every write still goes through TodoService.
+ */
+@Component
+@ConditionalOnProperty(name = "app.reactive.enabled", havingValue = "true")
+@ConditionalOnProperty(name = "app.storage", havingValue = "jpa", matchIfMissing = true)
+public class ReactiveTodoRepository {
+
+    private static final String COLUMNS =
+            "id, user_id, title, description, completed, completed_at, position, due_at, remind_at, reminder_sent_at, " +
+            "completion_from_items, created_at, updated_at, version";
+
+    private final DatabaseClient databaseClient;
+
+    public ReactiveTodoRepository(DatabaseClient reactiveDatabaseClient) {
+        this.databaseClient = reactiveDatabaseClient;
+    }
+
+    /**
+     * The todos of a user and of the owners sharing their lists with them:
+     * the user's own first, then the owners' by owner id - each list in
+     * manual order, optionally only (in)complete ones
+     */
+    public Flux<Todo> findByUsers(Long userId, List<Long> ownerIds, Boolean completed) {
+        String sql = "select " + COLUMNS + " from todos where user_id in (:ownerIds)"
+                + (completed != null ? " and completed = :completed" : "")
+                + " order by case when user_id = :userId then 0 else 1 end, user_id, position, id";
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(sql)
+                .bind("ownerIds", ownerIds)
+                .bind("userId", userId);
+        if (completed != null) {
+            spec = spec.bind("completed", completed);
+        }
+
+        // Rows are collected so all their tags can be read in one query
+        return spec.map((row, metadata) -> toTodo(row)).all()
+                .collectList()
+                .flatMapMany(todos -> withTags(ownerIds, todos));
+    }
+
+    /** A todo by id, whoever owns it (the caller checks access) */
+    public Mono<Todo> findById(Long id) {
+        return databaseClient.sql("select " + COLUMNS + " from todos where id = :id")
+                .bind("id", id)
+                .map((row, metadata) -> toTodo(row))
+                .one()
+                .flatMap(todo -> databaseClient.sql("select tag from todo_tags where todo_id = :id")
+                        .bind("id", id)
+                        .map((row, metadata) -> row.get("tag", String.class))
+                        .all()
+                        .collect(LinkedHashSet<String>::new, Set::add)
+                        .map(tags -> {
+                            todo.setTags(tags);
+                            return todo;
+                        }));
+    }
+
+    public Mono<Long> countByUser(Long userId) {
+        return databaseClient.sql("select count(*) from todos where user_id = :userId")
+                .bind("userId", userId)
+                .map((row, metadata) -> ((Number) row.get(0)).longValue())
+                .one();
+    }
+
+    private Flux<Todo> withTags(List<Long> ownerIds, List<Todo> todos) {
+        if (todos.isEmpty()) {
+            return Flux.empty();
+        }
+        Map<Long, Todo> byId = new HashMap<>();
+        for (Todo todo : todos) {
+            todo.setTags(new LinkedHashSet<>());
+            byId.put(todo.getId(), todo);
+        }
+        return databaseClient.sql("select tt.todo_id, tt.tag from todo_tags tt join todos t on t.id = tt.todo_id "
+                        + "where t.user_id in (:ownerIds)")
+                .bind("ownerIds", ownerIds)
+                .map((row, metadata) -> {
+                    Todo todo = byId.get(((Number) row.get("todo_id")).longValue());
+                    if (todo != null) {
+                        todo.getTags().add(row.get("tag", String.class));
+                    }
+                    return 1;
+                })
+                .all()
+                .thenMany(Flux.fromIterable(new ArrayList<>(todos)));
+    }
+
+    private static Todo toTodo(Row row) {
+        Todo todo = new Todo();
+        todo.setId(((Number) row.get("id")).longValue());
+        // Only the owner's id, like the lazy reference on the JPA side (never serialized)
+        User owner = new User();
+        owner.setId(((Number) row.get("user_id")).longValue());
+        todo.setUser(owner);
+        todo.setTitle(row.get("title", String.class));
+        todo.setDescription(row.get("description", String.class));
+        todo.setCompleted(row.get("completed", Boolean.class));
+        todo.setCompletedAt(row.get("completed_at", LocalDateTime.class));
+        todo.setCompletionFromItems(row.get("completion_from_items", Boolean.class));
+        todo.setPosition(row.get("position", String.class));
+        todo.setDueAt(row.get("due_at", LocalDateTime.class));
+        todo.setRemindAt(row.get("remind_at", LocalDateTime.class));
+        todo.setReminderSentAt(row.get("reminder_sent_at", LocalDateTime.class));
+        todo.setCreatedAt(row.get("created_at", LocalDateTime.class));
+        todo.setUpdatedAt(row.get("updated_at", LocalDateTime.class));
+        todo.setVersion(((Number) row.get("version")).longValue());
+        return todo;
+    }
+}
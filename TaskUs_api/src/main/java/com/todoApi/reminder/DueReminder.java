@@ -0,0 +1,23 @@
+package com.todoApi.reminder;
+
+import com.todoApi.model.Todo;
+
+import java.time.LocalDateTime;
+
+/**
+ * DueReminder - A reminder that is about to fire
+ * Snapshot of the fields a sink needs, taken when it was scheduled
+ *
+ * @param todoId   The todo to remind about
+ * @param userId   Owner of the todo
+ * @param title    Todo title at scheduling time
+ * @param dueAt    Todo due date (may be null)
+ * @param remindAt When the reminder fires
+ */
+public record DueReminder(Long todoId, Long userId, String title, LocalDateTime dueAt, LocalDateTime remindAt) {
+
+    static DueReminder of(Todo todo) {
+        return new DueReminder(todo.getId(), todo.getUser().getId(), todo.getTitle(), todo.getDueAt(),
+                todo.getRemindAt());
+    }
+}
@@ -0,0 +1,39 @@
+package com.todoApi.reminder;
+
+import com.todoApi.model.TodoEventType;
+import com.todoApi.outbox.TodoEventPublisher;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * OutboxReminderSink - Default sink: records a REMINDER_DUE outbox event
+ *
+ * Notification services consume reminders from the outbox like any other
+ * todo event. Written in the same transaction as the claim, so each
+ * reminder produces exactly one event.
+ *
+ * To deliver reminders elsewhere, set app.reminders.sink to another
+ * value and register your own ReminderSink bean.
+ */
+@Component
+@ConditionalOnProperty(name = "app.reminders.sink", havingValue = "outbox", matchIfMissing = true)
+@RequiredArgsConstructor
+public class OutboxReminderSink implements ReminderSink {
+
+    private final TodoEventPublisher eventPublisher;
+
+    @Override
+    public void fire(DueReminder reminder) {
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("id", reminder.todoId());
+        payload.put("title", reminder.title());
+        payload.put("dueAt", reminder.dueAt());
+        payload.put("remindAt", reminder.remindAt());
+
+        eventPublisher.publish(TodoEventType.REMINDER_DUE, reminder.userId(), reminder.todoId(), payload);
+    }
+}
@@ -0,0 +1,278 @@
+package com.todoApi.reminder;
+
+import com.todoApi.model.Todo;
+import com.todoApi.repository.TodoRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ReminderScheduler - Fires todo reminders when they come due
+ *
+ * The table can hold millions of pending reminders, so it is never
+ * scanned as a whole. Instead:
+ * 1. Every load interval, read only the reminders due within the next
+ *    window (a range read on the remind_at index) into a DelayQueue
+ * 2. A dispatcher thread takes each reminder off the queue the moment
+ *    it is due, claims it in the database and hands it to the sink
+ * 3. Reminders created or edited inside the loaded window are added to
+ *    the queue directly after their transaction commits
+ *
+ * The "horizon" is the time up to which the queue is known to be
+ * complete. It is normally now + window, but when the queue is full
+ * (e.g. a big catch-up) it stops at the last reminder that fit.
+ *
+ * Claiming is a conditional UPDATE (see TodoRepository.claimReminder),
+ * so a reminder fires at most once even if it is queued twice, was
+ * edited meanwhile or another instance got there first.
+ *
+ * Restarts: nothing is kept in memory across restarts. The first load
+ * picks up every reminder whose time has passed while the app was down
+ * (their remind_at is still set) and fires them straight away.
+ *
+ * Metrics (Micrometer):
+ * - todo.reminders.queued    reminders currently held in memory
+ * - todo.reminders.fired     reminders delivered to the sink
+ * - todo.reminders.failures  claims/deliveries that failed (retried next load)
+ * - todo.reminders.lateness  time between remindAt and delivery
+ */
+@Slf4j
+@Component
+public class ReminderScheduler {
+
+    private static final LocalDateTime KEYSET_START = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    private final TodoRepository todoRepository;
+    private final ReminderSink sink;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final Duration window;
+    private final int pageSize;
+    private final int maxQueued;
+
+    private final DelayQueue<QueuedReminder> queue = new DelayQueue<>();
+    /** todoId -> remindAt of the entry that is live in the queue (older entries are skipped) */
+    private final Map<Long, LocalDateTime> queued = new ConcurrentHashMap<>();
+    private volatile LocalDateTime horizon = KEYSET_START;
+    private Thread dispatcher;
+
+    private final Counter fired;
+    private final Counter failures;
+    private final Timer lateness;
+
+    public ReminderScheduler(TodoRepository todoRepository,
+            ReminderSink sink,
+            TransactionTemplate transactionTemplate,
+            MeterRegistry meterRegistry,
+            @Value("${app.reminders.enabled:true}") boolean enabled,
+            @Value("${app.reminders.window-seconds:300}") long windowSeconds,
+            @Value("${app.reminders.page-size:1000}") int pageSize,
+            @Value("${app.reminders.max-queued:100000}") int maxQueued) {
+        this.todoRepository = todoRepository;
+        this.sink = sink;
+        this.transactionTemplate = transactionTemplate;
+        this.enabled = enabled;
+        this.window = Duration.ofSeconds(windowSeconds);
+        this.pageSize = pageSize;
+        this.maxQueued = maxQueued;
+
+        meterRegistry.gaugeMapSize("todo.reminders.queued", List.of(), queued);
+        this.fired = meterRegistry.counter("todo.reminders.fired");
+        this.failures = meterRegistry.counter("todo.reminders.failures");
+        this.lateness = meterRegistry.timer("todo.reminders.lateness");
+    }
+
+    @PostConstruct
+    void start() {
+        if (!enabled) {
+            return;
+        }
+        dispatcher = new Thread(this::dispatchLoop, "reminder-dispatcher");
+        dispatcher.setDaemon(true);
+        dispatcher.start();
+    }
+
+    @PreDestroy
+    void stop() {
+        if (dispatcher != null) {
+            dispatcher.interrupt();
+        }
+    }
+
+    /**
+     * Load the next window of reminders into the queue
+     * Pages through remind_at <= now + window in index order. Reminders
+     * already queued are skipped, so reloading the same window is cheap.
+     */
+    @Scheduled(fixedDelayString = "${app.reminders.load-interval-ms:60000}",
+            initialDelayString = "${app.reminders.initial-delay-ms:5000}")
+    public void loadWindow() {
+        if (!enabled) {
+            return;
+        }
+
+        LocalDateTime until = LocalDateTime.now().plus(window);
+        LocalDateTime afterTime = KEYSET_START;
+        long afterId = 0;
+        int loaded = 0;
+
+        List<DueReminder> page;
+        do {
+            if (queued.size() >= maxQueued) {
+                // Queue is full: only promise completeness up to what we've read
+                horizon = afterTime;
+                log.warn("Reminder queue full ({} entries), loaded up to {}", queued.size(), afterTime);
+                return;
+            }
+
+            page = todoRepository.findDueReminders(until, afterTime, afterId, PageRequest.of(0, pageSize));
+            for (DueReminder reminder : page) {
+                if (enqueue(reminder)) {
+                    loaded++;
+                }
+            }
+            if (!page.isEmpty()) {
+                DueReminder last = page.get(page.size() - 1);
+                afterTime = last.remindAt();
+                afterId = last.todoId();
+            }
+        } while (page.size() == pageSize);
+
+        horizon = until;
+        if (loaded > 0) {
+            log.debug("Queued {} reminders due before {}", loaded, until);
+        }
+    }
+
+    /**
+     * Tell the scheduler a todo's reminder was set, changed or removed
+     * Call inside the transaction that saved the todo: the queue is only
+     * touched after the commit, so a rollback leaves it alone.
+     */
+    public void reminderChanged(Todo todo) {
+        if (!enabled) {
+            return;
+        }
+
+        Long todoId = todo.getId();
+        DueReminder reminder = todo.getRemindAt() == null ? null : DueReminder.of(todo);
+        afterCommit(() -> {
+            if (reminder == null) {
+                queued.remove(todoId);
+            } else if (!reminder.remindAt().isAfter(horizon)) {
+                enqueue(reminder);
+            } else {
+                // Beyond the loaded window: the loader will pick it up in time
+                queued.remove(todoId);
+            }
+        });
+    }
+
+    /** Tell the scheduler a todo was deleted */
+    public void todoDeleted(Long todoId) {
+        if (enabled) {
+            afterCommit(() -> queued.remove(todoId));
+        }
+    }
+
+    private boolean enqueue(DueReminder reminder) {
+        LocalDateTime previous = queued.put(reminder.todoId(), reminder.remindAt());
+        if (reminder.remindAt().equals(previous)) {
+            return false;
+        }
+        queue.add(new QueuedReminder(reminder));
+        return true;
+    }
+
+    private void dispatchLoop() {
+        while (!Thread.currentThread().isInterrupted()) {
+            QueuedReminder next;
+            try {
+                next = queue.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+
+            DueReminder reminder = next.reminder;
+            // Skip entries that were superseded by an edit or removed
+            if (!queued.remove(reminder.todoId(), reminder.remindAt())) {
+                continue;
+            }
+            dispatch(reminder);
+        }
+    }
+
+    private void dispatch(DueReminder reminder) {
+        try {
+            Boolean claimed = transactionTemplate.execute(status -> {
+                LocalDateTime now = LocalDateTime.now();
+                if (todoRepository.claimReminder(reminder.todoId(), reminder.remindAt(), now) == 0) {
+                    return false; // edited, deleted or already fired elsewhere
+                }
+                sink.fire(reminder);
+                return true;
+            });
+            if (Boolean.TRUE.equals(claimed)) {
+                fired.increment();
+                lateness.record(Duration.between(reminder.remindAt(), LocalDateTime.now()));
+            }
+        } catch (RuntimeException e) {
+            // Claim rolled back: remind_at is still set, the next load retries it
+            failures.increment();
+            log.warn("Failed to fire reminder for todo {}", reminder.todoId(), e);
+        }
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    /** DelayQueue entry: becomes available when the reminder is due */
+    private static final class QueuedReminder implements Delayed {
+
+        private final DueReminder reminder;
+
+        QueuedReminder(DueReminder reminder) {
+            this.reminder = reminder;
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(Duration.between(LocalDateTime.now(), reminder.remindAt()));
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return reminder.remindAt().compareTo(((QueuedReminder) other).reminder.remindAt());
+        }
+    }
+}
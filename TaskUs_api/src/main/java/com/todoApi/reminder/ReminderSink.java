@@ -0,0 +1,14 @@
+package com.todoApi.reminder;
+
+/**
+ * ReminderSink - Where fired reminders go
+ *
+ * fire() runs inside the transaction that marks the reminder as sent:
+ * if it throws, the claim rolls back and the reminder fires again on
+ * the next load. Sinks should therefore be fast and transactional
+ * (like writing to the outbox) rather than calling remote services.
+ */
+public interface ReminderSink {
+
+    void fire(DueReminder reminder);
+}
@@ -0,0 +1,64 @@
+package com.todoApi.repository;
+
+import com.todoApi.model.ArchivedTodo;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/** ArchivedTodo repository: the archive of old completed todos (see TodoArchiver) */
+@Repository
+public interface ArchivedTodoRepository extends JpaRepository<ArchivedTodo, Long> {
+
+    /** One page of a user's archive, most recently completed first (tags are batch-loaded) */
+    Slice<ArchivedTodo> findByUserIdOrderByCompletedAtDescIdDesc(Long userId, Pageable pageable);
+
+    /** A user's whole archive, most recently completed first (tags joined in the same query) */
+    @EntityGraph(attributePaths = "tags")
+    List<ArchivedTodo> findAllByUserIdOrderByCompletedAtDescIdDesc(Long userId);
+
+    /**
+     * Copy todos into the archive - one INSERT ... SELECT, nothing passes through the application
+     * Rows completed before completedAt existed use their last update time instead
+     */
+    @Modifying
+    @Query(value = "insert into archived_todos " +
+            "(id, user_id, title, description, completed_at, due_at, created_at, updated_at, archived_at) " +
+            "select id, user_id, title, description, coalesce(completed_at, updated_at), due_at, " +
+            "created_at, updated_at, :now from todos where id in (:ids)", nativeQuery = true)
+    int copyFromTodos(@Param("ids") Collection<Long> ids, @Param("now") LocalDateTime now);
+
+    /** Copy the tag rows of todos being archived */
+    @Modifying
+    @Query(value = "insert into archived_todo_tags (todo_id, tag) " +
+            "select todo_id, tag from todo_tags where todo_id in (:ids)", nativeQuery = true)
+    int copyTagsFromTodos(@Param("ids") Collection<Long> ids);
+
+    /** Copy the checklist items of todos being archived */
+    @Modifying
+    @Query(value = "insert into archived_todo_items (todo_id, title, done, position) " +
+            "select todo_id, title, done, position from todo_items where todo_id in (:ids)", nativeQuery = true)
+    int copyItemsFromTodos(@Param("ids") Collection<Long> ids);
+
+    /** Next chunk of a user's archived todo IDs (used by purges) */
+    @Query("select a.id from ArchivedTodo a where a.userId = :userId order by a.id")
+    List<Long> findIdsByUserId(@Param("userId") Long userId, Pageable pageable);
+
+    /** Remove the tag rows of archived todos that are about to be bulk-deleted */
+    @Modifying
+    @Query(value = "delete from archived_todo_tags where todo_id in (:ids)", nativeQuery = true)
+    int deleteTagsByIds(@Param("ids") Collection<Long> ids);
+
+    /** Remove the item rows of archived todos that are about to be bulk-deleted */
+    @Modifying
+    @Query(value = "delete from archived_todo_items where todo_id in (:ids)", nativeQuery = true)
+    int deleteItemsByIds(@Param("ids") Collection<Long> ids);
+}
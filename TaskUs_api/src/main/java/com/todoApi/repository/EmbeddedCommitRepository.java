@@ -0,0 +1,10 @@
+package com.todoApi.repository;
+
+import com.todoApi.model.EmbeddedCommit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+/** Embedded commit repository: Commit markers of the embedded store (app.storage=embedded) */
+@Repository
+public interface EmbeddedCommitRepository extends JpaRepository<EmbeddedCommit, Long> {
+}
@@ -0,0 +1,15 @@
+package com.todoApi.repository;
+
+import com.todoApi.model.OutboxEvent;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/** Outbox repository: Handles database operations for pending change events */
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+    /** Oldest pending events first (id = insert order; see OutboxRelay for uncommitted ids) */
+    List<OutboxEvent> findByOrderByIdAsc(Pageable pageable);
+}
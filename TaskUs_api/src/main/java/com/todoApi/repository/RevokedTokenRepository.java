@@ -0,0 +1,45 @@
+package com.todoApi.repository;
+
+import com.todoApi.model.RevokedToken;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/** Revoked token repository: Durable copy of the JWT denylist */
+@Repository
+public interface RevokedTokenRepository extends JpaRepository<RevokedToken, String> {
+    /** Access tokens that are still worth denying (not expired yet) */
+    List<RevokedToken> findByExpiresAtAfterAndRefreshTokenFalse(LocalDateTime now);
+
+    /** Access tokens revoked since the last sync (possibly by another instance) */
+    List<RevokedToken> findByRevokedAtAfterAndRefreshTokenFalse(LocalDateTime since);
+
+    /**
+     * Record a revocation unless the token is already revoked
+     * The primary key makes this the single point of decision across
+     * instances. revoked_at comes from the database clock, so every
+     * instance's sync compares timestamps from the same clock.
+     * (H2's PostgreSQL mode accepts ON CONFLICT DO NOTHING, too.)
+     *
+     * @return 1 if this call revoked the token, 0 if it already was
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "insert into revoked_tokens (token_id, user_id, refresh_token, expires_at, revoked_at) " +
+            "values (:tokenId, :userId, :refreshToken, :expiresAt, localtimestamp) on conflict do nothing",
+            nativeQuery = true)
+    int insertIfAbsent(@Param("tokenId") String tokenId, @Param("userId") Long userId,
+            @Param("refreshToken") boolean refreshToken, @Param("expiresAt") LocalDateTime expiresAt);
+
+    /** Remove rows for tokens that have expired on their own */
+    @Modifying
+    @Transactional
+    @Query("delete from RevokedToken r where r.expiresAt < :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
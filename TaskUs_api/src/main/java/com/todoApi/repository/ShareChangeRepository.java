@@ -0,0 +1,37 @@
+package com.todoApi.repository;
+
+import com.todoApi.model.ShareChange;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/** Share change repository: Which grantees' cached shares are outdated, for every instance */
+@Repository
+public interface ShareChangeRepository extends JpaRepository<ShareChange, Long> {
+
+    /**
+     * Record that a grantee's shares changed - in the caller's transaction
+     * changed_at comes from the database clock, so every instance's sync
+     * compares timestamps from the same clock.
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "insert into share_changes (grantee_id, changed_at) values (:granteeId, localtimestamp)",
+            nativeQuery = true)
+    int record(@Param("granteeId") Long granteeId);
+
+    /** Changes since the last sync (possibly made on another instance) */
+    List<ShareChange> findByChangedAtAfter(LocalDateTime since);
+
+    /** Remove changes no cached entry can predate any more */
+    @Modifying
+    @Transactional
+    @Query("delete from ShareChange c where c.changedAt < :before")
+    int deleteOlderThan(@Param("before") LocalDateTime before);
+}
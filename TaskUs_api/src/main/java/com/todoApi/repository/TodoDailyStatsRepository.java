@@ -0,0 +1,24 @@
+package com.todoApi.repository;
+
+import com.todoApi.model.TodoDailyStats;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/** TodoDailyStats repository: reads the per-day rollup (writes go through TodoStatsService) */
+@Repository
+public interface TodoDailyStatsRepository extends JpaRepository<TodoDailyStats, TodoDailyStats.Key> {
+
+    /** A user's days in a date range - a primary key range scan */
+    List<TodoDailyStats> findByUserIdAndDateBetweenOrderByDateAsc(Long userId, LocalDate from, LocalDate to);
+
+    /** Drop all of a user's days in one statement */
+    @Modifying
+    @Query("delete from TodoDailyStats s where s.userId = :userId")
+    int deleteAllByUserIdInBulk(@Param("userId") Long userId);
+}
@@ -0,0 +1,41 @@
+package com.todoApi.repository;
+
+import com.todoApi.model.TodoItem;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/** TodoItem repository: checklist items of todos */
+@Repository
+public interface TodoItemRepository extends JpaRepository<TodoItem, Long> {
+
+    /** A todo's items in checklist order */
+    List<TodoItem> findByTodo_IdOrderByPositionAscIdAsc(Long todoId);
+
+    /**
+     * The items of many todos in one query (for embedding them in lists)
+     * Grouped by todo, each todo's items in checklist order
+     */
+    @Query("select i from TodoItem i where i.todo.id in :todoIds order by i.todo.id, i.position, i.id")
+    List<TodoItem> findByTodoIds(@Param("todoIds") Collection<Long> todoIds);
+
+    /** One item of that todo, with the todo - access to the todo is checked by the caller */
+    @Query("select i from TodoItem i join fetch i.todo t where i.id = :id and t.id = :todoId")
+    Optional<TodoItem> findWithTodo(@Param("id") Long id, @Param("todoId") Long todoId);
+
+    /** Highest position in a todo's checklist (null if it has no items) */
+    @Query("select max(i.position) from TodoItem i where i.todo.id = :todoId")
+    Integer findMaxPosition(@Param("todoId") Long todoId);
+
+    /** The done flags of a todo's items - for completion derived from items */
+    @Query("select i.done from TodoItem i where i.todo.id = :todoId")
+    List<Boolean> findDoneFlags(@Param("todoId") Long todoId);
+
+    /** Number of items of a todo */
+    long countByTodo_Id(Long todoId);
+}
@@ -0,0 +1,18 @@
+package com.todoApi.repository;
+
+import java.util.List;
+
+/** Bulk position key writes, mixed into TodoRepository (see TodoPositionUpdatesImpl) */
+public interface TodoPositionUpdates {
+
+    /**
+     * Set the position keys of a user's todos in one batched UPDATE,
+     * without touching updatedAt
+     * The version is bumped by hand: clients holding the old ETag must re-read
+     *
+     * @param ids       Todos of the user, in the order of positions
+     * @param positions New key of each todo
+     * @return Number of todos updated (rows another user owns or that are gone are skipped)
+     */
+    int updatePositions(Long userId, List<Long> ids, List<String> positions);
+}
@@ -0,0 +1,39 @@
+package com.todoApi.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * TodoPositionUpdatesImpl - JDBC batch behind TodoRepository.updatePositions
+ *
+ * Spring Data JPA has no batched form of a bulk JPQL update, so this goes
+ * through JdbcTemplate: one statement, sent as one batch. It runs on the
+ * caller's transaction connection (JpaTransactionManager exposes it).
+ */
+class TodoPositionUpdatesImpl implements TodoPositionUpdates {
+
+    private static final String UPDATE_POSITION =
+            "update todos set position = ?, version = version + 1 where id = ? and user_id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    TodoPositionUpdatesImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public int updatePositions(Long userId, List<Long> ids, List<String> positions) {
+        List<Object[]> rows = new ArrayList<>(ids.size());
+        for (int i = 0; i < ids.size(); i++) {
+            rows.add(new Object[] { positions.get(i), ids.get(i), userId });
+        }
+        int updated = 0;
+        for (int count : jdbcTemplate.batchUpdate(UPDATE_POSITION, rows)) {
+            // SUCCESS_NO_INFO (-2): the driver doesn't report per-row counts
+            updated += count < 0 ? 1 : count;
+        }
+        return updated;
+    }
+}
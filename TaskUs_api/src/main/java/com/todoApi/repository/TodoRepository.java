@@ -1,29 +1,156 @@
 package com.todoApi.repository;
 
 import com.todoApi.model.Todo;
+import com.todoApi.reminder.DueReminder;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 /** Todo repository: Handles database operations for Todo entity */
 @Repository
-public interface TodoRepository extends JpaRepository<Todo, Long> {
-    /** Find todos by user ID */
-    List<Todo> findByUser_Id(Long userId);
+public interface TodoRepository extends JpaRepository<Todo, Long>, TodoPositionUpdates {
+    /** Find todos by user ID, in the user's manual order (tags joined in the same query) */
+    @EntityGraph(attributePaths = "tags")
+    List<Todo> findByUser_IdOrderByPositionAsc(Long userId);
+
+    /** Find some of a user's todos by ID, in the user's manual order */
+    @EntityGraph(attributePaths = "tags")
+    List<Todo> findByUser_IdAndIdInOrderByPositionAsc(Long userId, Collection<Long> ids);
+
+    /** One row per (todo id, completed, tag) - tag is null for untagged todos. Feeds the tag index */
+    @Query("select t.id, t.completed, tagValue from Todo t left join t.tags tagValue where t.user.id = :userId")
+    List<Object[]> findTagRowsByUserId(@Param("userId") Long userId);
+
+    /**
+     * One row per (todo id, owner id, completed, tag) of the todos written since a time,
+     * on any instance - tag is null for untagged todos. Keeps the tag index in sync (see TagIndex.sync)
+     */
+    @Query("select t.id, t.user.id, t.completed, tagValue from Todo t left join t.tags tagValue " +
+            "where t.updatedAt > :since")
+    List<Object[]> findTagRowsUpdatedAfter(@Param("since") LocalDateTime since);
+
+    /** Remove the tag rows of todos that are about to be bulk-deleted */
+    @Modifying
+    @Query(value = "delete from todo_tags where todo_id in (:ids)", nativeQuery = true)
+    int deleteTagsByTodoIds(@Param("ids") Collection<Long> ids);
+
+    /** Find todo by ID, whoever owns it - access is checked by the caller (see TodoService.getTodoById) */
+    @EntityGraph(attributePaths = "tags")
+    Optional<Todo> findWithTagsById(Long id);
+
+    /**
+     * Find todo by ID and lock its row (FOR UPDATE) until the transaction ends
+     * For changes decided on the todo's other rows (its checklist items):
+     * they queue up on the todo instead of each deciding from its own read
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select t from Todo t where t.id = :id")
+    Optional<Todo> findForUpdateById(@Param("id") Long id);
+
+    /** Todos of several users (own and shared lists), each user's in manual order */
+    @EntityGraph(attributePaths = "tags")
+    List<Todo> findByUser_IdInOrderByUser_IdAscPositionAsc(Collection<Long> userIds);
+
+    /** Completed (or incomplete) todos of several users, each user's in manual order */
+    @EntityGraph(attributePaths = "tags")
+    List<Todo> findByUser_IdInAndCompletedOrderByUser_IdAscPositionAsc(Collection<Long> userIds, Boolean completed);
+
+    /** Some todos of several users by ID */
+    @EntityGraph(attributePaths = "tags")
+    List<Todo> findByUser_IdInAndIdIn(Collection<Long> userIds, Collection<Long> ids);
 
     /** Find todo by ID and user ID */
+    @EntityGraph(attributePaths = "tags")
     Optional<Todo> findByIdAndUser_Id(Long id, Long userId);
 
-    /** Find all the completed Todos for a specific user */
-    List<Todo> findByUser_IdAndCompleted(Long userId, Boolean completed);
+    /** Find all the completed (or incomplete) Todos for a specific user, in manual order */
+    @EntityGraph(attributePaths = "tags")
+    List<Todo> findByUser_IdAndCompletedOrderByPositionAsc(Long userId, Boolean completed);
 
     /** Todo count for a specific user */
     Long countByUser_Id(Long userId);
 
-    /** Delete All Todos belonging to a specific user(On user account deletion) */
-    void deleteByUser_Id(Long userId);
+    /**
+     * Next chunk of todo IDs for a user (used by bulk deletes)
+     * Only IDs are selected - no entities are loaded into the session
+     */
+    @Query("select t.id from Todo t where t.user.id = :userId order by t.id")
+    List<Long> findIdsByUserId(@Param("userId") Long userId, Pageable pageable);
+
+    /** Highest position key of a user's list (null if the list is empty) */
+    @Query("select max(t.position) from Todo t where t.user.id = :userId")
+    String findMaxPosition(@Param("userId") Long userId);
+
+    /** Lowest position key of a user's list, ignoring one todo (the one being moved) */
+    @Query("select min(t.position) from Todo t where t.user.id = :userId and t.id <> :excludedId")
+    String findMinPosition(@Param("userId") Long userId, @Param("excludedId") Long excludedId);
+
+    /** The key right after the given one, ignoring one todo (the one being moved) */
+    @Query("select min(t.position) from Todo t where t.user.id = :userId and t.position > :position and t.id <> :excludedId")
+    String findNextPosition(@Param("userId") Long userId, @Param("position") String position,
+            @Param("excludedId") Long excludedId);
+
+    /**
+     * Users with todos that need new position keys (missing or too long)
+     * A full table scan - TodoPositionRebalancer runs it once per start only
+     */
+    @Query("select distinct t.user.id from Todo t where t.position is null or length(t.position) > :maxLength")
+    List<Long> findUserIdsNeedingRebalance(@Param("maxLength") int maxLength);
+
+    /** All todo IDs of a user in list order - todos without a key go last */
+    @Query("select t.id from Todo t where t.user.id = :userId order by t.position asc nulls last, t.id asc")
+    List<Long> findIdsInPositionOrder(@Param("userId") Long userId);
+
+    /**
+     * Pending reminders due up to a given time, earliest first
+     * Keyset-paged on (remindAt, id) so each page is a range read on the
+     * remind_at index, and reminders claimed while paging don't shift pages
+     */
+    @Query("select new com.todoApi.reminder.DueReminder(t.id, t.user.id, t.title, t.dueAt, t.remindAt) from Todo t " +
+            "where t.remindAt <= :until and (t.remindAt > :afterTime or (t.remindAt = :afterTime and t.id > :afterId)) " +
+            "order by t.remindAt, t.id")
+    List<DueReminder> findDueReminders(@Param("until") LocalDateTime until,
+            @Param("afterTime") LocalDateTime afterTime,
+            @Param("afterId") Long afterId,
+            Pageable pageable);
+
+    /**
+     * Claim a reminder for delivery
+     * Only succeeds (returns 1) if the reminder is still pending with the
+     * same time - an edited, fired or deleted reminder returns 0
+     * Bulk updates skip @UpdateTimestamp and @Version, so both are set here
+     */
+    @Modifying
+    @Query("update Todo t set t.remindAt = null, t.reminderSentAt = :now, t.updatedAt = :now, " +
+            "t.version = t.version + 1 " +
+            "where t.id = :id and t.remindAt = :remindAt")
+    int claimReminder(@Param("id") Long id, @Param("remindAt") LocalDateTime remindAt, @Param("now") LocalDateTime now);
+
+    /**
+     * Next chunk of completed todos old enough to archive, in id order
+     * Locked (FOR UPDATE) so they can't change while being moved; rows
+     * another transaction holds are skipped (SKIP LOCKED where the
+     * database supports it) and picked up by a later run
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("select t from Todo t where t.id > :afterId and t.completed = true " +
+            "and (t.completedAt < :cutoff or (t.completedAt is null and t.updatedAt < :cutoff)) order by t.id")
+    List<Todo> findArchivable(@Param("cutoff") LocalDateTime cutoff, @Param("afterId") Long afterId,
+            Pageable pageable);
 
     /** Check if todo exists for a specific user */
     Boolean existsByIdAndUser_Id(Long id, Long userId);
@@ -0,0 +1,33 @@
+package com.todoApi.repository;
+
+import com.todoApi.model.SharePermission;
+import com.todoApi.model.TodoShare;
+import com.todoApi.sharing.ShareGrant;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+/** TodoShare repository: todo lists shared between users */
+@Repository
+public interface TodoShareRepository extends JpaRepository<TodoShare, Long> {
+
+    /** Every list shared with a user, with the owners' names - what ShareAcl caches */
+    @Query("select new com.todoApi.sharing.ShareGrant(s.owner.id, s.owner.username, s.permission) " +
+            "from TodoShare s where s.grantee.id = :granteeId")
+    List<ShareGrant> findGrantsTo(@Param("granteeId") Long granteeId);
+
+    /** The users an owner shares with, oldest share first */
+    @EntityGraph(attributePaths = "grantee")
+    List<TodoShare> findByOwner_IdOrderByCreatedAtAsc(Long ownerId);
+
+    Optional<TodoShare> findByOwner_IdAndGrantee_Id(Long ownerId, Long granteeId);
+
+    /** What a grantee may do with an owner's todos right now - bypasses ShareAcl (see ShareAcl.currentPermission) */
+    @Query("select s.permission from TodoShare s where s.owner.id = :ownerId and s.grantee.id = :granteeId")
+    Optional<SharePermission> findPermission(@Param("ownerId") Long ownerId, @Param("granteeId") Long granteeId);
+}
@@ -1,9 +1,17 @@
 package com.todoApi.repository;
 
+import com.todoApi.availability.RegisteredNames;
 import com.todoApi.model.User;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
 /** User repository: Handles database for User entity */
@@ -15,9 +23,41 @@ public interface UserRepository extends JpaRepository<User, Long>{
     /** Find user by email */
     Optional<User> findByEmail(String email);
 
+    /**
+     * Find user by ID and lock its row (FOR UPDATE) until the transaction ends
+     * Taken by everything that writes the user's position keys (create,
+     * move, import, TodoPositionRebalancer): each key is decided from the
+     * other todos' keys, so these queue up on the user instead
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select u from User u where u.id = :id")
+    Optional<User> findForUpdateById(@Param("id") Long id);
+
     /** Check if user with username exists */
     Boolean existsByUsername(String username);
 
     /** Check if user with email exists */
     Boolean existsByEmail(String email);
+
+    /** Usernames and emails of users after an id, in id order - one chunk of the AvailabilityIndex load */
+    @Query("select new com.todoApi.availability.RegisteredNames(u.id, u.username, u.email) " +
+            "from User u where u.id > :afterId order by u.id")
+    List<RegisteredNames> findRegisteredNamesAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    /**
+     * Highest id of the users created before a time (null if none) - how far AvailabilityIndex.sync() may move on
+     * Walks the primary key backwards from the newest user, so it only reads the users created since
+     */
+    @Query("select max(u.id) from User u where u.createdAt < :before")
+    Long findMaxIdCreatedBefore(@Param("before") LocalDateTime before);
+
+    /**
+     * WarmUpRunner's scratch users created before a time - left behind by a
+     * warm-up that never got to its clean-up (the process was killed)
+     * The username prefix is a range on the unique index; the .invalid
+     * email domain keeps real users named "warmup..." out
+     */
+    @Query("select u.id from User u where u.username like 'warmup%' and u.email like '%@warmup.invalid' " +
+            "and u.createdAt < :before")
+    List<Long> findWarmUpUserIdsCreatedBefore(@Param("before") LocalDateTime before);
 }
@@ -0,0 +1,252 @@
+package com.todoApi.resilience;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.PersistenceException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.TransactionException;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.sql.SQLException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * DatabaseBulkhead - Limits how many requests use the database at once,
+ * and stops sending them when the database keeps failing
+ *
+ * Bulkhead: at most app.resilience.bulkhead.max-concurrent requests hold
+ * a permit. A request waits up to app.resilience.bulkhead.max-wait-ms for
+ * one, then is turned away. When the database slows down, only that many
+ * Tomcat threads block on it - the rest stay free to answer (with a
+ * fallback or a fast 503), and endpoints that don't need the database
+ * keep working.
+ *
+ * Circuit breaker: after app.resilience.breaker.failure-threshold
+ * database failures in a row (errors, timeouts) the breaker opens and
+ * requests are turned away without trying. After
+ * app.resilience.breaker.open-seconds one trial request is let through
+ * (half-open): if it succeeds the breaker closes, if not it opens again.
+ * Only the trial's outcome counts then - requests admitted before the
+ * breaker opened that finish later (stragglers) change nothing, and
+ * neither do they while it is open.
+ *
+ *   CLOSED --failures--> OPEN --wait--> HALF_OPEN --success--> CLOSED
+ *                          ^-----------------failure------'
+ *
+ * Metrics: todo.db.bulkhead.rejected, todo.db.breaker.opened,
+ * todo.db.breaker.state (0 closed, 1 open, 2 half-open)
+ */
+@Slf4j
+@Component
+public class DatabaseBulkhead {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    /** Outcome of asking for a permit */
+    public enum Admission {
+        /** Go ahead - call release() when done */
+        ADMITTED,
+        /** Go ahead as the half-open breaker's trial - its release() closes or reopens it */
+        TRIAL,
+        /** Too many requests already using the database */
+        BULKHEAD_FULL,
+        /** The database has been failing - not tried */
+        CIRCUIT_OPEN;
+
+        public boolean admitted() {
+            return this == ADMITTED || this == TRIAL;
+        }
+    }
+
+    private final Semaphore permits;
+    private final long maxWaitMillis;
+    private final int failureThreshold;
+    private final long openMillis;
+    private final LongSupplier clock;
+
+    private final Counter rejected;
+    private final Counter opened;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAt;
+    private boolean trialInFlight;
+
+    @Autowired
+    public DatabaseBulkhead(MeterRegistry meterRegistry,
+            @Value("${app.resilience.bulkhead.max-concurrent:10}") int maxConcurrent,
+            @Value("${app.resilience.bulkhead.max-wait-ms:200}") long maxWaitMillis,
+            @Value("${app.resilience.breaker.failure-threshold:5}") int failureThreshold,
+            @Value("${app.resilience.breaker.open-seconds:10}") long openSeconds) {
+        this(meterRegistry, maxConcurrent, maxWaitMillis, failureThreshold, openSeconds * 1000,
+                System::currentTimeMillis);
+    }
+
+    /** For tests: with a controllable clock */
+    DatabaseBulkhead(MeterRegistry meterRegistry, int maxConcurrent, long maxWaitMillis, int failureThreshold,
+            long openMillis, LongSupplier clock) {
+        this.permits = new Semaphore(maxConcurrent, true);
+        this.maxWaitMillis = maxWaitMillis;
+        this.failureThreshold = failureThreshold;
+        this.openMillis = openMillis;
+        this.clock = clock;
+
+        this.rejected = meterRegistry.counter("todo.db.bulkhead.rejected");
+        this.opened = meterRegistry.counter("todo.db.breaker.opened");
+        meterRegistry.gauge("todo.db.breaker.state", this, bulkhead -> bulkhead.state().ordinal());
+    }
+
+    /**
+     * Ask for a permit to use the database
+     * Waits at most max-wait-ms; every admitted() must be followed by release()
+     */
+    public Admission acquire() throws InterruptedException {
+        Admission admission = admitByBreaker();
+        if (admission == Admission.CIRCUIT_OPEN) {
+            rejected.increment();
+            return admission;
+        }
+        if (!permits.tryAcquire(maxWaitMillis, TimeUnit.MILLISECONDS)) {
+            if (admission == Admission.TRIAL) {
+                abandonTrial();
+            }
+            rejected.increment();
+            return Admission.BULKHEAD_FULL;
+        }
+        return admission;
+    }
+
+    /**
+     * Give the permit back
+     * @param admission       What acquire() returned
+     * @param databaseFailure true if the request failed because of the database
+     */
+    public void release(Admission admission, boolean databaseFailure) {
+        permits.release();
+        boolean trial = admission == Admission.TRIAL;
+        if (databaseFailure) {
+            onFailure(trial);
+        } else {
+            onSuccess(trial);
+        }
+    }
+
+    /**
+     * Run database work under a permit of its own - for requests that
+     * DatabaseBulkheadFilter lets through without one (streamed uploads)
+     *
+     * @throws ResponseStatusException 503 if turned away
+     */
+    public <T> T run(Supplier<T> work) {
+        Admission admission;
+        try {
+            admission = acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            admission = Admission.BULKHEAD_FULL;
+        }
+        if (!admission.admitted()) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+                    admission == Admission.CIRCUIT_OPEN
+                            ? "The database is unavailable, retry later"
+                            : "Too many requests waiting for the database, retry later");
+        }
+
+        boolean databaseFailure = false;
+        try {
+            return work.get();
+        } catch (RuntimeException e) {
+            databaseFailure = isDatabaseFailure(e);
+            throw e;
+        } finally {
+            release(admission, databaseFailure);
+        }
+    }
+
+    /** Did this fail because of the database (not e.g. bad input)? */
+    static boolean isDatabaseFailure(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof DataAccessException || cause instanceof TransactionException
+                    || cause instanceof PersistenceException || cause instanceof SQLException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public synchronized State state() {
+        if (state == State.OPEN && clock.getAsLong() - openedAt >= openMillis) {
+            return State.HALF_OPEN;
+        }
+        return state;
+    }
+
+    /** Seconds until the breaker lets a trial request through (for Retry-After) */
+    public synchronized long retryAfterSeconds() {
+        if (state != State.OPEN) {
+            return 1;
+        }
+        return Math.max(1, (openMillis - (clock.getAsLong() - openedAt) + 999) / 1000);
+    }
+
+    private synchronized Admission admitByBreaker() {
+        if (state == State.OPEN && clock.getAsLong() - openedAt >= openMillis) {
+            state = State.HALF_OPEN;
+            trialInFlight = false;
+        }
+        return switch (state) {
+            case CLOSED -> Admission.ADMITTED;
+            case OPEN -> Admission.CIRCUIT_OPEN;
+            case HALF_OPEN -> {
+                // One trial request at a time
+                if (trialInFlight) {
+                    yield Admission.CIRCUIT_OPEN;
+                }
+                trialInFlight = true;
+                yield Admission.TRIAL;
+            }
+        };
+    }
+
+    /** The trial request never got a permit - let the next request try */
+    private synchronized void abandonTrial() {
+        trialInFlight = false;
+    }
+
+    private synchronized void onSuccess(boolean trial) {
+        if (trial && state == State.HALF_OPEN) {
+            log.info("Database circuit breaker closed");
+            state = State.CLOSED;
+            consecutiveFailures = 0;
+            trialInFlight = false;
+        } else if (state == State.CLOSED) {
+            consecutiveFailures = 0;
+        }
+    }
+
+    private synchronized void onFailure(boolean trial) {
+        if (trial && state == State.HALF_OPEN) {
+            open("its trial request failed");
+        } else if (state == State.CLOSED && ++consecutiveFailures >= failureThreshold) {
+            open(consecutiveFailures + " failures in a row");
+        }
+    }
+
+    private void open(String reason) {
+        log.warn("Database circuit breaker opened: {}", reason);
+        state = State.OPEN;
+        openedAt = clock.getAsLong();
+        trialInFlight = false;
+        opened.increment();
+    }
+}
@@ -0,0 +1,130 @@
+package com.todoApi.resilience;
+
+import com.todoApi.jsoncache.TodoJsonCache;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * DatabaseBulkheadFilter - Puts API requests through the DatabaseBulkhead
+ *
+ * Every /api request (except /api/auth/health, which never touches the
+ * database) needs a bulkhead permit, held for the whole request - JSON
+ * bodies are small. Not POST /api/todos/import: reading an upload of any
+ * size from a client of any speed must not hold a permit, so the import
+ * takes one per batch it writes (DatabaseBulkhead.run). Without one - too many requests
+ * already waiting on the database, or the circuit breaker is open:
+ * - GET /api/todos is answered with the user's last list from
+ *   StaleTodoListCache, marked "X-Stale-Data: true" plus its Age
+ * - everything else fails fast with 503 and a Retry-After header
+ *
+ * A request that fails with a database error (including timeouts, see
+ * spring.transaction.default-timeout) counts towards opening the
+ * breaker; a plain GET /api/todos that fails that way also falls back
+ * to the stale list.
+ *
+ * Runs after Spring Security, so the user is known.
+ */
+@Slf4j
+@Component
+public class DatabaseBulkheadFilter extends OncePerRequestFilter {
+
+    /** Response header on lists served from the stale cache */
+    public static final String STALE_HEADER = "X-Stale-Data";
+
+    private final DatabaseBulkhead bulkhead;
+    private final StaleTodoListCache staleTodoListCache;
+    private final Counter staleServed;
+
+    public DatabaseBulkheadFilter(DatabaseBulkhead bulkhead, StaleTodoListCache staleTodoListCache,
+            MeterRegistry meterRegistry) {
+        this.bulkhead = bulkhead;
+        this.staleTodoListCache = staleTodoListCache;
+        this.staleServed = meterRegistry.counter("todo.db.stale-served");
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        return !path.startsWith("/api/") || path.equals("/api/auth/health") || "OPTIONS".equals(request.getMethod())
+                || ("POST".equals(request.getMethod()) && path.equals("/api/todos/import"));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+            FilterChain filterChain) throws ServletException, IOException {
+        DatabaseBulkhead.Admission admission;
+        try {
+            admission = bulkhead.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            admission = DatabaseBulkhead.Admission.BULKHEAD_FULL;
+        }
+
+        if (!admission.admitted()) {
+            if (!serveStale(request, response)) {
+                response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(bulkhead.retryAfterSeconds()));
+                response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value(),
+                        admission == DatabaseBulkhead.Admission.CIRCUIT_OPEN
+                                ? "The database is unavailable, retry later"
+                                : "Too many requests waiting for the database, retry later");
+            }
+            return;
+        }
+
+        boolean databaseFailure = false;
+        try {
+            filterChain.doFilter(request, response);
+        } catch (ServletException | IOException | RuntimeException e) {
+            databaseFailure = DatabaseBulkhead.isDatabaseFailure(e);
+            if (databaseFailure && !response.isCommitted()) {
+                log.warn("Database failure on {} {}: {}", request.getMethod(), request.getRequestURI(), e.toString());
+                response.resetBuffer();
+                if (serveStale(request, response)) {
+                    return;
+                }
+            }
+            throw e;
+        } finally {
+            bulkhead.release(admission, databaseFailure);
+        }
+    }
+
+    /** Answer a plain GET /api/todos from the user's last list - false if not possible */
+    private boolean serveStale(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        if (!"GET".equals(request.getMethod()) || request.getQueryString() != null
+                || !request.getRequestURI().substring(request.getContextPath().length()).equals("/api/todos")) {
+            return false;
+        }
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !(authentication.getPrincipal() instanceof Long userId)) {
+            return false;
+        }
+        StaleTodoListCache.Snapshot snapshot = staleTodoListCache.get(userId);
+        if (snapshot == null) {
+            return false;
+        }
+
+        response.setStatus(HttpStatus.OK.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setHeader(STALE_HEADER, "true");
+        response.setHeader(HttpHeaders.AGE,
+                Long.toString(Math.max(0, (System.currentTimeMillis() - snapshot.storedAtMillis()) / 1000)));
+        TodoJsonCache.writeArray(snapshot.fragments(), response.getOutputStream());
+        staleServed.increment();
+        return true;
+    }
+}
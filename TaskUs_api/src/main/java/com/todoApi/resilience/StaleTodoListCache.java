@@ -0,0 +1,48 @@
+package com.todoApi.resilience;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * StaleTodoListCache - The last todo list each user was sent
+ *
+ * Every successful GET /api/todos (the plain, unfiltered list) leaves
+ * its JSON fragments here. While the database is unavailable (see
+ * DatabaseBulkheadFilter) that same request is answered from this copy
+ * instead of failing - possibly out of date, and marked as such.
+ *
+ * Cheap to keep: the fragments are the same byte arrays the JSON cache
+ * holds, this map only references them. Bounded to the
+ * app.resilience.stale-cache.max-users most recently active users.
+ */
+@Component
+public class StaleTodoListCache {
+
+    /** A list as it was sent, and when */
+    public record Snapshot(List<byte[]> fragments, long storedAtMillis) {
+    }
+
+    private final Map<Long, Snapshot> lists;
+
+    public StaleTodoListCache(@Value("${app.resilience.stale-cache.max-users:10000}") int maxUsers) {
+        this.lists = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Snapshot> eldest) {
+                return size() > maxUsers;
+            }
+        };
+    }
+
+    public synchronized void put(Long userId, List<byte[]> fragments) {
+        lists.put(userId, new Snapshot(List.copyOf(fragments), System.currentTimeMillis()));
+    }
+
+    /** The user's last list, or null */
+    public synchronized Snapshot get(Long userId) {
+        return lists.get(userId);
+    }
+}
@@ -1,10 +1,12 @@
 package com.todoApi.security;
 
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
@@ -28,13 +30,19 @@ import java.util.ArrayList;
  * 5. If valid, sets the authentication in Spring Security context
  * 6. Request proceeds to controller
  * 
+ * The token is parsed and verified ONCE, and revocation is checked
+ * against the in-memory TokenRevocationList - authenticated requests
+ * never cost a database round trip here.
+ * 
  * OncePerRequestFilter ensures this runs exactly once per request
  */
+@Slf4j
 @Component
 @RequiredArgsConstructor
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtUtil jwtUtil;
+    private final TokenRevocationList revocationList;
 
     /**
      * This method is called for EVERY request to the server
@@ -54,52 +62,52 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         // eyJhbGciOiJIUzI1NiIsInR5cCI6IkpXVCJ9..."
         String authHeader = request.getHeader("Authorization");
 
-        String token = null;
         Long userId = null;
 
         // Step 2: Check if header exists and starts with "Bearer "
         if (authHeader != null && authHeader.startsWith("Bearer ")) {
             // Extract token (everything after "Bearer ")
-            token = authHeader.substring(7);
+            String token = authHeader.substring(7);
 
             try {
-                // Step 3: Extract userId from token
-                userId = jwtUtil.extractUserId(token);
+                // Step 3: Parse the token once - verifies signature and expiration
+                Claims claims = jwtUtil.extractAllClaims(token);
+
+                // Step 4: Only access tokens may call the API, and only if not revoked
+                if (!jwtUtil.isAccessToken(claims)) {
+                    log.debug("Rejected non-access token on {}", request.getRequestURI());
+                } else if (revocationList.isRevoked(claims.getId())) {
+                    log.debug("Rejected revoked token {}", claims.getId());
+                } else {
+                    userId = claims.get("userId", Long.class);
+                }
             } catch (Exception e) {
                 // Token is invalid or expired
                 // Log the error and continue (request will be unauthorized)
-                System.err.println("JWT Token extraction failed: " + e.getMessage());
+                log.debug("JWT token rejected: {}", e.getMessage());
             }
         }
 
-        // Step 4: If we have a valid userId and no authentication is set yet
+        // Step 5: If we have a valid userId and no authentication is set yet
         if (userId != null && SecurityContextHolder.getContext().getAuthentication() == null) {
 
-            // Step 5: Validate the token
-            if (jwtUtil.validateToken(token)) {
-
-                // Step 6: Create authentication object
-                // This tells Spring Security: "This user is authenticated"
-                // We pass userId as the "principal" (the authenticated user)
-                UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
-                        userId, // Principal (the authenticated user)
-                        null, // Credentials (we don't need password here)
-                        new ArrayList<>() // Authorities/Roles (empty for now)
-                );
-
-                // Step 7: Set additional details (like IP address, session ID)
-                authToken.setDetails(
-                        new WebAuthenticationDetailsSource().buildDetails(request));
-
-                // Step 8: Set authentication in Security Context
-                // Now Spring Security knows this request is authenticated!
-                // Controllers can access this to get the userId
-                SecurityContextHolder.getContext().setAuthentication(authToken);
-
-                System.out.println("✓ User authenticated: userId=" + userId);
-            } else {
-                System.err.println("✗ Invalid or expired token");
-            }
+            // Step 6: Create authentication object
+            // This tells Spring Security: "This user is authenticated"
+            // We pass userId as the "principal" (the authenticated user)
+            UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
+                    userId, // Principal (the authenticated user)
+                    null, // Credentials (we don't need password here)
+                    new ArrayList<>() // Authorities/Roles (empty for now)
+            );
+
+            // Step 7: Set additional details (like IP address, session ID)
+            authToken.setDetails(
+                    new WebAuthenticationDetailsSource().buildDetails(request));
+
+            // Step 8: Set authentication in Security Context
+            // Now Spring Security knows this request is authenticated!
+            // Controllers can access this to get the userId
+            SecurityContextHolder.getContext().setAuthentication(authToken);
         }
 
         // Step 9: Continue with the filter chain
@@ -11,6 +11,7 @@ import java.security.Key;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.UUID;
 
 /**
  * JwtUtil - Utility class for JWT token operations
@@ -23,6 +24,11 @@ import java.util.Map;
 @Component
 public class JwtUtil {
 
+    /** Claim that tells access tokens and refresh tokens apart */
+    public static final String TOKEN_TYPE_CLAIM = "type";
+    public static final String ACCESS_TOKEN = "access";
+    public static final String REFRESH_TOKEN = "refresh";
+
     /**
      * Secret key for signing tokens
      * This is loaded from application.properties
@@ -34,13 +40,22 @@ public class JwtUtil {
     private String secret;
 
     /**
-     * Token expiration time in milliseconds
-     * Default: 24 hours (86400000 ms)
-     * After this time, token becomes invalid
+     * Access token expiration time in milliseconds
+     * Default: 15 minutes (900000 ms)
+     * Kept short because access tokens are checked without a DB lookup -
+     * a revoked or stolen token is only useful until it expires
      */
     @Value("${jwt.expiration}")
     private Long expiration;
 
+    /**
+     * Refresh token expiration time in milliseconds
+     * Default: 14 days (1209600000 ms)
+     * Refresh tokens are only accepted by /api/auth/refresh
+     */
+    @Value("${jwt.refresh-expiration:1209600000}")
+    private Long refreshExpiration;
+
     /**
      * Generate a JWT token for a user
      * 
@@ -53,32 +68,50 @@ public class JwtUtil {
      * 
      *         Payload contains:
      *         - sub (subject): userId
+     *         - jti (token id): random id, used for revocation
      *         - username: username
+     *         - type: "access"
      *         - iat (issued at): timestamp
      *         - exp (expiration): timestamp
      */
     public String generateToken(Long userId, String username) {
-        Map<String, Object> claims = new HashMap<>();
-        claims.put("userId", userId);
-        claims.put("username", username);
+        return createToken(userId, username, ACCESS_TOKEN, expiration);
+    }
 
-        return createToken(claims, userId.toString());
+    /**
+     * Generate a long-lived refresh token for a user
+     * Same structure as an access token, but type = "refresh"
+     * 
+     * @param userId   The user's ID to embed in the token
+     * @param username The user's username to embed in the token
+     * @return A signed JWT refresh token string
+     */
+    public String generateRefreshToken(Long userId, String username) {
+        return createToken(userId, username, REFRESH_TOKEN, refreshExpiration);
     }
 
     /**
      * Create the actual JWT token
      * 
-     * @param claims  Custom data to include in the token
-     * @param subject The main subject (userId as string)
+     * @param userId   The main subject
+     * @param username Display name embedded in the token
+     * @param type     "access" or "refresh"
+     * @param lifetime Milliseconds until the token expires
      * @return Signed JWT token
      */
-    private String createToken(Map<String, Object> claims, String subject) {
+    private String createToken(Long userId, String username, String type, long lifetime) {
+        Map<String, Object> claims = new HashMap<>();
+        claims.put("userId", userId);
+        claims.put("username", username);
+        claims.put(TOKEN_TYPE_CLAIM, type);
+
         Date now = new Date();
-        Date expirationDate = new Date(now.getTime() + expiration);
+        Date expirationDate = new Date(now.getTime() + lifetime);
 
         return Jwts.builder()
                 .setClaims(claims) // Add custom data
-                .setSubject(subject) // Set subject (userId)
+                .setId(UUID.randomUUID().toString()) // Unique token id (jti)
+                .setSubject(userId.toString()) // Set subject (userId)
                 .setIssuedAt(now) // Set creation time
                 .setExpiration(expirationDate) // Set expiration time
                 .signWith(getSigningKey(), SignatureAlgorithm.HS256) // Sign with secret
@@ -117,16 +150,42 @@ public class JwtUtil {
         return extractAllClaims(token).getExpiration();
     }
 
+    /**
+     * Check whether already-parsed claims belong to an access token
+     * Tokens issued before the "type" claim existed count as access tokens
+     * 
+     * @param claims Claims from extractAllClaims
+     * @return true if the token may be used to call the API
+     */
+    public boolean isAccessToken(Claims claims) {
+        String type = claims.get(TOKEN_TYPE_CLAIM, String.class);
+        return type == null || ACCESS_TOKEN.equals(type);
+    }
+
+    /**
+     * Check whether already-parsed claims belong to a refresh token
+     * 
+     * @param claims Claims from extractAllClaims
+     * @return true if the token may only be exchanged at /api/auth/refresh
+     */
+    public boolean isRefreshToken(Claims claims) {
+        return REFRESH_TOKEN.equals(claims.get(TOKEN_TYPE_CLAIM, String.class));
+    }
+
     /**
      * Extract all claims (data) from token
      * 
      * This verifies the signature and decodes the payload
-     * If signature is invalid, this will throw an exception
+     * If signature is invalid or the token is expired, this will throw an exception
+     * 
+     * Callers that need several values should parse once with this method
+     * instead of calling extractUserId / validateToken separately
+     * (each of those parses and verifies the token again)
      * 
      * @param token JWT token string
      * @return Claims object containing all token data
      */
-    private Claims extractAllClaims(String token) {
+    public Claims extractAllClaims(String token) {
         // Use the parser() entrypoint available in the project's JJWT API
         // and pass the `Key` to `setSigningKey` for verification.
         return Jwts.parser()
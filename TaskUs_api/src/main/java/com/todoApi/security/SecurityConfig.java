@@ -53,6 +53,7 @@ public class SecurityConfig {
                                                 .requestMatchers(
                                                                 "/api/auth/**",
                                                                 "/h2-console/**",
+                                                                "/actuator/health/**",
                                                                 "/error")
                                                 .permitAll()
                                                 .anyRequest().authenticated())
@@ -84,7 +85,7 @@ public class SecurityConfig {
 
                 configuration.setAllowedMethods(Arrays.asList("GET", "POST", "PUT", "PATCH", "DELETE", "OPTIONS"));
                 configuration.setAllowedHeaders(Arrays.asList("*"));
-                configuration.setExposedHeaders(Arrays.asList("Authorization"));
+                configuration.setExposedHeaders(Arrays.asList("Authorization", "Idempotency-Replayed", "X-Has-More", "ETag", "X-Stale-Data", "Age"));
                 configuration.setAllowCredentials(true);
                 configuration.setMaxAge(3600L);
 
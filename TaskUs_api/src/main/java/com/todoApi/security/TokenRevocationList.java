@@ -0,0 +1,169 @@
+package com.todoApi.security;
+
+import com.todoApi.model.RevokedToken;
+import com.todoApi.repository.RevokedTokenRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * TokenRevocationList - In-memory denylist of access token ids (jti)
+ *
+ * JwtAuthenticationFilter checks every request against this map:
+ * one hash lookup, no database round trip.
+ *
+ * The map stays small because access tokens are short-lived:
+ * an entry is only needed until the token would expire anyway,
+ * so expired entries are pruned on a schedule. Refresh tokens live for
+ * weeks and are only checked at /api/auth/refresh, so they never enter
+ * the map - see consume().
+ *
+ * Durability / multiple instances:
+ * - revoke() writes a row to revoked_tokens, and puts the token in the
+ *   map once that row commits (a failed or rolled back insert leaves
+ *   nothing behind)
+ * - On startup the map is loaded from that table - as the first
+ *   ApplicationRunner, after the context refresh: the CDS training run
+ *   (Dockerfile.fast-startup) exits on refresh and has no database.
+ *   Readiness is only reported once the runners are done.
+ * - Every few seconds rows revoked elsewhere are pulled in
+ *
+ * Single use: consume() tells whether THIS call used up the refresh
+ * token. The primary key of revoked_tokens decides, between threads and
+ * between instances - a refresh token can therefore be exchanged only
+ * once, even by two concurrent requests, and not after a logout.
+ *
+ * Sync reads back jwt.revocation.sync-overlap-ms before the newest
+ * revokedAt it has seen: a row can commit some time after its revokedAt
+ * was taken (its transaction was still running), and rows are re-read
+ * harmlessly. revokedAt is the database's clock, shared by all instances.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class TokenRevocationList implements ApplicationRunner {
+
+    private final RevokedTokenRepository revokedTokenRepository;
+    private final Duration syncOverlap;
+
+    /** jti -> expiry (epoch millis) */
+    private final Map<String, Long> revoked = new ConcurrentHashMap<>();
+
+    /** Newest revokedAt seen by sync() (the next sync reads from a little before it) */
+    private volatile LocalDateTime lastSync = LocalDateTime.now();
+
+    public TokenRevocationList(RevokedTokenRepository revokedTokenRepository,
+            @Value("${jwt.revocation.sync-overlap-ms:30000}") long syncOverlapMillis) {
+        this.revokedTokenRepository = revokedTokenRepository;
+        this.syncOverlap = Duration.ofMillis(syncOverlapMillis);
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        load();
+    }
+
+    /** Load access tokens that are revoked and not yet expired */
+    void load() {
+        lastSync = LocalDateTime.now();
+        remember(revokedTokenRepository.findByExpiresAtAfterAndRefreshTokenFalse(lastSync));
+    }
+
+    /**
+     * Is this access token id on the denylist?
+     * Tokens without a jti (issued before revocation existed) are never revoked
+     */
+    public boolean isRevoked(String tokenId) {
+        return tokenId != null && revoked.containsKey(tokenId);
+    }
+
+    /**
+     * Deny an access token from now on (once the current transaction commits)
+     *
+     * @param tokenId   The token's jti claim
+     * @param userId    Owner of the token
+     * @param expiresAt The token's exp claim
+     */
+    public void revoke(String tokenId, Long userId, Date expiresAt) {
+        if (tokenId == null) {
+            return;
+        }
+        revokedTokenRepository.insertIfAbsent(tokenId, userId, false,
+                LocalDateTime.ofInstant(expiresAt.toInstant(), ZoneId.systemDefault()));
+        afterCommit(() -> revoked.put(tokenId, expiresAt.getTime()));
+    }
+
+    /**
+     * Use up a refresh token: exchanging it, or logging out with it
+     *
+     * @param tokenId   The token's jti claim
+     * @param userId    Owner of the token
+     * @param expiresAt The token's exp claim
+     * @return true if this call used the token up, false if it already was
+     *         (here or on another instance) or has no jti
+     */
+    public boolean consume(String tokenId, Long userId, Date expiresAt) {
+        if (tokenId == null) {
+            return false;
+        }
+        // Blocks on a concurrent insert of the same jti, and gets 0 rows once that commits
+        return revokedTokenRepository.insertIfAbsent(tokenId, userId, true,
+                LocalDateTime.ofInstant(expiresAt.toInstant(), ZoneId.systemDefault())) == 1;
+    }
+
+    /** Pull in tokens revoked by other instances */
+    @Scheduled(fixedDelayString = "${jwt.revocation.sync-interval-ms:5000}")
+    public void sync() {
+        LocalDateTime newest = lastSync;
+        List<RevokedToken> recent = revokedTokenRepository.findByRevokedAtAfterAndRefreshTokenFalse(
+                newest.minus(syncOverlap));
+        remember(recent);
+        for (RevokedToken row : recent) {
+            if (row.getRevokedAt().isAfter(newest)) {
+                newest = row.getRevokedAt();
+            }
+        }
+        lastSync = newest;
+    }
+
+    /** Forget tokens that have expired on their own */
+    @Scheduled(fixedDelayString = "${jwt.revocation.prune-interval-ms:300000}")
+    public void prune() {
+        long now = System.currentTimeMillis();
+        revoked.values().removeIf(expiresAt -> expiresAt < now);
+        revokedTokenRepository.deleteExpired(LocalDateTime.now());
+    }
+
+    private void remember(List<RevokedToken> rows) {
+        for (RevokedToken row : rows) {
+            long expiresAt = row.getExpiresAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+            revoked.put(row.getTokenId(), expiresAt);
+        }
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
@@ -1,15 +1,24 @@
 package com.todoApi.service;
 
+import com.todoApi.availability.AvailabilityIndex;
 import com.todoApi.dto.AuthResponse;
+import com.todoApi.dto.AvailabilityResponse;
 import com.todoApi.dto.LoginRequest;
 import com.todoApi.dto.RegisterRequest;
 import com.todoApi.model.User;
 import com.todoApi.repository.UserRepository;
 import com.todoApi.security.JwtUtil;
+import com.todoApi.security.TokenRevocationList;
+import io.jsonwebtoken.Claims;
 import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.Locale;
 
 /**
  * AuthService - Handles user registration and authentication
@@ -18,6 +27,7 @@ import org.springframework.transaction.annotation.Transactional;
  * - Register new users (with password hashing)
  * - Authenticate users during login
  * - Generate JWT tokens for authenticated users
+ * - Rotate refresh tokens and revoke tokens on logout
  */
 @Service
 @RequiredArgsConstructor
@@ -26,6 +36,8 @@ public class AuthService {
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
     private final JwtUtil jwtUtil;
+    private final TokenRevocationList revocationList;
+    private final AvailabilityIndex availabilityIndex;
 
     /**
      * Register a new user
@@ -33,6 +45,7 @@ public class AuthService {
      * Business Logic:
      * 1. Check if username already exists
      * 2. Check if email already exists
+     *    (AvailabilityIndex - the database is asked only if the name may be taken)
      * 3. Hash the password (NEVER store plain text!)
      * 4. Create and save the user
      * 5. Generate JWT token
@@ -45,12 +58,12 @@ public class AuthService {
     @Transactional
     public AuthResponse register(RegisterRequest request) {
         // Step 1: Validate username is available
-        if (userRepository.existsByUsername(request.getUsername())) {
+        if (availabilityIndex.isUsernameTaken(request.getUsername())) {
             throw new RuntimeException("Username already exists: " + request.getUsername());
         }
 
         // Step 2: Validate email is available
-        if (userRepository.existsByEmail(request.getEmail())) {
+        if (availabilityIndex.isEmailTaken(request.getEmail())) {
             throw new RuntimeException("Email already exists: " + request.getEmail());
         }
 
@@ -67,17 +80,41 @@ public class AuthService {
 
         // Step 5: Save user to database
         // createdAt is automatically set by @CreationTimestamp
-        user = userRepository.save(user);
+        // The checks above can race with another registration (or miss one made
+        // on another instance): the unique constraints have the last word
+        try {
+            user = userRepository.saveAndFlush(user);
+        } catch (DataIntegrityViolationException e) {
+            String violation = String.valueOf(e.getMostSpecificCause().getMessage()).toLowerCase(Locale.ROOT);
+            throw new RuntimeException(violation.contains("email")
+                    ? "Email already exists: " + request.getEmail()
+                    : "Username already exists: " + request.getUsername());
+        }
+        availabilityIndex.registered(user.getUsername(), user.getEmail());
 
-        // Step 6: Generate JWT token for immediate login
-        String token = jwtUtil.generateToken(user.getId(), user.getUsername());
+        // Step 6 + 7: Generate tokens for immediate login and return them with user info
+        return issueTokens(user);
+    }
 
-        // Step 7: Return response with token and user info
-        return new AuthResponse(
-                token,
-                user.getId(),
-                user.getUsername(),
-                user.getEmail());
+    /**
+     * Are a username and/or an email still free to register?
+     * Free names are usually answered from AvailabilityIndex alone.
+     *
+     * @param username Username to check (optional)
+     * @param email    Email to check (optional)
+     * @return Availability of the names that were given
+     */
+    @Transactional(readOnly = true)
+    public AvailabilityResponse checkAvailability(String username, String email) {
+        boolean checkUsername = username != null && !username.isBlank();
+        boolean checkEmail = email != null && !email.isBlank();
+        if (!checkUsername && !checkEmail) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Give a username and/or an email to check");
+        }
+
+        return new AvailabilityResponse(
+                checkUsername ? !availabilityIndex.isUsernameTaken(username) : null,
+                checkEmail ? !availabilityIndex.isEmailTaken(email) : null);
     }
 
     /**
@@ -105,17 +142,101 @@ public class AuthService {
             throw new RuntimeException("Invalid email or password");
         }
 
-        // Step 3: Generate JWT token
+        // Step 3 + 4: Generate tokens and return response
+        return issueTokens(user);
+    }
+
+    /**
+     * Exchange a refresh token for a new access + refresh token pair
+     * 
+     * Business Logic:
+     * 1. Verify the token (signature, expiry, type = refresh)
+     * 2. Consume it - every refresh token can be used exactly once (rotation),
+     *    so a stolen-and-replayed refresh token is detected; one revoked
+     *    by a logout or already used is rejected
+     * 3. Issue a new pair
+     * 
+     * @param refreshToken Refresh token from a previous login/refresh
+     * @return AuthResponse with new tokens
+     * @throws ResponseStatusException 401 if the token is invalid, expired or revoked
+     */
+    @Transactional
+    public AuthResponse refresh(String refreshToken) {
+        Claims claims = parseRefreshToken(refreshToken);
+
+        Long userId = claims.get("userId", Long.class);
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Invalid refresh token"));
+
+        // Consuming the token is atomic: of two requests racing with the same token, one gets 401
+        if (!revocationList.consume(claims.getId(), userId, claims.getExpiration())) {
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Invalid refresh token");
+        }
+
+        return issueTokens(user);
+    }
+
+    /**
+     * Log out: revoke the access token and (optionally) the refresh token
+     * The refresh token stops working at once, the access token on every
+     * instance's next sync
+     * 
+     * @param accessToken  Access token from the Authorization header
+     * @param refreshToken Refresh token from the request body (may be null)
+     */
+    @Transactional
+    public void logout(String accessToken, String refreshToken) {
+        if (accessToken != null) {
+            revokeQuietly(accessToken);
+        }
+        if (refreshToken != null) {
+            revokeQuietly(refreshToken);
+        }
+    }
+
+    /** Generate an access + refresh token pair for the user */
+    private AuthResponse issueTokens(User user) {
         String token = jwtUtil.generateToken(user.getId(), user.getUsername());
+        String refreshToken = jwtUtil.generateRefreshToken(user.getId(), user.getUsername());
 
-        // Step 4: Return response
         return new AuthResponse(
                 token,
+                refreshToken,
                 user.getId(),
                 user.getUsername(),
                 user.getEmail());
     }
 
+    /** Parse and check a refresh token, 401 on any problem */
+    private Claims parseRefreshToken(String refreshToken) {
+        Claims claims;
+        try {
+            claims = jwtUtil.extractAllClaims(refreshToken);
+        } catch (Exception e) {
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Invalid refresh token");
+        }
+        if (!jwtUtil.isRefreshToken(claims)) {
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Invalid refresh token");
+        }
+        return claims;
+    }
+
+    /** Revoke a token if it parses; invalid or expired tokens need no revocation */
+    private void revokeQuietly(String token) {
+        Claims claims;
+        try {
+            claims = jwtUtil.extractAllClaims(token);
+        } catch (Exception e) {
+            return;
+        }
+        Long userId = claims.get("userId", Long.class);
+        if (jwtUtil.isRefreshToken(claims)) {
+            revocationList.consume(claims.getId(), userId, claims.getExpiration());
+        } else {
+            revocationList.revoke(claims.getId(), userId, claims.getExpiration());
+        }
+    }
+
     /**
      * Validate if a token is still valid
      * 
@@ -0,0 +1,92 @@
+package com.todoApi.service;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * CsvRecordReader - Minimal streaming RFC 4180 reader
+ *
+ * Reads one record at a time from a Reader, so memory use depends on
+ * the longest record, not on the size of the file.
+ * Supports quoted fields with commas, newlines and "" escapes.
+ */
+class CsvRecordReader {
+
+    /** Guard against a missing closing quote swallowing the whole upload */
+    private static final int MAX_RECORD_CHARS = 64 * 1024;
+
+    private final Reader reader;
+    private int pushedBack = -1;
+
+    CsvRecordReader(Reader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * Read the next record
+     *
+     * @return The fields of the record, or null at end of input
+     * @throws IOException if the input can't be read or a record is too long
+     */
+    List<String> readRecord() throws IOException {
+        int c = read();
+        if (c == -1) {
+            return null;
+        }
+
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean inQuotes = false;
+        int length = 0;
+
+        while (c != -1) {
+            if (++length > MAX_RECORD_CHARS) {
+                throw new IOException("CSV record longer than " + MAX_RECORD_CHARS + " characters");
+            }
+
+            if (inQuotes) {
+                if (c == '"') {
+                    int peek = read();
+                    if (peek == '"') {
+                        field.append('"');
+                    } else {
+                        inQuotes = false;
+                        pushedBack = peek;
+                    }
+                } else {
+                    field.append((char) c);
+                }
+            } else if (c == '"') {
+                inQuotes = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\r' || c == '\n') {
+                if (c == '\r') {
+                    int peek = read();
+                    if (peek != '\n') {
+                        pushedBack = peek;
+                    }
+                }
+                break;
+            } else {
+                field.append((char) c);
+            }
+            c = read();
+        }
+
+        fields.add(field.toString());
+        return fields;
+    }
+
+    private int read() throws IOException {
+        if (pushedBack != -1) {
+            int c = pushedBack;
+            pushedBack = -1;
+            return c;
+        }
+        return reader.read();
+    }
+}
@@ -0,0 +1,199 @@
+package com.todoApi.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * IdempotencyStore - Replays responses for retried requests
+ *
+ * Clients send "Idempotency-Key: <random id>" with a mutating request.
+ * The first request with a key runs normally and its response is kept
+ * in memory; a retry with the same key (same user) gets that stored
+ * response back without touching the database.
+ *
+ * Concurrent duplicates: the second request waits for the first one's
+ * in-flight result instead of running the action a second time.
+ *
+ * Bounds:
+ * - At most app.idempotency.max-entries stored responses (oldest evicted first)
+ * - Each stored response expires after app.idempotency.ttl-seconds
+ * - At most app.idempotency.max-in-flight running requests; these are
+ *   kept apart and never evicted - dropping one would let its retry run
+ *   the action a second time - so a request over the bound gets 503
+ *
+ * Failed actions (exceptions) are NOT stored - the client may retry.
+ * Entries live in this JVM only; retries that land on another
+ * instance will execute again.
+ */
+@Component
+public class IdempotencyStore {
+
+    /** Response header set on replayed responses */
+    public static final String REPLAYED_HEADER = "Idempotency-Replayed";
+
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private final int maxEntries;
+    private final int maxInFlight;
+    private final long ttlMillis;
+    private final long waitTimeoutMillis;
+
+    /** Stored responses; insertion order = age order, so the eldest entry is the one to evict */
+    private final Map<String, Entry> entries;
+    /** Requests still running, by scoped key */
+    private final Map<String, Entry> inFlight = new HashMap<>();
+
+    public IdempotencyStore(
+            @Value("${app.idempotency.max-entries:10000}") int maxEntries,
+            @Value("${app.idempotency.max-in-flight:1000}") int maxInFlight,
+            @Value("${app.idempotency.ttl-seconds:86400}") long ttlSeconds,
+            @Value("${app.idempotency.wait-timeout-ms:10000}") long waitTimeoutMillis) {
+        this.maxEntries = maxEntries;
+        this.maxInFlight = maxInFlight;
+        this.ttlMillis = TimeUnit.SECONDS.toMillis(ttlSeconds);
+        this.waitTimeoutMillis = waitTimeoutMillis;
+        this.entries = new LinkedHashMap<>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > IdempotencyStore.this.maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Run an action at most once per (user, key)
+     *
+     * @param userId      Authenticated user - keys are scoped per user
+     * @param key         Value of the Idempotency-Key header (null = no idempotency)
+     * @param fingerprint Identifies the operation, e.g. "PATCH /api/todos/5/toggle"
+     * @param action      The real work
+     * @return The action's response, or the stored one for a retry
+     * @throws ResponseStatusException 409 if the key was used for a different operation,
+     *                                 503 if too many requests with a key are running
+     */
+    public <T> ResponseEntity<T> execute(Long userId, String key, String fingerprint,
+            Supplier<ResponseEntity<T>> action) {
+        if (key == null || key.isBlank()) {
+            return action.get();
+        }
+        if (key.length() > MAX_KEY_LENGTH) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Idempotency-Key is too long");
+        }
+
+        String scopedKey = userId + ":" + key;
+        Entry mine = new Entry(fingerprint, new CompletableFuture<>());
+        Entry existing;
+
+        synchronized (this) {
+            existing = inFlight.get(scopedKey);
+            if (existing == null) {
+                existing = entries.get(scopedKey);
+                if (existing != null && existing.isExpired(System.currentTimeMillis())) {
+                    entries.remove(scopedKey);
+                    existing = null;
+                }
+            }
+            if (existing == null) {
+                if (inFlight.size() >= maxInFlight) {
+                    throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+                            "Too many requests with an Idempotency-Key in progress, retry later");
+                }
+                inFlight.put(scopedKey, mine);
+            }
+        }
+
+        if (existing != null) {
+            if (!existing.fingerprint.equals(fingerprint)) {
+                throw new ResponseStatusException(HttpStatus.CONFLICT,
+                        "Idempotency-Key was already used for a different request");
+            }
+            return replay(existing);
+        }
+
+        try {
+            ResponseEntity<T> response = action.get();
+            synchronized (this) {
+                inFlight.remove(scopedKey);
+                mine.expiresAt = System.currentTimeMillis() + ttlMillis;
+                entries.put(scopedKey, mine);
+            }
+            mine.response.complete(response);
+            return response;
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                inFlight.remove(scopedKey);
+            }
+            mine.response.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    /** Wait for (or reuse) the first execution's response */
+    @SuppressWarnings("unchecked")
+    private <T> ResponseEntity<T> replay(Entry entry) {
+        ResponseEntity<T> stored;
+        try {
+            stored = (ResponseEntity<T>) entry.response.get(waitTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT,
+                    "A request with this Idempotency-Key is still being processed");
+        } catch (ExecutionException e) {
+            // The first attempt failed - surface the same error
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for idempotent request", e);
+        }
+
+        return ResponseEntity.status(stored.getStatusCode())
+                .headers(stored.getHeaders())
+                .header(REPLAYED_HEADER, "true")
+                .body(stored.getBody());
+    }
+
+    /** Drop expired responses so memory is returned before the size bound kicks in */
+    @Scheduled(fixedDelayString = "${app.idempotency.cleanup-interval-ms:60000}")
+    public synchronized void evictExpired() {
+        long now = System.currentTimeMillis();
+        Iterator<Entry> it = entries.values().iterator();
+        while (it.hasNext()) {
+            if (it.next().isExpired(now)) {
+                it.remove();
+            }
+        }
+    }
+
+    /** Stored (or in-flight) response for one key */
+    private static final class Entry {
+        private final String fingerprint;
+        private final CompletableFuture<ResponseEntity<?>> response;
+        /** Set once the response is stored */
+        private long expiresAt;
+
+        private Entry(String fingerprint, CompletableFuture<ResponseEntity<?>> response) {
+            this.fingerprint = fingerprint;
+            this.response = response;
+        }
+
+        private boolean isExpired(long now) {
+            return now >= expiresAt;
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.todoApi.service;
+
+/**
+ * PositionKeys - Fractional (lexicographic) keys for manual todo ordering
+ *
+ * Todos are listed ORDER BY position, where position is a string of
+ * base-36 digits (0-9, a-z). Because there is always room between two
+ * such strings, moving a todo only rewrites THAT todo's key:
+ *
+ *   A = "00001i", B = "00002i"  ->  between(A, B) = "00001r"
+ *
+ * Rules that keep this working:
+ * - Keys never end in '0' (nothing fits between "x" and "x0")
+ * - Only lowercase digits/letters, which sort the same in every
+ *   common database collation
+ *
+ * Keys grow by about one character per five inserts into the same gap;
+ * TodoPositionRebalancer rewrites a user's keys once they get too long.
+ */
+public final class PositionKeys {
+
+    private static final int BASE = 36;
+
+    /** Width of the "integer" part used by first/after/nth */
+    private static final int HEAD_WIDTH = 5;
+
+    private static final long HEAD_LIMIT = (long) Math.pow(BASE, HEAD_WIDTH);
+
+    private PositionKeys() {
+    }
+
+    /** Key for the first todo of an empty list */
+    public static String first() {
+        return nth(0);
+    }
+
+    /**
+     * The i-th key of an evenly spaced sequence (used when rebalancing)
+     * nth(0) = "00001i", nth(1) = "00002i", ...
+     */
+    public static String nth(long i) {
+        return head(i + 1);
+    }
+
+    /** A key greater than the given one (append at the end) */
+    public static String after(String key) {
+        long next = parseHead(key) + 1;
+        return next < HEAD_LIMIT ? head(next) : between(key, null);
+    }
+
+    /** A key smaller than the given one (insert at the top) */
+    public static String before(String key) {
+        long previous = parseHead(key) - 1;
+        return previous > 0 ? head(previous) : between(null, key);
+    }
+
+    /**
+     * A key strictly between two keys
+     *
+     * @param lower Lower bound, or null for "no lower bound"
+     * @param upper Upper bound, or null for "no upper bound"
+     * @return A key k with lower < k < upper
+     * @throws IllegalArgumentException if lower >= upper
+     */
+    public static String between(String lower, String upper) {
+        String a = lower == null ? "" : lower;
+        String b = upper;
+        if (b != null && a.compareTo(b) >= 0) {
+            throw new IllegalArgumentException("Position keys out of order: " + lower + " >= " + upper);
+        }
+
+        StringBuilder key = new StringBuilder();
+        for (int i = 0; ; i++) {
+            int low = i < a.length() ? digit(a.charAt(i)) : 0;
+            int high = b != null && i < b.length() ? digit(b.charAt(i)) : BASE;
+
+            if (low == high) {
+                // Shared prefix - keep it and look at the next digit
+                key.append(toChar(low));
+                continue;
+            }
+
+            int mid = (low + high) / 2;
+            if (mid > low) {
+                return key.append(toChar(mid)).toString();
+            }
+
+            // Adjacent digits: keep the lower one, anything after it is below the upper bound
+            key.append(toChar(low));
+            b = null;
+        }
+    }
+
+    /** First HEAD_WIDTH digits as a number (right-padded with zeros) */
+    private static long parseHead(String key) {
+        long value = 0;
+        for (int i = 0; i < HEAD_WIDTH; i++) {
+            value = value * BASE + (i < key.length() ? digit(key.charAt(i)) : 0);
+        }
+        return value;
+    }
+
+    /** HEAD_WIDTH digits + "i" (the suffix keeps the key from ending in '0') */
+    private static String head(long value) {
+        char[] digits = new char[HEAD_WIDTH];
+        for (int i = HEAD_WIDTH - 1; i >= 0; i--) {
+            digits[i] = toChar((int) (value % BASE));
+            value /= BASE;
+        }
+        return new String(digits) + "i";
+    }
+
+    private static int digit(char c) {
+        int d = Character.digit(c, BASE);
+        if (d < 0 || Character.isUpperCase(c)) {
+            throw new IllegalArgumentException("Invalid position key character: " + c);
+        }
+        return d;
+    }
+
+    private static char toChar(int digit) {
+        return Character.forDigit(digit, BASE);
+    }
+}
@@ -0,0 +1,97 @@
+package com.todoApi.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/**
+ * StatsBackfillJob - Rebuilds the daily stats rollup from the todos table
+ *
+ * Needed once after the rollup is introduced (todos created before that
+ * were never counted), and safe to re-run: each user's rows are deleted
+ * and recomputed in one short transaction, users one at a time.
+ *
+ * Enable with app.stats.backfill=true - it starts in the background
+ * when the application is ready, then turn the flag off again.
+ * (Not with app.storage=embedded: it aggregates the todos table in SQL.)
+ *
+ * Notes:
+ * - Completed todos from before completedAt existed get their
+ *   updatedAt as completion time (the best information available)
+ * - Deleted todos are gone from the table, so a rebuilt history only
+ *   covers the todos that still exist
+ * - A todo change committed while its user is being rebuilt can be
+ *   counted twice or not at all: run it at a quiet time
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.stats.backfill", havingValue = "true")
+@ConditionalOnProperty(name = "app.storage", havingValue = "jpa", matchIfMissing = true)
+public class StatsBackfillJob {
+
+    private static final String FILL_COMPLETED_AT =
+            "update todos set completed_at = updated_at where user_id = ? and completed = true and completed_at is null";
+
+    private static final String DELETE_USER_STATS = "delete from todo_daily_stats where user_id = ?";
+
+    private static final String INSERT_USER_STATS =
+            "insert into todo_daily_stats (user_id, stat_date, created_count, completed_count) " +
+            "select ?, d, sum(c), sum(k) from (" +
+            "select cast(created_at as date) d, 1 c, 0 k from todos where user_id = ? " +
+            "union all " +
+            "select cast(completed_at as date) d, 0 c, 1 k from todos where user_id = ? and completed = true" +
+            ") x group by d";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int userBatchSize;
+
+    public StatsBackfillJob(JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            @Value("${app.stats.backfill-user-batch-size:500}") int userBatchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.userBatchSize = userBatchSize;
+    }
+
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        long started = System.nanoTime();
+        long users = 0;
+        long lastUserId = 0;
+
+        List<Long> batch;
+        do {
+            batch = jdbcTemplate.queryForList(
+                    "select id from users where id > ? order by id limit ?", Long.class, lastUserId, userBatchSize);
+            for (Long userId : batch) {
+                rebuildUser(userId);
+                users++;
+            }
+            if (!batch.isEmpty()) {
+                lastUserId = batch.get(batch.size() - 1);
+                log.info("Stats backfill: {} users rebuilt", users);
+            }
+        } while (batch.size() == userBatchSize);
+
+        log.info("Stats backfill finished: {} users in {} ms", users, (System.nanoTime() - started) / 1_000_000);
+    }
+
+    private void rebuildUser(Long userId) {
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.update(FILL_COMPLETED_AT, userId);
+            jdbcTemplate.update(DELETE_USER_STATS, userId);
+            jdbcTemplate.update(INSERT_USER_STATS, userId, userId, userId);
+        });
+    }
+}
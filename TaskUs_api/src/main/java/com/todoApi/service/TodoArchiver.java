@@ -0,0 +1,155 @@
+package com.todoApi.service;
+
+import com.todoApi.model.Todo;
+import com.todoApi.model.TodoEventType;
+import com.todoApi.outbox.TodoEventPublisher;
+import com.todoApi.reminder.ReminderScheduler;
+import com.todoApi.repository.ArchivedTodoRepository;
+import com.todoApi.repository.TodoRepository;
+import com.todoApi.tags.TagIndex;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * TodoArchiver - Moves old completed todos into the archive
+ *
+ * Completed todos are rarely looked at again, but left in the todos
+ * table they grow every index the list queries walk. Each run moves
+ * the ones completed more than app.archive.after-days ago to
+ * archived_todos (see ArchivedTodo), chunk by chunk:
+ * 1. SELECT ... FOR UPDATE SKIP LOCKED, next chunk by id     (locks the rows)
+ * 2. INSERT INTO archived_todos SELECT ... WHERE id IN (...)
+ * 3. INSERT INTO archived_todo_tags / archived_todo_items SELECT ... WHERE todo_id IN (...)
+ * 4. DELETE the tag rows and the todos (their items cascade)
+ * each chunk in its own short transaction.
+ *
+ * Low priority: rows a user is editing right now are skipped (not
+ * waited for), the job sleeps app.archive.pause-ms between chunks and
+ * stops after app.archive.max-chunks-per-run, leaving the rest for the
+ * next run - a backlog is worked off gradually instead of in one
+ * burst of writes.
+ *
+ * Enabled with app.archive.enabled=true; never with app.storage=embedded
+ * (the copies are SQL on the todos table).
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.archive.enabled", havingValue = "true")
+@ConditionalOnProperty(name = "app.storage", havingValue = "jpa", matchIfMissing = true)
+public class TodoArchiver {
+
+    private final TodoRepository todoRepository;
+    private final ArchivedTodoRepository archivedTodoRepository;
+    private final TodoEventPublisher eventPublisher;
+    private final TagIndex tagIndex;
+    private final ReminderScheduler reminderScheduler;
+    private final TransactionTemplate transactionTemplate;
+    private final Counter archived;
+
+    private final int afterDays;
+    private final int chunkSize;
+    private final int maxChunksPerRun;
+    private final long pauseMillis;
+
+    public TodoArchiver(TodoRepository todoRepository,
+            ArchivedTodoRepository archivedTodoRepository,
+            TodoEventPublisher eventPublisher,
+            TagIndex tagIndex,
+            ReminderScheduler reminderScheduler,
+            PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry,
+            @Value("${app.archive.after-days:90}") int afterDays,
+            @Value("${app.archive.chunk-size:500}") int chunkSize,
+            @Value("${app.archive.max-chunks-per-run:100}") int maxChunksPerRun,
+            @Value("${app.archive.pause-ms:200}") long pauseMillis) {
+        this.todoRepository = todoRepository;
+        this.archivedTodoRepository = archivedTodoRepository;
+        this.eventPublisher = eventPublisher;
+        this.tagIndex = tagIndex;
+        this.reminderScheduler = reminderScheduler;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.archived = meterRegistry.counter("todo.archive.moved");
+        this.afterDays = afterDays;
+        this.chunkSize = chunkSize;
+        this.maxChunksPerRun = maxChunksPerRun;
+        this.pauseMillis = pauseMillis;
+    }
+
+    /** Result of one chunk: how many todos were moved and the last id looked at */
+    private record Chunk(int moved, long lastId) {
+    }
+
+    @Scheduled(fixedDelayString = "${app.archive.interval-ms:3600000}",
+            initialDelayString = "${app.archive.initial-delay-ms:60000}")
+    public void archive() {
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(afterDays);
+        long afterId = 0;
+        long moved = 0;
+
+        for (int chunks = 0; chunks < maxChunksPerRun; chunks++) {
+            long from = afterId;
+            Chunk chunk = transactionTemplate.execute(status -> archiveChunk(cutoff, from));
+            moved += chunk.moved();
+            if (chunk.moved() < chunkSize) {
+                break;
+            }
+            afterId = chunk.lastId();
+
+            try {
+                Thread.sleep(pauseMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+
+        if (moved > 0) {
+            log.info("Archived {} todos completed before {}", moved, cutoff);
+        }
+    }
+
+    /** Move one chunk - must run inside a transaction */
+    private Chunk archiveChunk(LocalDateTime cutoff, long afterId) {
+        List<Todo> todos = todoRepository.findArchivable(cutoff, afterId, PageRequest.of(0, chunkSize));
+        if (todos.isEmpty()) {
+            return new Chunk(0, afterId);
+        }
+        List<Long> ids = todos.stream().map(Todo::getId).toList();
+
+        archivedTodoRepository.copyFromTodos(ids, LocalDateTime.now());
+        archivedTodoRepository.copyTagsFromTodos(ids);
+        // The todos' own item rows go with them (ON DELETE CASCADE)
+        archivedTodoRepository.copyItemsFromTodos(ids);
+        todoRepository.deleteTagsByTodoIds(ids);
+        todoRepository.deleteAllByIdInBatch(ids);
+
+        // getUser().getId() reads the id off the lazy proxy, no user is loaded
+        Map<Long, List<Long>> idsByUser = todos.stream().collect(Collectors.groupingBy(
+                todo -> todo.getUser().getId(), Collectors.mapping(Todo::getId, Collectors.toList())));
+        idsByUser.forEach((userId, userTodoIds) -> {
+            eventPublisher.publishBulk(TodoEventType.TODOS_ARCHIVED, userId, Map.of("ids", userTodoIds));
+            tagIndex.invalidate(userId);
+        });
+        for (Todo todo : todos) {
+            if (todo.getRemindAt() != null) {
+                reminderScheduler.todoDeleted(todo.getId());
+            }
+        }
+
+        archived.increment(ids.size());
+        return new Chunk(ids.size(), ids.get(ids.size() - 1));
+    }
+}
@@ -0,0 +1,412 @@
+package com.todoApi.service;
+
+import com.todoApi.dto.ImportSummary;
+import com.todoApi.model.Todo;
+import com.todoApi.model.TodoEventType;
+import com.todoApi.model.User;
+import com.todoApi.outbox.TodoEventPublisher;
+import com.todoApi.repository.TodoRepository;
+import com.todoApi.repository.UserRepository;
+import com.todoApi.resilience.DatabaseBulkhead;
+import com.todoApi.tags.TagFilter;
+import com.todoApi.tags.TagIndex;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * TodoImportService - Streams a large upload into the todos table
+ *
+ * Supported formats:
+ * - NDJSON: one JSON object per line
+ *   {"title": "Buy milk", "description": "2 liters", "completed": false, "tags": ["home", "errands"]}
+ * - CSV: header row naming the columns (title, description, completed,
+ *   tags), then one todo per record; tags are separated by '|'
+ *   (home|errands), a character tags can't contain
+ *
+ * Memory stays constant regardless of file size:
+ * - The body is parsed record by record straight from the request stream;
+ *   an NDJSON line longer than MAX_LINE_CHARS is skipped and rejected
+ *   (a CSV record that long ends the import, see CsvRecordReader)
+ * - Valid rows are buffered only up to app.import.batch-size, then
+ *   persisted in one short transaction, flushed and cleared from the
+ *   persistence context
+ * - Only the first app.import.max-errors rejected rows are reported
+ *
+ * Each batch commits on its own: if the upload breaks half way,
+ * the batches before the failure stay imported.
+ *
+ * A batch is one transaction, not one JDBC batch: todo ids are IDENTITY
+ * columns, so Hibernate sends each todo's INSERT on its own to read the
+ * id back (only the tag rows are JDBC-batched). A sequence would lift
+ * that, but the plain SQL inserts into the todos table (datagen, the
+ * benchmarks' seed data) rely on the identity column default.
+ *
+ * The request holds no database bulkhead permit while the upload is
+ * read (see DatabaseBulkheadFilter): each batch takes one for its
+ * transaction only, and a batch turned away ends the import with 503.
+ *
+ * Rows go through TodoRepository / UserRepository - the embedded store
+ * (app.storage=embedded) takes them just the same.
+ *
+ * Imported todos are appended to the end of the user's list,
+ * in file order.
+ */
+@Slf4j
+@Service
+public class TodoImportService {
+
+    /** Upload formats accepted by importTodos */
+    public enum Format { NDJSON, CSV }
+
+    /** Same bound as a CSV record (CsvRecordReader) */
+    private static final int MAX_LINE_CHARS = 64 * 1024;
+
+    private final UserRepository userRepository;
+    private final TodoRepository todoRepository;
+    private final TodoEventPublisher eventPublisher;
+    private final EntityManager entityManager;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final TagIndex tagIndex;
+    private final TodoStatsService todoStatsService;
+    private final TodoPositionRebalancer positionRebalancer;
+    private final DatabaseBulkhead bulkhead;
+
+    @Value("${app.import.batch-size:500}")
+    private int batchSize;
+
+    @Value("${app.import.max-errors:100}")
+    private int maxErrors;
+
+    public TodoImportService(UserRepository userRepository,
+            TodoRepository todoRepository,
+            TodoEventPublisher eventPublisher,
+            EntityManager entityManager,
+            Validator validator,
+            ObjectMapper objectMapper,
+            PlatformTransactionManager transactionManager,
+            TagIndex tagIndex,
+            TodoStatsService todoStatsService,
+            TodoPositionRebalancer positionRebalancer,
+            DatabaseBulkhead bulkhead) {
+        this.userRepository = userRepository;
+        this.todoRepository = todoRepository;
+        this.eventPublisher = eventPublisher;
+        this.entityManager = entityManager;
+        this.validator = validator;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.tagIndex = tagIndex;
+        this.todoStatsService = todoStatsService;
+        this.positionRebalancer = positionRebalancer;
+        this.bulkhead = bulkhead;
+    }
+
+    /**
+     * Import todos for a user from a stream
+     *
+     * @param userId Owner of the imported todos
+     * @param body   Raw request body
+     * @param format NDJSON or CSV
+     * @return How many rows were accepted/rejected, with the first errors
+     * @throws IOException if the body can't be read
+     */
+    public ImportSummary importTodos(Long userId, InputStream body, Format format) throws IOException {
+        bulkhead.run(() -> {
+            if (!userRepository.existsById(userId)) {
+                throw new RuntimeException("User not found with ID: " + userId);
+            }
+            return null;
+        });
+
+        ImportRun run = new ImportRun(userId);
+
+        BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        if (format == Format.NDJSON) {
+            readNdjson(reader, run);
+        } else {
+            readCsv(reader, run);
+        }
+        flush(run);
+
+        ImportSummary summary = run.summary;
+        log.info("Imported {} todos for user {} ({} rejected)", summary.getAccepted(), userId, summary.getRejected());
+        return summary;
+    }
+
+    private void readNdjson(BufferedReader reader, ImportRun run)
+            throws IOException {
+        StringBuilder buffer = new StringBuilder();
+        long lineNumber = 0;
+        long length;
+        while ((length = readLine(reader, buffer)) >= 0) {
+            lineNumber++;
+            if (length > MAX_LINE_CHARS) {
+                reject(run, lineNumber, "Line longer than " + MAX_LINE_CHARS + " characters");
+                continue;
+            }
+            String line = buffer.toString();
+            if (line.isBlank()) {
+                continue;
+            }
+
+            Todo todo;
+            try {
+                JsonNode node = objectMapper.readTree(line);
+                todo = toTodo(
+                        text(node, "title"),
+                        text(node, "description"),
+                        node.has("completed") && !node.get("completed").isNull()
+                                ? node.get("completed").asString()
+                                : null,
+                        tags(node));
+            } catch (RuntimeException e) {
+                reject(run, lineNumber, "Invalid JSON record: " + e.getMessage());
+                continue;
+            }
+            accept(todo, lineNumber, run);
+        }
+    }
+
+    /**
+     * Read the next line (without its line break) into buffer, keeping at
+     * most MAX_LINE_CHARS of it - the rest of a longer line is skipped
+     *
+     * @return The line's full length, or -1 at end of input
+     */
+    private static long readLine(BufferedReader reader, StringBuilder buffer) throws IOException {
+        buffer.setLength(0);
+        long length = 0;
+        int c = reader.read();
+        if (c == -1) {
+            return -1;
+        }
+        while (c != -1 && c != '\n') {
+            if (length++ < MAX_LINE_CHARS) {
+                buffer.append((char) c);
+            }
+            c = reader.read();
+        }
+        if (length <= MAX_LINE_CHARS && length > 0 && buffer.charAt(buffer.length() - 1) == '\r') {
+            buffer.setLength(buffer.length() - 1);
+            length--;
+        }
+        return length;
+    }
+
+    private void readCsv(BufferedReader reader, ImportRun run)
+            throws IOException {
+        CsvRecordReader csv = new CsvRecordReader(reader);
+
+        List<String> header = csv.readRecord();
+        if (header == null) {
+            return;
+        }
+        List<String> columns = header.stream().map(h -> h.trim().toLowerCase(Locale.ROOT)).toList();
+        int titleColumn = columns.indexOf("title");
+        int descriptionColumn = columns.indexOf("description");
+        int completedColumn = columns.indexOf("completed");
+        int tagsColumn = columns.indexOf("tags");
+        if (titleColumn < 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "CSV header must contain a 'title' column");
+        }
+
+        List<String> record;
+        long recordNumber = 0;
+        while ((record = csv.readRecord()) != null) {
+            recordNumber++;
+            if (record.size() == 1 && record.get(0).isBlank()) {
+                continue;
+            }
+
+            Todo todo;
+            try {
+                todo = toTodo(
+                        column(record, titleColumn),
+                        column(record, descriptionColumn),
+                        column(record, completedColumn),
+                        tags(column(record, tagsColumn)));
+            } catch (RuntimeException e) {
+                reject(run, recordNumber, e.getMessage());
+                continue;
+            }
+            accept(todo, recordNumber, run);
+        }
+    }
+
+    /** Validate against the Todo entity constraints, buffer, and flush full batches */
+    private void accept(Todo todo, long line, ImportRun run) {
+        Set<ConstraintViolation<Todo>> violations = validator.validate(todo);
+        if (!violations.isEmpty()) {
+            reject(run, line, violations.stream()
+                    .map(v -> v.getPropertyPath() + ": " + v.getMessage())
+                    .collect(Collectors.joining(", ")));
+            return;
+        }
+
+        if (todo.getTags() != null) {
+            try {
+                todo.setTags(TagFilter.normalizeAll(todo.getTags()));
+            } catch (ResponseStatusException e) {
+                reject(run, line, "tags: " + e.getReason());
+                return;
+            }
+        }
+
+        todo.setCompletedAt(todo.getCompleted() ? LocalDateTime.now() : null);
+
+        run.pending.add(todo);
+        if (run.pending.size() >= batchSize) {
+            flush(run);
+        }
+    }
+
+    /** Persist the buffered todos in one transaction, then drop them from memory */
+    private void flush(ImportRun run) {
+        List<Todo> pending = run.pending;
+        if (pending.isEmpty()) {
+            return;
+        }
+        Long userId = run.userId;
+
+        bulkhead.run(() -> transactionTemplate.execute(status -> {
+            // Locked while the keys are decided from the end of the list (see TodoPositionRebalancer)
+            User owner = userRepository.findForUpdateById(userId)
+                    .orElseThrow(() -> new RuntimeException("User not found with ID: " + userId));
+            String position = todoRepository.findMaxPosition(userId);
+            List<Long> ids = new ArrayList<>(pending.size());
+            long completed = 0;
+            for (Todo todo : pending) {
+                // Append in file order after the current end of the list
+                position = position == null ? PositionKeys.first() : PositionKeys.after(position);
+                todo.setPosition(position);
+                todo.setUser(owner);
+                // Through the repository, not the EntityManager: with app.storage=embedded it is the store
+                todoRepository.save(todo);
+                ids.add(todo.getId());
+                if (todo.getCompleted()) {
+                    completed++;
+                }
+            }
+            eventPublisher.publishBulk(TodoEventType.TODOS_IMPORTED, userId, Map.of("ids", ids));
+            todoStatsService.record(userId, LocalDate.now(), pending.size(), completed);
+            tagIndex.invalidate(userId);
+            // Keys only grow along the file: the last one is the longest
+            positionRebalancer.keyWritten(userId, position);
+
+            entityManager.flush();
+            entityManager.clear();
+            return null;
+        }));
+
+        run.summary.setAccepted(run.summary.getAccepted() + pending.size());
+        pending.clear();
+    }
+
+    private void reject(ImportRun run, long line, String message) {
+        ImportSummary summary = run.summary;
+        summary.setRejected(summary.getRejected() + 1);
+        if (summary.getErrors().size() < maxErrors) {
+            summary.getErrors().add(new ImportSummary.RowError(line, message));
+        } else {
+            summary.setErrorsTruncated(true);
+        }
+    }
+
+    private Todo toTodo(String title, String description, String completed, List<String> tags) {
+        Todo todo = new Todo();
+        todo.setTitle(title);
+        todo.setDescription(description == null || description.isEmpty() ? null : description);
+        todo.setCompleted(parseCompleted(completed));
+        todo.setTags(tags == null ? null : new LinkedHashSet<>(tags));
+        return todo;
+    }
+
+    /** NDJSON "tags": an array of strings; missing or null means none */
+    private static List<String> tags(JsonNode node) {
+        JsonNode value = node.get("tags");
+        if (value == null || value.isNull()) {
+            return null;
+        }
+        if (!value.isArray()) {
+            throw new IllegalArgumentException("tags must be an array of strings");
+        }
+        List<String> tags = new ArrayList<>(value.size());
+        for (JsonNode tag : value) {
+            if (!tag.isString()) {
+                throw new IllegalArgumentException("tags must be an array of strings");
+            }
+            tags.add(tag.asString());
+        }
+        return tags;
+    }
+
+    /** CSV tags column: tags separated by '|'; empty means none */
+    private static List<String> tags(String column) {
+        if (column == null || column.isBlank()) {
+            return null;
+        }
+        return List.of(column.split("\\|", -1));
+    }
+
+    /** Accepts true/false, yes/no, 1/0 (case-insensitive); empty means false */
+    private static Boolean parseCompleted(String value) {
+        if (value == null || value.isBlank()) {
+            return false;
+        }
+        switch (value.trim().toLowerCase(Locale.ROOT)) {
+            case "true", "yes", "1":
+                return true;
+            case "false", "no", "0":
+                return false;
+            default:
+                throw new IllegalArgumentException("Invalid completed value: " + value);
+        }
+    }
+
+    private static String text(JsonNode node, String field) {
+        JsonNode value = node.get(field);
+        return value == null || value.isNull() ? null : value.asString();
+    }
+
+    private static String column(List<String> record, int index) {
+        return index >= 0 && index < record.size() ? record.get(index) : null;
+    }
+
+    /** State of one import call: owner, buffered rows, running totals */
+    private final class ImportRun {
+        private final Long userId;
+        private final List<Todo> pending = new ArrayList<>(batchSize);
+        private final ImportSummary summary = new ImportSummary();
+
+        private ImportRun(Long userId) {
+            this.userId = userId;
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.todoApi.service;
+
+import com.todoApi.model.SharePermission;
+import com.todoApi.model.Todo;
+import com.todoApi.model.TodoItem;
+import com.todoApi.repository.TodoItemRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * TodoItemService - Checklist items of todos
+ *
+ * Access follows the todo: items of a todo shared with the user can be
+ * read, and changed with a WRITE share (see TodoService.getTodoById).
+ * If the todo's completion is derived from its items
+ * (Todo.completionFromItems), it is re-derived after each change, in
+ * the same transaction.
+ *
+ * Every change locks the todo's row first: the derived completion and
+ * the item limit are decided on all of the todo's items, so two changes
+ * of the same checklist must not each decide from what they read before
+ * the other committed (two last items ticked at once would each still
+ * see the other one open).
+ */
+@Service
+public class TodoItemService {
+
+    /** Largest todo id list sent in one IN (...) when loading items for a list */
+    private static final int MAX_IDS_PER_QUERY = 1000;
+
+    private final TodoItemRepository todoItemRepository;
+    private final TodoService todoService;
+    private final int maxItems;
+
+    public TodoItemService(TodoItemRepository todoItemRepository,
+            TodoService todoService,
+            @Value("${app.todos.max-items:100}") int maxItems) {
+        this.todoItemRepository = todoItemRepository;
+        this.todoService = todoService;
+        this.maxItems = maxItems;
+    }
+
+    /** A todo's items in checklist order */
+    @Transactional(readOnly = true)
+    public List<TodoItem> getItems(Long todoId, Long userId) {
+        todoService.getTodoById(todoId, userId);
+        return todoItemRepository.findByTodo_IdOrderByPositionAscIdAsc(todoId);
+    }
+
+    /**
+     * The items of many todos, grouped by todo id (todos without items are absent)
+     * One query per 1000 todos - however many todos, never one query per todo.
+     * The caller must already have checked access to the todos.
+     */
+    @Transactional(readOnly = true)
+    public Map<Long, List<TodoItem>> getItemsByTodo(List<Long> todoIds) {
+        Map<Long, List<TodoItem>> itemsByTodo = new HashMap<>();
+        for (int from = 0; from < todoIds.size(); from += MAX_IDS_PER_QUERY) {
+            Collection<Long> chunk = todoIds.subList(from, Math.min(from + MAX_IDS_PER_QUERY, todoIds.size()));
+            for (TodoItem item : todoItemRepository.findByTodoIds(chunk)) {
+                // getTodo().getId() reads the id off the lazy proxy, the todo isn't loaded again
+                itemsByTodo.computeIfAbsent(item.getTodo().getId(), id -> new ArrayList<>()).add(item);
+            }
+        }
+        return itemsByTodo;
+    }
+
+    /** Add an item (at the end of the checklist unless a position is given) */
+    @Transactional
+    public TodoItem createItem(Long todoId, Long userId, TodoItem itemData) {
+        Todo todo = todoService.getTodoForUpdate(todoId, userId, SharePermission.WRITE);
+        if (todoItemRepository.countByTodo_Id(todoId) >= maxItems) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "A todo cannot have more than " + maxItems + " checklist items");
+        }
+
+        itemData.setId(null);
+        itemData.setTodo(todo);
+        if (itemData.getDone() == null) {
+            itemData.setDone(false);
+        }
+        if (itemData.getPosition() == null) {
+            Integer last = todoItemRepository.findMaxPosition(todoId);
+            itemData.setPosition(last == null ? 0 : last + 1);
+        }
+
+        TodoItem savedItem = todoItemRepository.save(itemData);
+        todoService.applyDerivedCompletion(todo, userId);
+        return savedItem;
+    }
+
+    /** Change an item's title, done flag or position (null fields are left alone) */
+    @Transactional
+    public TodoItem updateItem(Long todoId, Long itemId, Long userId, TodoItem itemData) {
+        TodoItem item = findItem(todoId, itemId, userId);
+
+        if (itemData.getTitle() != null) {
+            item.setTitle(itemData.getTitle());
+        }
+        if (itemData.getDone() != null) {
+            item.setDone(itemData.getDone());
+        }
+        if (itemData.getPosition() != null) {
+            item.setPosition(itemData.getPosition());
+        }
+
+        TodoItem savedItem = todoItemRepository.save(item);
+        if (itemData.getDone() != null) {
+            todoService.applyDerivedCompletion(item.getTodo(), userId);
+        }
+        return savedItem;
+    }
+
+    @Transactional
+    public void deleteItem(Long todoId, Long itemId, Long userId) {
+        TodoItem item = findItem(todoId, itemId, userId);
+        todoItemRepository.delete(item);
+        todoService.applyDerivedCompletion(item.getTodo(), userId);
+    }
+
+    /** An item the user may change - its todo locked */
+    private TodoItem findItem(Long todoId, Long itemId, Long userId) {
+        todoService.getTodoForUpdate(todoId, userId, SharePermission.WRITE);
+        // The todo is in the persistence context already: the item comes with that instance
+        return todoItemRepository.findWithTodo(itemId, todoId)
+                .orElseThrow(() -> notFound("Checklist item", itemId));
+    }
+
+    private static ResponseStatusException notFound(String what, Long id) {
+        return new ResponseStatusException(HttpStatus.NOT_FOUND, what + " not found with ID: " + id);
+    }
+}
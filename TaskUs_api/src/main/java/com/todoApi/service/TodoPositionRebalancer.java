@@ -0,0 +1,119 @@
+package com.todoApi.service;
+
+import com.todoApi.repository.TodoRepository;
+import com.todoApi.repository.UserRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * TodoPositionRebalancer - Keeps position keys short
+ *
+ * Repeated moves into the same gap make keys longer (see PositionKeys).
+ * Users whose keys passed app.positions.max-length are rewritten as an
+ * evenly spaced sequence, keeping the order.
+ *
+ * Finding them: no index can answer "keys longer than n", so the table
+ * is not searched on every run. Instead whoever writes a key calls
+ * keyWritten(), which queues the user (after commit) if the key is too
+ * long. Only once per start is the table scanned, for todos without a
+ * key (rows from before manual ordering existed) and for long keys
+ * queued by an instance that stopped before rebalancing them.
+ *
+ * Runs off the request path, one user per short transaction. The user's
+ * row is locked first (UserRepository.findForUpdateById), as it is by
+ * every other writer of keys, so a move or create can't decide a key
+ * from neighbours that are being rewritten. All keys then go out as one
+ * batched UPDATE (TodoRepository.updatePositions), so updatedAt is not
+ * touched.
+ */
+@Slf4j
+@Component
+public class TodoPositionRebalancer {
+
+    private final TodoRepository todoRepository;
+    private final UserRepository userRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int maxLength;
+    private final int usersPerRun;
+
+    /** Users with a key over max-length, waiting for the next run */
+    private final Set<Long> queued = ConcurrentHashMap.newKeySet();
+    private volatile boolean startupScanDone;
+
+    public TodoPositionRebalancer(TodoRepository todoRepository,
+            UserRepository userRepository,
+            PlatformTransactionManager transactionManager,
+            @Value("${app.positions.max-length:32}") int maxLength,
+            @Value("${app.positions.users-per-run:50}") int usersPerRun) {
+        this.todoRepository = todoRepository;
+        this.userRepository = userRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.maxLength = maxLength;
+        this.usersPerRun = usersPerRun;
+    }
+
+    /** A position key was written for a user's todo - queue the user if the key is too long */
+    public void keyWritten(Long userId, String key) {
+        if (key != null && key.length() > maxLength) {
+            afterCommit(() -> queued.add(userId));
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.positions.rebalance-interval-ms:60000}",
+            initialDelayString = "${app.positions.initial-delay-ms:10000}")
+    public void rebalance() {
+        if (!startupScanDone) {
+            // The one full scan of this run of the app
+            List<Long> found = todoRepository.findUserIdsNeedingRebalance(maxLength);
+            queued.addAll(found);
+            startupScanDone = true;
+            log.info("{} users need their position keys rebalanced", found.size());
+        }
+
+        int done = 0;
+        for (Iterator<Long> it = queued.iterator(); it.hasNext() && done < usersPerRun; done++) {
+            Long userId = it.next();
+            it.remove();
+            int rewritten = transactionTemplate.execute(status -> rebalanceUser(userId));
+            log.info("Rebalanced {} position keys for user {}", rewritten, userId);
+        }
+    }
+
+    /** Rewrite one user's keys in current list order - must run in a transaction */
+    private int rebalanceUser(Long userId) {
+        if (userRepository.findForUpdateById(userId).isEmpty()) {
+            return 0; // deleted meanwhile
+        }
+        List<Long> ids = todoRepository.findIdsInPositionOrder(userId);
+        List<String> positions = new ArrayList<>(ids.size());
+        for (int i = 0; i < ids.size(); i++) {
+            positions.add(PositionKeys.nth(i));
+        }
+        return todoRepository.updatePositions(userId, ids, positions);
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
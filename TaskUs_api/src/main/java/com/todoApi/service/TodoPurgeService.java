@@ -0,0 +1,135 @@
+package com.todoApi.service;
+
+import com.todoApi.history.TodoHistory;
+import com.todoApi.model.TodoEventType;
+import com.todoApi.outbox.TodoEventPublisher;
+import com.todoApi.repository.ArchivedTodoRepository;
+import com.todoApi.repository.TodoRepository;
+import com.todoApi.tags.TagIndex;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.LongConsumer;
+
+/**
+ * TodoPurgeService - Deletes all todos of a user in bounded chunks
+ *
+ * Why not the derived deleteByUser_Id()?
+ * Spring Data implements it by loading every Todo entity and calling
+ * remove() on each one: N+1 statements inside one long transaction.
+ *
+ * Instead, each chunk is:
+ * 1. SELECT id ... WHERE user_id = ? ORDER BY id LIMIT n   (IDs only)
+ * 2. DELETE FROM todo_tags WHERE todo_id IN (...)         (one statement)
+ * 3. DELETE FROM todos WHERE id IN (...)                    (one statement)
+ * committed in its own short transaction, so locks are held briefly
+ * and a 100k-row purge is ~3 * (100k / chunk size) statements.
+ * The user's archived todos (see TodoArchiver) are then removed the same way.
+ */
+@Slf4j
+@Service
+public class TodoPurgeService {
+
+    private final TodoRepository todoRepository;
+    private final ArchivedTodoRepository archivedTodoRepository;
+    private final TodoEventPublisher eventPublisher;
+    private final TagIndex tagIndex;
+    private final TodoHistory todoHistory;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+
+    public TodoPurgeService(TodoRepository todoRepository,
+            ArchivedTodoRepository archivedTodoRepository,
+            TodoEventPublisher eventPublisher,
+            TagIndex tagIndex,
+            TodoHistory todoHistory,
+            PlatformTransactionManager transactionManager,
+            @Value("${app.purge.chunk-size:1000}") int chunkSize) {
+        this.todoRepository = todoRepository;
+        this.archivedTodoRepository = archivedTodoRepository;
+        this.eventPublisher = eventPublisher;
+        this.tagIndex = tagIndex;
+        this.todoHistory = todoHistory;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Delete every todo of a user, chunk by chunk
+     *
+     * @param userId   Owner of the todos
+     * @param progress Called after each committed chunk with the running total
+     * @return Total number of todos deleted
+     */
+    public long purgeTodosForUser(Long userId, LongConsumer progress) {
+        long deleted = 0;
+        int chunkDeleted;
+        do {
+            chunkDeleted = transactionTemplate.execute(status -> deleteChunk(userId));
+            deleted += chunkDeleted;
+            if (chunkDeleted > 0) {
+                progress.accept(deleted);
+            }
+        } while (chunkDeleted == chunkSize);
+
+        do {
+            chunkDeleted = transactionTemplate.execute(status -> deleteArchivedChunk(userId));
+            deleted += chunkDeleted;
+            if (chunkDeleted > 0) {
+                progress.accept(deleted);
+            }
+        } while (chunkDeleted == chunkSize);
+
+        log.info("Purged {} todos for user {}", deleted, userId);
+        return deleted;
+    }
+
+    /**
+     * Same as purgeTodosForUser, but runs on the background task executor
+     * The caller gets a future that completes with the total deleted count
+     */
+    @Async
+    public CompletableFuture<Long> purgeTodosForUserAsync(Long userId) {
+        long deleted = purgeTodosForUser(userId,
+                total -> log.debug("Purge of user {} in progress: {} todos deleted", userId, total));
+        return CompletableFuture.completedFuture(deleted);
+    }
+
+    /** Delete one chunk - must run inside a transaction */
+    private int deleteChunk(Long userId) {
+        List<Long> ids = todoRepository.findIdsByUserId(userId, PageRequest.of(0, chunkSize));
+        if (ids.isEmpty()) {
+            return 0;
+        }
+
+        // Bulk deletes skip collection cascades: remove the tag rows first
+        todoRepository.deleteTagsByTodoIds(ids);
+        todoRepository.deleteAllByIdInBatch(ids);
+        eventPublisher.publishBulk(TodoEventType.TODOS_PURGED, userId, Map.of("deleted", ids.size()));
+        tagIndex.invalidate(userId);
+        todoHistory.deleted(ids);
+        return ids.size();
+    }
+
+    /** Delete one chunk of archived todos - must run inside a transaction */
+    private int deleteArchivedChunk(Long userId) {
+        List<Long> ids = archivedTodoRepository.findIdsByUserId(userId, PageRequest.of(0, chunkSize));
+        if (ids.isEmpty()) {
+            return 0;
+        }
+
+        archivedTodoRepository.deleteTagsByIds(ids);
+        archivedTodoRepository.deleteItemsByIds(ids);
+        archivedTodoRepository.deleteAllByIdInBatch(ids);
+        eventPublisher.publishBulk(TodoEventType.TODOS_PURGED, userId, Map.of("deleted", ids.size(), "archived", true));
+        return ids.size();
+    }
+}
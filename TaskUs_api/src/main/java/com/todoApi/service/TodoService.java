@@ -1,26 +1,73 @@
 package com.todoApi.service;
 
+import com.todoApi.dto.TodoLookupResponse;
+import com.todoApi.history.HistoryEntry;
+import com.todoApi.history.TodoHistory;
+import com.todoApi.model.ArchivedTodo;
+import com.todoApi.model.SharePermission;
 import com.todoApi.model.Todo; 
+import com.todoApi.model.TodoEventType;
 import com.todoApi.model.User;
+import com.todoApi.outbox.TodoEventPublisher;
+import com.todoApi.reminder.ReminderScheduler;
+import com.todoApi.repository.ArchivedTodoRepository;
+import com.todoApi.repository.TodoItemRepository;
 import com.todoApi.repository.TodoRepository;
 import com.todoApi.repository.UserRepository;
+import com.todoApi.sharing.ShareAcl;
+import com.todoApi.sharing.ShareGrant;
+import com.todoApi.tags.TagFilter;
+import com.todoApi.tags.TagIndex;
 import lombok.RequiredArgsConstructor;
+import org.hibernate.Hibernate;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 @Service
 @RequiredArgsConstructor
 public class TodoService {
 
     private final TodoRepository todoRepository;
+    private final ArchivedTodoRepository archivedTodoRepository;
+    private final TodoItemRepository todoItemRepository;
     private final UserRepository userRepository;
+    private final TodoEventPublisher eventPublisher;
+    private final TodoPurgeService todoPurgeService;
+    private final ReminderScheduler reminderScheduler;
+    private final TagIndex tagIndex;
+    private final TodoStatsService todoStatsService;
+    private final ShareAcl shareAcl;
+    private final TodoHistory todoHistory;
+    private final TodoPositionRebalancer positionRebalancer;
+
+    /** Tag matches are loaded by id, at most this many ids per query */
+    private static final int TAG_MATCHES_PER_QUERY = 1000;
+
+    /** The manual order findBy...OrderByPositionAsc returns, with ties settled by id */
+    private static final Comparator<Todo> MANUAL_ORDER =
+            Comparator.comparing(Todo::getPosition).thenComparing(Todo::getId);
     
     /** Create a new Todo for a specific user */
     @Transactional
     public Todo createTodo(Todo todoData, Long userId){
-        User user = userRepository.findById(userId)
+        // Locked: the new key is decided from the list's last one (see TodoPositionRebalancer)
+        User user = userRepository.findForUpdateById(userId)
                 .orElseThrow(() -> new RuntimeException("User not found with ID: " + userId));
 
            todoData.setUser(user);
@@ -28,35 +75,227 @@ public class TodoService {
            if(todoData.getCompleted() == null){
                todoData.setCompleted(false); // Default to false if not provided
            }
+           todoData.setCompletionFromItems(Boolean.TRUE.equals(todoData.getCompletionFromItems()));
+           if(todoData.getCompletionFromItems()){
+               todoData.setCompleted(false); // No items yet
+           }
+           todoData.setCompletedAt(todoData.getCompleted() ? LocalDateTime.now() : null);
+
+        // New todos go to the end of the user's list
+        String lastPosition = todoRepository.findMaxPosition(userId);
+        todoData.setPosition(lastPosition == null ? PositionKeys.first() : PositionKeys.after(lastPosition));
+        positionRebalancer.keyWritten(userId, todoData.getPosition());
+
+        todoData.setReminderSentAt(null);
+        todoData.setTags(todoData.getTags() == null
+                ? new LinkedHashSet<>()
+                : TagFilter.normalizeAll(todoData.getTags()));
 
-        return todoRepository.save(todoData);
+        Todo savedTodo = todoRepository.save(todoData);
+        todoStatsService.record(userId, LocalDate.now(), 1, savedTodo.getCompleted() ? 1 : 0);
+        eventPublisher.publish(TodoEventType.TODO_CREATED, savedTodo);
+        todoHistory.created(savedTodo, userId);
+        tagIndex.todoChanged(savedTodo);
+        if(savedTodo.getRemindAt() != null){
+            reminderScheduler.reminderChanged(savedTodo);
+        }
+        return savedTodo;
     }
 
-    /** Get a specific Todo by ID */
+    /** Get a specific Todo by ID - the user's own, or one shared with them */
     public Todo getTodoById(Long todoId, Long userId){
+        return getTodoById(todoId, userId, SharePermission.READ);
+    }
+
+    /**
+     * Get a specific Todo by ID, if the user may access it at the needed level
+     * One query either way; a todo someone else owns is checked against
+     * the cached shares (see ShareAcl)
+     */
+    public Todo getTodoById(Long todoId, Long userId, SharePermission needed){
+        Todo todo = todoRepository.findWithTagsById(todoId)
+                .orElseThrow(() -> todoNotFound(todoId, userId));
+        checkAccess(todo, userId, needed);
+        return todo;
+    }
+
+    /**
+     * Get a todo like getTodoById, with its row locked until the transaction ends
+     * (see TodoRepository.findForUpdateById) - tags are not joined, they load on use
+     */
+    public Todo getTodoForUpdate(Long todoId, Long userId, SharePermission needed) {
+        Todo todo = todoRepository.findForUpdateById(todoId)
+                .orElseThrow(() -> todoNotFound(todoId, userId));
+        checkAccess(todo, userId, needed);
+        return todo;
+    }
+
+    /**
+     * Check a user may access a loaded todo at the needed level
+     * A todo that isn't shared with the user is reported as not found,
+     * one shared read-only as forbidden for writes. Reads are checked
+     * against the cached shares, writes against the database (see ShareAcl).
+     */
+    public void checkAccess(Todo todo, Long userId, SharePermission needed){
+        // getUser().getId() reads the id off the lazy proxy, no user is loaded
+        Long ownerId = todo.getUser().getId();
+        if(ownerId.equals(userId)){
+            return;
+        }
+        // Writes ask the database: a share revoked on another instance may still be cached here
+        SharePermission granted = needed == SharePermission.WRITE
+                ? shareAcl.currentPermission(userId, ownerId)
+                : shareAcl.permission(userId, ownerId);
+        if(granted == null){
+            throw todoNotFound(todo.getId(), userId);
+        }
+        if(!granted.allows(needed)){
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN,
+                    "Todo " + todo.getId() + " is shared with you read-only");
+        }
+    }
+
+    /** Get one of the user's own todos (for what only owners may do: move, delete) */
+    private Todo getOwnTodo(Long todoId, Long userId){
         return todoRepository.findByIdAndUser_Id(todoId, userId)
-                .orElseThrow(() -> new RuntimeException("Todo not found with ID: " + todoId + " for User ID: " + userId));
+                .orElseThrow(() -> todoNotFound(todoId, userId));
+    }
+
+    private static RuntimeException todoNotFound(Long todoId, Long userId){
+        return new RuntimeException("Todo not found with ID: " + todoId + " for User ID: " + userId);
+    }
+
+    /**
+     * Get many of a user's todos by id - one query, whatever the number of ids
+     * 
+     * @param todoIds Wanted ids, in the order the result should have (duplicates ignored)
+     * @return The found todos in that order, and the ids that were not found
+     *         (missing or owned by another user who doesn't share them -
+     *         the caller can't tell which)
+     */
+    public TodoLookupResponse lookupTodos(Long userId, List<Long> todoIds){
+        Set<Long> wanted = new LinkedHashSet<>(todoIds);
+        Map<Long, ShareGrant> grants = shareAcl.grantsTo(userId);
+        List<Todo> rows;
+        if(grants.isEmpty()){
+            rows = todoRepository.findByUser_IdAndIdInOrderByPositionAsc(userId, wanted);
+        } else {
+            rows = todoRepository.findByUser_IdInAndIdIn(ownerIds(userId, grants), wanted);
+        }
+        Map<Long, Todo> found = new HashMap<>();
+        for(Todo todo : rows){
+            found.put(todo.getId(), todo);
+        }
+
+        List<Todo> todos = new ArrayList<>(found.size());
+        List<Long> missing = new ArrayList<>();
+        for(Long id : wanted){
+            Todo todo = found.get(id);
+            if(todo != null){
+                todos.add(todo);
+            } else {
+                missing.add(id);
+            }
+        }
+        return new TodoLookupResponse(todos, missing);
     }
 
     /** Get all todo items from a user */
     public List<Todo> getAllTodosForUser(Long userId){
-        return todoRepository.findByUser_Id(userId);
+        return todoRepository.findByUser_IdOrderByPositionAsc(userId);
+    }
+
+    /**
+     * The user's own todos followed by the todos shared with them
+     * One query for all of the lists, whatever the number of shares (the
+     * owners come from the cached shares, see ShareAcl); each list in its
+     * owner's manual order, shared lists by owner id
+     * 
+     * @param completed Optional filter on completion state
+     */
+    public List<Todo> getTodosWithShared(Long userId, Boolean completed){
+        Map<Long, ShareGrant> grants = shareAcl.grantsTo(userId);
+        if(grants.isEmpty()){
+            return completed == null
+                    ? getAllTodosForUser(userId)
+                    : todoRepository.findByUser_IdAndCompletedOrderByPositionAsc(userId, completed);
+        }
+
+        List<Long> ownerIds = ownerIds(userId, grants);
+        List<Todo> todos = completed == null
+                ? todoRepository.findByUser_IdInOrderByUser_IdAscPositionAsc(ownerIds)
+                : todoRepository.findByUser_IdInAndCompletedOrderByUser_IdAscPositionAsc(ownerIds, completed);
+
+        // Own todos first, the rest keep their order
+        List<Todo> merged = new ArrayList<>(todos.size());
+        for(Todo todo : todos){
+            if(todo.getUser().getId().equals(userId)){
+                merged.add(todo);
+            }
+        }
+        for(Todo todo : todos){
+            if(!todo.getUser().getId().equals(userId)){
+                merged.add(todo);
+            }
+        }
+        return merged;
+    }
+
+    /** The user and the owners of the lists shared with them */
+    private static List<Long> ownerIds(Long userId, Map<Long, ShareGrant> grants){
+        List<Long> ownerIds = new ArrayList<>(grants.size() + 1);
+        ownerIds.add(userId);
+        ownerIds.addAll(grants.keySet());
+        return ownerIds;
     }
 
     /** Get all completed todo items for the given user */
     public List<Todo> getCompletedTodosForUser(Long userId){
-        return todoRepository.findByUser_IdAndCompleted(userId, true);
+        return todoRepository.findByUser_IdAndCompletedOrderByPositionAsc(userId, true);
     }
 
     /** Get all incomplete todo items for the given user */
     public List<Todo> getIncompleteTodosForUser(Long userId){
-        return todoRepository.findByUser_IdAndCompleted(userId, false);
+        return todoRepository.findByUser_IdAndCompletedOrderByPositionAsc(userId, false);
+    }
+
+    /**
+     * Get a user's todos matching a tag filter, in manual order
+     * The matching is done on the in-memory tag bitmaps (see TagIndex),
+     * the database is only asked for the matching rows - by id, in
+     * chunks of TAG_MATCHES_PER_QUERY merged back into manual order.
+     * 
+     * @param completed Optional extra filter on completion state
+     */
+    public List<Todo> getTodosByTags(Long userId, TagFilter filter, Boolean completed){
+        List<Long> ids = tagIndex.match(userId, filter, completed);
+        if(ids.isEmpty()){
+            return List.of();
+        }
+        if(ids.size() <= TAG_MATCHES_PER_QUERY){
+            return todoRepository.findByUser_IdAndIdInOrderByPositionAsc(userId, ids);
+        }
+
+        List<Todo> todos = new ArrayList<>(ids.size());
+        for(int from = 0; from < ids.size(); from += TAG_MATCHES_PER_QUERY){
+            List<Long> chunk = ids.subList(from, Math.min(from + TAG_MATCHES_PER_QUERY, ids.size()));
+            todos.addAll(todoRepository.findByUser_IdAndIdInOrderByPositionAsc(userId, chunk));
+        }
+        todos.sort(MANUAL_ORDER);
+        return todos;
     }
 
-    /** Update an existing Todo item for a specific user */
+    /**
+     * Update an existing Todo item for a specific user
+     * 
+     * @param expectedVersion The version the client last saw (If-Match), or null
+     *                        to update whatever the current version is
+     */
     @Transactional
-    public Todo updateTodo(Long todoId, Long userId, Todo updatedTodoData){
-        Todo existingTodo = getTodoById(todoId, userId);
+    public Todo updateTodo(Long todoId, Long userId, Todo updatedTodoData, Long expectedVersion){
+        Todo existingTodo = getTodoById(todoId, userId, SharePermission.WRITE);
+        checkVersion(existingTodo, expectedVersion);
+        TodoHistory.Snapshot before = TodoHistory.snapshot(existingTodo);
 
         if(updatedTodoData.getTitle() != null){
             existingTodo.setTitle(updatedTodoData.getTitle());
@@ -64,35 +303,232 @@ public class TodoService {
         if(updatedTodoData.getDescription() != null){
             existingTodo.setDescription(updatedTodoData.getDescription());
         }
-        if(updatedTodoData.getCompleted() != null){
-            existingTodo.setCompleted(updatedTodoData.getCompleted());
+        if(updatedTodoData.getCompletionFromItems() != null){
+            existingTodo.setCompletionFromItems(updatedTodoData.getCompletionFromItems());
+        }
+        if(existingTodo.getCompletionFromItems()){
+            // "completed" in the body is ignored - the items decide
+            setCompleted(existingTodo, allItemsDone(existingTodo.getId()));
+        } else if(updatedTodoData.getCompleted() != null){
+            setCompleted(existingTodo, updatedTodoData.getCompleted());
+        }
+        if(updatedTodoData.getDueAt() != null){
+            existingTodo.setDueAt(updatedTodoData.getDueAt());
+        }
+        if(updatedTodoData.getTags() != null){
+            // Update the managed collection in place so Hibernate only writes the difference
+            Set<String> tags = TagFilter.normalizeAll(updatedTodoData.getTags());
+            if(!tags.equals(existingTodo.getTags())){
+                existingTodo.getTags().retainAll(tags);
+                existingTodo.getTags().addAll(tags);
+                // A collection change alone doesn't fire @UpdateTimestamp
+                existingTodo.setUpdatedAt(LocalDateTime.now());
+            }
+        }
+
+        // A new reminder time re-arms the reminder, even if it fired before
+        boolean reminderChanged = updatedTodoData.getRemindAt() != null
+                && !updatedTodoData.getRemindAt().equals(existingTodo.getRemindAt());
+        if(reminderChanged){
+            existingTodo.setRemindAt(updatedTodoData.getRemindAt());
+            existingTodo.setReminderSentAt(null);
         }
         
-        return todoRepository.save(existingTodo);
+        Todo savedTodo = todoRepository.save(existingTodo);
+        eventPublisher.publish(TodoEventType.TODO_UPDATED, savedTodo);
+        todoHistory.changed(before, savedTodo, userId);
+        tagIndex.todoChanged(savedTodo);
+        if(reminderChanged){
+            reminderScheduler.reminderChanged(savedTodo);
+        }
+        return savedTodo;
     }
 
     /**Toggle todo item completion status */
     @Transactional
-    public Todo toggleTodoCompletion(Long todoId, Long userId){
-        Todo existingTodo = getTodoById(todoId, userId);
-        existingTodo.setCompleted(!existingTodo.getCompleted());
-        return todoRepository.save(existingTodo);
+    public Todo toggleTodoCompletion(Long todoId, Long userId, Long expectedVersion){
+        Todo existingTodo = getTodoById(todoId, userId, SharePermission.WRITE);
+        checkVersion(existingTodo, expectedVersion);
+        TodoHistory.Snapshot before = TodoHistory.snapshot(existingTodo);
+        if(existingTodo.getCompletionFromItems()){
+            throw completionDerivedFromItems(existingTodo);
+        }
+        setCompleted(existingTodo, !existingTodo.getCompleted());
+        Todo savedTodo = todoRepository.save(existingTodo);
+        eventPublisher.publish(TodoEventType.TODO_UPDATED, savedTodo);
+        todoHistory.changed(before, savedTodo, userId);
+        tagIndex.todoChanged(savedTodo);
+        return savedTodo;
+    }
+
+    /**
+     * Fail fast if the client edited an older version of the todo
+     * 
+     * This only catches changes committed before we read the row. A change
+     * committed between our read and our write is caught by the UPDATE
+     * itself (where version = ?, see Todo.version), which then fails with
+     * an OptimisticLockingFailureException.
+     */
+    private static void checkVersion(Todo todo, Long expectedVersion){
+        if(expectedVersion != null && !expectedVersion.equals(todo.getVersion())){
+            throw new ResponseStatusException(HttpStatus.PRECONDITION_FAILED,
+                    "Todo " + todo.getId() + " has changed (version " + todo.getVersion() + "), reload and retry");
+        }
+    }
+
+    /**
+     * Re-derive a todo's completion from its checklist items
+     * (no-op unless completionFromItems is set) - call after changing items
+     * 
+     * @param userId Who changed the items
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void applyDerivedCompletion(Todo todo, Long userId){
+        if(!todo.getCompletionFromItems()){
+            return;
+        }
+        boolean completed = allItemsDone(todo.getId());
+        if(completed == Boolean.TRUE.equals(todo.getCompleted())){
+            return;
+        }
+        TodoHistory.Snapshot before = TodoHistory.snapshot(todo);
+        setCompleted(todo, completed);
+        Todo savedTodo = todoRepository.save(todo);
+        eventPublisher.publish(TodoEventType.TODO_UPDATED, savedTodo);
+        todoHistory.changed(before, savedTodo, userId);
+        tagIndex.todoChanged(savedTodo);
     }
 
-    /** Delete a specific Todo by ID */
+    /** True if the todo has checklist items and all of them are done */
+    private boolean allItemsDone(Long todoId){
+        List<Boolean> done = todoItemRepository.findDoneFlags(todoId);
+        return !done.isEmpty() && done.stream().allMatch(Boolean.TRUE::equals);
+    }
+
+    private static ResponseStatusException completionDerivedFromItems(Todo todo){
+        return new ResponseStatusException(HttpStatus.CONFLICT,
+                "Todo " + todo.getId() + " is completed by its checklist items, update the items instead");
+    }
+
+    /**
+     * Change the completion state, keeping completedAt and the daily stats in step
+     * Reopening a todo takes its completion back off the day it was completed
+     */
+    private void setCompleted(Todo todo, boolean completed){
+        if(completed == Boolean.TRUE.equals(todo.getCompleted())){
+            return;
+        }
+        Long ownerId = todo.getUser().getId();
+        if(completed){
+            LocalDateTime now = LocalDateTime.now();
+            todo.setCompletedAt(now);
+            todoStatsService.record(ownerId, now.toLocalDate(), 0, 1);
+        } else {
+            if(todo.getCompletedAt() != null){
+                todoStatsService.record(ownerId, todo.getCompletedAt().toLocalDate(), 0, -1);
+            }
+            todo.setCompletedAt(null);
+        }
+        todo.setCompleted(completed);
+    }
+
+    /**
+     * Move a todo within the user's manual order
+     * 
+     * Only the moved todo gets a new position key (between its new
+     * neighbours), so a move is a single-row UPDATE no matter how long
+     * the list is. The user's row is locked first, so the neighbours'
+     * keys can't change (another move, TodoPositionRebalancer) between
+     * reading them and writing the new key.
+     * 
+     * @param afterId The todo it should follow, or null to move it to the top
+     */
     @Transactional
-    public void deleteTodo(Long todoId, Long userId){
-        Todo existingTodo = getTodoById(todoId, userId);
-        todoRepository.delete(existingTodo);
+    public Todo moveTodo(Long todoId, Long userId, Long afterId){
+        userRepository.findForUpdateById(userId)
+                .orElseThrow(() -> new RuntimeException("User not found with ID: " + userId));
+        Todo todo = getOwnTodo(todoId, userId);
+
+        String position;
+        if(afterId == null){
+            String first = todoRepository.findMinPosition(userId, todoId);
+            position = first == null ? PositionKeys.first() : PositionKeys.before(first);
+        } else {
+            if(afterId.equals(todoId)){
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "A todo can't be moved after itself");
+            }
+            String lower = getOwnTodo(afterId, userId).getPosition();
+            if(lower == null){
+                throw new ResponseStatusException(HttpStatus.CONFLICT, "Todo positions are still being assigned, retry shortly");
+            }
+            String upper = todoRepository.findNextPosition(userId, lower, todoId);
+            position = upper == null ? PositionKeys.after(lower) : PositionKeys.between(lower, upper);
+        }
+
+        todo.setPosition(position);
+        Todo savedTodo = todoRepository.save(todo);
+        positionRebalancer.keyWritten(userId, position);
+        eventPublisher.publish(TodoEventType.TODO_UPDATED, savedTodo);
+        return savedTodo;
     }
 
-    /** Delete all todo items for given user */
+    /** Delete a specific Todo by ID (only if still at expectedVersion, when given) */
     @Transactional
-    public void deleteAllTodosForUser(Long userId){
-        todoRepository.deleteByUser_Id(userId);
+    public void deleteTodo(Long todoId, Long userId, Long expectedVersion){
+        Todo existingTodo = getOwnTodo(todoId, userId);
+        checkVersion(existingTodo, expectedVersion);
+        eventPublisher.publish(TodoEventType.TODO_DELETED, existingTodo);
+        todoHistory.deleted(todoId, userId);
+        todoRepository.delete(existingTodo);
+        reminderScheduler.todoDeleted(todoId);
+        tagIndex.todoDeleted(existingTodo.getUser().getId(), todoId);
+    }
+
+    /**
+     * Change history of a todo the user may read, oldest first
+     * Served from the local history log, not the database (see TodoHistory)
+     */
+    public List<HistoryEntry> getTodoHistory(Long todoId, Long userId){
+        getTodoById(todoId, userId);
+        return todoHistory.read(todoId);
+    }
+
+    /**
+     * Delete all todo items for given user
+     * Runs as a chunked, set-based delete (see TodoPurgeService),
+     * each chunk in its own short transaction
+     */
+    public long deleteAllTodosForUser(Long userId){
+        return todoPurgeService.purgeTodosForUser(userId, deleted -> { });
+    }
+
+    /** Delete all todo items for given user in the background */
+    public CompletableFuture<Long> deleteAllTodosForUserAsync(Long userId){
+        return todoPurgeService.purgeTodosForUserAsync(userId);
+    }
+
+    /**
+     * A page of the user's archived todos, most recently completed first
+     * (see TodoArchiver - old completed todos are moved out of the todos table)
+     */
+    @Transactional(readOnly = true)
+    public Slice<ArchivedTodo> getArchivedTodos(Long userId, int page, int size){
+        Slice<ArchivedTodo> archived = archivedTodoRepository.findByUserIdOrderByCompletedAtDescIdDesc(
+                userId, PageRequest.of(page, size));
+        // One batched tag and item query for the page, not one per todo while writing the response
+        archived.forEach(todo -> {
+            Hibernate.initialize(todo.getTags());
+            Hibernate.initialize(todo.getItems());
+        });
+        return archived;
+    }
+
+    /** All of the user's archived todos, most recently completed first (items batch-loaded, 500 todos per query) */
+    public List<ArchivedTodo> getAllArchivedTodos(Long userId){
+        return archivedTodoRepository.findAllByUserIdOrderByCompletedAtDescIdDesc(userId);
     }
 
-    /** Count total todos for a specific user */
+    /** Count total todos for a specific user (not counting archived ones) */
     public Long countTodosForUser(Long userId){
         return todoRepository.countByUser_Id(userId);
     }
@@ -0,0 +1,82 @@
+package com.todoApi.service;
+
+import com.todoApi.model.SharePermission;
+import com.todoApi.model.TodoShare;
+import com.todoApi.model.User;
+import com.todoApi.repository.TodoShareRepository;
+import com.todoApi.repository.UserRepository;
+import com.todoApi.sharing.ShareAcl;
+import com.todoApi.sharing.ShareGrant;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * TodoShareService - Sharing a user's todo list with other users
+ * Every change invalidates the grantee's ShareAcl entry.
+ */
+@Service
+@RequiredArgsConstructor
+public class TodoShareService {
+
+    private final TodoShareRepository shareRepository;
+    private final UserRepository userRepository;
+    private final ShareAcl shareAcl;
+
+    /** The users an owner shares with */
+    @Transactional(readOnly = true)
+    public List<TodoShare> getShares(Long ownerId) {
+        return shareRepository.findByOwner_IdOrderByCreatedAtAsc(ownerId);
+    }
+
+    /** The lists shared with a user, by owner name */
+    public List<ShareGrant> getReceivedShares(Long granteeId) {
+        List<ShareGrant> grants = new ArrayList<>(shareAcl.grantsTo(granteeId).values());
+        grants.sort(Comparator.comparing(ShareGrant::ownerUsername));
+        return grants;
+    }
+
+    /** Share the owner's list with a user, or change the permission of an existing share */
+    @Transactional
+    public TodoShare share(Long ownerId, String username, SharePermission permission) {
+        User grantee = findUser(username);
+        if (grantee.getId().equals(ownerId)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "You can't share your todos with yourself");
+        }
+
+        TodoShare share = shareRepository.findByOwner_IdAndGrantee_Id(ownerId, grantee.getId())
+                .orElseGet(() -> {
+                    TodoShare created = new TodoShare();
+                    created.setOwner(userRepository.getReferenceById(ownerId));
+                    created.setGrantee(grantee);
+                    return created;
+                });
+        share.setPermission(permission);
+
+        TodoShare savedShare = shareRepository.save(share);
+        shareAcl.invalidate(grantee.getId());
+        return savedShare;
+    }
+
+    /** Stop sharing the owner's list with a user */
+    @Transactional
+    public void unshare(Long ownerId, String username) {
+        User grantee = findUser(username);
+        TodoShare share = shareRepository.findByOwner_IdAndGrantee_Id(ownerId, grantee.getId())
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND,
+                        "Your todos are not shared with " + username));
+        shareRepository.delete(share);
+        shareAcl.invalidate(grantee.getId());
+    }
+
+    private User findUser(String username) {
+        return userRepository.findByUsername(username)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found: " + username));
+    }
+}
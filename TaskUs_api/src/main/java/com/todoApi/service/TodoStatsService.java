@@ -0,0 +1,132 @@
+package com.todoApi.service;
+
+import com.todoApi.dto.TodoStats;
+import com.todoApi.model.TodoDailyStats;
+import com.todoApi.repository.TodoDailyStatsRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * TodoStatsService - Maintains and reads the daily stats rollup
+ *
+ * Writes: every TodoService mutation that changes a count calls
+ * record() inside its own transaction, which adds the delta to the
+ * (user, day) row with a single atomic upsert. The rollup therefore
+ * commits or rolls back together with the todo change.
+ *
+ * Reads: a stats request is one primary key range scan over at most
+ * app.stats.max-days rows per user, however many todos or years of
+ * history the user has.
+ *
+ * Days are server-local dates.
+ */
+@Service
+public class TodoStatsService {
+
+    /** PostgreSQL: INSERT ... ON CONFLICT is atomic under concurrent writers */
+    private static final String POSTGRES_UPSERT =
+            "insert into todo_daily_stats (user_id, stat_date, created_count, completed_count) values (?, ?, ?, ?) " +
+            "on conflict (user_id, stat_date) do update set " +
+            "created_count = todo_daily_stats.created_count + excluded.created_count, " +
+            "completed_count = todo_daily_stats.completed_count + excluded.completed_count";
+
+    /** Other databases (H2 for local runs and tests): standard MERGE */
+    private static final String MERGE_UPSERT =
+            "merge into todo_daily_stats s " +
+            "using (values (cast(? as bigint), cast(? as date), cast(? as bigint), cast(? as bigint))) " +
+            "v (user_id, stat_date, created_count, completed_count) " +
+            "on s.user_id = v.user_id and s.stat_date = v.stat_date " +
+            "when matched then update set created_count = s.created_count + v.created_count, " +
+            "completed_count = s.completed_count + v.completed_count " +
+            "when not matched then insert (user_id, stat_date, created_count, completed_count) " +
+            "values (v.user_id, v.stat_date, v.created_count, v.completed_count)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TodoDailyStatsRepository statsRepository;
+    private final int maxDays;
+    private volatile String upsertSql;
+
+    public TodoStatsService(JdbcTemplate jdbcTemplate,
+            TodoDailyStatsRepository statsRepository,
+            @Value("${app.stats.max-days:1096}") int maxDays) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.statsRepository = statsRepository;
+        this.maxDays = maxDays;
+    }
+
+    /**
+     * Add to a user's counters for one day
+     * Runs in the caller's transaction (same connection as the todo change)
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void record(Long userId, LocalDate day, long createdDelta, long completedDelta) {
+        if (createdDelta == 0 && completedDelta == 0) {
+            return;
+        }
+        jdbcTemplate.update(upsertSql(), userId, Date.valueOf(day), createdDelta, completedDelta);
+    }
+
+    /**
+     * Stats for an inclusive date range
+     * @throws ResponseStatusException 400 if the range is inverted or too long
+     */
+    @Transactional(readOnly = true)
+    public TodoStats getStats(Long userId, LocalDate from, LocalDate to) {
+        if (from.isAfter(to)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "from must not be after to");
+        }
+        if (ChronoUnit.DAYS.between(from, to) >= maxDays) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "A stats range cannot be longer than " + maxDays + " days");
+        }
+
+        Map<LocalDate, TodoDailyStats> rows = new HashMap<>();
+        for (TodoDailyStats row : statsRepository.findByUserIdAndDateBetweenOrderByDateAsc(userId, from, to)) {
+            rows.put(row.getDate(), row);
+        }
+
+        TodoStats stats = new TodoStats();
+        stats.setFrom(from);
+        stats.setTo(to);
+        for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+            TodoDailyStats row = rows.get(day);
+            long created = row == null ? 0 : row.getCreated();
+            long completed = row == null ? 0 : row.getCompleted();
+            stats.getDays().add(new TodoStats.Day(day, created, completed, rate(completed, created)));
+            stats.setCreated(stats.getCreated() + created);
+            stats.setCompleted(stats.getCompleted() + completed);
+        }
+        stats.setCompletionRate(rate(stats.getCompleted(), stats.getCreated()));
+        return stats;
+    }
+
+    private static Double rate(long completed, long created) {
+        return created == 0 ? null : Math.round(completed * 1000.0 / created) / 1000.0;
+    }
+
+    private String upsertSql() {
+        String sql = upsertSql;
+        if (sql == null) {
+            String product = jdbcTemplate.execute(
+                    (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+            sql = product != null && product.toLowerCase(Locale.ROOT).contains("postgres")
+                    ? POSTGRES_UPSERT
+                    : MERGE_UPSERT;
+            upsertSql = sql;
+        }
+        return sql;
+    }
+}
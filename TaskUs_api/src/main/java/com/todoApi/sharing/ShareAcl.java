@@ -0,0 +1,179 @@
+package com.todoApi.sharing;
+
+import com.todoApi.model.ShareChange;
+import com.todoApi.model.SharePermission;
+import com.todoApi.repository.ShareChangeRepository;
+import com.todoApi.repository.TodoShareRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * ShareAcl - In-memory access list: whose todos each user may see or edit
+ *
+ * Checking a share on every todo request would add a join or a lookup
+ * to the hot path. Instead each grantee's shares (owner, permission) are
+ * loaded once - one small query - and kept here; access checks are then
+ * map lookups. Owners never get here: a user's own todos need no check.
+ *
+ * Invalidation is per grantee: changing or removing a share forgets only
+ * that grantee's entry, right away and again once the transaction commits
+ * (so a concurrent reload can't keep the old state). A load that races
+ * with an invalidation is not cached.
+ *
+ * Multiple instances:
+ * - invalidate() also writes a row to share_changes, in the transaction
+ *   that changes the share
+ * - Every app.sharing.acl.sync-interval-ms the rows written since the
+ *   last sync are read and their grantees forgotten here too - reading
+ *   back app.sharing.acl.sync-overlap-ms, like TokenRevocationList.sync
+ * - Writes through a share don't wait for that: they check the share in
+ *   the database (currentPermission), so a revoked WRITE share stops
+ *   writes on every instance at once. Reads may see a list for up to one
+ *   sync interval after it was unshared.
+ *
+ * Bounded to app.sharing.acl.max-users entries (least recently used
+ * dropped). Entries also expire after app.sharing.acl.ttl-seconds - a
+ * backstop should a sync fail, and what bounds how long share_changes
+ * rows are kept.
+ */
+@Component
+public class ShareAcl {
+
+    private record Entry(Map<Long, ShareGrant> byOwner, long loadedAt) {
+    }
+
+    private final TodoShareRepository shareRepository;
+    private final ShareChangeRepository changeRepository;
+    private final long ttlMillis;
+    private final Duration syncOverlap;
+    private final Map<Long, Entry> entries;
+    /** Bumped by every invalidation - loads that saw an older value aren't cached */
+    private final AtomicLong invalidations = new AtomicLong();
+
+    /** Newest changedAt seen by sync() (the next sync reads from a little before it) */
+    private volatile LocalDateTime lastSync = LocalDateTime.now();
+    /** Ids of the changes the last sync read - those read again are already applied */
+    private Set<Long> synced = Set.of();
+
+    public ShareAcl(TodoShareRepository shareRepository, ShareChangeRepository changeRepository,
+            @Value("${app.sharing.acl.max-users:10000}") int maxUsers,
+            @Value("${app.sharing.acl.ttl-seconds:300}") long ttlSeconds,
+            @Value("${app.sharing.acl.sync-overlap-ms:30000}") long syncOverlapMillis) {
+        this.shareRepository = shareRepository;
+        this.changeRepository = changeRepository;
+        this.ttlMillis = ttlSeconds * 1000;
+        this.syncOverlap = Duration.ofMillis(syncOverlapMillis);
+        this.entries = Collections.synchronizedMap(new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+                return size() > maxUsers;
+            }
+        });
+    }
+
+    /** The lists shared with a user, by owner id (empty if none) */
+    public Map<Long, ShareGrant> grantsTo(Long granteeId) {
+        Entry entry = entries.get(granteeId);
+        if (entry != null && System.currentTimeMillis() - entry.loadedAt() < ttlMillis) {
+            return entry.byOwner();
+        }
+
+        long seen = invalidations.get();
+        List<ShareGrant> grants = shareRepository.findGrantsTo(granteeId);
+        Map<Long, ShareGrant> byOwner = grants.isEmpty() ? Map.of()
+                : grants.stream().collect(Collectors.toUnmodifiableMap(ShareGrant::ownerId, Function.identity()));
+        synchronized (entries) {
+            if (invalidations.get() == seen) {
+                entries.put(granteeId, new Entry(byOwner, System.currentTimeMillis()));
+            }
+        }
+        return byOwner;
+    }
+
+    /** What a user may do with an owner's todos - null if nothing is shared */
+    public SharePermission permission(Long granteeId, Long ownerId) {
+        ShareGrant grant = grantsTo(granteeId).get(ownerId);
+        return grant != null ? grant.permission() : null;
+    }
+
+    /**
+     * What a user may do with an owner's todos, read from the database
+     * (null if nothing is shared) - for writes through a share, which
+     * must not go on after an unshare on another instance. A cached
+     * entry that disagrees is forgotten.
+     */
+    public SharePermission currentPermission(Long granteeId, Long ownerId) {
+        SharePermission current = shareRepository.findPermission(ownerId, granteeId).orElse(null);
+        Entry entry = entries.get(granteeId);
+        if (entry != null) {
+            ShareGrant cached = entry.byOwner().get(ownerId);
+            if ((cached != null ? cached.permission() : null) != current) {
+                forget(granteeId);
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Forget a grantee's shares - now and once the current transaction commits
+     * Other instances forget them on their next sync.
+     */
+    public void invalidate(Long granteeId) {
+        changeRepository.record(granteeId);
+        forget(granteeId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    forget(granteeId);
+                }
+            });
+        }
+    }
+
+    /** Forget the grantees whose shares were changed by other instances */
+    @Scheduled(fixedDelayString = "${app.sharing.acl.sync-interval-ms:5000}")
+    public synchronized void sync() {
+        LocalDateTime newest = lastSync;
+        Set<Long> read = new HashSet<>();
+        for (ShareChange change : changeRepository.findByChangedAtAfter(newest.minus(syncOverlap))) {
+            read.add(change.getId());
+            if (!synced.contains(change.getId())) {
+                forget(change.getGranteeId());
+            }
+            if (change.getChangedAt().isAfter(newest)) {
+                newest = change.getChangedAt();
+            }
+        }
+        synced = read;
+        lastSync = newest;
+    }
+
+    /** Drop the changes every cached entry has outlived (loaded after the change, or expired) */
+    @Scheduled(fixedDelayString = "${app.sharing.acl.prune-interval-ms:300000}")
+    public void prune() {
+        changeRepository.deleteOlderThan(LocalDateTime.now().minus(syncOverlap).minus(Duration.ofMillis(ttlMillis)));
+    }
+
+    private void forget(Long granteeId) {
+        synchronized (entries) {
+            invalidations.incrementAndGet();
+            entries.remove(granteeId);
+        }
+    }
+}
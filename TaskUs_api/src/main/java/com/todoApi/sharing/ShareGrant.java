@@ -0,0 +1,13 @@
+package com.todoApi.sharing;
+
+import com.todoApi.model.SharePermission;
+
+/**
+ * ShareGrant - One owner's list shared with the current user, as cached by ShareAcl
+ *
+ * @param ownerId       Whose todos
+ * @param ownerUsername Shown next to shared todos ("sharedBy")
+ * @param permission    READ or WRITE
+ */
+public record ShareGrant(Long ownerId, String ownerUsername, SharePermission permission) {
+}
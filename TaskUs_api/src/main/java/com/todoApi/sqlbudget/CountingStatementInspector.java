@@ -0,0 +1,22 @@
+package com.todoApi.sqlbudget;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * CountingStatementInspector - Hibernate hook that sees every SQL statement
+ *
+ * Registered through
+ * spring.jpa.properties.hibernate.session_factory.statement_inspector
+ * Hibernate creates the instance itself (not a Spring bean), so the
+ * counts go through the static StatementCounter.
+ *
+ * The SQL is returned unchanged.
+ */
+public class CountingStatementInspector implements StatementInspector {
+
+    @Override
+    public String inspect(String sql) {
+        StatementCounter.record(sql);
+        return sql;
+    }
+}
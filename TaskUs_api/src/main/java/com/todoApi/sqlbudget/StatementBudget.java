@@ -0,0 +1,30 @@
+package com.todoApi.sqlbudget;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * StatementBudget - Maximum number of SQL statements an endpoint may run
+ *
+ * Put it on a controller method:
+ *
+ *   @StatementBudget(3) // user lookup + insert + outbox insert
+ *   @PostMapping
+ *   public ResponseEntity<Todo> createTodo(...)
+ *
+ * StatementBudgetFilter counts the statements Hibernate executes while
+ * handling the request and reports requests that go over the budget.
+ * Write the reason for the number in a comment next to it, so the next
+ * person to raise it knows what they are paying for.
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface StatementBudget {
+
+    /** Maximum statements per request */
+    int value();
+}
@@ -0,0 +1,13 @@
+package com.todoApi.sqlbudget;
+
+/**
+ * Thrown in strict mode (tests) when a request runs more SQL statements
+ * than its @StatementBudget allows, or repeats one statement often
+ * enough to look like an N+1 query
+ */
+public class StatementBudgetExceededException extends IllegalStateException {
+
+    public StatementBudgetExceededException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,99 @@
+package com.todoApi.sqlbudget;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * StatementBudgetFilter - Attributes SQL statements to the current request
+ *
+ * Around each request:
+ * 1. Start a StatementCounter tally on the request thread
+ * 2. Let the request run
+ * 3. Look up the handler's @StatementBudget and compare
+ *
+ * Two checks:
+ * - Budget: more statements than the endpoint declares
+ * - N+1: the same statement repeated app.sql-budget.repeat-threshold times
+ *   (checked on every endpoint, annotated or not)
+ *
+ * Violations are logged. With app.sql-budget.strict=true (the test
+ * configuration) the request fails with StatementBudgetExceededException
+ * and the violation is kept in violations(), so a test can assert on it
+ * even when the response was already committed - a query-count
+ * regression breaks the build instead of shipping.
+ */
+@Slf4j
+@Component
+public class StatementBudgetFilter extends OncePerRequestFilter {
+
+    @Value("${app.sql-budget.strict:false}")
+    private boolean strict;
+
+    @Value("${app.sql-budget.repeat-threshold:10}")
+    private int repeatThreshold;
+
+    /** Violations seen in strict mode (empty otherwise) */
+    private final List<String> violations = new CopyOnWriteArrayList<>();
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+            FilterChain filterChain) throws ServletException, IOException {
+        StatementCounter.start();
+        StatementCounter.Tally tally;
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            tally = StatementCounter.stop();
+        }
+
+        if (tally != null) {
+            check(request, tally);
+        }
+    }
+
+    private void check(HttpServletRequest request, StatementCounter.Tally tally) {
+        String endpoint = request.getMethod() + " " + request.getRequestURI();
+
+        // Set by DispatcherServlet when it matched a controller method
+        Object handler = request.getAttribute(HandlerMapping.BEST_MATCHING_HANDLER_ATTRIBUTE);
+        if (handler instanceof HandlerMethod handlerMethod) {
+            StatementBudget budget = handlerMethod.getMethodAnnotation(StatementBudget.class);
+            if (budget != null && tally.count() > budget.value()) {
+                violation(String.format("%s ran %d SQL statements, budget is %d (%s)",
+                        endpoint, tally.count(), budget.value(), handlerMethod.getShortLogMessage()));
+            }
+        }
+
+        Map.Entry<String, Integer> repeated = tally.mostRepeated();
+        if (repeated != null && repeated.getValue() >= repeatThreshold) {
+            violation(String.format("%s repeated one statement %d times (possible N+1): %s",
+                    endpoint, repeated.getValue(), repeated.getKey()));
+        }
+    }
+
+    private void violation(String message) {
+        log.warn("SQL budget: {}", message);
+        if (strict) {
+            violations.add(message);
+            throw new StatementBudgetExceededException(message);
+        }
+    }
+
+    /** Violations recorded in strict mode, oldest first */
+    public List<String> violations() {
+        return List.copyOf(violations);
+    }
+}
@@ -0,0 +1,62 @@
+package com.todoApi.sqlbudget;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * StatementCounter - Per-thread tally of SQL statements
+ *
+ * A tally is only kept between start() and stop() on the same thread
+ * (StatementBudgetFilter does that around each request), so background
+ * jobs cost nothing here.
+ */
+public final class StatementCounter {
+
+    private static final ThreadLocal<Tally> CURRENT = new ThreadLocal<>();
+
+    private StatementCounter() {
+    }
+
+    /** Begin counting statements on this thread */
+    public static void start() {
+        CURRENT.set(new Tally());
+    }
+
+    /** Stop counting and return what was counted (null if never started) */
+    public static Tally stop() {
+        Tally tally = CURRENT.get();
+        CURRENT.remove();
+        return tally;
+    }
+
+    /** Called by CountingStatementInspector for every statement Hibernate prepares */
+    static void record(String sql) {
+        Tally tally = CURRENT.get();
+        if (tally != null) {
+            tally.count++;
+            tally.byStatement.merge(sql, 1, Integer::sum);
+        }
+    }
+
+    /** Statements seen during one request */
+    public static final class Tally {
+        private int count;
+        private final Map<String, Integer> byStatement = new HashMap<>();
+
+        /** Total statements executed */
+        public int count() {
+            return count;
+        }
+
+        /**
+         * The statement executed most often, with its count
+         * The same parameterized SQL many times in one request is the
+         * signature of an N+1 query (one lazy load per row)
+         */
+        public Map.Entry<String, Integer> mostRepeated() {
+            return byStatement.entrySet().stream()
+                    .max(Map.Entry.comparingByValue())
+                    .orElse(null);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.todoApi.tags;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * TagFilter - A parsed ?tags= expression
+ *
+ * Syntax: AND-groups separated by "|", tags inside a group separated by ","
+ *   tags=work              todos tagged "work"
+ *   tags=work,urgent       tagged "work" AND "urgent"
+ *   tags=work,urgent|home  ("work" AND "urgent") OR "home"
+ *
+ * Every AND/OR combination can be written this way (disjunctive normal
+ * form), and it maps directly onto bitmap operations: AND inside a
+ * group, OR across groups.
+ *
+ * Tags are case-insensitive: they are trimmed and lower-cased both when
+ * stored and when filtered on.
+ */
+public final class TagFilter {
+
+    public static final int MAX_TAG_LENGTH = 50;
+    public static final int MAX_TAGS_PER_TODO = 20;
+    private static final int MAX_TERMS = 50;
+
+    private final List<List<String>> groups;
+
+    private TagFilter(List<List<String>> groups) {
+        this.groups = groups;
+    }
+
+    /** The OR-ed groups, each a list of AND-ed tags */
+    public List<List<String>> groups() {
+        return groups;
+    }
+
+    /**
+     * Parse a filter expression
+     * @throws ResponseStatusException 400 if the expression is empty or malformed
+     */
+    public static TagFilter parse(String expression) {
+        List<List<String>> groups = new ArrayList<>();
+        int terms = 0;
+        for (String group : expression.split("\\|", -1)) {
+            List<String> tags = new ArrayList<>();
+            for (String tag : group.split(",", -1)) {
+                tags.add(normalize(tag));
+                terms++;
+            }
+            groups.add(tags);
+        }
+        if (terms > MAX_TERMS) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Tag filter cannot have more than " + MAX_TERMS + " tags");
+        }
+        return new TagFilter(groups);
+    }
+
+    /**
+     * Normalize the tags of a todo
+     * @throws ResponseStatusException 400 on blank/over-long tags or too many tags
+     */
+    public static Set<String> normalizeAll(Collection<String> tags) {
+        Set<String> normalized = new LinkedHashSet<>();
+        for (String tag : tags) {
+            normalized.add(normalize(tag));
+        }
+        if (normalized.size() > MAX_TAGS_PER_TODO) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "A todo cannot have more than " + MAX_TAGS_PER_TODO + " tags");
+        }
+        return normalized;
+    }
+
+    static String normalize(String tag) {
+        String normalized = tag == null ? "" : tag.trim().toLowerCase(Locale.ROOT);
+        if (normalized.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Tags cannot be blank");
+        }
+        if (normalized.length() > MAX_TAG_LENGTH) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Tags cannot exceed " + MAX_TAG_LENGTH + " characters");
+        }
+        if (normalized.indexOf(',') >= 0 || normalized.indexOf('|') >= 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Tags cannot contain ',' or '|'");
+        }
+        return normalized;
+    }
+}
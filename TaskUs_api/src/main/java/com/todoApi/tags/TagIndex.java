@@ -0,0 +1,175 @@
+package com.todoApi.tags;
+
+import com.todoApi.model.Todo;
+import com.todoApi.repository.TodoRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * TagIndex - Per-user tag bitmaps for GET /api/todos?tags=...
+ *
+ * Instead of joining todo_tags once per tag in SQL, each user's tags
+ * are kept as bitmaps (see UserTagIndex), so a filter like
+ * "work,urgent|home" plus ?completed= is a handful of bit operations.
+ *
+ * Lifecycle of a user's index:
+ * - Built lazily on the first filtered request (one query over the
+ *   user's todos and tags) - nothing is persisted, so after a restart
+ *   indexes are simply rebuilt on demand
+ * - Kept up to date by TodoService writes, applied after the
+ *   transaction commits
+ * - Kept up to date with the writes of other instances by sync(): every
+ *   app.tags.index.sync-interval-ms the todos whose updated_at is newer
+ *   than the last sync (minus app.tags.index.sync-overlap-ms, for rows
+ *   that commit late or come from a clock slightly behind) are put again.
+ *   Deletions need no sync: matches are ids, and the callers only ever
+ *   get the rows the database still has for them
+ * - Dropped for bulk changes that bypass TodoService (import, purge)
+ *   and for the least recently used users once app.tags.index.max-users
+ *   indexes are held - on this instance; elsewhere the sync puts the
+ *   imported todos, and purged ones are gone from the database
+ */
+@Slf4j
+@Component
+public class TagIndex {
+
+    /** A todo's state as read by sync() */
+    private record Synced(long userId, boolean completed, Set<String> tags) {
+    }
+
+    private final TodoRepository todoRepository;
+    private final Duration syncOverlap;
+    private final Map<Long, UserTagIndex> indexes;
+
+    /** When the last sync() started (the next one reads from a little before it) */
+    private volatile LocalDateTime lastSync = LocalDateTime.now();
+
+    public TagIndex(TodoRepository todoRepository,
+            @Value("${app.tags.index.max-users:10000}") int maxUsers,
+            @Value("${app.tags.index.sync-overlap-ms:30000}") long syncOverlapMillis) {
+        this.todoRepository = todoRepository;
+        this.syncOverlap = Duration.ofMillis(syncOverlapMillis);
+        this.indexes = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, UserTagIndex> eldest) {
+                return size() > maxUsers;
+            }
+        });
+    }
+
+    /**
+     * Find the ids of a user's todos that match a filter
+     * @param completed null for any completion state
+     */
+    public List<Long> match(Long userId, TagFilter filter, Boolean completed) {
+        UserTagIndex index = indexes.computeIfAbsent(userId, id -> new UserTagIndex());
+        // Loading holds the index lock: writes committed meanwhile wait and
+        // are applied on top, filters for the same user wait for the load
+        synchronized (index) {
+            if (!index.isLoaded()) {
+                load(userId, index);
+            }
+        }
+        return index.match(filter, completed);
+    }
+
+    /** Re-index a todo once the current transaction commits */
+    public void todoChanged(Todo todo) {
+        Long userId = todo.getUser().getId();
+        long todoId = todo.getId();
+        boolean completed = Boolean.TRUE.equals(todo.getCompleted());
+        Set<String> tags = todo.getTags() == null ? Set.of() : Set.copyOf(todo.getTags());
+
+        afterCommit(() -> {
+            UserTagIndex index = indexes.get(userId);
+            if (index != null) {
+                index.put(todoId, completed, tags);
+            }
+        });
+    }
+
+    /** Remove a todo once the current transaction commits */
+    public void todoDeleted(Long userId, long todoId) {
+        afterCommit(() -> {
+            UserTagIndex index = indexes.get(userId);
+            if (index != null) {
+                index.remove(todoId);
+            }
+        });
+    }
+
+    /** Forget a user's index (rebuilt on next use) once the current transaction commits */
+    public void invalidate(Long userId) {
+        afterCommit(() -> indexes.remove(userId));
+    }
+
+    /**
+     * Put the todos written since the last sync (on any instance) into the
+     * indexes held here - putting a todo this instance already applied
+     * changes nothing
+     */
+    @Scheduled(fixedDelayString = "${app.tags.index.sync-interval-ms:5000}")
+    public synchronized void sync() {
+        LocalDateTime started = LocalDateTime.now();
+        if (indexes.isEmpty()) {
+            lastSync = started;
+            return;
+        }
+        Map<Long, Synced> changed = new HashMap<>();
+        for (Object[] row : todoRepository.findTagRowsUpdatedAfter(lastSync.minus(syncOverlap))) {
+            Synced todo = changed.computeIfAbsent((Long) row[0],
+                    id -> new Synced((Long) row[1], Boolean.TRUE.equals(row[2]), new HashSet<>()));
+            if (row[3] != null) {
+                todo.tags().add((String) row[3]);
+            }
+        }
+        for (Map.Entry<Long, Synced> entry : changed.entrySet()) {
+            Synced todo = entry.getValue();
+            UserTagIndex index = indexes.get(todo.userId());
+            if (index != null) {
+                index.put(entry.getKey(), todo.completed(), todo.tags());
+            }
+        }
+        lastSync = started;
+    }
+
+    private void load(Long userId, UserTagIndex index) {
+        long started = System.nanoTime();
+        // Writes applied before this point are already visible to the query
+        index.clear();
+        // One row per (todo, tag); todos without tags come back once with a null tag
+        for (Object[] row : todoRepository.findTagRowsByUserId(userId)) {
+            index.load((Long) row[0], Boolean.TRUE.equals(row[1]), (String) row[2]);
+        }
+        index.markLoaded();
+        log.debug("Tag index for user {} built: {} todos in {} ms",
+                userId, index.size(), (System.nanoTime() - started) / 1_000_000);
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
@@ -0,0 +1,161 @@
+package com.todoApi.tags;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * UserTagIndex - Bitmaps over one user's todos
+ *
+ * Each todo gets a small dense ordinal (0, 1, 2, ... with freed slots
+ * reused), and every tag has a BitSet with a bit per ordinal. Because
+ * the ordinals are dense, a BitSet costs one bit per todo per tag
+ * (100k todos x 50 tags is ~600 KB) and AND/OR of whole tags is a loop
+ * over 64-bit words.
+ *
+ * All methods are synchronized: one user's index is small and the
+ * operations on it are short.
+ */
+final class UserTagIndex {
+
+    private final Map<Long, Integer> ordinals = new HashMap<>();
+    private long[] todoIds = new long[64];
+    private final Deque<Integer> freeOrdinals = new ArrayDeque<>();
+    private int nextOrdinal;
+
+    private final BitSet live = new BitSet();
+    private final BitSet completed = new BitSet();
+    private final Map<String, BitSet> tags = new HashMap<>();
+
+    /** False until the first load from the database finished */
+    private boolean loaded;
+
+    synchronized boolean isLoaded() {
+        return loaded;
+    }
+
+    synchronized void markLoaded() {
+        loaded = true;
+    }
+
+    /** Set a todo's state, replacing whatever was indexed for it before */
+    synchronized void put(long todoId, boolean isCompleted, Collection<String> todoTags) {
+        int ordinal = ordinalOf(todoId);
+        clearTags(ordinal);
+        live.set(ordinal);
+        completed.set(ordinal, isCompleted);
+        for (String tag : todoTags) {
+            tags.computeIfAbsent(tag, t -> new BitSet()).set(ordinal);
+        }
+    }
+
+    /** Add one (todo, tag) row while loading - tag is null for untagged todos */
+    synchronized void load(long todoId, boolean isCompleted, String tag) {
+        int ordinal = ordinalOf(todoId);
+        live.set(ordinal);
+        completed.set(ordinal, isCompleted);
+        if (tag != null) {
+            tags.computeIfAbsent(tag, t -> new BitSet()).set(ordinal);
+        }
+    }
+
+    /** Drop everything before a (re)load */
+    synchronized void clear() {
+        ordinals.clear();
+        freeOrdinals.clear();
+        nextOrdinal = 0;
+        live.clear();
+        completed.clear();
+        tags.clear();
+    }
+
+    synchronized void remove(long todoId) {
+        Integer ordinal = ordinals.remove(todoId);
+        if (ordinal == null) {
+            return;
+        }
+        clearTags(ordinal);
+        live.clear(ordinal);
+        completed.clear(ordinal);
+        freeOrdinals.push(ordinal);
+    }
+
+    /**
+     * Evaluate a filter
+     * @param completedFilter null for any completion state
+     * @return matching todo ids
+     */
+    synchronized List<Long> match(TagFilter filter, Boolean completedFilter) {
+        BitSet result = new BitSet();
+        for (List<String> group : filter.groups()) {
+            BitSet groupBits = null;
+            for (String tag : group) {
+                BitSet tagBits = tags.get(tag);
+                if (tagBits == null) {
+                    groupBits = null; // unknown tag: the whole AND-group is empty
+                    break;
+                }
+                if (groupBits == null) {
+                    groupBits = (BitSet) tagBits.clone();
+                } else {
+                    groupBits.and(tagBits);
+                }
+                if (groupBits.isEmpty()) {
+                    break;
+                }
+            }
+            if (groupBits != null) {
+                result.or(groupBits);
+            }
+        }
+
+        result.and(live);
+        if (Boolean.TRUE.equals(completedFilter)) {
+            result.and(completed);
+        } else if (Boolean.FALSE.equals(completedFilter)) {
+            result.andNot(completed);
+        }
+
+        List<Long> ids = new ArrayList<>(result.cardinality());
+        for (int ordinal = result.nextSetBit(0); ordinal >= 0; ordinal = result.nextSetBit(ordinal + 1)) {
+            ids.add(todoIds[ordinal]);
+        }
+        return ids;
+    }
+
+    synchronized int size() {
+        return ordinals.size();
+    }
+
+    private int ordinalOf(long todoId) {
+        Integer existing = ordinals.get(todoId);
+        if (existing != null) {
+            return existing;
+        }
+        int ordinal = freeOrdinals.isEmpty() ? nextOrdinal++ : freeOrdinals.pop();
+        if (ordinal >= todoIds.length) {
+            todoIds = Arrays.copyOf(todoIds, todoIds.length * 2);
+        }
+        todoIds[ordinal] = todoId;
+        ordinals.put(todoId, ordinal);
+        return ordinal;
+    }
+
+    private void clearTags(int ordinal) {
+        Iterator<BitSet> iterator = tags.values().iterator();
+        while (iterator.hasNext()) {
+            BitSet bits = iterator.next();
+            bits.clear(ordinal);
+            if (bits.isEmpty()) {
+                iterator.remove();
+            }
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package com.todoApi.warmup;
+
+import com.todoApi.outbox.TodoEventPublisher;
+import com.todoApi.repository.TodoDailyStatsRepository;
+import com.todoApi.repository.UserRepository;
+import com.todoApi.security.JwtUtil;
+import com.todoApi.service.TodoPurgeService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.ObjectMapper;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * WarmUpRunner - Exercises the hot paths before the instance takes traffic
+ *
+ * A fresh JVM runs everything interpreted: the JIT, Jackson's serializer
+ * caches, Hibernate's query plan cache, the JDBC pool and the security
+ * filter chain all warm up on the first few thousand requests - which
+ * would otherwise be real users' requests.
+ *
+ * Spring Boot only reports readiness (ACCEPTING_TRAFFIC, see
+ * /actuator/health/readiness) once all ApplicationRunners have finished,
+ * so this runner simply does its work first: with a load balancer or
+ * Kubernetes readiness probe in front, no user request reaches the
+ * instance before the warm-up is over.
+ *
+ * Each iteration goes through the real HTTP stack on the local port, as
+ * a scratch user: token generation and parsing, create, list (plain and
+ * filtered/paged), get, patch, toggle and delete. Afterwards the scratch
+ * user and everything it created is removed; its changes never reach
+ * the outbox (see TodoEventPublisher.mute). Scratch users of a warm-up
+ * that never got to its clean-up (the process was killed) are removed
+ * by the next one, once they are older than twice the timeout - a
+ * younger one may belong to another instance still warming up.
+ *
+ * A failing warm-up is logged and otherwise ignored - a slow start is
+ * better than no start.
+ *
+ * Enabled with app.warmup.enabled=true - the prod profile turns it on;
+ * locally and in the tests the scratch users aren't worth it.
+ * WarmUpLatencyBenchmark measures what it buys.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.warmup.enabled", havingValue = "true")
+public class WarmUpRunner implements ApplicationRunner {
+
+    private final Environment environment;
+    private final JwtUtil jwtUtil;
+    private final ObjectMapper objectMapper;
+    private final TodoEventPublisher eventPublisher;
+    private final TodoPurgeService todoPurgeService;
+    private final TodoDailyStatsRepository statsRepository;
+    private final UserRepository userRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int iterations;
+    private final long timeoutMillis;
+
+    private final HttpClient http = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+
+    public WarmUpRunner(Environment environment,
+            JwtUtil jwtUtil,
+            ObjectMapper objectMapper,
+            TodoEventPublisher eventPublisher,
+            TodoPurgeService todoPurgeService,
+            TodoDailyStatsRepository statsRepository,
+            UserRepository userRepository,
+            PlatformTransactionManager transactionManager,
+            @Value("${app.warmup.iterations:300}") int iterations,
+            @Value("${app.warmup.timeout-seconds:60}") long timeoutSeconds) {
+        this.environment = environment;
+        this.jwtUtil = jwtUtil;
+        this.objectMapper = objectMapper;
+        this.eventPublisher = eventPublisher;
+        this.todoPurgeService = todoPurgeService;
+        this.statsRepository = statsRepository;
+        this.userRepository = userRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.iterations = iterations;
+        this.timeoutMillis = timeoutSeconds * 1000;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        String port = environment.getProperty("local.server.port");
+        if (port == null) {
+            log.info("Warm-up skipped: no web server");
+            return;
+        }
+        String baseUrl = "http://localhost:" + port;
+
+        removeLeftovers();
+
+        Long userId = null;
+        long started = System.nanoTime();
+        String name = "warmup_" + UUID.randomUUID().toString().replace("-", "").substring(0, 12);
+        try {
+            JsonNode auth = send(baseUrl, "POST", "/api/auth/register", null,
+                    "{\"username\":\"" + name + "\",\"email\":\"" + name + "@warmup.invalid\",\"password\":\""
+                            + UUID.randomUUID() + "\"}");
+            userId = jwtUtil.extractUserId(auth.get("token").asString());
+            eventPublisher.mute(userId);
+
+            long firstIteration = 0;
+            long lastIteration = 0;
+            int completed = 0;
+            for (int i = 0; i < iterations; i++) {
+                long iterationStarted = System.nanoTime();
+
+                String token = jwtUtil.generateToken(userId, name);
+                jwtUtil.extractAllClaims(token);
+                iteration(baseUrl, token, i);
+
+                lastIteration = System.nanoTime() - iterationStarted;
+                if (i == 0) {
+                    firstIteration = lastIteration;
+                }
+                completed++;
+                if ((System.nanoTime() - started) / 1_000_000 > timeoutMillis) {
+                    log.warn("Warm-up stopped after {} of {} iterations (timeout)", completed, iterations);
+                    break;
+                }
+            }
+
+            log.info("Warm-up: {} iterations in {} ms, first iteration {} ms, last {} ms",
+                    completed, (System.nanoTime() - started) / 1_000_000,
+                    firstIteration / 1_000_000, lastIteration / 1_000_000);
+        } catch (Exception e) {
+            log.warn("Warm-up failed, starting cold: {}", e.toString());
+        } finally {
+            if (userId != null) {
+                cleanUp(userId);
+            }
+        }
+    }
+
+    /** One round over the hot endpoints (about 8 requests) */
+    private void iteration(String baseUrl, String token, int i) throws Exception {
+        JsonNode created = send(baseUrl, "POST", "/api/todos", token,
+                "{\"title\":\"Warm-up " + i + "\",\"description\":\"scratch\",\"tags\":[\"warmup\"]}");
+        long id = created.get("id").asLong();
+
+        send(baseUrl, "GET", "/api/todos", token, null);
+        send(baseUrl, "GET", "/api/todos?q=completed:false,title:warm&sort=created:desc&size=20", token, null);
+        send(baseUrl, "GET", "/api/todos?tags=warmup", token, null);
+        send(baseUrl, "GET", "/api/todos/" + id, token, null);
+        send(baseUrl, "PATCH", "/api/todos/" + id, token, "{\"title\":\"Warm-up " + i + " (edited)\"}");
+        send(baseUrl, "PATCH", "/api/todos/" + id + "/toggle", token, null);
+        // Keep a few todos around so the list responses aren't trivially empty
+        if (i % 4 != 0) {
+            send(baseUrl, "DELETE", "/api/todos/" + id, token, null);
+        }
+    }
+
+    /** Remove scratch users that earlier warm-ups left behind */
+    private void removeLeftovers() {
+        List<Long> leftovers;
+        try {
+            leftovers = userRepository.findWarmUpUserIdsCreatedBefore(
+                    LocalDateTime.now().minus(Duration.ofMillis(timeoutMillis * 2)));
+        } catch (Exception e) {
+            log.warn("Warm-up could not look for leftover scratch users: {}", e.toString());
+            return;
+        }
+        for (Long userId : leftovers) {
+            log.info("Removing scratch user {} left behind by an earlier warm-up", userId);
+            cleanUp(userId);
+        }
+    }
+
+    /** Remove the scratch user and everything it created */
+    private void cleanUp(Long userId) {
+        // Muted already while it warmed up - not if an earlier run left it behind
+        eventPublisher.mute(userId);
+        try {
+            todoPurgeService.purgeTodosForUser(userId, deleted -> { });
+            transactionTemplate.executeWithoutResult(status -> {
+                statsRepository.deleteAllByUserIdInBulk(userId);
+                userRepository.deleteById(userId);
+            });
+        } catch (Exception e) {
+            log.warn("Warm-up clean-up of scratch user {} failed: {}", userId, e.toString());
+        } finally {
+            eventPublisher.unmute(userId);
+        }
+    }
+
+    private JsonNode send(String baseUrl, String method, String path, String token, String json) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder()
+                .uri(URI.create(baseUrl + path))
+                .timeout(Duration.ofSeconds(10))
+                .method(method, json == null
+                        ? HttpRequest.BodyPublishers.noBody()
+                        : HttpRequest.BodyPublishers.ofString(json))
+                .header("Content-Type", "application/json");
+        if (token != null) {
+            request.header("Authorization", "Bearer " + token);
+        }
+
+        HttpResponse<String> response = http.send(request.build(), HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() >= 300) {
+            throw new IllegalStateException(method + " " + path + " returned " + response.statusCode());
+        }
+        return response.body().isEmpty() ? null : objectMapper.readTree(response.body());
+    }
+}
@@ -1,9 +1,10 @@
 package com.apidev.Api.Development;
 
+import com.todoApi.TodoApiApplication;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
 
-@SpringBootTest
+@SpringBootTest(classes = TodoApiApplication.class)
 class ApiDevelopmentApplicationTests {
 
 	@Test
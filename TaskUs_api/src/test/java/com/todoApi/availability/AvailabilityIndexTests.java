@@ -0,0 +1,61 @@
+package com.todoApi.availability;
+
+import com.todoApi.TodoApiApplication;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Users registered by another instance (inserted behind this one's back)
+ * become "taken" here with the next sync, including one whose lower id
+ * commits after a higher one was already synced
+ */
+@SpringBootTest(classes = TodoApiApplication.class, properties = "app.availability.sync-interval-ms=3600000")
+class AvailabilityIndexTests {
+
+	@Autowired
+	private AvailabilityIndex availabilityIndex;
+
+	@Autowired
+	private JdbcTemplate jdbc;
+
+	@Test
+	void syncPicksUpUsersRegisteredElsewhere() {
+		insertUser("elsewhere_1", LocalDateTime.now());
+		assertFalse(availabilityIndex.isUsernameTaken("elsewhere_1"), "not synced yet: the filter rules it out");
+
+		availabilityIndex.sync();
+		assertTrue(availabilityIndex.isUsernameTaken("elsewhere_1"));
+		assertTrue(availabilityIndex.isEmailTaken("elsewhere_1@example.com"));
+	}
+
+	@Test
+	void syncRereadsRecentIdsThatCommitLate() {
+		// Two registrations in flight elsewhere: the higher id commits first
+		long low = jdbc.queryForObject("select coalesce(max(id), 0) from users", Long.class) + 100;
+		insertUser(low + 1, "late_high", LocalDateTime.now());
+		availabilityIndex.sync();
+
+		insertUser(low, "late_low", LocalDateTime.now());
+		availabilityIndex.sync();
+		assertTrue(availabilityIndex.isUsernameTaken("late_high"));
+		assertTrue(availabilityIndex.isUsernameTaken("late_low"));
+	}
+
+	private void insertUser(String username, LocalDateTime createdAt) {
+		jdbc.update("insert into users (username, email, password, created_at) values (?, ?, ?, ?)",
+				username, username + "@example.com", "not-a-hash", Timestamp.valueOf(createdAt));
+	}
+
+	private void insertUser(long id, String username, LocalDateTime createdAt) {
+		jdbc.update("insert into users (id, username, email, password, created_at) values (?, ?, ?, ?, ?)",
+				id, username, username + "@example.com", "not-a-hash", Timestamp.valueOf(createdAt));
+	}
+}
@@ -0,0 +1,40 @@
+package com.todoApi.availability;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * No false negatives, and a false-positive rate close to the target
+ */
+class BloomFilterTests {
+
+	@Test
+	void neverMissesAnAddedValue() {
+		BloomFilter filter = new BloomFilter(10_000, 0.01);
+		for (int i = 0; i < 10_000; i++) {
+			filter.add("user_" + i);
+		}
+		for (int i = 0; i < 10_000; i++) {
+			assertTrue(filter.mightContain("user_" + i), "user_" + i);
+		}
+	}
+
+	@Test
+	void falsePositiveRateStaysNearTheTarget() {
+		BloomFilter filter = new BloomFilter(10_000, 0.01);
+		for (int i = 0; i < 10_000; i++) {
+			filter.add("user_" + i + "@example.com");
+		}
+
+		int falsePositives = 0;
+		for (int i = 0; i < 100_000; i++) {
+			if (filter.mightContain("other_" + i + "@example.com")) {
+				falsePositives++;
+			}
+		}
+		double observed = falsePositives / 100_000.0;
+		assertTrue(observed < 0.02, "observed false-positive rate " + observed);
+		assertTrue(Math.abs(filter.estimatedFpp() - 0.01) < 0.005, "estimated " + filter.estimatedFpp());
+	}
+}
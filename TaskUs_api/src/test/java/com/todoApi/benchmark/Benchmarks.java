@@ -0,0 +1,102 @@
+package com.todoApi.benchmark;
+
+import com.todoApi.service.PositionKeys;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Helpers shared by the benchmarks in this package
+ *
+ * Rows are seeded with plain JDBC batches, not through the services, so
+ * a 100k-row table is ready in seconds and seeding doesn't warm the
+ * caches being measured.
+ */
+final class Benchmarks {
+
+    /** Rows per JDBC batch while seeding */
+    private static final int SEED_BATCH = 5_000;
+
+    private Benchmarks() {
+    }
+
+    /** Benchmark size, overridable with -Dbenchmark.rows=... */
+    static int rows(int defaultRows) {
+        return Integer.getInteger("benchmark.rows", defaultRows);
+    }
+
+    /** Insert a user, return its id */
+    static long createUser(JdbcTemplate jdbc) {
+        String name = "bench_" + UUID.randomUUID().toString().substring(0, 8);
+        jdbc.update("insert into users (username, email, password, created_at) values (?, ?, ?, ?)",
+                name, name + "@example.com", "not-a-hash", Timestamp.valueOf(LocalDateTime.now()));
+        return jdbc.queryForObject("select id from users where username = ?", Long.class, name);
+    }
+
+    /**
+     * Insert todos for a user, in position order
+     *
+     * @param completedEvery Every n-th todo is completed (0 = none)
+     * @param completedAt    completed_at of the completed ones
+     * @return The new todos' ids, in position order
+     */
+    static List<Long> insertTodos(JdbcTemplate jdbc, long userId, int count, int completedEvery,
+            LocalDateTime completedAt) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        Timestamp done = Timestamp.valueOf(completedAt);
+        for (int from = 0; from < count; from += SEED_BATCH) {
+            List<Object[]> batch = new ArrayList<>();
+            for (int i = from; i < Math.min(from + SEED_BATCH, count); i++) {
+                boolean completed = completedEvery > 0 && i % completedEvery == 0;
+                batch.add(new Object[] { userId, "Todo " + i, "Seeded for a benchmark", completed,
+                        completed ? done : null, PositionKeys.nth(i), now, now });
+            }
+            jdbc.batchUpdate("insert into todos (user_id, title, description, completed, completion_from_items, "
+                    + "completed_at, position, created_at, updated_at, version) "
+                    + "values (?, ?, ?, ?, false, ?, ?, ?, ?, 0)", batch);
+        }
+        return jdbc.queryForList("select id from todos where user_id = ? order by position", Long.class, userId);
+    }
+
+    /** Insert one tag row per (todo, tag) */
+    static void insertTags(JdbcTemplate jdbc, List<Long> todoIds, List<List<String>> tagsPerTodo) {
+        List<Object[]> batch = new ArrayList<>();
+        for (int i = 0; i < todoIds.size(); i++) {
+            for (String tag : tagsPerTodo.get(i)) {
+                batch.add(new Object[] { todoIds.get(i), tag });
+                if (batch.size() == SEED_BATCH) {
+                    jdbc.batchUpdate("insert into todo_tags (todo_id, tag) values (?, ?)", batch);
+                    batch.clear();
+                }
+            }
+        }
+        if (!batch.isEmpty()) {
+            jdbc.batchUpdate("insert into todo_tags (todo_id, tag) values (?, ?)", batch);
+        }
+    }
+
+    /** Milliseconds since a System.nanoTime() reading */
+    static double millisSince(long startedNanos) {
+        return (System.nanoTime() - startedNanos) / 1_000_000.0;
+    }
+
+    /** p50 / p99 / max of per-operation timings in nanoseconds, as a printable line */
+    static String percentiles(long[] nanos) {
+        long[] sorted = nanos.clone();
+        Arrays.sort(sorted);
+        return String.format("p50 %.3f ms, p99 %.3f ms, max %.3f ms",
+                sorted[sorted.length / 2] / 1e6,
+                sorted[(int) Math.min(sorted.length - 1, Math.ceil(sorted.length * 0.99) - 1)] / 1e6,
+                sorted[sorted.length - 1] / 1e6);
+    }
+
+    /** Print one result line, aligned */
+    static void report(String name, String result) {
+        System.out.printf("%-40s %s%n", name, result);
+    }
+}
@@ -0,0 +1,188 @@
+package com.todoApi.benchmark;
+
+import com.todoApi.TodoApiApplication;
+import com.todoApi.embedded.EmbeddedTodoRepository;
+import com.todoApi.embedded.EmbeddedUserRepository;
+import com.todoApi.model.Todo;
+import com.todoApi.model.User;
+import com.todoApi.repository.TodoRepository;
+import com.todoApi.repository.UserRepository;
+import com.todoApi.service.PositionKeys;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.IntConsumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Todos in H2 through JPA vs. in the embedded store (app.storage=embedded),
+ * through the same TodoRepository calls the services make, one transaction
+ * per operation: insert, get by id, read-modify-write update and one
+ * user's list of 1000.
+ *
+ * Then 8 threads inserting at once, with the commits the embedded store
+ * got per fsync of its log (group commit). The H2 database here is in
+ * memory and never syncs - the store's numbers include an fsync per batch.
+ *
+ *   mvn -Pbenchmark test -Dtest=EmbeddedStoreBenchmark [-Dbenchmark.rows=1000]
+ */
+@SpringBootTest(classes = TodoApiApplication.class,
+		properties = {
+				"app.warmup.enabled=false",
+				"app.sql-budget.strict=false",
+				"app.storage=embedded",
+				"app.embedded.dir=target/embedded-benchmark/${random.uuid}",
+				"app.archive.enabled=false" })
+class EmbeddedStoreBenchmark {
+
+	private static final int THREADS = 8;
+	private static final int INSERTS_PER_THREAD = 1_000;
+	private static final int LISTS = 200;
+
+	@Autowired
+	@Qualifier("todoRepository")
+	private TodoRepository jpaTodos;
+
+	@Autowired
+	@Qualifier("userRepository")
+	private UserRepository jpaUsers;
+
+	@Autowired
+	private EmbeddedTodoRepository embeddedTodos;
+
+	@Autowired
+	private EmbeddedUserRepository embeddedUsers;
+
+	@Autowired
+	private JdbcTemplate jdbc;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@Test
+	void jpaVersusEmbedded() throws Exception {
+		int rows = Benchmarks.rows(1_000);
+		TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+
+		User jpaUser = jpaUsers.findById(Benchmarks.createUser(jdbc)).orElseThrow();
+		User embeddedUser = new User();
+		embeddedUser.setUsername(jpaUser.getUsername());
+		embeddedUser.setEmail(jpaUser.getEmail());
+		embeddedUser.setPassword("not-a-hash");
+		embeddedUsers.save(embeddedUser);
+
+		System.out.printf("%n%d todos per user, one transaction per operation%n", rows);
+		List<Long> jpaIds = new ArrayList<>();
+		List<Long> embeddedIds = new ArrayList<>();
+		time("insert, JPA", 0, rows, i -> jpaIds.add(transaction.execute(status ->
+				jpaTodos.save(todo(jpaUser, i)).getId())));
+		time("insert, embedded", 0, rows, i -> embeddedIds.add(transaction.execute(status ->
+				embeddedTodos.save(todo(embeddedUser, i)).getId())));
+
+		time("get by id, JPA", rows, rows, i -> transaction.execute(status ->
+				jpaTodos.findById(jpaIds.get(i % rows)).orElseThrow()));
+		time("get by id, embedded", rows, rows, i -> transaction.execute(status ->
+				embeddedTodos.findById(embeddedIds.get(i % rows)).orElseThrow()));
+
+		time("update, JPA", rows, rows, i -> transaction.executeWithoutResult(status ->
+				rename(jpaTodos, jpaIds.get(i % rows))));
+		time("update, embedded", rows, rows, i -> transaction.executeWithoutResult(status ->
+				rename(embeddedTodos, embeddedIds.get(i % rows))));
+
+		assertEquals(rows, jpaTodos.findByUser_IdOrderByPositionAsc(jpaUser.getId()).size());
+		assertEquals(rows, embeddedTodos.findByUser_IdOrderByPositionAsc(embeddedUser.getId()).size());
+		// Touch the table between lists, or H2 answers from its cache of the identical query
+		time("list of " + rows + ", JPA", LISTS, LISTS,
+				i -> jdbc.update("update todos set version = version where id = ?", jpaIds.get(i % rows)),
+				i -> transaction.execute(status -> jpaTodos.findByUser_IdOrderByPositionAsc(jpaUser.getId())));
+		time("list of " + rows + ", embedded", LISTS, LISTS, i -> transaction.execute(status ->
+				embeddedTodos.findByUser_IdOrderByPositionAsc(embeddedUser.getId())));
+
+		System.out.printf("%n%d threads inserting %d todos each%n", THREADS, INSERTS_PER_THREAD);
+		concurrentInserts("JPA", transaction, jpaTodos, jpaUser);
+		double batches = meterRegistry.counter("embedded.wal.batches").count();
+		concurrentInserts("embedded", transaction, embeddedTodos, embeddedUser);
+		batches = meterRegistry.counter("embedded.wal.batches").count() - batches;
+		Benchmarks.report("commits per fsync, embedded", String.format("%.1f (%d commits, %.0f fsyncs)",
+				THREADS * INSERTS_PER_THREAD / batches, THREADS * INSERTS_PER_THREAD, batches));
+	}
+
+	private void concurrentInserts(String name, TransactionTemplate transaction, TodoRepository todos, User user)
+			throws Exception {
+		ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+		try {
+			long started = System.nanoTime();
+			List<Future<?>> workers = new ArrayList<>();
+			for (int t = 0; t < THREADS; t++) {
+				int thread = t;
+				workers.add(pool.submit(() -> {
+					for (int i = 0; i < INSERTS_PER_THREAD; i++) {
+						int n = 1_000_000 + thread * INSERTS_PER_THREAD + i;
+						transaction.execute(status -> todos.save(todo(user, n)));
+					}
+				}));
+			}
+			for (Future<?> worker : workers) {
+				worker.get();
+			}
+			double millis = Benchmarks.millisSince(started);
+			Benchmarks.report("inserts, " + name, String.format("%.0f commits/s (%.0f ms)",
+					THREADS * INSERTS_PER_THREAD / (millis / 1000), millis));
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	private static void rename(TodoRepository todos, Long id) {
+		Todo todo = todos.findById(id).orElseThrow();
+		todo.setTitle(todo.getTitle() + "'");
+		todos.save(todo);
+	}
+
+	private static Todo todo(User user, int n) {
+		Todo todo = new Todo();
+		todo.setUser(user);
+		todo.setTitle("Todo " + n);
+		todo.setDescription("Seeded for a benchmark");
+		todo.setCompleted(false);
+		todo.setCompletionFromItems(false);
+		todo.setPosition(PositionKeys.nth(n));
+		return todo;
+	}
+
+	private static void time(String name, int warmup, int runs, IntConsumer operation) {
+		time(name, warmup, runs, i -> {
+		}, operation);
+	}
+
+	/** Run an operation warmup times, then time it runs times - each time after an untimed step */
+	private static void time(String name, int warmup, int runs, IntConsumer untimed, IntConsumer operation) {
+		for (int i = 0; i < warmup; i++) {
+			untimed.accept(i);
+			operation.accept(i);
+		}
+		long[] nanos = new long[runs];
+		for (int i = 0; i < runs; i++) {
+			untimed.accept(warmup + i);
+			long started = System.nanoTime();
+			operation.accept(warmup + i);
+			nanos[i] = System.nanoTime() - started;
+		}
+		Benchmarks.report(name, Benchmarks.percentiles(nanos));
+	}
+}
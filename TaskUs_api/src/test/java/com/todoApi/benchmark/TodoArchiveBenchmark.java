@@ -0,0 +1,94 @@
+package com.todoApi.benchmark;
+
+import com.todoApi.TodoApiApplication;
+import com.todoApi.model.Todo;
+import com.todoApi.service.TodoArchiver;
+import com.todoApi.service.TodoService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Hot-query latency before and after archiving: a user with 100k todos,
+ * 80% of them completed 200 days ago. The list queries behind
+ * GET /api/todos (all, and ?completed=false) are timed, then
+ * TodoArchiver moves the old completed ones out and they are timed again.
+ *
+ *   mvn -Pbenchmark test -Dtest=TodoArchiveBenchmark [-Dbenchmark.rows=100000]
+ */
+@SpringBootTest(classes = TodoApiApplication.class, properties = {
+		"app.warmup.enabled=false",
+		"app.sql-budget.strict=false",
+		"app.archive.enabled=true",
+		"app.archive.initial-delay-ms=86400000",
+		"app.archive.chunk-size=1000",
+		"app.archive.max-chunks-per-run=1000",
+		"app.archive.pause-ms=0" })
+class TodoArchiveBenchmark {
+
+	private static final int RUNS = 20;
+
+	@Autowired
+	private JdbcTemplate jdbc;
+
+	@Autowired
+	private TodoService todoService;
+
+	@Autowired
+	private TodoArchiver todoArchiver;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	private long otherTodo;
+
+	@Test
+	void hotQueriesBeforeAndAfterArchiving() {
+		int rows = Benchmarks.rows(100_000);
+		long userId = Benchmarks.createUser(jdbc);
+		Benchmarks.insertTodos(jdbc, userId, rows, 1, LocalDateTime.now().minusDays(200));
+		// Every 5th todo is still open
+		int open = jdbc.update("update todos set completed = false, completed_at = null "
+				+ "where user_id = ? and mod(id, 5) = 0", userId);
+		otherTodo = Benchmarks.insertTodos(jdbc, Benchmarks.createUser(jdbc), 1, 0, LocalDateTime.now()).get(0);
+
+		System.out.printf("%nUser with %d todos, %d of them completed 200 days ago%n", rows, rows - open);
+		time("before: all todos", () -> todoService.getAllTodosForUser(userId));
+		time("before: completed=false", () -> todoService.getIncompleteTodosForUser(userId));
+
+		long started = System.nanoTime();
+		todoArchiver.archive();
+		Benchmarks.report("archiving", String.format("%.0f ms", Benchmarks.millisSince(started)));
+		assertEquals(open, jdbc.queryForObject("select count(*) from todos where user_id = ?", Long.class, userId));
+
+		time("after: all todos", () -> todoService.getAllTodosForUser(userId));
+		time("after: completed=false", () -> todoService.getIncompleteTodosForUser(userId));
+	}
+
+	private void time(String name, Supplier<List<Todo>> query) {
+		TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+		readOnly.setReadOnly(true);
+		long[] nanos = new long[RUNS];
+		int size = 0;
+		for (int i = 0; i < RUNS + 3; i++) {
+			// H2 hands back the previous result of an identical query while
+			// its tables are unchanged - a write in between makes it run again
+			jdbc.update("update todos set version = version + 1 where id = ?", otherTodo);
+			long start = System.nanoTime();
+			size = readOnly.execute(status -> query.get()).size();
+			if (i >= 3) {
+				nanos[i - 3] = System.nanoTime() - start;
+			}
+		}
+		Benchmarks.report(name, String.format("%s (%d rows)", Benchmarks.percentiles(nanos), size));
+	}
+}
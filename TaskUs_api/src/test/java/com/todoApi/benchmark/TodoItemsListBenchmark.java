@@ -0,0 +1,156 @@
+package com.todoApi.benchmark;
+
+import com.todoApi.TodoApiApplication;
+import com.todoApi.repository.TodoItemRepository;
+import com.todoApi.service.TodoItemService;
+import com.todoApi.sqlbudget.StatementCounter;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.ObjectMapper;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntConsumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Lists with embedded checklist items: 10k todos with 5 items each,
+ * read in pages of 100.
+ *
+ * Over HTTP: GET /api/todos?size=100&page=n with and without
+ * include=items. In process: the items of one page loaded the way
+ * include=items does (TodoItemService.getItemsByTodo, one query) vs.
+ * one query per todo, with the statements each costs.
+ *
+ *   mvn -Pbenchmark test -Dtest=TodoItemsListBenchmark [-Dbenchmark.rows=10000]
+ */
+@SpringBootTest(classes = TodoApiApplication.class, webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+		properties = {
+				"app.warmup.enabled=false",
+				"app.sql-budget.strict=false" })
+class TodoItemsListBenchmark {
+
+	private static final int ITEMS_PER_TODO = 5;
+	private static final int PAGE_SIZE = 100;
+	private static final int WARMUP = 100;
+	private static final int REQUESTS = 500;
+
+	@Autowired
+	private Environment environment;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Autowired
+	private JdbcTemplate jdbc;
+
+	@Autowired
+	private TodoItemService todoItemService;
+
+	@Autowired
+	private TodoItemRepository todoItemRepository;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	private final HttpClient http = HttpClient.newHttpClient();
+
+	@Test
+	void pagesOf100TodosWithItems() throws Exception {
+		int rows = Benchmarks.rows(10_000);
+		String token = objectMapper.readTree(send("POST", "/api/auth/register", null,
+				"{\"username\":\"items_bench\",\"email\":\"items_bench@example.com\",\"password\":\"password123\"}"))
+				.get("token").asString();
+		long userId = jdbc.queryForObject("select id from users where username = 'items_bench'", Long.class);
+		List<Long> ids = Benchmarks.insertTodos(jdbc, userId, rows, 0, LocalDateTime.now());
+		insertItems(ids);
+		int pages = rows / PAGE_SIZE;
+
+		JsonNode page = objectMapper.readTree(send("GET", "/api/todos?size=100&page=1&include=items", token, null));
+		assertEquals(PAGE_SIZE, page.size());
+		assertEquals(ITEMS_PER_TODO, page.get(0).get("items").size());
+
+		System.out.printf("%n%d todos with %d items each, pages of %d%n", rows, ITEMS_PER_TODO, PAGE_SIZE);
+		time("GET page", i -> send("GET", "/api/todos?size=100&page=" + i % pages, token, null));
+		time("GET page, include=items", i -> send("GET", "/api/todos?size=100&page=" + i % pages + "&include=items",
+				token, null));
+
+		TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+		readOnly.setReadOnly(true);
+		int[] statements = new int[2];
+		time("items of a page, one query", i -> {
+			List<Long> pageIds = ids.subList(i % pages * PAGE_SIZE, (i % pages + 1) * PAGE_SIZE);
+			StatementCounter.start();
+			readOnly.execute(status -> todoItemService.getItemsByTodo(pageIds));
+			statements[0] = StatementCounter.stop().count();
+		});
+		time("items of a page, query per todo", i -> {
+			List<Long> pageIds = ids.subList(i % pages * PAGE_SIZE, (i % pages + 1) * PAGE_SIZE);
+			StatementCounter.start();
+			readOnly.execute(status -> {
+				pageIds.forEach(todoItemRepository::findByTodo_IdOrderByPositionAscIdAsc);
+				return null;
+			});
+			statements[1] = StatementCounter.stop().count();
+		});
+		Benchmarks.report("statements per page", String.format("%d with one query, %d with a query per todo",
+				statements[0], statements[1]));
+	}
+
+	private static void time(String name, IntConsumer request) {
+		for (int i = 0; i < WARMUP; i++) {
+			request.accept(i);
+		}
+		long[] nanos = new long[REQUESTS];
+		for (int i = 0; i < REQUESTS; i++) {
+			long started = System.nanoTime();
+			request.accept(i);
+			nanos[i] = System.nanoTime() - started;
+		}
+		Benchmarks.report(name, Benchmarks.percentiles(nanos));
+	}
+
+	private void insertItems(List<Long> todoIds) {
+		Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+		List<Object[]> batch = new ArrayList<>();
+		for (Long todoId : todoIds) {
+			for (int i = 0; i < ITEMS_PER_TODO; i++) {
+				batch.add(new Object[] { todoId, "Item " + i, i % 2 == 0, i, now, now });
+			}
+		}
+		jdbc.batchUpdate("insert into todo_items (todo_id, title, done, position, created_at, updated_at) "
+				+ "values (?, ?, ?, ?, ?, ?)", batch);
+	}
+
+	private String send(String method, String path, String token, String json) {
+		HttpRequest.Builder request = HttpRequest.newBuilder()
+				.uri(URI.create("http://localhost:" + environment.getProperty("local.server.port") + path))
+				.method(method, json == null
+						? HttpRequest.BodyPublishers.noBody()
+						: HttpRequest.BodyPublishers.ofString(json))
+				.header("Content-Type", "application/json");
+		if (token != null) {
+			request.header("Authorization", "Bearer " + token);
+		}
+		try {
+			HttpResponse<String> response = http.send(request.build(), HttpResponse.BodyHandlers.ofString());
+			assertEquals(method.equals("POST") ? 201 : 200, response.statusCode(), () -> path + ": " + response.body());
+			return response.body();
+		} catch (Exception e) {
+			throw new IllegalStateException(method + " " + path, e);
+		}
+	}
+}
@@ -0,0 +1,124 @@
+package com.todoApi.benchmark;
+
+import com.todoApi.TodoApiApplication;
+import com.todoApi.jsoncache.TodoJsonCache;
+import com.todoApi.model.Todo;
+import com.todoApi.service.TodoService;
+import org.hibernate.Hibernate;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+/**
+ * Serializing a list of 1000 unchanged todos: the cached fragments
+ * (TodoJsonCache, written to the output stream as GET /api/todos does)
+ * vs. plain Jackson on the same entities, per request.
+ *
+ * Reports wall-clock percentiles, CPU time and bytes allocated by the
+ * serializing thread (com.sun.management.ThreadMXBean). Both produce
+ * the same bytes (checked); loading the todos is not timed, and both
+ * write to a discarding stream in place of the response.
+ *
+ *   mvn -Pbenchmark test -Dtest=TodoJsonCacheBenchmark [-Dbenchmark.rows=1000]
+ */
+@SpringBootTest(classes = TodoApiApplication.class, properties = {
+		"app.warmup.enabled=false",
+		"app.sql-budget.strict=false" })
+class TodoJsonCacheBenchmark {
+
+	private static final int WARMUP = 500;
+	private static final int REQUESTS = 2_000;
+
+	@Autowired
+	private JdbcTemplate jdbc;
+
+	@Autowired
+	private TodoService todoService;
+
+	@Autowired
+	private TodoJsonCache todoJsonCache;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@Test
+	void cachedFragmentsVsJackson() throws IOException {
+		int rows = Benchmarks.rows(1_000);
+		long userId = Benchmarks.createUser(jdbc);
+		List<Long> ids = Benchmarks.insertTodos(jdbc, userId, rows, 3, LocalDateTime.now());
+		Benchmarks.insertTags(jdbc, ids, Collections.nCopies(rows, List.of("work", "urgent")));
+
+		List<Todo> todos = new TransactionTemplate(transactionManager).execute(status -> {
+			List<Todo> loaded = todoService.getAllTodosForUser(userId);
+			loaded.forEach(todo -> Hibernate.initialize(todo.getTags()));
+			return loaded;
+		});
+
+		Serializer cached = out -> TodoJsonCache.writeArray(todoJsonCache.fragments(todos), out);
+		Serializer jackson = out -> objectMapper.writeValue(out, todos);
+		assertArrayEquals(bytes(jackson), bytes(cached));
+
+		System.out.printf("%nSerializing a list of %d unchanged todos, %d requests%n", rows, REQUESTS);
+		run("cached fragments (TodoJsonCache)", cached);
+		run("plain Jackson", jackson);
+	}
+
+	private static void run(String name, Serializer serializer) throws IOException {
+		// Like the servlet response, not closed by Jackson (OutputStream.nullOutputStream() would be)
+		OutputStream discard = new OutputStream() {
+			@Override
+			public void write(int b) {
+			}
+
+			@Override
+			public void write(byte[] b, int off, int len) {
+			}
+		};
+		for (int i = 0; i < WARMUP; i++) {
+			serializer.writeTo(discard);
+		}
+
+		com.sun.management.ThreadMXBean threads =
+				(com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		long[] nanos = new long[REQUESTS];
+		long cpuBefore = threads.getCurrentThreadCpuTime();
+		long allocatedBefore = threads.getCurrentThreadAllocatedBytes();
+		for (int i = 0; i < REQUESTS; i++) {
+			long started = System.nanoTime();
+			serializer.writeTo(discard);
+			nanos[i] = System.nanoTime() - started;
+		}
+		double cpuMicros = (threads.getCurrentThreadCpuTime() - cpuBefore) / 1_000.0 / REQUESTS;
+		double allocatedKb = (threads.getCurrentThreadAllocatedBytes() - allocatedBefore) / 1_024.0 / REQUESTS;
+
+		Benchmarks.report(name, String.format("%s, CPU %.0f us, allocated %.0f KB per request",
+				Benchmarks.percentiles(nanos), cpuMicros, allocatedKb));
+	}
+
+	private static byte[] bytes(Serializer serializer) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		serializer.writeTo(out);
+		return out.toByteArray();
+	}
+
+	private interface Serializer {
+		void writeTo(OutputStream out) throws IOException;
+	}
+}
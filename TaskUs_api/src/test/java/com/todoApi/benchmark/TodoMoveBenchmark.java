@@ -0,0 +1,79 @@
+package com.todoApi.benchmark;
+
+import com.todoApi.TodoApiApplication;
+import com.todoApi.service.TodoService;
+import com.todoApi.sqlbudget.StatementCounter;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 10k random moves (PATCH /api/todos/{id}/move) in a list of 1000 todos
+ *
+ * Reports per-move latency and statements, the longest position key
+ * afterwards, and - for comparison - how many rows an integer position
+ * column would have rewritten for the same moves (every todo between
+ * the old and the new place shifts by one).
+ *
+ *   mvn -Pbenchmark test -Dtest=TodoMoveBenchmark [-Dbenchmark.rows=1000]
+ */
+@SpringBootTest(classes = TodoApiApplication.class, properties = {
+		"app.warmup.enabled=false",
+		"app.sql-budget.strict=false" })
+class TodoMoveBenchmark {
+
+	private static final int MOVES = 10_000;
+
+	@Autowired
+	private JdbcTemplate jdbc;
+
+	@Autowired
+	private TodoService todoService;
+
+	@Test
+	void tenThousandRandomMoves() {
+		int rows = Benchmarks.rows(1_000);
+		long userId = Benchmarks.createUser(jdbc);
+		List<Long> order = new ArrayList<>(Benchmarks.insertTodos(jdbc, userId, rows, 0, LocalDateTime.now()));
+
+		Random random = new Random(42);
+		long[] nanos = new long[MOVES];
+		long statements = 0;
+		long integerRewrites = 0;
+		for (int i = 0; i < MOVES; i++) {
+			int from = random.nextInt(rows);
+			Long todoId = order.remove(from);
+			int to = random.nextInt(rows);
+			Long afterId = to == 0 ? null : order.get(to - 1);
+			order.add(to, todoId);
+			integerRewrites += Math.abs(to - from) + 1;
+
+			StatementCounter.start();
+			long started = System.nanoTime();
+			todoService.moveTodo(todoId, userId, afterId);
+			nanos[i] = System.nanoTime() - started;
+			statements += StatementCounter.stop().count();
+		}
+
+		// The database order must be the order the moves asked for
+		assertEquals(order, jdbc.queryForList(
+				"select id from todos where user_id = ? order by position", Long.class, userId));
+		Integer longestKey = jdbc.queryForObject(
+				"select max(length(position)) from todos where user_id = ?", Integer.class, userId);
+
+		System.out.printf("%n%d random moves in a list of %d todos%n", MOVES, rows);
+		Benchmarks.report("move latency", Benchmarks.percentiles(nanos));
+		Benchmarks.report("statements per move", String.format("%.1f (1 todo row updated)", (double) statements / MOVES));
+		Benchmarks.report("longest position key afterwards", longestKey + " chars");
+		Benchmarks.report("integer positions would rewrite", String.format(
+				"%d rows (%.0f per move)", integerRewrites, (double) integerRewrites / MOVES));
+	}
+}
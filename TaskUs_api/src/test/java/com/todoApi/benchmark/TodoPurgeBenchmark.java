@@ -0,0 +1,116 @@
+package com.todoApi.benchmark;
+
+import com.todoApi.TodoApiApplication;
+import com.todoApi.model.Todo;
+import com.todoApi.service.TodoPurgeService;
+import com.todoApi.sqlbudget.StatementCounter;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Purging a user with 100k todos (2 tags each): chunked set-based delete
+ * (TodoPurgeService) vs. what the derived deleteByUser_Id() did - load
+ * every Todo, then remove() them one by one in a single transaction.
+ *
+ * Reports wall time, the longest transaction (how long locks are held),
+ * statements prepared (what @StatementBudget counts - a JDBC batch of
+ * single-row deletes is one) and rows deleted one by one. History is off: the
+ * purge would also write 100k history records, the entity delete none.
+ *
+ *   mvn -Pbenchmark test -Dtest=TodoPurgeBenchmark [-Dbenchmark.rows=100000]
+ *
+ * Runs on the in-memory H2 of the test profile; pass spring.datasource.*
+ * on the command line to measure against a scratch PostgreSQL database
+ * (the test profile creates and drops the schema).
+ */
+@SpringBootTest(classes = TodoApiApplication.class, properties = {
+		"app.warmup.enabled=false",
+		"app.sql-budget.strict=false",
+		"app.history.enabled=false",
+		"spring.jpa.properties.hibernate.generate_statistics=true" })
+class TodoPurgeBenchmark {
+
+	@Autowired
+	private JdbcTemplate jdbc;
+
+	@Autowired
+	private TodoPurgeService todoPurgeService;
+
+	@Autowired
+	private EntityManager entityManager;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Test
+	void purge100kTodos() {
+		int rows = Benchmarks.rows(100_000);
+		List<List<String>> tags = Collections.nCopies(rows, List.of("work", "urgent"));
+
+		long chunkedUser = Benchmarks.createUser(jdbc);
+		Benchmarks.insertTags(jdbc, Benchmarks.insertTodos(jdbc, chunkedUser, rows, 0, LocalDateTime.now()), tags);
+		long entityUser = Benchmarks.createUser(jdbc);
+		Benchmarks.insertTags(jdbc, Benchmarks.insertTodos(jdbc, entityUser, rows, 0, LocalDateTime.now()), tags);
+
+		Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+		// Progress is reported after each committed chunk: the gaps are the transactions
+		AtomicInteger chunks = new AtomicInteger();
+		AtomicLong lastCommit = new AtomicLong(System.nanoTime());
+		AtomicLong longestChunk = new AtomicLong();
+		statistics.clear();
+		StatementCounter.start();
+		long started = lastCommit.get();
+		long deleted = todoPurgeService.purgeTodosForUser(chunkedUser, total -> {
+			long now = System.nanoTime();
+			longestChunk.accumulateAndGet(now - lastCommit.getAndSet(now), Math::max);
+			chunks.incrementAndGet();
+		});
+		double chunkedMillis = Benchmarks.millisSince(started);
+		int chunkedStatements = StatementCounter.stop().count();
+		long chunkedRowDeletes = statistics.getEntityDeleteCount() + statistics.getCollectionRemoveCount();
+		assertEquals(rows, deleted);
+
+		statistics.clear();
+		StatementCounter.start();
+		started = System.nanoTime();
+		new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+			List<Todo> todos = entityManager
+					.createQuery("select t from Todo t where t.user.id = :userId", Todo.class)
+					.setParameter("userId", entityUser)
+					.getResultList();
+			todos.forEach(entityManager::remove);
+		});
+		double entityMillis = Benchmarks.millisSince(started);
+		int entityStatements = StatementCounter.stop().count();
+		long entityRowDeletes = statistics.getEntityDeleteCount() + statistics.getCollectionRemoveCount();
+		assertEquals(0, jdbc.queryForObject("select count(*) from todos where user_id = ?", Long.class, entityUser));
+
+		System.out.printf("%nPurge of %d todos (%d tag rows)%n", rows, rows * 2);
+		Benchmarks.report("chunked set-based (TodoPurgeService)", String.format(
+				"%8.0f ms total, %d transactions, longest %6.0f ms, %6d prepared, %6d row-by-row deletes",
+				chunkedMillis, chunks.get(), longestChunk.get() / 1e6, chunkedStatements, chunkedRowDeletes));
+		Benchmarks.report("load + remove() each (deleteByUser_Id)", String.format(
+				"%8.0f ms total, 1 transaction,    longest %6.0f ms, %6d prepared, %6d row-by-row deletes",
+				entityMillis, entityMillis, entityStatements, entityRowDeletes));
+	}
+}
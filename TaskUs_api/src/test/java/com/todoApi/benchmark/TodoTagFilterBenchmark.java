@@ -0,0 +1,131 @@
+package com.todoApi.benchmark;
+
+import com.todoApi.TodoApiApplication;
+import com.todoApi.tags.TagFilter;
+import com.todoApi.tags.TagIndex;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Tag filter latency at 100k todos and 50 tags: the per-user bitmaps
+ * (TagIndex) vs. the SQL they replace - one EXISTS subquery on
+ * todo_tags per tag, AND-ed inside a group and OR-ed across groups.
+ *
+ * Each todo gets 3 random tags out of 50, every 3rd is completed. Both
+ * sides return the same ids (checked); only the id lookup is timed,
+ * loading the matching Todo rows costs the same either way.
+ *
+ *   mvn -Pbenchmark test -Dtest=TodoTagFilterBenchmark [-Dbenchmark.rows=100000]
+ */
+@SpringBootTest(classes = TodoApiApplication.class, properties = {
+		"app.warmup.enabled=false",
+		"app.sql-budget.strict=false" })
+class TodoTagFilterBenchmark {
+
+	private static final int TAGS = 50;
+	private static final int TAGS_PER_TODO = 3;
+	private static final int INDEX_RUNS = 1_000;
+	private static final int SQL_RUNS = 20;
+
+	private static final List<String> FILTERS = List.of(
+			"tag_1",
+			"tag_1,tag_2",
+			"tag_1,tag_2|tag_3",
+			"tag_1,tag_2|tag_3,tag_4|tag_5,tag_6|tag_7,tag_8|tag_9,tag_10");
+
+	@Autowired
+	private JdbcTemplate jdbc;
+
+	@Autowired
+	private TagIndex tagIndex;
+
+	@Test
+	void filter100kTodosOn50Tags() {
+		int rows = Benchmarks.rows(100_000);
+		long userId = Benchmarks.createUser(jdbc);
+		List<Long> ids = Benchmarks.insertTodos(jdbc, userId, rows, 3, LocalDateTime.now());
+		Random random = new Random(42);
+		List<List<String>> tags = new ArrayList<>();
+		for (int i = 0; i < rows; i++) {
+			Set<String> todoTags = new LinkedHashSet<>();
+			while (todoTags.size() < TAGS_PER_TODO) {
+				todoTags.add("tag_" + random.nextInt(TAGS));
+			}
+			tags.add(List.copyOf(todoTags));
+		}
+		Benchmarks.insertTags(jdbc, ids, tags);
+
+		// Another user's todo, written between SQL runs (see below)
+		long other = Benchmarks.insertTodos(jdbc, Benchmarks.createUser(jdbc), 1, 0, LocalDateTime.now()).get(0);
+
+		long started = System.nanoTime();
+		tagIndex.match(userId, TagFilter.parse("tag_0"), null);
+		double buildMillis = Benchmarks.millisSince(started);
+
+		System.out.printf("%nTag filters over %d todos, %d tags (%d per todo)%n", rows, TAGS, TAGS_PER_TODO);
+		Benchmarks.report("index build (first filtered request)", String.format("%.0f ms", buildMillis));
+		for (String expression : FILTERS) {
+			for (Boolean completed : new Boolean[] { null, false }) {
+				TagFilter filter = TagFilter.parse(expression);
+				List<Long> matched = tagIndex.match(userId, filter, completed);
+				List<Long> fromSql = sql(userId, filter, completed);
+				assertEquals(new HashSet<>(fromSql), new HashSet<>(matched), expression);
+
+				long[] indexNanos = new long[INDEX_RUNS];
+				for (int i = 0; i < INDEX_RUNS; i++) {
+					long start = System.nanoTime();
+					tagIndex.match(userId, filter, completed);
+					indexNanos[i] = System.nanoTime() - start;
+				}
+				long[] sqlNanos = new long[SQL_RUNS];
+				for (int i = 0; i < SQL_RUNS; i++) {
+					// H2 hands back the previous result of an identical query while
+					// its tables are unchanged - a write in between makes it run again
+					jdbc.update("update todos set version = version + 1 where id = ?", other);
+					long start = System.nanoTime();
+					sql(userId, filter, completed);
+					sqlNanos[i] = System.nanoTime() - start;
+				}
+
+				System.out.printf("%s%s -> %d todos%n", expression,
+						completed == null ? "" : " completed=" + completed, matched.size());
+				Benchmarks.report("  bitmaps (TagIndex)", Benchmarks.percentiles(indexNanos));
+				Benchmarks.report("  SQL, EXISTS per tag", Benchmarks.percentiles(sqlNanos));
+			}
+		}
+	}
+
+	/** The ids the filter matches, in SQL */
+	private List<Long> sql(long userId, TagFilter filter, Boolean completed) {
+		List<Object> args = new ArrayList<>();
+		args.add(userId);
+		List<String> groups = new ArrayList<>();
+		for (List<String> group : filter.groups()) {
+			List<String> terms = new ArrayList<>();
+			for (String tag : group) {
+				terms.add("exists (select 1 from todo_tags g where g.todo_id = t.id and g.tag = ?)");
+				args.add(tag);
+			}
+			groups.add("(" + String.join(" and ", terms) + ")");
+		}
+		String where = "t.user_id = ? and (" + String.join(" or ", groups) + ")";
+		if (completed != null) {
+			where += " and t.completed = ?";
+			args.add(completed);
+		}
+		return jdbc.queryForList("select t.id from todos t where " + where + " order by t.position",
+				Long.class, args.toArray());
+	}
+}
@@ -0,0 +1,123 @@
+package com.todoApi.benchmark;
+
+import com.todoApi.TodoApiApplication;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.env.Environment;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.ObjectMapper;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Latency of the first 10k requests an instance serves, with and
+ * without the startup warm-up (WarmUpRunner). The requests are the
+ * warm-up's own mix (create, list plain / filtered / by tag, get, patch,
+ * toggle, delete) by a user that isn't the scratch user.
+ *
+ * The JIT state is what is measured, so every variant needs a fresh
+ * JVM - one Maven run each:
+ *
+ *   mvn -Pbenchmark test -Dtest=WarmUpLatencyBenchmark -Dbenchmark.warmup=false
+ *   mvn -Pbenchmark test -Dtest=WarmUpLatencyBenchmark -Dbenchmark.warmup=true
+ */
+@SpringBootTest(classes = TodoApiApplication.class, webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+		properties = {
+				"app.warmup.enabled=${benchmark.warmup:false}",
+				"app.sql-budget.strict=false" })
+class WarmUpLatencyBenchmark {
+
+	private static final int REQUESTS = 10_000;
+
+	@Autowired
+	private Environment environment;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	private final HttpClient http = HttpClient.newHttpClient();
+
+	@Test
+	void first10kRequests() throws Exception {
+		String token = objectMapper.readTree(send("POST", "/api/auth/register", null,
+				"{\"username\":\"latency_bench\",\"email\":\"latency_bench@example.com\",\"password\":\"password123\"}",
+				null, 0)).get("token").asString();
+
+		long[] nanos = new long[REQUESTS];
+		int sent = 0;
+		long started = System.nanoTime();
+		for (int i = 0; sent < REQUESTS; i++) {
+			sent = round(token, i, nanos, sent);
+		}
+		double seconds = Benchmarks.millisSince(started) / 1000;
+
+		System.out.printf("%nFirst %d requests, warm-up %s%n", REQUESTS,
+				environment.getProperty("app.warmup.enabled", Boolean.class, false) ? "on" : "off");
+		for (int first : new int[] { 100, 1_000, REQUESTS }) {
+			Benchmarks.report("first " + first, Benchmarks.percentiles(Arrays.copyOf(nanos, first)));
+		}
+		Benchmarks.report("total", String.format("%.1f s (%.0f requests/s)", seconds, REQUESTS / seconds));
+	}
+
+	/** One round of the warm-up's mix; returns how many requests were timed so far */
+	private int round(String token, int i, long[] nanos, int sent) {
+		JsonNode created = objectMapper.readTree(send("POST", "/api/todos", token,
+				"{\"title\":\"Latency " + i + "\",\"description\":\"measured\",\"tags\":[\"latency\"]}", nanos, sent++));
+		long id = created.get("id").asLong();
+		String[] reads = {
+				"/api/todos",
+				"/api/todos?q=completed:false,title:lat&sort=created:desc&size=20",
+				"/api/todos?tags=latency",
+				"/api/todos/" + id };
+		for (String path : reads) {
+			sent = next(nanos, sent, n -> send("GET", path, token, null, nanos, n));
+		}
+		sent = next(nanos, sent, n -> send("PATCH", "/api/todos/" + id, token,
+				"{\"title\":\"Latency " + i + " (edited)\"}", nanos, n));
+		sent = next(nanos, sent, n -> send("PATCH", "/api/todos/" + id + "/toggle", token, null, nanos, n));
+		// The same list length as the warm-up keeps: every fourth todo stays
+		if (i % 4 != 0) {
+			sent = next(nanos, sent, n -> send("DELETE", "/api/todos/" + id, token, null, nanos, n));
+		}
+		return sent;
+	}
+
+	private static int next(long[] nanos, int sent, IntConsumer request) {
+		if (sent < nanos.length) {
+			request.accept(sent);
+		}
+		return sent + 1;
+	}
+
+	/** Send a request and store its latency at nanos[index] (unless nanos is null or it is out of range) */
+	private String send(String method, String path, String token, String json, long[] nanos, int index) {
+		HttpRequest.Builder request = HttpRequest.newBuilder()
+				.uri(URI.create("http://localhost:" + environment.getProperty("local.server.port") + path))
+				.method(method, json == null
+						? HttpRequest.BodyPublishers.noBody()
+						: HttpRequest.BodyPublishers.ofString(json))
+				.header("Content-Type", "application/json");
+		if (token != null) {
+			request.header("Authorization", "Bearer " + token);
+		}
+		try {
+			long started = System.nanoTime();
+			HttpResponse<String> response = http.send(request.build(), HttpResponse.BodyHandlers.ofString());
+			if (nanos != null && index < nanos.length) {
+				nanos[index] = System.nanoTime() - started;
+			}
+			if (response.statusCode() >= 300) {
+				throw new IllegalStateException(response.statusCode() + ": " + response.body());
+			}
+			return response.body();
+		} catch (Exception e) {
+			throw new IllegalStateException(method + " " + path, e);
+		}
+	}
+}
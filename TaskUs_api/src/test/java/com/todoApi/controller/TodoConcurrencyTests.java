@@ -0,0 +1,224 @@
+package com.todoApi.controller;
+
+import com.todoApi.TodoApiApplication;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.env.Environment;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.ObjectMapper;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Many threads editing the same few todos at once.
+ * Every edit is read-modify-write; with If-Match (and the version-checked
+ * UPDATE behind it) no edit may be lost - each todo must end up with
+ * exactly as many increments as requests that were answered 200.
+ * Likewise a refresh token sent by many threads at once is exchanged once,
+ * and the last checklist items ticked at once complete their todo.
+ */
+@SpringBootTest(classes = TodoApiApplication.class, webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class TodoConcurrencyTests {
+
+	private static final int THREADS = 8;
+	private static final int EDITS_PER_THREAD = 15;
+	private static final int TODOS = 3;
+
+	@Autowired
+	private Environment environment;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	private final HttpClient http = HttpClient.newHttpClient();
+
+	private String token;
+	private String refreshToken;
+	final long[] ids = new long[TODOS];
+
+	@BeforeEach
+	void createTodos() throws Exception {
+		String name = "race_" + UUID.randomUUID().toString().substring(0, 8);
+		HttpResponse<String> auth = send("POST", "/api/auth/register", null,
+				"{\"username\":\"" + name + "\",\"email\":\"" + name + "@example.com\",\"password\":\"password123\"}");
+		token = json(auth).get("token").asString();
+		refreshToken = json(auth).get("refreshToken").asString();
+
+		for (int i = 0; i < TODOS; i++) {
+			ids[i] = json(send("POST", "/api/todos", null, "{\"title\":\"0\"}")).get("id").asLong();
+		}
+	}
+
+	@Test
+	void conditionalUpdatesNeverLoseAnEdit() throws Exception {
+		AtomicInteger[] applied = new AtomicInteger[TODOS];
+		for (int i = 0; i < TODOS; i++) {
+			applied[i] = new AtomicInteger();
+		}
+
+		runConcurrently(() -> {
+			for (int edit = 0; edit < EDITS_PER_THREAD; edit++) {
+				int todo = ThreadLocalRandom.current().nextInt(TODOS);
+				while (true) {
+					HttpResponse<String> current = send("GET", "/api/todos/" + ids[todo], null, null);
+					long count = Long.parseLong(json(current).get("title").asString());
+					String etag = current.headers().firstValue("ETag").orElseThrow();
+
+					HttpResponse<String> updated = send("PATCH", "/api/todos/" + ids[todo], etag,
+							"{\"title\":\"" + (count + 1) + "\"}");
+					if (updated.statusCode() == 200) {
+						applied[todo].incrementAndGet();
+						break;
+					}
+					// Someone else got there first - re-read and try again
+					assertEquals(412, updated.statusCode(), updated::body);
+				}
+			}
+		});
+
+		int total = 0;
+		for (int i = 0; i < TODOS; i++) {
+			JsonNode todo = json(send("GET", "/api/todos/" + ids[i], null, null));
+			assertEquals(applied[i].get(), Long.parseLong(todo.get("title").asString()), "lost update on todo " + i);
+			assertEquals(applied[i].get(), todo.get("version").asLong());
+			total += applied[i].get();
+		}
+		assertEquals(THREADS * EDITS_PER_THREAD, total);
+	}
+
+	@Test
+	void unconditionalTogglesEitherApplyOrConflict() throws Exception {
+		AtomicInteger applied = new AtomicInteger();
+
+		runConcurrently(() -> {
+			for (int edit = 0; edit < EDITS_PER_THREAD; edit++) {
+				HttpResponse<String> toggled = send("PATCH", "/api/todos/" + ids[0] + "/toggle", null, null);
+				if (toggled.statusCode() == 200) {
+					applied.incrementAndGet();
+				} else {
+					assertEquals(409, toggled.statusCode(), toggled::body);
+				}
+			}
+		});
+
+		// Every toggle that was answered 200 is in the final state, no more, no less
+		JsonNode todo = json(send("GET", "/api/todos/" + ids[0], null, null));
+		assertEquals(applied.get() % 2 == 1, todo.get("completed").asBoolean());
+		assertEquals(applied.get(), todo.get("version").asLong());
+	}
+
+	@Test
+	void staleIfMatchIsRejected() throws Exception {
+		String etag = send("GET", "/api/todos/" + ids[0], null, null).headers().firstValue("ETag").orElseThrow();
+		assertEquals(200, send("PATCH", "/api/todos/" + ids[0], etag, "{\"title\":\"first\"}").statusCode());
+
+		assertEquals(412, send("PATCH", "/api/todos/" + ids[0], etag, "{\"title\":\"second\"}").statusCode());
+		assertEquals(412, send("PATCH", "/api/todos/" + ids[0] + "/toggle", etag, null).statusCode());
+		assertEquals(412, send("DELETE", "/api/todos/" + ids[0], etag, null).statusCode());
+		assertEquals("first", json(send("GET", "/api/todos/" + ids[0], null, null)).get("title").asString());
+	}
+
+	@Test
+	void itemsTickedAtOnceCompleteTheirTodo() throws Exception {
+		for (int round = 0; round < EDITS_PER_THREAD; round++) {
+			long todoId = json(send("POST", "/api/todos", null,
+					"{\"title\":\"checklist\",\"completionFromItems\":true}")).get("id").asLong();
+			long[] itemIds = new long[THREADS];
+			for (int i = 0; i < THREADS; i++) {
+				itemIds[i] = json(send("POST", "/api/todos/" + todoId + "/items", null,
+						"{\"title\":\"item " + i + "\"}")).get("id").asLong();
+			}
+			AtomicInteger next = new AtomicInteger();
+
+			// Each thread ticks one item: whichever commits last must see all the others done
+			runConcurrently(() -> {
+				long itemId = itemIds[next.getAndIncrement()];
+				json(send("PATCH", "/api/todos/" + todoId + "/items/" + itemId, null, "{\"done\":true}"));
+			});
+
+			assertTrue(json(send("GET", "/api/todos/" + todoId, null, null)).get("completed").asBoolean(),
+					"round " + round);
+		}
+	}
+
+	@Test
+	void aRefreshTokenIsExchangedOnlyOnce() throws Exception {
+		AtomicInteger exchanged = new AtomicInteger();
+
+		runConcurrently(() -> {
+			HttpResponse<String> refreshed = send("POST", "/api/auth/refresh", null,
+					"{\"refreshToken\":\"" + refreshToken + "\"}");
+			if (refreshed.statusCode() == 200) {
+				exchanged.incrementAndGet();
+			} else {
+				assertEquals(401, refreshed.statusCode(), refreshed::body);
+			}
+		});
+
+		assertEquals(1, exchanged.get());
+	}
+
+	private interface Worker {
+		void run() throws Exception;
+	}
+
+	private void runConcurrently(Worker worker) throws Exception {
+		ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+		try {
+			List<Future<?>> futures = new ArrayList<>();
+			for (int i = 0; i < THREADS; i++) {
+				futures.add(pool.submit(() -> {
+					worker.run();
+					return null;
+				}));
+			}
+			for (Future<?> future : futures) {
+				future.get();
+			}
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+
+	HttpResponse<String> send(String method, String path, String ifMatch, String json) throws Exception {
+		return send(method, path, ifMatch, json, "application/json");
+	}
+
+	HttpResponse<String> send(String method, String path, String ifMatch, String body, String contentType)
+			throws Exception {
+		HttpRequest.Builder request = HttpRequest.newBuilder()
+				.uri(URI.create("http://localhost:" + environment.getProperty("local.server.port") + path))
+				.method(method, body == null
+						? HttpRequest.BodyPublishers.noBody()
+						: HttpRequest.BodyPublishers.ofString(body))
+				.header("Content-Type", contentType);
+		if (token != null) {
+			request.header("Authorization", "Bearer " + token);
+		}
+		if (ifMatch != null) {
+			request.header("If-Match", ifMatch);
+		}
+		return http.send(request.build(), HttpResponse.BodyHandlers.ofString());
+	}
+
+	JsonNode json(HttpResponse<String> response) {
+		assertTrue(response.statusCode() < 300, () -> response.statusCode() + ": " + response.body());
+		return objectMapper.readTree(response.body());
+	}
+}
@@ -0,0 +1,101 @@
+package com.todoApi.embedded;
+
+import com.todoApi.model.Todo;
+import com.todoApi.model.User;
+import com.todoApi.service.PositionKeys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Start-up time of the embedded store: 100k todos of 100 users recovered
+ * by replaying the log vs. by loading a snapshot. Next to the store, not
+ * in the benchmark package - opening and closing it is package-private.
+ *
+ *   mvn -Pbenchmark test -Dtest=EmbeddedRecoveryBenchmark [-Dbenchmark.rows=100000]
+ */
+class EmbeddedRecoveryBenchmark {
+
+	private static final int USERS = 100;
+	private static final int TODOS_PER_COMMIT = 1_000;
+
+	@TempDir
+	Path directory;
+
+	private final FakeCommitMarkers markers = new FakeCommitMarkers();
+
+	private final TransactionTemplate transaction = markers.transaction;
+
+	@Test
+	void logReplayVersusSnapshot() throws Exception {
+		int rows = Integer.getInteger("benchmark.rows", 100_000);
+		EmbeddedStore seeded = open();
+		long[] userIds = new long[USERS];
+		for (int u = 0; u < USERS; u++) {
+			User user = new User();
+			user.setUsername("recovery_" + u);
+			user.setEmail("recovery_" + u + "@example.com");
+			user.setPassword("not-a-hash");
+			userIds[u] = seeded.saveUser(user).getId();
+		}
+		for (int from = 0; from < rows; from += TODOS_PER_COMMIT) {
+			int first = from;
+			transaction.executeWithoutResult(status -> {
+				for (int i = first; i < Math.min(first + TODOS_PER_COMMIT, rows); i++) {
+					Todo todo = new Todo();
+					todo.setUser(EmbeddedCodec.owner(userIds[i % USERS]));
+					todo.setTitle("Todo " + i);
+					todo.setDescription("Seeded for a benchmark");
+					todo.setCompleted(i % 3 == 0);
+					todo.setPosition(PositionKeys.nth(i / USERS));
+					seeded.saveTodo(todo);
+				}
+			});
+		}
+		seeded.close();
+
+		System.out.printf("%n%d todos of %d users%n", rows, USERS);
+		report("open, log replay", "wal-");
+		EmbeddedStore store = open();
+		store.snapshot();
+		store.close();
+		report("open, snapshot", "snapshot-");
+	}
+
+	private void report(String name, String files) throws Exception {
+		long size;
+		try (Stream<Path> all = Files.list(directory)) {
+			size = all.filter(file -> file.getFileName().toString().startsWith(files))
+					.mapToLong(file -> file.toFile().length()).sum();
+		}
+		long[] millis = new long[5];
+		for (int i = 0; i < millis.length; i++) {
+			long started = System.nanoTime();
+			EmbeddedStore store = open();
+			millis[i] = System.nanoTime() - started;
+			assertEquals(USERS, store.countUsers());
+			store.close();
+		}
+		System.out.printf("%-40s %s (%.1f MB of %s files)%n", name, percentiles(millis), size / 1e6, files);
+	}
+
+	private static String percentiles(long[] nanos) {
+		long[] sorted = nanos.clone();
+		Arrays.sort(sorted);
+		return String.format("best %.0f ms, median %.0f ms", sorted[0] / 1e6, sorted[sorted.length / 2] / 1e6);
+	}
+
+	private EmbeddedStore open() throws Exception {
+		EmbeddedStore store = new EmbeddedStore(new SimpleMeterRegistry(), markers, directory.toString(), 10_000);
+		store.open();
+		return store;
+	}
+}
@@ -0,0 +1,268 @@
+package com.todoApi.embedded;
+
+import com.todoApi.model.Todo;
+import com.todoApi.model.User;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.transaction.TransactionSystemException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Commits, conflicts, snapshots and recovery of the embedded store,
+ * with transactions and commit markers from FakeCommitMarkers
+ */
+class EmbeddedStoreTests {
+
+	@TempDir
+	Path directory;
+
+	private EmbeddedStore store;
+
+	private final FakeCommitMarkers markers = new FakeCommitMarkers();
+
+	private final TransactionTemplate transaction = markers.transaction;
+
+	@AfterEach
+	void close() throws Exception {
+		store.close();
+	}
+
+	private EmbeddedStore reopen() throws Exception {
+		if (store != null) {
+			store.close();
+		}
+		store = new EmbeddedStore(new SimpleMeterRegistry(), markers, directory.toString(), 100);
+		store.open();
+		return store;
+	}
+
+	@Test
+	void recoversFromSnapshotAndLog() throws Exception {
+		reopen();
+		long userId = store.saveUser(user("recovers")).getId();
+		Todo first = store.saveTodo(todo(userId, "first", "b"));
+		Todo second = store.saveTodo(todo(userId, "second", "a"));
+		store.snapshot();
+
+		// After the snapshot: only in the log
+		first.setTitle("first, renamed");
+		first.setTags(Set.of("work"));
+		store.saveTodo(first);
+		store.deleteTodo(second.getId(), second.getVersion());
+		Todo third = store.saveTodo(todo(userId, "third", "c"));
+
+		reopen();
+		List<Todo> list = store.findList(userId, row -> true);
+		assertEquals(List.of("first, renamed", "third"), list.stream().map(Todo::getTitle).toList());
+		assertEquals(1L, list.get(0).getVersion());
+		assertEquals(Set.of("work"), list.get(0).getTags());
+		assertEquals("recovers", store.findUser(userId).orElseThrow().getUsername());
+		// Ids go on after the highest one used
+		assertTrue(store.saveTodo(todo(userId, "fourth", "d")).getId() > third.getId());
+
+		// One snapshot left, and only the log generations after it
+		store.snapshot();
+		try (Stream<Path> files = Files.list(directory)) {
+			List<String> names = files.map(file -> file.getFileName().toString()).sorted().toList();
+			assertEquals(1, names.stream().filter(name -> name.startsWith("snapshot-")).count(), names::toString);
+			assertEquals(1, names.stream().filter(name -> name.startsWith("wal-")).count(), names::toString);
+		}
+	}
+
+	@Test
+	void ignoresATornRecordAtTheEndOfTheLog() throws Exception {
+		reopen();
+		long userId = store.saveUser(user("torn")).getId();
+		store.saveTodo(todo(userId, "kept", "a"));
+		store.close();
+
+		Path log;
+		try (Stream<Path> files = Files.list(directory)) {
+			log = files.filter(file -> file.getFileName().toString().startsWith("wal-")).max(Path::compareTo).orElseThrow();
+		}
+		// A record header promising more bytes than were written
+		Files.write(log, new byte[] { 0, 0, 1, 0, 1, 2, 3, 4, 5, 6 }, StandardOpenOption.APPEND);
+
+		reopen();
+		assertEquals(List.of("kept"), store.findList(userId, row -> true).stream().map(Todo::getTitle).toList());
+
+		// The replayed records are snapshotted even without new writes
+		store.snapshot();
+		try (Stream<Path> files = Files.list(directory)) {
+			assertTrue(files.anyMatch(file -> file.getFileName().toString().startsWith("snapshot-")));
+		}
+	}
+
+	@Test
+	void staleWritesAndDuplicateNamesFail() throws Exception {
+		reopen();
+		long userId = store.saveUser(user("stale")).getId();
+		long id = store.saveTodo(todo(userId, "0", "a")).getId();
+
+		Todo mine = store.findTodo(id).orElseThrow();
+		Todo theirs = store.findTodo(id).orElseThrow();
+		theirs.setTitle("theirs");
+		store.saveTodo(theirs);
+		mine.setTitle("mine");
+		assertThrows(OptimisticLockingFailureException.class, () -> store.saveTodo(mine));
+		assertThrows(OptimisticLockingFailureException.class, () -> store.deleteTodo(id, mine.getVersion() - 1));
+		assertEquals("theirs", store.findTodo(id).orElseThrow().getTitle());
+
+		DataIntegrityViolationException duplicate = assertThrows(DataIntegrityViolationException.class,
+				() -> store.saveUser(user("stale")));
+		assertTrue(duplicate.getMessage().contains("username"), duplicate::getMessage);
+	}
+
+	@Test
+	void transactionsCommitAllOrNothing() throws Exception {
+		reopen();
+		long userId = store.saveUser(user("tx")).getId();
+
+		// Rolled back: nothing stays, the reserved names are free again
+		assertThrows(IllegalStateException.class, () -> transaction.executeWithoutResult(status -> {
+			store.saveTodo(todo(userId, "rolled back", "a"));
+			store.saveUser(user("taken_then_free"));
+			assertEquals(1, store.findList(userId, row -> true).size(), "reads see the transaction's writes");
+			throw new IllegalStateException("rollback");
+		}));
+		assertTrue(store.findList(userId, row -> true).isEmpty());
+		store.saveUser(user("taken_then_free"));
+
+		// A conflict at commit fails the whole transaction
+		long id = store.saveTodo(todo(userId, "0", "a")).getId();
+		assertThrows(OptimisticLockingFailureException.class, () -> transaction.executeWithoutResult(status -> {
+			Todo todo = store.findTodo(id).orElseThrow();
+			store.saveTodo(todo(userId, "not committed", "b"));
+			store.updateTodo(id, row -> {
+				row.setVersion(row.getVersion() + 1);
+				return row;
+			});
+			// Someone else commits a change of the same todo first
+			Thread other = new Thread(() -> {
+				Todo theirs = store.findTodo(id).orElseThrow();
+				theirs.setTitle("theirs");
+				store.saveTodo(theirs);
+			});
+			other.start();
+			try {
+				other.join();
+			} catch (InterruptedException e) {
+				throw new IllegalStateException(e);
+			}
+			todo.setTitle("mine");
+			store.saveTodo(todo);
+		}));
+		assertEquals(List.of("theirs"), store.findList(userId, row -> true).stream().map(Todo::getTitle).toList());
+	}
+
+	@Test
+	void onlyWhatTheDatabaseCommitsIsApplied() throws Exception {
+		reopen();
+		long userId = store.saveUser(user("database")).getId();
+		long id = store.saveTodo(todo(userId, "before", "a")).getId();
+
+		// Prepared in the store, then the database commit fails: nothing stays, nothing is held
+		markers.onCommit = () -> {
+			throw new IllegalStateException("commit failed");
+		};
+		assertThrows(IllegalStateException.class, () -> transaction.executeWithoutResult(status -> {
+			Todo todo = store.findTodo(id).orElseThrow();
+			todo.setTitle("rolled back");
+			store.saveTodo(todo);
+			store.saveUser(user("not_registered"));
+		}));
+		assertEquals("before", store.findTodo(id).orElseThrow().getTitle());
+		assertTrue(store.findUserByUsername("not_registered").isEmpty());
+		store.saveUser(user("not_registered"));
+		Todo todo = store.findTodo(id).orElseThrow();
+		todo.setTitle("after");
+		store.saveTodo(todo);
+
+		// Committed, but the caller can't tell: the store asks the database
+		markers.onCommit = () -> {
+			markers.commitPending();
+			throw new TransactionSystemException("connection lost during commit");
+		};
+		assertThrows(TransactionSystemException.class, () -> transaction.executeWithoutResult(status -> {
+			Todo renamed = store.findTodo(id).orElseThrow();
+			renamed.setTitle("committed");
+			store.saveTodo(renamed);
+		}));
+		assertEquals("committed", store.findTodo(id).orElseThrow().getTitle());
+	}
+
+	@Test
+	void recoveryAsksTheDatabaseAboutPreparedTransactions() throws Exception {
+		reopen();
+		long userId = store.saveUser(user("in_doubt")).getId();
+
+		// The process dies after the store prepared, while the database commits ...
+		markers.onCommit = this::crash;
+		transaction.executeWithoutResult(status -> store.saveTodo(todo(userId, "committed", "a")));
+		reopen();
+		assertEquals(List.of("committed"), store.findList(userId, row -> true).stream().map(Todo::getTitle).toList());
+
+		// ... or rolls back
+		markers.onCommit = () -> {
+			crash();
+			throw new IllegalStateException("rolled back");
+		};
+		assertThrows(IllegalStateException.class, () -> transaction.executeWithoutResult(status ->
+				store.saveTodo(todo(userId, "rolled back", "b"))));
+		reopen();
+		assertEquals(List.of("committed"), store.findList(userId, row -> true).stream().map(Todo::getTitle).toList());
+
+		// Decided and logged on startup: the markers aren't needed any more
+		assertEquals(0, markers.size());
+		markers.onCommit = () -> {
+		};
+		transaction.executeWithoutResult(status -> store.saveTodo(todo(userId, "later", "c")));
+		assertEquals(1, markers.size());
+		store.snapshot();
+		assertEquals(0, markers.size());
+		reopen();
+		assertEquals(List.of("committed", "later"),
+				store.findList(userId, row -> true).stream().map(Todo::getTitle).toList());
+	}
+
+	/** Stop the store as if the process died: what is logged stays, nothing else happens */
+	private void crash() {
+		try {
+			store.close();
+		} catch (Exception e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static User user(String name) {
+		User user = new User();
+		user.setUsername(name);
+		user.setEmail(name + "@example.com");
+		user.setPassword("not-a-hash");
+		return user;
+	}
+
+	private static Todo todo(long userId, String title, String position) {
+		Todo todo = new Todo();
+		todo.setUser(EmbeddedCodec.owner(userId));
+		todo.setTitle(title);
+		todo.setCompleted(false);
+		todo.setPosition(position);
+		return todo;
+	}
+}
@@ -0,0 +1,89 @@
+package com.todoApi.embedded;
+
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Commit markers in memory, with a no-op "database" transaction manager
+ * that commits or rolls them back - only the synchronization callbacks
+ * matter to the store. One transaction at a time.
+ */
+class FakeCommitMarkers implements EmbeddedCommitMarkers {
+
+	private final AtomicLong lastId = new AtomicLong();
+	private final List<Long> pending = new ArrayList<>();
+	private final Set<Long> committed = ConcurrentHashMap.newKeySet();
+
+	/**
+	 * Runs in the database commit, after the store prepared - may throw to fail
+	 * the commit (rolled back), or commit first and then throw a TransactionException
+	 * (outcome unknown to the caller)
+	 */
+	Runnable onCommit = () -> {
+	};
+
+	final TransactionTemplate transaction = new TransactionTemplate(new AbstractPlatformTransactionManager() {
+		@Override
+		protected Object doGetTransaction() {
+			return new Object();
+		}
+
+		@Override
+		protected void doBegin(Object transaction, TransactionDefinition definition) {
+			pending.clear();
+		}
+
+		@Override
+		protected void doCommit(DefaultTransactionStatus status) {
+			onCommit.run();
+			commitPending();
+		}
+
+		@Override
+		protected void doRollback(DefaultTransactionStatus status) {
+			pending.clear();
+		}
+	});
+
+	@Override
+	public long mark() {
+		long id = lastId.incrementAndGet();
+		pending.add(id);
+		return id;
+	}
+
+	@Override
+	public Set<Long> committed(Collection<Long> ids) {
+		return ids.stream().filter(committed::contains).collect(Collectors.toSet());
+	}
+
+	@Override
+	public void forget(Collection<Long> ids) {
+		committed.removeAll(ids);
+	}
+
+	@Override
+	public void forgetAll() {
+		committed.clear();
+	}
+
+	/** Commit the markers of the running transaction */
+	void commitPending() {
+		committed.addAll(pending);
+	}
+
+	/** Markers that exist */
+	int size() {
+		return committed.size();
+	}
+}
@@ -0,0 +1,193 @@
+package com.todoApi.history;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Appending, reading back, compaction and recovery of the history log,
+ * with tiny segments so records spread over many of them
+ */
+class HistorySegmentLogTests {
+
+	@TempDir
+	Path directory;
+
+	private HistorySegmentLog open() throws Exception {
+		HistorySegmentLog log = new HistorySegmentLog(new SimpleMeterRegistry(), true, directory.toString(), 200, 365, 0.25, 100);
+		log.open();
+		return log;
+	}
+
+	@Test
+	void readsBackCompactsAndRecovers() throws Exception {
+		HistorySegmentLog log = open();
+		long now = System.currentTimeMillis();
+		for (int i = 0; i < 5; i++) {
+			log.append(1, now, payload("one-" + i));
+			log.append(2, now, payload("two-" + i));
+		}
+		await(() -> log.read(1).size() == 5 && log.read(2).size() == 5);
+		assertEquals(List.of("one-0", "one-1", "one-2", "one-3", "one-4"), payloads(log.read(1)));
+
+		log.appendDeleted(2, now, payload("deleted"));
+		await(() -> log.read(2).isEmpty());
+
+		log.compact();
+		assertEquals(List.of("one-0", "one-1", "one-2", "one-3", "one-4"), payloads(log.read(1)));
+		log.append(1, now, payload("one-5"));
+		await(() -> log.read(1).size() == 6);
+		log.close();
+
+		HistorySegmentLog reopened = open();
+		assertEquals(List.of("one-0", "one-1", "one-2", "one-3", "one-4", "one-5"), payloads(reopened.read(1)));
+		assertTrue(reopened.read(2).isEmpty());
+		reopened.close();
+	}
+
+	@Test
+	void mergesIntoCappedSegmentsAndRewritesOnlyWhatHasGarbage() throws Exception {
+		HistorySegmentLog log = open();
+		long now = System.currentTimeMillis();
+		List<String> expected = new ArrayList<>();
+		for (int i = 0; i < 20; i++) {
+			log.append(1, now, payload("one-" + i));
+			log.append(2, now, payload("two-" + i));
+			expected.add("one-" + i);
+		}
+		await(() -> log.read(1).size() == 20 && log.read(2).size() == 20);
+
+		log.compact();
+		Map<Path, Object> compacted = compactedSegments();
+		assertTrue(compacted.size() > 1, "merged into several segments: " + compacted.keySet());
+		for (Path segment : compacted.keySet()) {
+			assertTrue(Files.size(segment) <= 200, segment + " is " + Files.size(segment) + " bytes");
+		}
+		assertEquals(expected, payloads(log.read(1)));
+
+		// Nothing to drop: the compacted segments are left as they are
+		log.compact();
+		assertEquals(compacted, compactedSegments());
+
+		// Half of every compacted segment is garbage now: each is rewritten in place
+		log.appendDeleted(2, now, payload("deleted"));
+		await(() -> log.read(2).isEmpty());
+		log.compact();
+		assertNotEquals(compacted, compactedSegments());
+		assertEquals(expected, payloads(log.read(1)));
+		log.close();
+
+		HistorySegmentLog reopened = open();
+		assertEquals(expected, payloads(reopened.read(1)));
+		reopened.close();
+	}
+
+	@Test
+	void keepsDeletionMarkersWhileOlderSegmentsHoldTheTodosRecords() throws Exception {
+		HistorySegmentLog log = open();
+		long now = System.currentTimeMillis();
+		// One record of todo 1 in every six: too little garbage for its segments to be rewritten
+		for (int i = 0; i < 24; i++) {
+			log.append(i % 6 == 0 ? 1 : 2, now, payload("rec-" + (char) ('a' + i)));
+		}
+		await(() -> log.read(1).size() == 4 && log.read(2).size() == 20);
+		log.compact();
+		Map<Path, Object> compacted = compactedSegments();
+
+		log.appendDeleted(1, now, payload("deleted"));
+		for (int i = 0; i < 12; i++) {
+			log.append(2, now, payload("rec-" + (char) ('A' + i)));
+		}
+		await(() -> log.read(1).isEmpty() && log.read(2).size() == 32);
+		log.compact();
+		assertTrue(compactedSegments().keySet().containsAll(compacted.keySet()), "the old segments stay as they are");
+		log.close();
+
+		HistorySegmentLog reopened = open();
+		assertTrue(reopened.read(1).isEmpty(), "the merged deletion marker still hides todo 1");
+		assertEquals(32, reopened.read(2).size());
+		reopened.close();
+	}
+
+	@Test
+	void finishesAMergeThatStoppedHalfwayThroughItsRenames() throws Exception {
+		HistorySegmentLog log = open();
+		long now = System.currentTimeMillis();
+		List<String> expected = new ArrayList<>();
+		for (int i = 0; i < 20; i++) {
+			log.append(1, now, payload("one-" + i));
+			expected.add("one-" + i);
+		}
+		await(() -> log.read(1).size() == 20);
+		Path inputs = Files.createDirectory(directory.resolve("inputs"));
+		for (Path segment : segments()) {
+			Files.copy(segment, inputs.resolve(segment.getFileName()));
+		}
+		log.compact();
+		log.close();
+
+		// As if it stopped after the first rename: inputs still there, the last output not renamed
+		try (Stream<Path> saved = Files.list(inputs)) {
+			for (Path segment : saved.toList()) {
+				Files.move(segment, directory.resolve(segment.getFileName()), StandardCopyOption.REPLACE_EXISTING);
+			}
+		}
+		List<Path> outputs = new ArrayList<>(compactedSegments().keySet());
+		Path last = outputs.get(outputs.size() - 1);
+		Files.move(last, last.resolveSibling(last.getFileName() + ".compacting"));
+
+		HistorySegmentLog reopened = open();
+		assertEquals(expected, payloads(reopened.read(1)));
+		reopened.close();
+	}
+
+	/** The compacted segment files (history-<id>-<part>.log), in order, with their identity on disk */
+	private Map<Path, Object> compactedSegments() throws Exception {
+		Map<Path, Object> compacted = new TreeMap<>();
+		for (Path segment : segments()) {
+			if (segment.getFileName().toString().matches("history-\\d+-\\d+\\.log")) {
+				BasicFileAttributes attributes = Files.readAttributes(segment, BasicFileAttributes.class);
+				compacted.put(segment, List.of(attributes.fileKey(), attributes.lastModifiedTime()));
+			}
+		}
+		return compacted;
+	}
+
+	private List<Path> segments() throws Exception {
+		try (Stream<Path> files = Files.list(directory)) {
+			return files.filter(file -> file.getFileName().toString().endsWith(".log")).sorted().toList();
+		}
+	}
+
+	private static byte[] payload(String text) {
+		return text.getBytes(StandardCharsets.UTF_8);
+	}
+
+	private static List<String> payloads(List<HistorySegmentLog.Record> records) {
+		return records.stream().map(record -> new String(record.payload(), StandardCharsets.UTF_8)).toList();
+	}
+
+	private static void await(BooleanSupplier condition) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 5000;
+		while (!condition.getAsBoolean()) {
+			assertTrue(System.currentTimeMillis() < deadline, "timed out waiting for the history writer");
+			Thread.sleep(10);
+		}
+	}
+}
@@ -0,0 +1,79 @@
+package com.todoApi.outbox;
+
+import com.todoApi.model.OutboxEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * The relay doesn't deliver past an id that may still commit, and
+ * skips rolled-back ids after one timeout, on a fake clock
+ */
+class OutboxRelayTests {
+
+	private final AtomicLong now = new AtomicLong(1_000_000);
+
+	private final OutboxRelay relay = new OutboxRelay(null, List.of(), new SimpleMeterRegistry(), 200, 10_000, now::get);
+
+	@Test
+	void holdsEventsBehindAMissingIdUntilItCommitsOrTimesOut() {
+		// Startup: nothing goes out until in-flight transactions had time to finish
+		assertEquals(List.of(), ids(relay.deliverable(events(1, 2, 3))));
+		now.addAndGet(10_000);
+		assertEquals(List.of(1L, 2L, 3L), ids(relay.deliverable(events(1, 2, 3))));
+
+		// 4 is not committed yet: 5 and 6 wait
+		assertEquals(List.of(), ids(relay.deliverable(events(5, 6))));
+		now.addAndGet(5_000);
+		assertEquals(List.of(4L, 5L, 6L), ids(relay.deliverable(events(4, 5, 6))));
+
+		// 7 never commits (rolled back): 8 goes out once the gap timed out
+		assertEquals(List.of(), ids(relay.deliverable(events(8))));
+		now.addAndGet(10_000);
+		assertEquals(List.of(8L), ids(relay.deliverable(events(8))));
+	}
+
+	@Test
+	void gapsTimeOutTogetherNotOneAfterTheOther() {
+		relay.deliverable(events(1));
+		now.addAndGet(10_000);
+		assertEquals(List.of(1L), ids(relay.deliverable(events(1))));
+
+		// 2, 4 and 6 were rolled back: one timeout covers all three
+		assertEquals(List.of(), ids(relay.deliverable(events(3, 5, 7))));
+		now.addAndGet(6_000);
+		// 9 shows up later: the gap at 8 is timed from now on
+		assertEquals(List.of(), ids(relay.deliverable(events(3, 5, 7, 9))));
+		now.addAndGet(4_000);
+		assertEquals(List.of(3L, 5L, 7L), ids(relay.deliverable(events(3, 5, 7, 9))));
+		now.addAndGet(6_000);
+		assertEquals(List.of(9L), ids(relay.deliverable(events(9))));
+	}
+
+	@Test
+	void retriesFailedEventsInPlace() {
+		relay.deliverable(events(1, 2, 3));
+		now.addAndGet(10_000);
+		assertEquals(List.of(1L, 2L, 3L), ids(relay.deliverable(events(1, 2, 3))));
+		// 2 failed and is still there, 4 is new
+		assertEquals(List.of(2L, 4L), ids(relay.deliverable(events(2, 4))));
+	}
+
+	private static List<OutboxEvent> events(long... ids) {
+		return Arrays.stream(ids).mapToObj(id -> {
+			OutboxEvent event = new OutboxEvent();
+			event.setId(id);
+			event.setUserId(1L);
+			return event;
+		}).toList();
+	}
+
+	private static List<Long> ids(List<OutboxEvent> events) {
+		return events.stream().map(OutboxEvent::getId).toList();
+	}
+}
@@ -0,0 +1,112 @@
+package com.todoApi.reactive;
+
+import com.todoApi.TodoApiApplication;
+import com.todoApi.security.JwtUtil;
+import com.todoApi.sharing.ShareAcl;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.ObjectMapper;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Reactive reads see the same todos as the servlet side: the user's own,
+ * and another user's only while that list is shared with them. The SSE
+ * stream is refused where the outbox relay doesn't run.
+ */
+@SpringBootTest(classes = TodoApiApplication.class, properties = {
+		"app.reactive.enabled=true",
+		"app.reactive.port=0",
+		"app.reactive.r2dbc.url=r2dbc:h2:mem:///taskus_test;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH",
+		"app.outbox.relay.enabled=false",
+		"app.sharing.acl.sync-interval-ms=3600000" })
+class ReactiveTodoHandlerTests {
+
+	@Autowired
+	private ReactiveReadServer server;
+
+	@Autowired
+	private JwtUtil jwtUtil;
+
+	@Autowired
+	private ShareAcl shareAcl;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Autowired
+	private JdbcTemplate jdbc;
+
+	private final HttpClient http = HttpClient.newHttpClient();
+
+	@Test
+	void sharedTodosAreReadableAndOthersAreNot() throws Exception {
+		long owner = insertUser("reactive_owner");
+		long grantee = insertUser("reactive_grantee");
+		long ownTodo = insertTodo(grantee, "Mine");
+		long sharedTodo = insertTodo(owner, "Shared");
+		String token = jwtUtil.generateToken(grantee, "reactive_grantee");
+
+		assertEquals(200, get("/api/todos/" + ownTodo, token).statusCode());
+		assertEquals(404, get("/api/todos/" + sharedTodo, token).statusCode(), "not shared yet");
+		assertEquals(List.of("Mine"), titles(get("/api/todos?includeShared=true", token)));
+
+		jdbc.update("insert into todo_shares (owner_id, grantee_id, permission, created_at, updated_at) " +
+				"values (?, ?, 'READ', localtimestamp, localtimestamp)", owner, grantee);
+		jdbc.update("insert into share_changes (grantee_id, changed_at) values (?, localtimestamp)", grantee);
+		shareAcl.sync();
+
+		assertEquals(200, get("/api/todos/" + sharedTodo, token).statusCode());
+		assertEquals(List.of("Mine"), titles(get("/api/todos", token)));
+		HttpResponse<String> withShared = get("/api/todos?includeShared=true", token);
+		assertEquals(List.of("Mine", "Shared"), titles(withShared));
+		assertEquals(owner, objectMapper.readTree(withShared.body()).get(1).get("sharedBy").get("ownerId").asLong());
+	}
+
+	@Test
+	void streamIsOnlyServedByTheRelayInstance() throws Exception {
+		long userId = insertUser("reactive_stream");
+		assertEquals(503, get("/api/todos/stream", jwtUtil.generateToken(userId, "reactive_stream")).statusCode());
+	}
+
+	private HttpResponse<String> get(String path, String token) throws Exception {
+		return http.send(HttpRequest.newBuilder()
+				.uri(URI.create("http://localhost:" + server.port() + path))
+				.header("Authorization", "Bearer " + token)
+				.build(), HttpResponse.BodyHandlers.ofString());
+	}
+
+	private List<String> titles(HttpResponse<String> response) {
+		assertEquals(200, response.statusCode(), response.body());
+		List<String> titles = new ArrayList<>();
+		for (JsonNode todo : objectMapper.readTree(response.body())) {
+			titles.add(todo.get("title").asString());
+		}
+		return titles;
+	}
+
+	private long insertTodo(long userId, String title) {
+		jdbc.update("insert into todos (user_id, title, completed, completion_from_items, position, created_at, "
+				+ "updated_at, version) values (?, ?, false, false, '00001i', localtimestamp, localtimestamp, 0)",
+				userId, title);
+		return jdbc.queryForObject("select max(id) from todos where user_id = ?", Long.class, userId);
+	}
+
+	private long insertUser(String name) {
+		String username = name + "_" + UUID.randomUUID().toString().substring(0, 8);
+		jdbc.update("insert into users (username, email, password, created_at) values (?, ?, ?, localtimestamp)",
+				username, username + "@example.com", "not-a-hash");
+		return jdbc.queryForObject("select id from users where username = ?", Long.class, username);
+	}
+}
@@ -0,0 +1,105 @@
+package com.todoApi.resilience;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.todoApi.resilience.DatabaseBulkhead.Admission.ADMITTED;
+import static com.todoApi.resilience.DatabaseBulkhead.Admission.BULKHEAD_FULL;
+import static com.todoApi.resilience.DatabaseBulkhead.Admission.CIRCUIT_OPEN;
+import static com.todoApi.resilience.DatabaseBulkhead.Admission.TRIAL;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Bulkhead limits and the circuit breaker's state changes, on a fake clock
+ */
+class DatabaseBulkheadTests {
+
+	private final AtomicLong now = new AtomicLong(1_000_000);
+
+	private DatabaseBulkhead bulkhead(int maxConcurrent) {
+		return new DatabaseBulkhead(new SimpleMeterRegistry(), maxConcurrent, 10, 3, 5_000, now::get);
+	}
+
+	private static void open(DatabaseBulkhead bulkhead) throws Exception {
+		for (int i = 0; i < 3; i++) {
+			bulkhead.release(bulkhead.acquire(), true);
+		}
+	}
+
+	@Test
+	void turnsRequestsAwayWhenAllPermitsAreTaken() throws Exception {
+		DatabaseBulkhead bulkhead = bulkhead(2);
+
+		assertEquals(ADMITTED, bulkhead.acquire());
+		assertEquals(ADMITTED, bulkhead.acquire());
+		assertEquals(BULKHEAD_FULL, bulkhead.acquire());
+
+		bulkhead.release(ADMITTED, false);
+		assertEquals(ADMITTED, bulkhead.acquire());
+	}
+
+	@Test
+	void opensAfterConsecutiveFailuresAndClosesAfterASuccessfulTrial() throws Exception {
+		DatabaseBulkhead bulkhead = bulkhead(10);
+
+		open(bulkhead);
+		assertEquals(DatabaseBulkhead.State.OPEN, bulkhead.state());
+		assertEquals(CIRCUIT_OPEN, bulkhead.acquire());
+		assertEquals(5, bulkhead.retryAfterSeconds());
+
+		// After the open period one trial request goes through, the others wait for its outcome
+		now.addAndGet(5_000);
+		assertEquals(TRIAL, bulkhead.acquire());
+		assertEquals(CIRCUIT_OPEN, bulkhead.acquire());
+		bulkhead.release(TRIAL, false);
+
+		assertEquals(DatabaseBulkhead.State.CLOSED, bulkhead.state());
+		assertEquals(ADMITTED, bulkhead.acquire());
+	}
+
+	@Test
+	void failedTrialReopensTheBreaker() throws Exception {
+		DatabaseBulkhead bulkhead = bulkhead(10);
+		open(bulkhead);
+
+		now.addAndGet(5_000);
+		assertEquals(TRIAL, bulkhead.acquire());
+		bulkhead.release(TRIAL, true);
+
+		assertEquals(DatabaseBulkhead.State.OPEN, bulkhead.state());
+		assertEquals(CIRCUIT_OPEN, bulkhead.acquire());
+	}
+
+	@Test
+	void onlyTheTrialDecidesWhileHalfOpen() throws Exception {
+		DatabaseBulkhead bulkhead = bulkhead(10);
+		// Admitted while closed, finishing after the breaker opened
+		DatabaseBulkhead.Admission straggler = bulkhead.acquire();
+		open(bulkhead);
+
+		bulkhead.release(straggler, false);
+		assertEquals(DatabaseBulkhead.State.OPEN, bulkhead.state());
+
+		now.addAndGet(5_000);
+		assertEquals(TRIAL, bulkhead.acquire());
+		bulkhead.release(ADMITTED, false);
+		assertEquals(DatabaseBulkhead.State.HALF_OPEN, bulkhead.state());
+		bulkhead.release(ADMITTED, true);
+		assertEquals(DatabaseBulkhead.State.HALF_OPEN, bulkhead.state());
+		assertEquals(CIRCUIT_OPEN, bulkhead.acquire(), "the trial is still in flight");
+
+		bulkhead.release(TRIAL, false);
+		assertEquals(DatabaseBulkhead.State.CLOSED, bulkhead.state());
+	}
+
+	@Test
+	void successesResetTheFailureCount() throws Exception {
+		DatabaseBulkhead bulkhead = bulkhead(10);
+		for (int i = 0; i < 10; i++) {
+			bulkhead.release(bulkhead.acquire(), i % 2 == 0);
+		}
+		assertEquals(DatabaseBulkhead.State.CLOSED, bulkhead.state());
+	}
+}
@@ -0,0 +1,90 @@
+package com.todoApi.security;
+
+import com.todoApi.TodoApiApplication;
+import com.todoApi.service.AuthService;
+import io.jsonwebtoken.Claims;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Refresh tokens are used up in the database and never held in memory;
+ * an access token is denied in memory only once its row has committed
+ */
+@SpringBootTest(classes = TodoApiApplication.class, properties = "jwt.revocation.sync-interval-ms=3600000")
+class TokenRevocationListTests {
+
+	@Autowired
+	private TokenRevocationList revocationList;
+
+	@Autowired
+	private AuthService authService;
+
+	@Autowired
+	private JwtUtil jwtUtil;
+
+	@Autowired
+	private TransactionTemplate transaction;
+
+	@Autowired
+	private JdbcTemplate jdbc;
+
+	@Test
+	void refreshTokensAreUsedOnceAndNeverKeptInMemory() {
+		long userId = insertUser();
+		String refreshToken = jwtUtil.generateRefreshToken(userId, "revocation");
+		Claims claims = jwtUtil.extractAllClaims(refreshToken);
+
+		authService.refresh(refreshToken);
+		ResponseStatusException replayed = assertThrows(ResponseStatusException.class,
+				() -> authService.refresh(refreshToken));
+		assertEquals(401, replayed.getStatusCode().value());
+
+		revocationList.sync();
+		assertFalse(revocationList.isRevoked(claims.getId()));
+	}
+
+	@Test
+	void loggedOutRefreshTokensCannotBeExchanged() {
+		long userId = insertUser();
+		String refreshToken = jwtUtil.generateRefreshToken(userId, "revocation");
+
+		authService.logout(null, refreshToken);
+		assertThrows(ResponseStatusException.class, () -> authService.refresh(refreshToken));
+	}
+
+	@Test
+	void accessTokensAreDeniedOnceTheirRevocationCommits() {
+		long userId = insertUser();
+		Claims rolledBack = jwtUtil.extractAllClaims(jwtUtil.generateToken(userId, "revocation"));
+		transaction.executeWithoutResult(status -> {
+			revocationList.revoke(rolledBack.getId(), userId, rolledBack.getExpiration());
+			status.setRollbackOnly();
+		});
+		assertFalse(revocationList.isRevoked(rolledBack.getId()));
+
+		Claims committed = jwtUtil.extractAllClaims(jwtUtil.generateToken(userId, "revocation"));
+		transaction.executeWithoutResult(status -> {
+			revocationList.revoke(committed.getId(), userId, committed.getExpiration());
+			assertFalse(revocationList.isRevoked(committed.getId()), "not committed yet");
+		});
+		assertTrue(revocationList.isRevoked(committed.getId()));
+	}
+
+	private long insertUser() {
+		String name = "revocation_" + UUID.randomUUID().toString().substring(0, 8);
+		jdbc.update("insert into users (username, email, password, created_at) values (?, ?, ?, localtimestamp)",
+				name, name + "@example.com", "not-a-hash");
+		return jdbc.queryForObject("select id from users where username = ?", Long.class, name);
+	}
+}
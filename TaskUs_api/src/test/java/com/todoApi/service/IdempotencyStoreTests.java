@@ -0,0 +1,60 @@
+package com.todoApi.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.ResponseEntity;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * A running request keeps its key however many responses are stored
+ * meanwhile: its retry waits for it instead of running a second time
+ */
+class IdempotencyStoreTests {
+
+	private final IdempotencyStore store = new IdempotencyStore(1, 10, 3600, 10_000);
+
+	@Test
+	void runningRequestsAreNotEvicted() throws Exception {
+		AtomicInteger runs = new AtomicInteger();
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		CompletableFuture<ResponseEntity<String>> first = CompletableFuture.supplyAsync(() ->
+				store.execute(1L, "slow", "POST /api/todos", () -> {
+					runs.incrementAndGet();
+					started.countDown();
+					await(release);
+					return ResponseEntity.ok("created");
+				}));
+		started.await(10, TimeUnit.SECONDS);
+
+		// Meanwhile the stored responses churn past max-entries
+		store.execute(2L, "a", "POST /api/todos", () -> ResponseEntity.ok("a"));
+		store.execute(2L, "b", "POST /api/todos", () -> ResponseEntity.ok("b"));
+
+		CompletableFuture<ResponseEntity<String>> retry = CompletableFuture.supplyAsync(() ->
+				store.execute(1L, "slow", "POST /api/todos", () -> {
+					runs.incrementAndGet();
+					return ResponseEntity.ok("created again");
+				}));
+		release.countDown();
+
+		assertEquals("created", first.get(10, TimeUnit.SECONDS).getBody());
+		ResponseEntity<String> replayed = retry.get(10, TimeUnit.SECONDS);
+		assertEquals("created", replayed.getBody());
+		assertEquals("true", replayed.getHeaders().getFirst(IdempotencyStore.REPLAYED_HEADER));
+		assertEquals(1, runs.get());
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await(10, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
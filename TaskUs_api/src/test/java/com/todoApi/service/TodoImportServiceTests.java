@@ -0,0 +1,53 @@
+package com.todoApi.service;
+
+import com.todoApi.TodoApiApplication;
+import com.todoApi.dto.ImportSummary;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * An NDJSON line over the 64K bound is rejected on its own - without
+ * being read into memory whole - and the lines around it are imported
+ */
+@SpringBootTest(classes = TodoApiApplication.class)
+class TodoImportServiceTests {
+
+	@Autowired
+	private TodoImportService todoImportService;
+
+	@Autowired
+	private JdbcTemplate jdbc;
+
+	@Test
+	void overlongNdjsonLinesAreRejected() throws Exception {
+		long userId = insertUser();
+		String body = "{\"title\":\"Before\"}\r\n"
+				+ "{\"title\":\"" + "x".repeat(70_000) + "\"}\n"
+				+ "{\"title\":\"After\"}";
+
+		ImportSummary summary = todoImportService.importTodos(userId,
+				new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), TodoImportService.Format.NDJSON);
+
+		assertEquals(2, summary.getAccepted());
+		assertEquals(1, summary.getRejected());
+		assertEquals(2, summary.getErrors().get(0).getLine());
+		assertEquals(List.of("Before", "After"), jdbc.queryForList(
+				"select title from todos where user_id = ? order by position", String.class, userId));
+	}
+
+	private long insertUser() {
+		String name = "import_" + UUID.randomUUID().toString().substring(0, 8);
+		jdbc.update("insert into users (username, email, password, created_at) values (?, ?, ?, localtimestamp)",
+				name, name + "@example.com", "not-a-hash");
+		return jdbc.queryForObject("select id from users where username = ?", Long.class, name);
+	}
+}
@@ -0,0 +1,93 @@
+package com.todoApi.service;
+
+import com.todoApi.TodoApiApplication;
+import com.todoApi.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * A rebalance keeps the list order, and waits for whoever holds the
+ * user's list (a move or create in progress) before rewriting any key
+ */
+@SpringBootTest(classes = TodoApiApplication.class, properties = "app.positions.initial-delay-ms=3600000")
+class TodoPositionRebalancerTests {
+
+	private static final String LONG_KEY = "00001i" + "i".repeat(40);
+
+	@Autowired
+	private TodoPositionRebalancer rebalancer;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private TransactionTemplate transaction;
+
+	@Autowired
+	private JdbcTemplate jdbc;
+
+	@Test
+	void rewritesKeysInListOrderOnceTheListIsFree() throws Exception {
+		long userId = insertUser();
+		insertTodo(userId, "Third", "00003i");
+		insertTodo(userId, "First", LONG_KEY);
+		insertTodo(userId, "Second", "00002i");
+		insertTodo(userId, "Unplaced", null);
+
+		CountDownLatch locked = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		CompletableFuture<Void> move = CompletableFuture.runAsync(() -> transaction.executeWithoutResult(status -> {
+			userRepository.findForUpdateById(userId);
+			locked.countDown();
+			await(release);
+		}));
+		locked.await(10, TimeUnit.SECONDS);
+
+		rebalancer.keyWritten(userId, LONG_KEY);
+		CompletableFuture<Void> rebalance = CompletableFuture.runAsync(rebalancer::rebalance);
+		Thread.sleep(300);
+		assertFalse(rebalance.isDone(), "waits for the user's list");
+		assertEquals(LONG_KEY, jdbc.queryForObject(
+				"select position from todos where user_id = ? and title = 'First'", String.class, userId));
+
+		release.countDown();
+		move.get(10, TimeUnit.SECONDS);
+		rebalance.get(10, TimeUnit.SECONDS);
+		assertEquals(List.of("First:00001i:1", "Second:00002i:1", "Third:00003i:1", "Unplaced:00004i:1"),
+				jdbc.queryForList("select concat(title, ':', position, ':', version) from todos "
+						+ "where user_id = ? order by position", String.class, userId));
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await(10, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private void insertTodo(long userId, String title, String position) {
+		jdbc.update("insert into todos (user_id, title, completed, completion_from_items, position, created_at, "
+				+ "updated_at, version) values (?, ?, false, false, ?, localtimestamp, localtimestamp, 0)",
+				userId, title, position);
+	}
+
+	private long insertUser() {
+		String name = "rebalance_" + UUID.randomUUID().toString().substring(0, 8);
+		jdbc.update("insert into users (username, email, password, created_at) values (?, ?, ?, localtimestamp)",
+				name, name + "@example.com", "not-a-hash");
+		return jdbc.queryForObject("select id from users where username = ?", Long.class, name);
+	}
+}
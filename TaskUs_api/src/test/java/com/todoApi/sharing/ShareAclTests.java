@@ -0,0 +1,58 @@
+package com.todoApi.sharing;
+
+import com.todoApi.TodoApiApplication;
+import com.todoApi.model.SharePermission;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * A share removed by another instance (deleted behind this one's back):
+ * writes through it stop at once, the cached entry goes with the next sync
+ */
+@SpringBootTest(classes = TodoApiApplication.class, properties = "app.sharing.acl.sync-interval-ms=3600000")
+class ShareAclTests {
+
+	@Autowired
+	private ShareAcl shareAcl;
+
+	@Autowired
+	private JdbcTemplate jdbc;
+
+	@Test
+	void unshareElsewhereStopsWritesNowAndReadsWithTheNextSync() {
+		long owner = insertUser("acl_owner");
+		long grantee = insertUser("acl_grantee");
+		jdbc.update("insert into todo_shares (owner_id, grantee_id, permission, created_at, updated_at) " +
+				"values (?, ?, 'WRITE', localtimestamp, localtimestamp)", owner, grantee);
+		assertEquals(SharePermission.WRITE, shareAcl.permission(grantee, owner));
+
+		// Another instance unshares: the row goes and a share change is recorded
+		jdbc.update("delete from todo_shares where owner_id = ? and grantee_id = ?", owner, grantee);
+		jdbc.update("insert into share_changes (grantee_id, changed_at) values (?, localtimestamp)", grantee);
+		assertNull(shareAcl.currentPermission(grantee, owner), "writes ask the database");
+
+		// The disagreeing entry was dropped; without that the sync takes care of it
+		jdbc.update("insert into todo_shares (owner_id, grantee_id, permission, created_at, updated_at) " +
+				"values (?, ?, 'READ', localtimestamp, localtimestamp)", owner, grantee);
+		assertEquals(SharePermission.READ, shareAcl.permission(grantee, owner));
+		jdbc.update("delete from todo_shares where owner_id = ? and grantee_id = ?", owner, grantee);
+		jdbc.update("insert into share_changes (grantee_id, changed_at) values (?, localtimestamp)", grantee);
+		assertEquals(SharePermission.READ, shareAcl.permission(grantee, owner), "cached until the next sync");
+		shareAcl.sync();
+		assertNull(shareAcl.permission(grantee, owner));
+	}
+
+	private long insertUser(String name) {
+		String username = name + "_" + UUID.randomUUID().toString().substring(0, 8);
+		jdbc.update("insert into users (username, email, password, created_at) values (?, ?, ?, localtimestamp)",
+				username, username + "@example.com", "not-a-hash");
+		return jdbc.queryForObject("select id from users where username = ?", Long.class, username);
+	}
+}
@@ -0,0 +1,154 @@
+package com.todoApi.sqlbudget;
+
+import com.todoApi.TodoApiApplication;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.env.Environment;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.ObjectMapper;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Drives the todo endpoints over HTTP with strict statement budgets on.
+ * Fails if any endpoint runs more SQL than its @StatementBudget allows
+ * or repeats a statement like an N+1 query.
+ */
+@SpringBootTest(classes = TodoApiApplication.class, webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class StatementBudgetTests {
+
+	@Autowired
+	private Environment environment;
+
+	@Autowired
+	private StatementBudgetFilter statementBudgetFilter;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	private final HttpClient http = HttpClient.newHttpClient();
+
+	@Test
+	void todoEndpointsStayWithinTheirBudgets() throws Exception {
+		JsonNode auth = send("POST", "/api/auth/register", null,
+				"{\"username\":\"budget_user\",\"email\":\"budget@example.com\",\"password\":\"password123\"}", 201);
+		String token = auth.get("token").asString();
+
+		JsonNode available = send("GET", "/api/auth/available?username=budget_user&email=free@example.com", null, null, 200);
+		assertFalse(available.get("username").asBoolean());
+		assertTrue(available.get("email").asBoolean());
+
+		for (int i = 0; i < 20; i++) {
+			send("POST", "/api/todos", token, "{\"title\":\"Todo " + i + "\"}", 201);
+		}
+		JsonNode todos = send("GET", "/api/todos", token, null, 200);
+		assertEquals(20, todos.size());
+
+		send("POST", "/api/todos", token, "{\"title\":\"Tagged\",\"tags\":[\"Work\",\"urgent\"]}", 201);
+		JsonNode tagged = send("GET", "/api/todos?tags=work,urgent%7Chome", token, null, 200);
+		assertEquals(1, tagged.size());
+		assertEquals(0, send("GET", "/api/todos?tags=work&completed=true", token, null, 200).size());
+		JsonNode page = send("GET", "/api/todos?q=completed:false,title:todo&sort=created:desc&size=5", token, null, 200);
+		assertEquals(5, page.size());
+		assertEquals(21, send("GET", "/api/todos?includeArchived=true", token, null, 200).size());
+		assertEquals(0, send("GET", "/api/todos/archive", token, null, 200).size());
+
+		long id = todos.get(0).get("id").asLong();
+		send("GET", "/api/todos/" + id, token, null, 200);
+		JsonNode lookup = send("POST", "/api/todos/lookup", token,
+				"{\"ids\":[999999," + id + "," + todos.get(1).get("id").asLong() + "," + id + "]}", 200);
+		assertEquals(2, lookup.get("todos").size());
+		assertEquals(id, lookup.get("todos").get(0).get("id").asLong());
+		assertEquals(999999, lookup.get("missing").get(0).asLong());
+		send("PATCH", "/api/todos/" + id, token, "{\"title\":\"Renamed\"}", 200);
+		send("PATCH", "/api/todos/" + id + "/toggle", token, null, 200);
+		send("GET", "/api/todos/count", token, null, 200);
+		JsonNode stats = send("GET", "/api/todos/stats", token, null, 200);
+		assertEquals(21, stats.get("created").asLong());
+		assertEquals(1, stats.get("completed").asLong());
+
+		// Checklist items: embedded in the list with one query, however many todos have them
+		JsonNode checklist = send("POST", "/api/todos", token,
+				"{\"title\":\"Checklist\",\"completionFromItems\":true}", 201);
+		long checklistId = checklist.get("id").asLong();
+		for (int i = 0; i < 12; i++) {
+			long todoId = i < 3 ? checklistId : todos.get(i).get("id").asLong();
+			send("POST", "/api/todos/" + todoId + "/items", token, "{\"title\":\"Item " + i + "\"}", 201);
+		}
+		JsonNode withItems = send("GET", "/api/todos?include=items", token, null, 200);
+		assertEquals(22, withItems.size());
+		assertEquals(1, withItems.get(3).get("items").size());
+		assertEquals(0, withItems.get(15).get("items").size());
+		assertEquals(3, withItems.get(21).get("items").size());
+		assertEquals(5, send("GET", "/api/todos?q=completed:false&size=5&include=items", token, null, 200).size());
+		JsonNode items = send("GET", "/api/todos/" + checklistId + "/items", token, null, 200);
+		for (JsonNode item : items) {
+			send("PATCH", "/api/todos/" + checklistId + "/items/" + item.get("id").asLong(), token,
+					"{\"done\":true}", 200);
+		}
+		assertTrue(send("GET", "/api/todos/" + checklistId, token, null, 200).get("completed").asBoolean());
+		send("DELETE", "/api/todos/" + checklistId, token, null, 204);
+
+		send("DELETE", "/api/todos/" + id, token, null, 204);
+
+		assertTrue(statementBudgetFilter.violations().isEmpty(),
+				() -> "SQL budget violations: " + statementBudgetFilter.violations());
+	}
+
+	@Test
+	void sharedTodosStayWithinTheirBudgets() throws Exception {
+		String owner = send("POST", "/api/auth/register", null,
+				"{\"username\":\"share_owner\",\"email\":\"share_owner@example.com\",\"password\":\"password123\"}", 201)
+				.get("token").asString();
+		String reader = send("POST", "/api/auth/register", null,
+				"{\"username\":\"share_reader\",\"email\":\"share_reader@example.com\",\"password\":\"password123\"}", 201)
+				.get("token").asString();
+
+		long sharedId = send("POST", "/api/todos", owner, "{\"title\":\"Shared\"}", 201).get("id").asLong();
+		send("POST", "/api/todos", reader, "{\"title\":\"Own\"}", 201);
+
+		send("PUT", "/api/shares/share_reader", owner, "{\"permission\":\"READ\"}", 200);
+		JsonNode merged = send("GET", "/api/todos?includeShared=true", reader, null, 200);
+		assertEquals(2, merged.size());
+		assertEquals("Own", merged.get(0).get("title").asString());
+		assertEquals("share_owner", merged.get(1).get("sharedBy").get("ownerUsername").asString());
+		send("GET", "/api/todos/" + sharedId, reader, null, 200);
+		send("PATCH", "/api/todos/" + sharedId, reader, "{\"title\":\"Edited\"}", 403);
+
+		// A changed share takes effect on the next request
+		send("PUT", "/api/shares/share_reader", owner, "{\"permission\":\"WRITE\"}", 200);
+		send("PATCH", "/api/todos/" + sharedId, reader, "{\"title\":\"Edited\"}", 200);
+		assertEquals(1, send("GET", "/api/shares/received", reader, null, 200).size());
+
+		send("DELETE", "/api/shares/share_reader", owner, null, 204);
+		assertEquals(1, send("GET", "/api/todos?includeShared=true", reader, null, 200).size());
+
+		assertTrue(statementBudgetFilter.violations().isEmpty(),
+				() -> "SQL budget violations: " + statementBudgetFilter.violations());
+	}
+
+	private JsonNode send(String method, String path, String token, String json, int expectedStatus)
+			throws Exception {
+		HttpRequest.Builder request = HttpRequest.newBuilder()
+				.uri(URI.create("http://localhost:" + environment.getProperty("local.server.port") + path))
+				.method(method, json == null
+						? HttpRequest.BodyPublishers.noBody()
+						: HttpRequest.BodyPublishers.ofString(json))
+				.header("Content-Type", "application/json");
+		if (token != null) {
+			request.header("Authorization", "Bearer " + token);
+		}
+
+		HttpResponse<String> response = http.send(request.build(), HttpResponse.BodyHandlers.ofString());
+		assertEquals(expectedStatus, response.statusCode(), () -> method + " " + path + ": " + response.body());
+		return response.body().isEmpty() ? null : objectMapper.readTree(response.body());
+	}
+}
@@ -0,0 +1,116 @@
+package com.todoApi.tags;
+
+import com.todoApi.TodoApiApplication;
+import com.todoApi.model.Todo;
+import com.todoApi.query.TodoQuery;
+import com.todoApi.query.TodoQueryService;
+import com.todoApi.service.PositionKeys;
+import com.todoApi.service.TodoService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Slice;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Todos written by another instance (inserted behind this one's back)
+ * are matched here after the next sync; large match sets come back
+ * complete and in manual order, or paged in the query's order
+ */
+@SpringBootTest(classes = TodoApiApplication.class, properties = "app.tags.index.sync-interval-ms=3600000")
+class TagIndexTests {
+
+	@Autowired
+	private TagIndex tagIndex;
+
+	@Autowired
+	private TodoService todoService;
+
+	@Autowired
+	private TodoQueryService todoQueryService;
+
+	@Autowired
+	private JdbcTemplate jdbc;
+
+	@Test
+	void syncPicksUpTodosWrittenElsewhere() {
+		long userId = insertUser();
+		long first = insertTodo(userId, 0, "work");
+		assertEquals(List.of(first), tagIndex.match(userId, TagFilter.parse("work"), null));
+
+		// Another instance adds a todo and retags the first one
+		long second = insertTodo(userId, 1, "work");
+		jdbc.update("update todo_tags set tag = 'home' where todo_id = ?", first);
+		jdbc.update("update todos set updated_at = localtimestamp, version = version + 1 where id = ?", first);
+		assertEquals(List.of(first), tagIndex.match(userId, TagFilter.parse("work"), null), "not synced yet");
+
+		tagIndex.sync();
+		assertEquals(List.of(second), tagIndex.match(userId, TagFilter.parse("work"), null));
+		assertEquals(List.of(first), tagIndex.match(userId, TagFilter.parse("home"), null));
+	}
+
+	@Test
+	void largeMatchSetsAreLoadedByIdInManualOrder() {
+		long userId = insertManyTodos();
+
+		List<Long> expected = jdbc.queryForList(
+				"select id from todos where user_id = ? and id % 2 = 0 order by position", Long.class, userId);
+		List<Todo> matched = todoService.getTodosByTags(userId, TagFilter.parse("bulk"), null);
+		assertEquals(expected, matched.stream().map(Todo::getId).toList());
+	}
+
+	@Test
+	void largeMatchSetsArePagedInQueryOrder() {
+		long userId = insertManyTodos();
+
+		List<Long> expected = jdbc.queryForList(
+				"select id from todos where user_id = ? and id % 2 = 0 order by title desc, id", Long.class, userId);
+		TodoQuery query = TodoQuery.parse("title:Todo", "title:desc");
+		Slice<Todo> second = todoQueryService.find(userId, query, TagFilter.parse("bulk"), 1, 100);
+		assertEquals(expected.subList(100, 200), second.getContent().stream().map(Todo::getId).toList());
+		assertEquals(true, second.hasNext());
+
+		Slice<Todo> last = todoQueryService.find(userId, query, TagFilter.parse("bulk"), 12, 100);
+		assertEquals(expected.subList(1200, 1250), last.getContent().stream().map(Todo::getId).toList());
+		assertEquals(false, last.hasNext());
+	}
+
+	/** 2500 todos, every other one (1250 of them, even ids) tagged "bulk" */
+	private long insertManyTodos() {
+		long userId = insertUser();
+		List<Object[]> todos = new ArrayList<>();
+		for (int i = 0; i < 2500; i++) {
+			// Ids and positions in opposite order: the chunks come back out of order
+			todos.add(new Object[] { userId, "Todo " + i, PositionKeys.nth(2500 - i) });
+		}
+		jdbc.batchUpdate("insert into todos (user_id, title, completed, completion_from_items, position, "
+				+ "created_at, updated_at, version) values (?, ?, false, false, ?, localtimestamp, localtimestamp, 0)",
+				todos);
+		jdbc.update("insert into todo_tags (todo_id, tag) select id, 'bulk' from todos where user_id = ? and id % 2 = 0",
+				userId);
+		return userId;
+	}
+
+	private long insertUser() {
+		String name = "tags_" + UUID.randomUUID().toString().substring(0, 8);
+		jdbc.update("insert into users (username, email, password, created_at) values (?, ?, ?, localtimestamp)",
+				name, name + "@example.com", "not-a-hash");
+		return jdbc.queryForObject("select id from users where username = ?", Long.class, name);
+	}
+
+	private long insertTodo(long userId, int position, String tag) {
+		String title = "tagged " + UUID.randomUUID();
+		jdbc.update("insert into todos (user_id, title, completed, completion_from_items, position, created_at, "
+				+ "updated_at, version) values (?, ?, false, false, ?, localtimestamp, localtimestamp, 0)",
+				userId, title, PositionKeys.nth(position));
+		long id = jdbc.queryForObject("select id from todos where title = ?", Long.class, title);
+		jdbc.update("insert into todo_tags (todo_id, tag) values (?, ?)", id, tag);
+		return id;
+	}
+}
@@ -0,0 +1,61 @@
+package com.todoApi.warmup;
+
+import com.todoApi.TodoApiApplication;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * The warm-up leaves nothing behind: its own scratch user is removed
+ * with everything it created, and so are the scratch users of earlier
+ * warm-ups that were killed - but not one young enough to belong to
+ * another instance still warming up
+ */
+@SpringBootTest(classes = TodoApiApplication.class, webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+		properties = {
+				"app.warmup.enabled=true",
+				"app.warmup.iterations=5",
+				"app.warmup.timeout-seconds=60" })
+class WarmUpRunnerTests {
+
+	@Autowired
+	private WarmUpRunner warmUpRunner;
+
+	@Autowired
+	private JdbcTemplate jdbc;
+
+	@Test
+	void removesItsScratchUsersAndTheirTodos() throws Exception {
+		assertEquals(List.of(), scratchUsers(), "the startup warm-up cleaned up after itself");
+		assertEquals(0, jdbc.queryForObject(
+				"select count(*) from todos t where not exists (select 1 from users u where u.id = t.user_id)",
+				Long.class));
+
+		long killed = insertScratchUser("warmup_killed", LocalDateTime.now().minusHours(1));
+		jdbc.update("insert into todos (user_id, title, completed, completion_from_items, position, created_at, "
+				+ "updated_at, version) values (?, 'Warm-up 0', false, false, '00001i', localtimestamp, localtimestamp, 0)",
+				killed);
+		insertScratchUser("warmup_running", LocalDateTime.now());
+
+		warmUpRunner.run(null);
+		assertEquals(List.of("warmup_running"), scratchUsers());
+		assertEquals(0, jdbc.queryForObject("select count(*) from todos where user_id = ?", Long.class, killed));
+	}
+
+	private List<String> scratchUsers() {
+		return jdbc.queryForList("select username from users where email like '%@warmup.invalid'", String.class);
+	}
+
+	private long insertScratchUser(String name, LocalDateTime createdAt) {
+		jdbc.update("insert into users (username, email, password, created_at) values (?, ?, ?, ?)",
+				name, name + "@warmup.invalid", "not-a-hash", Timestamp.valueOf(createdAt));
+		return jdbc.queryForObject("select id from users where username = ?", Long.class, name);
+	}
+}
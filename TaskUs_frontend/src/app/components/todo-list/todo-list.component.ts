@@ -21,9 +21,11 @@ import { AddTodoModalComponent } from '../add-todo-modal/add-todo-modal.componen
   styleUrls: ['./todo-list.component.css']
 })
 export class TodoListComponent implements OnInit {
-  todos: Todo[] = [];
   filteredTodos: Todo[] = [];
   activeFilter = 'all';
+  page = 0;
+  hasMore = false;
+  readonly pageSize = 50;
   showAddModal = false;
   editingTodo: Todo | null = null;
   editTitle = '';
@@ -35,11 +37,27 @@ export class TodoListComponent implements OnInit {
     this.loadTodos();
   }
 
+  /** Reload from the first page (after a change or a new filter) */
   loadTodos(): void {
-    this.todoService.getAllTodos().subscribe({
-      next: (todos) => {
-        this.todos = todos;
-        this.applyFilter();
+    this.page = 0;
+    this.fetchPage(false);
+  }
+
+  loadMore(): void {
+    this.page++;
+    this.fetchPage(true);
+  }
+
+  /** The server filters and pages - only the visible todos are downloaded */
+  private fetchPage(append: boolean): void {
+    this.todoService.queryTodos({
+      q: this.filterQuery(),
+      page: this.page,
+      size: this.pageSize
+    }).subscribe({
+      next: (result) => {
+        this.filteredTodos = append ? [...this.filteredTodos, ...result.todos] : result.todos;
+        this.hasMore = result.hasMore;
       },
       error: (error) => {
         console.error('Error loading todos:', error);
@@ -47,19 +65,18 @@ export class TodoListComponent implements OnInit {
     });
   }
 
-  applyFilter(): void {
-    if (this.activeFilter === 'all') {
-      this.filteredTodos = this.todos;
-    } else if (this.activeFilter === 'active') {
-      this.filteredTodos = this.todos.filter(t => !t.completed);
+  private filterQuery(): string | undefined {
+    if (this.activeFilter === 'active') {
+      return 'completed:false';
     } else if (this.activeFilter === 'completed') {
-      this.filteredTodos = this.todos.filter(t => t.completed);
+      return 'completed:true';
     }
+    return undefined;
   }
 
   onFilterChange(filter: string): void {
     this.activeFilter = filter;
-    this.applyFilter();
+    this.loadTodos();
   }
 
   openAddModal(): void {
@@ -79,11 +96,7 @@ export class TodoListComponent implements OnInit {
     next: (newTodo) => {
       console.log('Todo created:', newTodo);
       
-      // Manually add to the list immediately
-      this.todos = [...this.todos, newTodo];
-      this.applyFilter();
-      
-      // Also reload from server to be sure
+      // Reload the first page from the server
       this.loadTodos();
       
       this.closeAddModal();
@@ -0,0 +1,28 @@
+import { inject } from '@angular/core';
+import { HttpErrorResponse, HttpInterceptorFn } from '@angular/common/http';
+import { catchError, switchMap, throwError } from 'rxjs';
+import { AuthService } from '../services/auth.service';
+
+// Access tokens are short-lived: on 401/403, refresh once and retry the request
+export const authRefreshInterceptor: HttpInterceptorFn = (req, next) => {
+  const authService = inject(AuthService);
+
+  return next(req).pipe(
+    catchError((error: HttpErrorResponse) => {
+      const expired = error.status === 401 || error.status === 403;
+      if (!expired || req.url.includes('/api/auth/') || !authService.currentUserValue?.refreshToken) {
+        return throwError(() => error);
+      }
+
+      return authService.refresh().pipe(
+        switchMap(response => next(req.clone({
+          setHeaders: { 'Authorization': `Bearer ${response.token}` }
+        }))),
+        catchError(refreshError => {
+          authService.logout();
+          return throwError(() => refreshError);
+        })
+      );
+    })
+  );
+};
@@ -1,5 +1,6 @@
 export interface AuthResponse {
   token: string;
+  refreshToken: string;
   userId: number;
   username: string;
   email: string;
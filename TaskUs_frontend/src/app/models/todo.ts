@@ -8,4 +8,17 @@ export interface Todo {
   createdAt: string;
   updatedAt: string;
   user?: User;
+}
+
+/** Parameters for a server-side filtered, sorted and paged list */
+export interface TodoQuery {
+  q?: string;
+  sort?: string;
+  page?: number;
+  size?: number;
+}
+
+export interface TodoPage {
+  todos: Todo[];
+  hasMore: boolean;
 }
\ No newline at end of file
@@ -1,7 +1,7 @@
 import { Injectable } from '@angular/core';
 import { HttpClient } from '@angular/common/http';
 import { Observable, BehaviorSubject } from 'rxjs';
-import { tap } from 'rxjs/operators';
+import { finalize, shareReplay, tap } from 'rxjs/operators';
 import { AuthResponse } from '../models/auth-response';
 import { Router } from '@angular/router';
 import { environment } from '../../environments/environment';
@@ -13,6 +13,7 @@ export class AuthService {
   private apiUrl = `${environment.apiUrl}/api/auth`;
   private currentUserSubject: BehaviorSubject<AuthResponse | null>;
   public currentUser: Observable<AuthResponse | null>;
+  private refreshInFlight: Observable<AuthResponse> | null = null;
 
   constructor(private http: HttpClient, private router: Router) {
     const storedUser = localStorage.getItem('currentUser');
@@ -51,7 +52,31 @@ export class AuthService {
     );
   }
 
+  // Refresh tokens are single-use, so concurrent 401s must share one refresh call
+  refresh(): Observable<AuthResponse> {
+    if (!this.refreshInFlight) {
+      this.refreshInFlight = this.http.post<AuthResponse>(`${this.apiUrl}/refresh`, {
+        refreshToken: this.currentUserValue?.refreshToken
+      }).pipe(
+        tap(response => {
+          localStorage.setItem('currentUser', JSON.stringify(response));
+          this.currentUserSubject.next(response);
+        }),
+        finalize(() => this.refreshInFlight = null),
+        shareReplay(1)
+      );
+    }
+    return this.refreshInFlight;
+  }
+
   logout(): void {
+    const user = this.currentUserValue;
+    if (user) {
+      // Revoke both tokens server-side; the local session ends regardless of the result
+      this.http.post(`${this.apiUrl}/logout`, { refreshToken: user.refreshToken }, {
+        headers: { 'Authorization': `Bearer ${user.token}` }
+      }).subscribe({ error: () => {} });
+    }
     localStorage.removeItem('currentUser');
     this.currentUserSubject.next(null);
     this.router.navigate(['/login']);
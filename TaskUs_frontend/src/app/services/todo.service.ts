@@ -1,8 +1,8 @@
 import { Injectable } from '@angular/core';
-import { HttpClient, HttpHeaders } from '@angular/common/http';
+import { HttpClient, HttpHeaders, HttpParams } from '@angular/common/http';
 import { Observable, BehaviorSubject } from 'rxjs';
-import { tap } from 'rxjs/operators';
-import { Todo } from '../models/todo';
+import { map, tap } from 'rxjs/operators';
+import { Todo, TodoPage, TodoQuery } from '../models/todo';
 import { AuthService } from './auth.service';
 import { environment } from '../../environments/environment';
 
@@ -39,6 +39,33 @@ export class TodoService {
     });
   }
 
+  /**
+   * One page of todos, filtered and sorted by the server
+   * q/sort use the API's query syntax, e.g. q: 'completed:false', sort: 'created:desc'
+   */
+  queryTodos(query: TodoQuery): Observable<TodoPage> {
+    let params = new HttpParams()
+      .set('page', query.page ?? 0)
+      .set('size', query.size ?? 50);
+    if (query.q) {
+      params = params.set('q', query.q);
+    }
+    if (query.sort) {
+      params = params.set('sort', query.sort);
+    }
+
+    return this.http.get<Todo[]>(this.apiUrl, {
+      headers: this.getHeaders(),
+      params,
+      observe: 'response'
+    }).pipe(
+      map(response => ({
+        todos: response.body ?? [],
+        hasMore: response.headers.get('X-Has-More') === 'true'
+      }))
+    );
+  }
+
   getCompletedTodos(): Observable<Todo[]> {
     return this.http.get<Todo[]>(`${this.apiUrl}?completed=true`, {
       headers: this.getHeaders()